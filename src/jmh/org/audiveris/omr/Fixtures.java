@@ -0,0 +1,169 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                         F i x t u r e s                                        //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr;
+
+import ij.process.ByteProcessor;
+
+import org.audiveris.omr.glyph.Glyph;
+import org.audiveris.omr.glyph.GlyphFactory;
+import org.audiveris.omr.image.AdaptiveDescriptor;
+import org.audiveris.omr.run.Orientation;
+import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.run.RunTableFactory;
+
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Class {@code Fixtures} provides benchmark inputs, derived from the images in
+ * data/examples folder.
+ *
+ * @author Hervé Bitteur
+ */
+public abstract class Fixtures
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    /** Images used as default benchmark parameters. */
+    public static final String CHULA = "chula.png";
+
+    public static final String ALLEGRETTO = "allegretto.png";
+
+    /** Interline value shared by the default images. */
+    public static final int INTERLINE = 21;
+
+    /** Minimum weight for a glyph to be a classification candidate. */
+    private static final int MIN_GLYPH_WEIGHT = 10;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    private Fixtures ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------------//
+    // binaryImage //
+    //-------------//
+    /**
+     * Binarize the provided example image, using the default adaptive filter.
+     *
+     * @param name image name in examples folder
+     * @return the binary image
+     * @throws IOException if image cannot be read
+     */
+    public static ByteProcessor binaryImage (String name)
+            throws IOException
+    {
+        return AdaptiveDescriptor.getDefault().getFilter(grayImage(name)).filteredImage();
+    }
+
+    //-------------//
+    // binaryTable //
+    //-------------//
+    /**
+     * Build the vertical table of foreground runs of the provided example image.
+     *
+     * @param name image name in examples folder
+     * @return the binary run table
+     * @throws IOException if image cannot be read
+     */
+    public static RunTable binaryTable (String name)
+            throws IOException
+    {
+        return new RunTableFactory(Orientation.VERTICAL).createTable(binaryImage(name));
+    }
+
+    //--------//
+    // glyphs //
+    //--------//
+    /**
+     * Build the glyphs of the provided example image, ignoring the tiny ones.
+     *
+     * @param name image name in examples folder
+     * @return the glyphs
+     * @throws IOException if image cannot be read
+     */
+    public static List<Glyph> glyphs (String name)
+            throws IOException
+    {
+        final List<Glyph> glyphs = new ArrayList<Glyph>();
+
+        for (Glyph glyph : GlyphFactory.buildGlyphs(binaryTable(name), new Point(0, 0))) {
+            if (glyph.getWeight() >= MIN_GLYPH_WEIGHT) {
+                glyphs.add(glyph);
+            }
+        }
+
+        return glyphs;
+    }
+
+    //-----------//
+    // grayImage //
+    //-----------//
+    /**
+     * Read the provided example image as a gray image.
+     *
+     * @param name image name in examples folder
+     * @return the gray image
+     * @throws IOException if image cannot be read
+     */
+    public static ByteProcessor grayImage (String name)
+            throws IOException
+    {
+        final BufferedImage img = ImageIO.read(getPath(name).toFile());
+
+        if (img == null) {
+            throw new IOException("No image read from " + name);
+        }
+
+        final BufferedImage gray = new BufferedImage(
+                img.getWidth(),
+                img.getHeight(),
+                BufferedImage.TYPE_BYTE_GRAY);
+        final Graphics2D g = gray.createGraphics();
+        g.drawImage(img, 0, 0, null);
+        g.dispose();
+
+        return new ByteProcessor(gray);
+    }
+
+    //---------//
+    // getPath //
+    //---------//
+    /**
+     * Report the path to the provided example image.
+     *
+     * @param name image name in examples folder
+     * @return the image path
+     */
+    public static Path getPath (String name)
+    {
+        return WellKnowns.EXAMPLES_FOLDER.resolve(name);
+    }
+}
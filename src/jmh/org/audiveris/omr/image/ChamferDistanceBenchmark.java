@@ -0,0 +1,83 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                         C h a m f e r D i s t a n c e B e n c h m a r k                        //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import org.audiveris.omr.Fixtures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class {@code ChamferDistanceBenchmark} measures the computation of distances to
+ * foreground on a binary image, via chamfer masks and via the separable transform.
+ *
+ * @author Hervé Bitteur
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ChamferDistanceBenchmark
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    @Param({Fixtures.CHULA, Fixtures.ALLEGRETTO})
+    public String image;
+
+    private ByteProcessor binary;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Benchmark
+    public DistanceTable computeToFore ()
+    {
+        return new ChamferDistance.Short().computeToFore(binary);
+    }
+
+    @Benchmark
+    public DistanceTable separableToFore ()
+    {
+        return new SeparableDistance().computeToFore(binary);
+    }
+
+    @Setup
+    public void setup ()
+            throws IOException
+    {
+        binary = Fixtures.binaryImage(image);
+    }
+}
@@ -0,0 +1,108 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                        T e m p l a t e M a t c h i n g B e n c h m a r k                       //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import org.audiveris.omr.Fixtures;
+import org.audiveris.omr.glyph.Shape;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class {@code TemplateMatchingBenchmark} measures the evaluation of a head template on
+ * the distance table of an image.
+ *
+ * @author Hervé Bitteur
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TemplateMatchingBenchmark
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    /** Side of the square window scanned by plain template evaluation. */
+    private static final int WINDOW = 200;
+
+    /** Maximum matching distance, as used for head retrieval. */
+    private static final double MAX_DISTANCE = 1.75;
+
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    @Param({Fixtures.CHULA, Fixtures.ALLEGRETTO})
+    public String image;
+
+    @Param({"NOTEHEAD_BLACK", "NOTEHEAD_VOID"})
+    public String shape;
+
+    private DistanceTable distances;
+
+    private Template template;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Benchmark
+    public double evaluateWindow ()
+    {
+        final int x0 = (distances.getWidth() - WINDOW) / 2;
+        final int y0 = (distances.getHeight() - WINDOW) / 2;
+        double sum = 0;
+
+        for (int x = x0; x < (x0 + WINDOW); x++) {
+            for (int y = y0; y < (y0 + WINDOW); y++) {
+                sum += template.evaluate(x, y, null, distances);
+            }
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    public List<PixelDistance> matchAll ()
+    {
+        return new DistanceMatching(distances).matchAll(template, MAX_DISTANCE);
+    }
+
+    @Setup
+    public void setup ()
+            throws IOException
+    {
+        distances = new ChamferDistance.Short().computeToFore(Fixtures.binaryImage(image));
+        template = TemplateFactory.getInstance().getCatalog(Fixtures.INTERLINE)
+                .getTemplate(Shape.valueOf(shape));
+    }
+}
@@ -0,0 +1,105 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                            A R T E x t r a c t o r B e n c h m a r k                           //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.moments;
+
+import org.audiveris.omr.Fixtures;
+import org.audiveris.omr.glyph.Glyph;
+import org.audiveris.omr.math.PointsCollector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class {@code ARTExtractorBenchmark} measures the extraction of ART moments for all
+ * glyphs of an image, using either the basic or the fast extractor.
+ *
+ * @author Hervé Bitteur
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ARTExtractorBenchmark
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    @Param({Fixtures.CHULA, Fixtures.ALLEGRETTO})
+    public String image;
+
+    /** Foreground points of each glyph. */
+    private final List<PointsCollector> collectors = new ArrayList<PointsCollector>();
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Benchmark
+    public ARTMoments basic ()
+    {
+        return extractAll(new BasicARTExtractor());
+    }
+
+    @Benchmark
+    public ARTMoments fast ()
+    {
+        return extractAll(new FastARTExtractor());
+    }
+
+    @Setup
+    public void setup ()
+            throws IOException
+    {
+        collectors.clear();
+
+        for (Glyph glyph : Fixtures.glyphs(image)) {
+            final PointsCollector collector = new PointsCollector(null, glyph.getWeight());
+            glyph.getRunTable().cumulate(collector, null);
+            collectors.add(collector);
+        }
+    }
+
+    private ARTMoments extractAll (MomentsExtractor<ARTMoments> extractor)
+    {
+        ARTMoments moments = null;
+
+        for (PointsCollector collector : collectors) {
+            moments = new BasicARTMoments();
+            extractor.setDescriptor(moments);
+            extractor.extract(collector.getXValues(), collector.getYValues(), collector.getSize());
+        }
+
+        return moments;
+    }
+}
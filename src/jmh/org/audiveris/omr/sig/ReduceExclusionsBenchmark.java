@@ -0,0 +1,118 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                        R e d u c e E x c l u s i o n s B e n c h m a r k                       //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sig;
+
+import org.audiveris.omr.Fixtures;
+import org.audiveris.omr.OMR;
+import org.audiveris.omr.sheet.BasicBook;
+import org.audiveris.omr.sheet.Book;
+import org.audiveris.omr.sheet.SheetStub;
+import org.audiveris.omr.sheet.SystemInfo;
+import org.audiveris.omr.step.Step;
+import org.audiveris.omr.util.FileUtil;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class {@code ReduceExclusionsBenchmark} measures the reduction of exclusions in all
+ * systems of a sheet, as populated by the steps up to STEMS.
+ * <p>
+ * Since reduction modifies the SIGs, sheet is processed again before each invocation.
+ *
+ * @author Hervé Bitteur
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ReduceExclusionsBenchmark
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    @Param({Fixtures.CHULA, Fixtures.ALLEGRETTO})
+    public String image;
+
+    private SheetStub stub;
+
+    /** Temporary folder for book file. */
+    private Path folder;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Setup(Level.Invocation)
+    public void process ()
+    {
+        if (!stub.reachStep(Step.STEMS, true)) {
+            throw new IllegalStateException("Could not reach STEMS on " + image);
+        }
+    }
+
+    @Benchmark
+    public int reduceExclusions ()
+    {
+        int removed = 0;
+
+        for (SystemInfo system : stub.getSheet().getSystems()) {
+            removed += system.getSig().reduceExclusions().size();
+        }
+
+        return removed;
+    }
+
+    @Setup(Level.Trial)
+    public void setup ()
+            throws IOException
+    {
+        final Book book = new BasicBook(Fixtures.getPath(image));
+        book.createStubs(null);
+
+        // Sheet processing needs a book file, let's keep it out of regular output
+        folder = Files.createTempDirectory("bench-");
+        book.store(folder.resolve(book.getRadix() + OMR.BOOK_EXTENSION), false);
+        stub = book.getStubs().get(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown ()
+            throws IOException
+    {
+        FileUtil.deleteDirectory(folder);
+    }
+}
@@ -31,6 +31,7 @@ import org.audiveris.omr.sheet.BookManager;
 import org.audiveris.omr.step.ProcessingCancellationException;
 import org.audiveris.omr.step.RunClass;
 import org.audiveris.omr.step.Step;
+import org.audiveris.omr.step.StepMetrics;
 import org.audiveris.omr.util.Dumping;
 import org.audiveris.omr.util.FileUtil;
 
@@ -89,6 +90,9 @@ import java.util.concurrent.Callable;
  * <dt><b>-help</b></dt>
  * <dd>Displays general help then stops</dd>
  *
+ * <dt><b>-metrics</b></dt>
+ * <dd>Records step performance metrics, exported as a CSV file per book in batch mode</dd>
+ *
  * <dt><b>-option KEY=VALUE</b></dt>
  * <dd>Defines an application constant (that could also be set via the pull-down menu
  * "Tools|Options" in the GUI)</dd>
@@ -331,6 +335,19 @@ public class CLI
         return params.batchMode;
     }
 
+    //-----------//
+    // isMetrics //
+    //-----------//
+    /**
+     * Report whether step metrics are to be recorded.
+     *
+     * @return true for metrics
+     */
+    public boolean isMetrics ()
+    {
+        return params.metrics;
+    }
+
     //------------------//
     // printCommandLine //
     //------------------//
@@ -603,6 +620,10 @@ public class CLI
         @Option(name = "-force", usage = "Force step reprocessing")
         boolean force;
 
+        /** Step metrics. */
+        @Option(name = "-metrics", usage = "Records step metrics (exported per book in batch)")
+        boolean metrics;
+
         @Option(name = "-run", usage = "Class to run on valid sheets", handler = ClassOptionHandler.class)
         Class runClass;
 
@@ -897,11 +918,17 @@ public class CLI
             } finally {
                 // Close (when in batch mode only)
                 if (OMR.gui == null) {
-                    if (cancelled) {
-                        // Make a backup if needed, then save book "in its current status"
-                        book.store(BookManager.getDefaultBookPath(book), true);
-                    } else {
-                        book.store(BookManager.getDefaultBookPath(book), false);
+                    // If cancelled, make a backup if needed, then save book "in its current status"
+                    // Sheets are saved in parallel, but we wait for completion before closing
+                    try {
+                        book.storeAsync(BookManager.getDefaultBookPath(book), cancelled).get();
+                    } catch (Exception ex) {
+                        logger.warn("Error saving {} {}", book, ex.toString(), ex);
+                    }
+
+                    // Step metrics?
+                    if (StepMetrics.isEnabled()) {
+                        StepMetrics.export(book, folder);
                     }
 
                     book.close();
@@ -27,10 +27,15 @@ import org.audiveris.omr.constant.Constant;
 import org.audiveris.omr.constant.ConstantManager;
 import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.log.LogUtil;
+import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.sheet.BasicBook;
+import org.audiveris.omr.sheet.BasicSheet;
 import org.audiveris.omr.sheet.BookManager;
+import org.audiveris.omr.step.StepMetrics;
 import org.audiveris.omr.text.tesseract.TesseractOCR;
 import org.audiveris.omr.ui.MainGui;
 import org.audiveris.omr.ui.symbol.MusicFont;
+import org.audiveris.omr.util.JaxbRegistry;
 import org.audiveris.omr.util.OmrExecutors;
 
 import org.jdesktop.application.Application;
@@ -227,6 +232,10 @@ public class Main
     {
         // (re) Open the executor services
         OmrExecutors.restart();
+
+        // Build in background the JAXB contexts needed for book and sheet persistence
+        JaxbRegistry.preload(BasicBook.class, RunTable.class);
+        JaxbRegistry.preload(BasicSheet.class);
     }
 
     //----------//
@@ -265,6 +274,10 @@ public class Main
                 logger.debug("Running in interactive mode");
                 LogUtil.addGuiAppender();
             }
+
+            if (cli.isMetrics()) {
+                StepMetrics.setEnabled(true);
+            }
         } catch (CmdLineException ex) {
             logger.warn("Error in command line: {}", ex.getLocalizedMessage(), ex);
             logger.warn("Exiting ...");
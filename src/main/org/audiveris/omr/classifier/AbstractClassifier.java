@@ -128,6 +128,48 @@ public abstract class AbstractClassifier<M extends Object>
         return evaluate(glyph, system, count, minGrade, conditions, interline);
     }
 
+    //----------//
+    // evaluate //
+    //----------//
+    @Override
+    public List<Evaluation[]> evaluate (List<? extends Glyph> glyphs,
+                                        SystemInfo system,
+                                        int count,
+                                        double minGrade,
+                                        EnumSet<Condition> conditions)
+    {
+        final int interline = system.getSheet().getInterline();
+
+        // Only glyphs big enough are submitted to the network
+        final List<Glyph> bigs = new ArrayList<Glyph>(glyphs.size());
+
+        for (Glyph glyph : glyphs) {
+            if (isBigEnough(glyph, interline)) {
+                bigs.add(glyph);
+            }
+        }
+
+        final Evaluation[][] naturals = bigs.isEmpty() ? new Evaluation[0][]
+                : getNaturalEvaluations(bigs, interline);
+        final List<Evaluation[]> results = new ArrayList<Evaluation[]>(glyphs.size());
+        int ib = 0;
+
+        for (Glyph glyph : glyphs) {
+            final Evaluation[] evals;
+
+            if ((ib < bigs.size()) && (bigs.get(ib) == glyph)) {
+                evals = naturals[ib++];
+                Arrays.sort(evals); // Order the evals from best to worst
+            } else {
+                evals = noiseEvaluations; // If too small, it's just NOISE
+            }
+
+            results.add(select(glyph, system, evals, count, minGrade, conditions));
+        }
+
+        return results;
+    }
+
     //----------//
     // evaluate //
     //----------//
@@ -150,6 +192,27 @@ public abstract class AbstractClassifier<M extends Object>
         return descriptor;
     }
 
+    //-----------------------//
+    // getNaturalEvaluations //
+    //-----------------------//
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This default implementation simply evaluates each glyph in turn.
+     */
+    @Override
+    public Evaluation[][] getNaturalEvaluations (List<? extends Glyph> glyphs,
+                                                 int interline)
+    {
+        final Evaluation[][] evals = new Evaluation[glyphs.size()][];
+
+        for (int i = 0; i < evals.length; i++) {
+            evals[i] = getNaturalEvaluations(glyphs.get(i), interline);
+        }
+
+        return evals;
+    }
+
     //---------------//
     // getRawDataSet //
     //---------------//
@@ -458,9 +521,38 @@ public abstract class AbstractClassifier<M extends Object>
                                    double minGrade,
                                    EnumSet<Classifier.Condition> conditions,
                                    int interline)
+    {
+        return select(
+                glyph,
+                system,
+                getSortedEvaluations(glyph, interline),
+                count,
+                minGrade,
+                conditions);
+    }
+
+    //--------//
+    // select //
+    //--------//
+    /**
+     * Select the acceptable evaluations, out of the sorted evaluations of a glyph.
+     *
+     * @param glyph      the evaluated glyph
+     * @param system     the containing system, if any
+     * @param evals      the evaluations, sorted from best to worst
+     * @param count      the desired maximum sequence length
+     * @param minGrade   the minimum evaluation grade to be acceptable
+     * @param conditions optional conditions, perhaps null or empty
+     * @return the sequence of acceptable evaluations, perhaps empty but not null
+     */
+    private Evaluation[] select (Glyph glyph,
+                                 SystemInfo system,
+                                 Evaluation[] evals,
+                                 int count,
+                                 double minGrade,
+                                 EnumSet<Classifier.Condition> conditions)
     {
         List<Evaluation> bests = new ArrayList<Evaluation>();
-        Evaluation[] evals = getSortedEvaluations(glyph, interline);
 
         EvalsLoop:
         for (Evaluation eval : evals) {
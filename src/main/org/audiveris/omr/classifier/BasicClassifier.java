@@ -27,6 +27,7 @@ import org.audiveris.omr.glyph.Glyph;
 import org.audiveris.omr.glyph.Shape;
 import org.audiveris.omr.glyph.ShapeSet;
 import org.audiveris.omr.math.NeuralNetwork;
+import org.audiveris.omr.util.JaxbRegistry;
 
 import org.deeplearning4j.optimize.api.IterationListener;
 
@@ -156,6 +157,65 @@ public class BasicClassifier
         this.listener = (TrainingMonitor) listener;
     }
 
+    //-----------------------//
+    // getNaturalEvaluations //
+    //-----------------------//
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Features of all glyphs are gathered in a single input matrix, which is normalized at once,
+     * and the network then performs one batched forward pass on the whole matrix.
+     */
+    @Override
+    public Evaluation[][] getNaturalEvaluations (List<? extends Glyph> glyphs,
+                                                 int interline)
+    {
+        final int n = glyphs.size();
+        final Evaluation[][] evals = new Evaluation[n][];
+
+        if (n == 0) {
+            return evals;
+        }
+
+        // Single input matrix, in row-major order
+        final int length = descriptor.length();
+        final double[] matrix = new double[n * length];
+
+        for (int i = 0; i < n; i++) {
+            final double[] ins = descriptor.getFeatures(glyphs.get(i), interline);
+            System.arraycopy(ins, 0, matrix, i * length, length);
+        }
+
+        INDArray features = Nd4j.create(matrix, new int[]{n, length}, 'c');
+        normalize(features);
+
+        if (features.ordering() != 'c') {
+            features = features.dup('c');
+        }
+
+        final double[] normed = features.data().asDouble();
+        final double[][] ins = new double[n][length];
+
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(normed, i * length, ins[i], 0, length);
+        }
+
+        final double[][] outs = model.run(ins);
+        final Shape[] values = Shape.values();
+
+        for (int i = 0; i < n; i++) {
+            final Evaluation[] glyphEvals = new Evaluation[SHAPE_COUNT];
+
+            for (int s = 0; s < SHAPE_COUNT; s++) {
+                glyphEvals[s] = new Evaluation(values[s], outs[i][s]);
+            }
+
+            evals[i] = glyphEvals;
+        }
+
+        return evals;
+    }
+
     //-----------------------//
     // getNaturalEvaluations //
     //-----------------------//
@@ -401,8 +461,6 @@ public class BasicClassifier
     {
         //~ Static fields/initializers -------------------------------------------------------------
 
-        private static volatile JAXBContext jaxbContext;
-
         //~ Instance fields ------------------------------------------------------------------------
         @XmlElement(name = "names")
         private final StringArray names;
@@ -423,12 +481,7 @@ public class BasicClassifier
         private static JAXBContext getJaxbContext ()
                 throws JAXBException
         {
-            // Lazy creation
-            if (jaxbContext == null) {
-                jaxbContext = JAXBContext.newInstance(FeatureNames.class);
-            }
-
-            return jaxbContext;
+            return JaxbRegistry.getContext(FeatureNames.class);
         }
     }
 
@@ -29,6 +29,7 @@ import org.deeplearning4j.optimize.api.IterationListener;
 
 import java.util.Collection;
 import java.util.EnumSet;
+import java.util.List;
 
 /**
  * Interface {@code Classifier} defines the features of a glyph shape classifier.
@@ -84,6 +85,26 @@ public interface Classifier
                            double minGrade,
                            EnumSet<Condition> conditions);
 
+    /**
+     * Report, for each of the provided glyphs, the sorted sequence of best evaluation(s)
+     * found by the classifier.
+     * <p>
+     * This is equivalent to calling {@link #evaluate(Glyph, SystemInfo, int, double, EnumSet)}
+     * on each glyph in turn, but the network is run only once for the whole batch.
+     *
+     * @param glyphs     the glyphs to evaluate
+     * @param system     the system containing the glyphs to evaluate
+     * @param count      the desired maximum sequence length, min 1 and max SHAPE_COUNT
+     * @param minGrade   the minimum evaluation grade to be acceptable
+     * @param conditions optional conditions, perhaps null or empty
+     * @return the sequences of evaluations, in the same order as glyphs
+     */
+    List<Evaluation[]> evaluate (List<? extends Glyph> glyphs,
+                                 SystemInfo system,
+                                 int count,
+                                 double minGrade,
+                                 EnumSet<Condition> conditions);
+
     /**
      * Report the sorted sequence of best evaluation(s) found by the classifier on the
      * provided glyph, with no system but an interline value.
@@ -133,6 +154,17 @@ public interface Classifier
     Evaluation[] getNaturalEvaluations (Glyph glyph,
                                         int interline);
 
+    /**
+     * Run the classifier on a batch of glyphs, and return for each glyph the natural
+     * sequence of all interpretations (ordered by Shape ordinal) with no additional check.
+     *
+     * @param glyphs    the glyphs to be examined
+     * @param interline the relevant scaling interline
+     * @return all shape-ordered evaluations, one array per glyph in the same order as glyphs
+     */
+    Evaluation[][] getNaturalEvaluations (List<? extends Glyph> glyphs,
+                                          int interline);
+
     /**
      * Use a threshold on glyph weight, to tell if the provided glyph is just {@link
      * Shape#NOISE} or a real glyph.
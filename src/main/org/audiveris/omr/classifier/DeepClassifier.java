@@ -171,12 +171,63 @@ public class DeepClassifier
         }
     }
 
+    //-----------------------//
+    // getNaturalEvaluations //
+    //-----------------------//
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Features of all glyphs are gathered in a single matrix, and the model is run only once
+     * on the whole matrix.
+     * <p>
+     * Since grades are read from the output layer state, model access is synchronized.
+     */
+    @Override
+    public synchronized Evaluation[][] getNaturalEvaluations (List<? extends Glyph> glyphs,
+                                                              int interline)
+    {
+        final int n = glyphs.size();
+        final Evaluation[][] evals = new Evaluation[n][];
+
+        if (n == 0) {
+            return evals;
+        }
+
+        final double[][] doubles = new double[n][];
+
+        for (int i = 0; i < n; i++) {
+            doubles[i] = descriptor.getFeatures(glyphs.get(i), interline);
+        }
+
+        final INDArray features = Nd4j.create(doubles);
+        normalize(features);
+
+        model.output(features, false);
+
+        BaseLayer outputLayer = (BaseLayer) model.getOutputLayer();
+        INDArray preOutput = outputLayer.preOutput(false); // N x SHAPE_COUNT
+        Shape[] values = Shape.values();
+
+        for (int i = 0; i < n; i++) {
+            final Evaluation[] glyphEvals = new Evaluation[SHAPE_COUNT];
+
+            for (int s = 0; s < SHAPE_COUNT; s++) {
+                double grade = sigmoid(preOutput.getDouble(i, s)); // Rather than normalized output
+                glyphEvals[s] = new Evaluation(values[s], grade);
+            }
+
+            evals[i] = glyphEvals;
+        }
+
+        return evals;
+    }
+
     //-----------------------//
     // getNaturalEvaluations //
     //-----------------------//
     @Override
-    public Evaluation[] getNaturalEvaluations (Glyph glyph,
-                                               int interline)
+    public synchronized Evaluation[] getNaturalEvaluations (Glyph glyph,
+                                                            int interline)
     {
         final double[] doubles = descriptor.getFeatures(glyph, interline);
         final INDArray features = Nd4j.create(doubles);
@@ -432,7 +432,7 @@ public class SampleRepository
                     return false;
                 }
 
-                Path imagePath = folderPath.resolve(SampleSheet.IMAGE_FILE_NAME);
+                Path imagePath = SampleSheet.getImagePath(folderPath);
 
                 return Files.exists(imagePath);
             } finally {
@@ -519,8 +519,8 @@ public class SampleRepository
                         final Path root = ZipFileSystem.open(imagesFile);
 
                         for (Descriptor desc : descs) {
-                            final Path file = root.resolve(desc.getName()).resolve(
-                                    SampleSheet.IMAGE_FILE_NAME);
+                            final Path file = SampleSheet.getImagePath(
+                                    root.resolve(desc.getName()));
                             final RunTable rt = RunTable.unmarshal(file);
 
                             if ((rt != null) && rt.equals(image)) {
@@ -1088,7 +1088,7 @@ public class SampleRepository
                     return null;
                 }
 
-                Path file = folderPath.resolve(SampleSheet.IMAGE_FILE_NAME);
+                Path file = SampleSheet.getImagePath(folderPath);
                 runTable = RunTable.unmarshal(file);
 
                 if (runTable != null) {
@@ -1538,7 +1538,8 @@ public class SampleRepository
                 {
                     final String fileName = file.getFileName().toString();
 
-                    if (fileName.equals(SampleSheet.IMAGE_FILE_NAME)) {
+                    if (fileName.equals(SampleSheet.IMAGE_FILE_NAME)
+                        || fileName.equals(SampleSheet.LEGACY_IMAGE_FILE_NAME)) {
                         RunTable runTable = RunTable.unmarshal(file);
 
                         if (runTable != null) {
@@ -25,8 +25,10 @@ import org.audiveris.omr.classifier.SheetContainer.Descriptor;
 import org.audiveris.omr.glyph.BasicGlyph;
 import org.audiveris.omr.glyph.Shape;
 import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.run.RunTableCodec;
 import org.audiveris.omr.util.FileUtil;
 import org.audiveris.omr.util.Jaxb;
+import org.audiveris.omr.util.JaxbRegistry;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -75,10 +77,10 @@ public class SampleSheet
     public static final String TRIBES_FILE_NAME = "tribes.xml";
 
     /** File name for sheet image: {@value}. */
-    public static final String IMAGE_FILE_NAME = "image.xml";
+    public static final String IMAGE_FILE_NAME = "image" + RunTableCodec.EXTENSION;
 
-    /** Un/marshalling context for use with JAXB. */
-    private static volatile JAXBContext jaxbContext;
+    /** File name for sheet image in legacy XML format: {@value}. */
+    public static final String LEGACY_IMAGE_FILE_NAME = "image" + RunTableCodec.LEGACY_EXTENSION;
 
     //~ Enumerations -------------------------------------------------------------------------------
     public enum ImageStatus
@@ -211,7 +213,7 @@ public class SampleSheet
 
         try {
             InputStream is = Files.newInputStream(path, StandardOpenOption.READ);
-            Unmarshaller um = getJaxbContext().createUnmarshaller();
+            Unmarshaller um = JaxbRegistry.getUnmarshaller(getJaxbContext());
             SampleList sampleList = (SampleList) um.unmarshal(is);
             SampleSheet sampleSheet = new SampleSheet(sampleList, desc);
             logger.debug("Unmarshalled {}", sampleSheet);
@@ -274,6 +276,31 @@ public class SampleSheet
         return image;
     }
 
+    //--------------//
+    // getImagePath //
+    //--------------//
+    /**
+     * Report the path to image file within the provided sheet folder, preferring the binary
+     * format but falling back to a legacy XML file if that is the only one present.
+     *
+     * @param folderPath the sheet folder
+     * @return the image path, perhaps not existing
+     */
+    public static Path getImagePath (Path folderPath)
+    {
+        final Path imagePath = folderPath.resolve(IMAGE_FILE_NAME);
+
+        if (!Files.exists(imagePath)) {
+            final Path legacyPath = folderPath.resolve(LEGACY_IMAGE_FILE_NAME);
+
+            if (Files.exists(legacyPath)) {
+                return legacyPath;
+            }
+        }
+
+        return imagePath;
+    }
+
     /**
      * Report current image status for this sheet.
      *
@@ -435,7 +462,8 @@ public class SampleSheet
                 Files.createDirectories(folderPath);
 
                 final Path imagePath = folderPath.resolve(IMAGE_FILE_NAME);
-                Jaxb.marshal(image, imagePath, getJaxbContext());
+                RunTableCodec.store(image, imagePath);
+                Files.deleteIfExists(folderPath.resolve(LEGACY_IMAGE_FILE_NAME));
                 imageSaved = true;
                 logger.info("Stored {}", imagePath);
             }
@@ -562,12 +590,7 @@ public class SampleSheet
     private static JAXBContext getJaxbContext ()
             throws JAXBException
     {
-        // Lazy creation
-        if (jaxbContext == null) {
-            jaxbContext = JAXBContext.newInstance(RunTable.class, SampleList.class);
-        }
-
-        return jaxbContext;
+        return JaxbRegistry.getContext(RunTable.class, SampleList.class);
     }
 
     //~ Inner Classes ------------------------------------------------------------------------------
@@ -23,6 +23,7 @@ package org.audiveris.omr.classifier;
 
 import org.audiveris.omr.classifier.SheetContainer.Adapter;
 import org.audiveris.omr.util.Jaxb;
+import org.audiveris.omr.util.JaxbRegistry;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,7 +40,6 @@ import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -292,8 +292,7 @@ public class SheetContainer
             Files.createDirectories(path.getParent());
 
             // Container
-            JAXBContext jaxbContext = JAXBContext.newInstance(SheetContainer.class);
-            Jaxb.marshal(this, path, jaxbContext);
+            Jaxb.marshal(this, path, JaxbRegistry.getContext(SheetContainer.class));
             logger.info("Stored {}", path);
 
             // Remove defunct sheets if any
@@ -372,8 +371,9 @@ public class SheetContainer
             final Path path = root.resolve(CONTAINER_ENTRY_NAME);
             logger.debug("SheetContainer unmarshalling {}", path);
 
-            JAXBContext jaxbContext = JAXBContext.newInstance(SheetContainer.class);
-            SheetContainer sheetContainer = (SheetContainer) Jaxb.unmarshal(path, jaxbContext);
+            SheetContainer sheetContainer = (SheetContainer) Jaxb.unmarshal(
+                    path,
+                    JaxbRegistry.getContext(SheetContainer.class));
             logger.info("Unmarshalled {}", sheetContainer);
 
             return sheetContainer;
@@ -0,0 +1,535 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                 B a n d G l y p h F a c t o r y                                //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.glyph;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.glyph.Symbol.Group;
+import static org.audiveris.omr.run.Orientation.VERTICAL;
+import org.audiveris.omr.run.Run;
+import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.util.OmrExecutors;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Class {@code BandGlyphFactory} builds the same glyphs as {@link GlyphFactory}, by
+ * labelling the connected components of a {@link RunTable} in parallel.
+ * <p>
+ * The table sequences are split into bands of consecutive sequences, and each band is labelled
+ * on its own, using primitive arrays of run starts, lengths and parents:
+ * <ol>
+ * <li>All runs are indexed in table order (sequence after sequence, and by increasing start within
+ * a sequence), so that each run gets a global index.</li>
+ * <li>Within each band, a run overlapping a run of the previous sequence is united with it, via a
+ * union-find structure on run indices where the root of any component is always its lowest run
+ * index. Since bands work on disjoint ranges of run indices, they can be processed in
+ * parallel.</li>
+ * <li>The overlaps between the last sequence of a band and the first sequence of the next band
+ * are then united, band after band.</li>
+ * <li>Finally, the runs of each component are dispatched to their glyph, and glyphs are
+ * materialized in parallel.</li>
+ * </ol>
+ * Glyphs are reported in the order of their first run, which is the order used by
+ * {@link GlyphFactory}.
+ *
+ * @author Hervé Bitteur
+ */
+final class BandGlyphFactory
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Source runs. */
+    private final RunTable runTable;
+
+    /** Absolute offset of runTable topLeft corner. */
+    private final Point offset;
+
+    /** Target group for all created glyphs. */
+    private final Group group;
+
+    /** Number of sequences per band. */
+    private final int bandSize;
+
+    /** Number of sequences in table. */
+    private final int size;
+
+    /** Number of bands. */
+    private final int bandCount;
+
+    /** Index of first run for each sequence, plus total run count at the end. */
+    private final int[] seqFirst;
+
+    /** Start of each run. */
+    private int[] starts;
+
+    /** Length of each run. */
+    private int[] lengths;
+
+    /** Parent of each run, in union-find structure. (numerical invariant: parent <= child) */
+    private int[] parents;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code BandGlyphFactory} object, with the default band size.
+     *
+     * @param runTable the source table of runs
+     * @param offset   offset of runTable WRT absolute origin, perhaps null
+     * @param group    targeted group, if any
+     */
+    BandGlyphFactory (RunTable runTable,
+                      Point offset,
+                      Group group)
+    {
+        this(runTable, offset, group, getBandSize());
+    }
+
+    /**
+     * Creates a new {@code BandGlyphFactory} object.
+     *
+     * @param runTable the source table of runs
+     * @param offset   offset of runTable WRT absolute origin, perhaps null
+     * @param group    targeted group, if any
+     * @param bandSize number of sequences per band
+     */
+    BandGlyphFactory (RunTable runTable,
+                      Point offset,
+                      Group group,
+                      int bandSize)
+    {
+        this.runTable = runTable;
+        this.offset = (offset != null) ? offset : new Point(0, 0);
+        this.group = group;
+        this.bandSize = Math.max(1, bandSize);
+
+        size = runTable.getSize();
+        bandCount = (size + this.bandSize - 1) / this.bandSize;
+        seqFirst = new int[size + 1];
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //----------//
+    // isUseful //
+    //----------//
+    /**
+     * Tell whether the provided table is large enough to be labelled by bands.
+     *
+     * @param runTable the table to process
+     * @return true if table contains at least two bands
+     */
+    static boolean isUseful (RunTable runTable)
+    {
+        return runTable.getSize() >= (2 * getBandSize());
+    }
+
+    //---------//
+    // process //
+    //---------//
+    /**
+     * Retrieve all glyphs from the table of runs.
+     *
+     * @return the list of created glyphs, in the order of their first run
+     */
+    List<Glyph> process ()
+    {
+        indexRuns();
+
+        // Label each band separately
+        OmrExecutors.forEachRange(
+                0,
+                bandCount,
+                1,
+                new OmrExecutors.RangeProcessor()
+        {
+            @Override
+            public void processRange (int from,
+                                      int to)
+            {
+                for (int band = from; band < to; band++) {
+                    final int first = band * bandSize;
+                    final int last = Math.min(size, first + bandSize) - 1;
+                    labelBand(first, last);
+                }
+            }
+        });
+
+        // Unite components across band borders
+        for (int band = 1; band < bandCount; band++) {
+            final int iSeq = band * bandSize;
+            uniteOverlaps(iSeq - 1, iSeq);
+        }
+
+        // Make every run point directly to its root, roots being resolved before their children
+        for (int r = 0, n = parents.length; r < n; r++) {
+            parents[r] = parents[parents[r]];
+        }
+
+        return buildAllGlyphs();
+    }
+
+    //----------------//
+    // buildAllGlyphs //
+    //----------------//
+    /**
+     * Dispatch runs to their components and build the corresponding glyphs.
+     *
+     * @return the glyphs, in components order
+     */
+    private List<Glyph> buildAllGlyphs ()
+    {
+        final int runCount = parents.length;
+
+        // Allocate components, in order of their root run
+        final int[] comps = new int[runCount];
+        int compCount = 0;
+
+        for (int r = 0; r < runCount; r++) {
+            if (parents[r] == r) {
+                comps[r] = compCount++;
+            }
+        }
+
+        // Count runs per component
+        final int[] compFirst = new int[compCount + 1];
+
+        for (int r = 0; r < runCount; r++) {
+            compFirst[comps[parents[r]] + 1]++;
+        }
+
+        for (int c = 0; c < compCount; c++) {
+            compFirst[c + 1] += compFirst[c];
+        }
+
+        // Dispatch runs (and their sequence index) to components, in table order
+        final int[] fill = Arrays.copyOf(compFirst, compCount);
+        final int[] compRuns = new int[runCount];
+        final int[] compSeqs = new int[runCount];
+
+        for (int iSeq = 0; iSeq < size; iSeq++) {
+            for (int r = seqFirst[iSeq]; r < seqFirst[iSeq + 1]; r++) {
+                final int pos = fill[comps[parents[r]]]++;
+                compRuns[pos] = r;
+                compSeqs[pos] = iSeq;
+            }
+        }
+
+        // Build glyphs
+        final Glyph[] glyphs = new Glyph[compCount];
+
+        OmrExecutors.forEachRange(
+                0,
+                compCount,
+                new OmrExecutors.RangeProcessor()
+        {
+            @Override
+            public void processRange (int from,
+                                      int to)
+            {
+                for (int c = from; c < to; c++) {
+                    glyphs[c] = buildGlyph(compRuns, compSeqs, compFirst[c], compFirst[c + 1]);
+                }
+            }
+        });
+
+        return new ArrayList<Glyph>(Arrays.asList(glyphs));
+    }
+
+    //------------//
+    // buildGlyph //
+    //------------//
+    /**
+     * Build the glyph for one component.
+     *
+     * @param compRuns runs of all components
+     * @param compSeqs sequence index of these runs
+     * @param from     index of first component run (inclusive)
+     * @param to       index of last component run (exclusive)
+     * @return the glyph created
+     */
+    private Glyph buildGlyph (int[] compRuns,
+                              int[] compSeqs,
+                              int from,
+                              int to)
+    {
+        // Determine glyph bounds
+        final int iSeqMin = compSeqs[from];
+        final int iSeqMax = compSeqs[to - 1];
+        int startMin = Integer.MAX_VALUE;
+        int stopMax = 0;
+
+        for (int i = from; i < to; i++) {
+            final int r = compRuns[i];
+            startMin = Math.min(startMin, starts[r]);
+            stopMax = Math.max(stopMax, (starts[r] + lengths[r]) - 1);
+        }
+
+        final boolean vertical = runTable.getOrientation() == VERTICAL;
+        final int dx = vertical ? iSeqMin : startMin;
+        final int dy = vertical ? startMin : iSeqMin;
+        final int width = vertical ? (iSeqMax - iSeqMin + 1) : (stopMax - startMin + 1);
+        final int height = vertical ? (stopMax - startMin + 1) : (iSeqMax - iSeqMin + 1);
+
+        // Allocate table with proper dimension
+        final RunTable table = new RunTable(runTable.getOrientation(), width, height);
+
+        // Populate table with RLE sequences
+        for (int i = from; i < to;) {
+            final int iSeq = compSeqs[i];
+            int j = i + 1;
+
+            while ((j < to) && (compSeqs[j] == iSeq)) {
+                j++;
+            }
+
+            table.setSequence(iSeq - iSeqMin, encode(compRuns, i, j, startMin));
+            i = j;
+        }
+
+        // Store created glyph
+        final Glyph glyph = new BasicGlyph(offset.x + dx, offset.y + dy, table);
+        glyph.addGroup(group);
+
+        return glyph;
+    }
+
+    //--------//
+    // encode //
+    //--------//
+    /**
+     * Encode one sequence of component runs.
+     *
+     * @param compRuns runs of all components
+     * @param from     index of first sequence run (inclusive)
+     * @param to       index of last sequence run (exclusive)
+     * @param startMin component minimum start, which gives start 0 in glyph table
+     * @return the RLE array, as specified by RunTable
+     */
+    private short[] encode (int[] compRuns,
+                            int from,
+                            int to,
+                            int startMin)
+    {
+        final int firstStart = starts[compRuns[from]] - startMin;
+        final short[] rle = new short[((2 * (to - from)) - 1) + ((firstStart != 0) ? 2 : 0)];
+        int cursor = 0;
+        int loc = 0;
+
+        if (firstStart != 0) {
+            // Insert an empty foreground length
+            rle[cursor++] = 0;
+        }
+
+        for (int i = from; i < to; i++) {
+            final int r = compRuns[i];
+            final int start = starts[r] - startMin;
+
+            if (cursor > 0) {
+                rle[cursor++] = (short) (start - loc); // Background
+            }
+
+            rle[cursor++] = (short) lengths[r]; // Foreground
+            loc = start + lengths[r];
+        }
+
+        return rle;
+    }
+
+    //------//
+    // find //
+    //------//
+    /**
+     * Report the root of the provided run, compressing the path on the way.
+     */
+    private int find (int r)
+    {
+        while (parents[r] != r) {
+            r = parents[r] = parents[parents[r]];
+        }
+
+        return r;
+    }
+
+    //-------------//
+    // getBandSize //
+    //-------------//
+    private static int getBandSize ()
+    {
+        return Math.max(1, constants.bandSize.getValue());
+    }
+
+    //-----------//
+    // indexRuns //
+    //-----------//
+    /**
+     * Copy all runs into the primitive arrays, and make each run its own root.
+     */
+    private void indexRuns ()
+    {
+        // Count runs per sequence, in parallel
+        OmrExecutors.forEachRange(
+                0,
+                size,
+                new OmrExecutors.RangeProcessor()
+        {
+            @Override
+            public void processRange (int from,
+                                      int to)
+            {
+                for (int iSeq = from; iSeq < to; iSeq++) {
+                    int count = 0;
+
+                    for (Iterator<Run> it = runTable.iterator(iSeq); it.hasNext();) {
+                        it.next();
+                        count++;
+                    }
+
+                    seqFirst[iSeq + 1] = count;
+                }
+            }
+        });
+
+        for (int iSeq = 0; iSeq < size; iSeq++) {
+            seqFirst[iSeq + 1] += seqFirst[iSeq];
+        }
+
+        final int runCount = seqFirst[size];
+        starts = new int[runCount];
+        lengths = new int[runCount];
+        parents = new int[runCount];
+
+        // Copy runs, in parallel
+        OmrExecutors.forEachRange(
+                0,
+                size,
+                new OmrExecutors.RangeProcessor()
+        {
+            @Override
+            public void processRange (int from,
+                                      int to)
+            {
+                for (int iSeq = from; iSeq < to; iSeq++) {
+                    int r = seqFirst[iSeq];
+
+                    for (Iterator<Run> it = runTable.iterator(iSeq); it.hasNext(); r++) {
+                        final Run run = it.next();
+                        starts[r] = run.getStart();
+                        lengths[r] = run.getLength();
+                        parents[r] = r;
+                    }
+                }
+            }
+        });
+    }
+
+    //-----------//
+    // labelBand //
+    //-----------//
+    /**
+     * Unite the overlapping runs within the provided band.
+     * Only the runs of this band are modified.
+     *
+     * @param first index of first band sequence
+     * @param last  index of last band sequence
+     */
+    private void labelBand (int first,
+                            int last)
+    {
+        for (int iSeq = first + 1; iSeq <= last; iSeq++) {
+            uniteOverlaps(iSeq - 1, iSeq);
+        }
+    }
+
+    //-------//
+    // union //
+    //-------//
+    /**
+     * Unite the components of runs a and b, keeping the lower root.
+     */
+    private void union (int a,
+                        int b)
+    {
+        final int ra = find(a);
+        final int rb = find(b);
+
+        if (ra < rb) {
+            parents[rb] = ra;
+        } else if (rb < ra) {
+            parents[ra] = rb;
+        }
+    }
+
+    //---------------//
+    // uniteOverlaps //
+    //---------------//
+    /**
+     * Unite each run of a sequence with the runs it overlaps in the previous sequence.
+     *
+     * @param prevSeq index of previous sequence
+     * @param nextSeq index of next sequence
+     */
+    private void uniteOverlaps (int prevSeq,
+                                int nextSeq)
+    {
+        final int pMax = seqFirst[prevSeq + 1];
+        int pActive = seqFirst[prevSeq]; // Active run index in previous sequence
+
+        for (int r = seqFirst[nextSeq], rMax = seqFirst[nextSeq + 1]; r < rMax; r++) {
+            final int nextStart = starts[r];
+            final int nextStop = (nextStart + lengths[r]) - 1;
+
+            for (int p = pActive; p < pMax; p++) {
+                final int prevStart = starts[p];
+
+                if (prevStart > nextStop) {
+                    break;
+                }
+
+                if (((prevStart + lengths[p]) - 1) >= nextStart) {
+                    union(p, r);
+                    pActive = p;
+                }
+            }
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Integer bandSize = new Constant.Integer(
+                "Sequences",
+                128,
+                "Number of sequences per band labelled in parallel");
+    }
+}
@@ -0,0 +1,251 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                    C o m p o u n d C a c h e                                   //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.glyph;
+
+import org.audiveris.omr.classifier.Evaluation;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Class {@code CompoundCache} memorizes, for a given set of parts, the compound glyph built
+ * on these parts and the evaluations obtained for this compound.
+ * <p>
+ * A set of parts is identified by the sorted sequence of its part IDs, hence only registered
+ * parts can be cached.
+ * A cache is meant to be shared by successive {@link GlyphCluster} decompositions performed on
+ * overlapping populations of parts, for example by the various adapters of a builder.
+ * Cached evaluations are meaningful only if all these adapters evaluate compounds in the same
+ * manner (same classifier, interline, count and minimum grade).
+ * <p>
+ * This class is not thread-safe, a cache is meant to be used by a single builder.
+ *
+ * @author Hervé Bitteur
+ */
+public class CompoundCache
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Cached data, per parts key. */
+    private final Map<Key, Entry> entries = new HashMap<Key, Entry>();
+
+    /** Number of compounds found in cache. */
+    private int compoundHits;
+
+    /** Number of compounds built. */
+    private int compoundMisses;
+
+    /** Number of evaluations found in cache. */
+    private int evalHits;
+
+    /** Number of evaluations not found in cache. */
+    private int evalMisses;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------------//
+    // getCompound //
+    //-------------//
+    /**
+     * Report the compound glyph built on the provided parts, building it if needed.
+     *
+     * @param parts the (non-empty) parts of the compound
+     * @return the compound glyph
+     */
+    public Glyph getCompound (Collection<Glyph> parts)
+    {
+        final Key key = Key.of(parts);
+
+        if (key != null) {
+            final Entry entry = entries.get(key);
+
+            if ((entry != null) && (entry.compound != null)) {
+                compoundHits++;
+
+                return entry.compound;
+            }
+        }
+
+        compoundMisses++;
+
+        final Glyph compound = GlyphFactory.buildGlyph(parts);
+
+        if (key != null) {
+            getEntry(key).compound = compound;
+        }
+
+        return compound;
+    }
+
+    //----------------//
+    // getEvaluations //
+    //----------------//
+    /**
+     * Report the evaluations, if any, recorded for the compound built on the provided parts.
+     *
+     * @param parts the parts of the compound
+     * @return the recorded evaluations, or null if none was recorded
+     */
+    public Evaluation[] getEvaluations (Collection<Glyph> parts)
+    {
+        final Key key = Key.of(parts);
+        final Entry entry = (key != null) ? entries.get(key) : null;
+
+        if ((entry != null) && (entry.evaluations != null)) {
+            evalHits++;
+
+            return entry.evaluations;
+        }
+
+        evalMisses++;
+
+        return null;
+    }
+
+    //----------------//
+    // putEvaluations //
+    //----------------//
+    /**
+     * Record the evaluations obtained for the compound built on the provided parts.
+     * Nothing is recorded if a part is not yet registered.
+     *
+     * @param parts       the parts of the compound
+     * @param evaluations the evaluations to record
+     */
+    public void putEvaluations (Collection<Glyph> parts,
+                                Evaluation[] evaluations)
+    {
+        final Key key = Key.of(parts);
+
+        if (key != null) {
+            getEntry(key).evaluations = evaluations;
+        }
+    }
+
+    //----------//
+    // toString //
+    //----------//
+    @Override
+    public String toString ()
+    {
+        return "CompoundCache{entries:" + entries.size() + " compounds:" + compoundHits + "/"
+               + (compoundHits + compoundMisses) + " evals:" + evalHits + "/"
+               + (evalHits + evalMisses) + "}";
+    }
+
+    //----------//
+    // getEntry //
+    //----------//
+    private Entry getEntry (Key key)
+    {
+        Entry entry = entries.get(key);
+
+        if (entry == null) {
+            entries.put(key, entry = new Entry());
+        }
+
+        return entry;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-------//
+    // Entry //
+    //-------//
+    private static class Entry
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        Glyph compound;
+
+        Evaluation[] evaluations;
+    }
+
+    //-----//
+    // Key //
+    //-----//
+    /**
+     * Sorted sequence of part IDs.
+     */
+    private static class Key
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final int[] ids;
+
+        private final int hash;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        private Key (int[] ids)
+        {
+            this.ids = ids;
+            hash = Arrays.hashCode(ids);
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Override
+        public boolean equals (Object obj)
+        {
+            if (this == obj) {
+                return true;
+            }
+
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+
+            return Arrays.equals(ids, ((Key) obj).ids);
+        }
+
+        @Override
+        public int hashCode ()
+        {
+            return hash;
+        }
+
+        /**
+         * Build the key for the provided parts.
+         *
+         * @param parts the provided parts
+         * @return the key, or null if a part has no ID yet
+         */
+        static Key of (Collection<Glyph> parts)
+        {
+            final int[] ids = new int[parts.size()];
+            int i = 0;
+
+            for (Glyph part : parts) {
+                final int id = part.getId();
+
+                if (id == 0) {
+                    return null;
+                }
+
+                ids[i++] = id;
+            }
+
+            Arrays.sort(ids);
+
+            return new Key(ids);
+        }
+    }
+}
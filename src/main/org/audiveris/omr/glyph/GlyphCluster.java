@@ -63,6 +63,9 @@ public class GlyphCluster
     /** Group, if any, to be assigned to created glyphs. */
     private final Group group;
 
+    /** Cache of compounds, if any. */
+    private final CompoundCache cache;
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Creates a new Cluster object, with an adapter to the environment.
@@ -72,9 +75,25 @@ public class GlyphCluster
      */
     public GlyphCluster (Adapter adapter,
                          Group group)
+    {
+        this(adapter, group, null);
+    }
+
+    /**
+     * Creates a new Cluster object, with an adapter to the environment and a cache of
+     * compounds shared with other decompositions.
+     *
+     * @param adapter the environment adapter
+     * @param group   group to be assigned, if any
+     * @param cache   cache of compounds, if any
+     */
+    public GlyphCluster (Adapter adapter,
+                         Group group,
+                         CompoundCache cache)
     {
         this.adapter = adapter;
         this.group = group;
+        this.cache = cache;
     }
 
     //~ Methods ------------------------------------------------------------------------------------
@@ -192,8 +211,16 @@ public class GlyphCluster
 
         if (!adapter.isTooLight(weight)) {
             // Build compound and get acceptable evaluations for the compound
-            Glyph compound = (parts.size() > 1) ? GlyphFactory.buildGlyph(parts)
-                    : parts.iterator().next();
+            final Glyph compound;
+
+            if (parts.size() == 1) {
+                compound = parts.iterator().next();
+            } else if (cache != null) {
+                compound = cache.getCompound(parts);
+            } else {
+                compound = GlyphFactory.buildGlyph(parts);
+            }
+
             compound.addGroup(group);
 
             // Create all acceptable inters, if any, for the compound
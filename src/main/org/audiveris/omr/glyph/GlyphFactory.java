@@ -23,6 +23,8 @@ package org.audiveris.omr.glyph;
 
 import ij.process.ByteProcessor;
 
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.glyph.Symbol.Group;
 import org.audiveris.omr.run.MarkedRun;
 import static org.audiveris.omr.run.Orientation.VERTICAL;
@@ -53,6 +55,9 @@ import java.util.Map.Entry;
  * <p>
  * Comments refer to 'sequences', which are synonymous of columns for vertical runs, and of rows
  * for horizontal runs.
+ * <p>
+ * A large table is processed by a {@link BandGlyphFactory}, which labels bands of sequences in
+ * parallel and gives the same glyphs.
  *
  * @author Hervé Bitteur
  */
@@ -60,6 +65,8 @@ public class GlyphFactory
 {
     //~ Static fields/initializers -----------------------------------------------------------------
 
+    private static final Constants constants = new Constants();
+
     private static final Logger logger = LoggerFactory.getLogger(GlyphFactory.class);
 
     //~ Instance fields ----------------------------------------------------------------------------
@@ -142,7 +149,7 @@ public class GlyphFactory
     public static List<Glyph> buildGlyphs (RunTable runTable,
                                            Point offset)
     {
-        return new GlyphFactory(runTable, offset, null).process();
+        return buildGlyphs(runTable, offset, null);
     }
 
     //-------------//
@@ -160,6 +167,10 @@ public class GlyphFactory
                                            Point offset,
                                            Group group)
     {
+        if (constants.useBandLabelling.isSet() && BandGlyphFactory.isUseful(runTable)) {
+            return new BandGlyphFactory(runTable, offset, group).process();
+        }
+
         return new GlyphFactory(runTable, offset, group).process();
     }
 
@@ -389,6 +400,19 @@ public class GlyphFactory
     }
 
     //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Boolean useBandLabelling = new Constant.Boolean(
+                true,
+                "Should we label large tables by parallel bands?");
+    }
+
     //----------//
     // Sequence //
     //----------//
@@ -38,6 +38,7 @@ import org.audiveris.omr.ui.selection.SelectionService;
 import org.audiveris.omr.util.BasicIndex;
 import org.audiveris.omr.util.EntityIndex;
 import org.audiveris.omr.util.IntUtil;
+import org.audiveris.omr.util.SpatialIndex;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,6 +48,7 @@ import java.awt.Rectangle;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -106,6 +108,10 @@ public class GlyphIndex
     /** Collection of original glyph instances, non sorted. */
     private final ConcurrentHashMap<WeakGlyph, WeakGlyph> originals = new ConcurrentHashMap<WeakGlyph, WeakGlyph>();
 
+    /** Spatial index of glyph IDs, to speed up location-based lookups. */
+    private final SpatialIndex<Integer> spatialIndex = new SpatialIndex<Integer>(
+            constants.spatialCellSize.getValue());
+
     /** Selection service, if any. */
     private EntityService<Glyph> glyphService;
 
@@ -169,9 +175,7 @@ public class GlyphIndex
     {
         Set<Glyph> set = new LinkedHashSet<Glyph>();
 
-        for (Iterator<Glyph> it = iterator(); it.hasNext();) {
-            Glyph glyph = it.next();
-
+        for (Glyph glyph : lookupGlyphs(rect)) {
             if (glyph.hasGroup(group) && rect.contains(glyph.getBounds())) {
                 set.add(glyph);
             }
@@ -307,9 +311,7 @@ public class GlyphIndex
     {
         Set<Glyph> set = new LinkedHashSet<Glyph>();
 
-        for (Iterator<Glyph> it = iterator(); it.hasNext();) {
-            Glyph glyph = it.next();
-
+        for (Glyph glyph : lookupGlyphs(rect)) {
             if (glyph.hasGroup(group) && rect.intersects(glyph.getBounds())) {
                 set.add(glyph);
             }
@@ -347,9 +349,7 @@ public class GlyphIndex
      */
     public Glyph lookupVirtualGlyph (Point point)
     {
-        for (Iterator<Glyph> it = iterator(); it.hasNext();) {
-            Glyph glyph = it.next();
-
+        for (Glyph glyph : lookupGlyphs(new Rectangle(point.x, point.y, 1, 1))) {
             if (glyph.hasGroup(Group.DROP) && glyph.getBounds().contains(point)) {
                 return glyph;
             }
@@ -438,6 +438,9 @@ public class GlyphIndex
 
         // Remove from global index
         weakIndex.remove(weak);
+
+        // Remove from spatial index
+        spatialIndex.remove(glyph.getId());
     }
 
     //-------//
@@ -448,6 +451,7 @@ public class GlyphIndex
     {
         weakIndex.reset();
         originals.clear();
+        spatialIndex.clear();
     }
 
     //-------------//
@@ -459,6 +463,7 @@ public class GlyphIndex
             WeakGlyph weak = new WeakGlyph(glyph);
             weakIndex.insert(weak);
             originals.putIfAbsent(weak, weak);
+            spatialIndex.insert(glyph.getId(), glyph.getBounds());
         }
     }
 
@@ -481,6 +486,37 @@ public class GlyphIndex
         weakIndex.setLastId(lastId);
     }
 
+    //--------------//
+    // lookupGlyphs //
+    //--------------//
+    /**
+     * Use the spatial index to retrieve the glyphs whose bounds intersect the provided
+     * rectangle, sorted by ID.
+     * IDs of glyphs no longer available are purged from spatial index on the fly.
+     *
+     * @param rect the lookup rectangle
+     * @return the intersected glyphs, sorted by ID
+     */
+    private List<Glyph> lookupGlyphs (Rectangle rect)
+    {
+        final List<Integer> ids = spatialIndex.intersected(rect);
+        Collections.sort(ids);
+
+        final List<Glyph> glyphs = new ArrayList<Glyph>(ids.size());
+
+        for (Integer id : ids) {
+            final Glyph glyph = getEntity(id);
+
+            if (glyph != null) {
+                glyphs.add(glyph);
+            } else {
+                spatialIndex.remove(id);
+            }
+        }
+
+        return glyphs;
+    }
+
     //-----------------//
     // privateRegister //
     //-----------------//
@@ -500,6 +536,7 @@ public class GlyphIndex
 
             // Register in index
             id = weakIndex.register(weak);
+            spatialIndex.insert(id, glyph.getBounds());
 
             glyph.setIndex(this);
         }
@@ -519,6 +556,11 @@ public class GlyphIndex
         private final Constant.String vipGlyphs = new Constant.String(
                 "",
                 "(Debug) Comma-separated values of VIP glyphs IDs");
+
+        private final Constant.Integer spatialCellSize = new Constant.Integer(
+                "pixels",
+                128,
+                "Side length of cells in glyph spatial index");
     }
 
     //----------------//
@@ -35,6 +35,7 @@ import org.audiveris.omr.sheet.grid.BarFilamentFactory;
 import org.audiveris.omr.sheet.grid.StaffFilament;
 import org.audiveris.omr.util.Dumping;
 import org.audiveris.omr.util.Entities;
+import org.audiveris.omr.util.SpatialIndex;
 import org.audiveris.omr.util.StopWatch;
 
 import org.slf4j.Logger;
@@ -116,6 +117,12 @@ public class FilamentFactory<F extends Filament>
     /** Fat sections. unknown/true/false */
     private final Map<Section, Boolean> fatSections = new HashMap<Section, Boolean>();
 
+    /** Number of merge tests performed when merging filaments. */
+    private int mergeTests;
+
+    /** Number of merge tests performed when expanding filaments. */
+    private int expandTests;
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Create a factory of filaments.
@@ -150,10 +157,17 @@ public class FilamentFactory<F extends Filament>
     //------//
     // dump //
     //------//
+    /**
+     * Print out the factory parameters, as well as the number of merge tests performed
+     * so far.
+     *
+     * @param title a title for the dump
+     */
     public void dump (String title)
     {
         if (constants.printParameters.isSet()) {
             params.dump(title);
+            logger.info("{} mergeTests:{} expandTests:{}", title, mergeTests, expandTests);
         }
     }
 
@@ -454,6 +468,21 @@ public class FilamentFactory<F extends Filament>
         params.minSectionAspect = value;
     }
 
+    //-------------------//
+    // setUseSpatialIndex //
+    //-------------------//
+    /**
+     * Tell whether merge candidates are retrieved via a spatial index, rather than by a
+     * plain browsing of all filaments.
+     * Both ways lead to the same filaments, the plain browsing being kept as a reference.
+     *
+     * @param bool true for spatial index
+     */
+    void setUseSpatialIndex (boolean bool)
+    {
+        params.useSpatialIndex = bool;
+    }
+
     //----------//
     // canMerge //
     //----------//
@@ -795,11 +824,19 @@ public class FilamentFactory<F extends Filament>
 
             // We allocate one glyph per candidate section
             // (simply to be able to reuse the canMerge() method !!!!!!!)
-            List<Filament> sectionGlyphs = new ArrayList<Filament>(sections.size());
+            // Section glyphs are indexed on their oriented bounds, in position order
+            final List<Filament> sectionGlyphs = new ArrayList<Filament>(sections.size());
+            final SpatialIndex<Filament> sectionIndex = params.useSpatialIndex
+                    ? new SpatialIndex<Filament>(params.cellSize) : null;
 
             for (Section section : sections) {
                 Filament sectionFil = createFilament(section);
-                sectionGlyphs.add(sectionFil);
+
+                if (sectionIndex != null) {
+                    sectionIndex.insert(sectionFil, orientation.oriented(sectionFil.getBounds()));
+                } else {
+                    sectionGlyphs.add(sectionFil);
+                }
 
                 if (section.isVip() || index.isVipId(sectionFil.getId())) {
                     logger.info("VIP created {} from {}", sectionFil, section);
@@ -816,37 +853,45 @@ public class FilamentFactory<F extends Filament>
                 final Rectangle filBounds = orientation.oriented(fil.getBounds());
                 filBounds.grow(params.maxCoordGap, params.maxPosGap);
 
+                // Only the section glyphs that intersect filament fat box are relevant
+                final List<Filament> candidates = (sectionIndex != null)
+                        ? sectionIndex.intersected(filBounds)
+                        : intersected(sectionGlyphs, null, filBounds);
                 boolean expanding;
 
                 do {
                     expanding = false;
 
-                    for (Iterator<Filament> it = sectionGlyphs.iterator(); it.hasNext();) {
+                    for (Iterator<Filament> it = candidates.iterator(); it.hasNext();) {
                         Filament sectionFil = it.next();
-                        Rectangle glyphBounds = orientation.oriented(sectionFil.getBounds());
-
-                        if (filBounds.intersects(glyphBounds)) {
-                            // Check more closely
-                            if (canMerge(fil, sectionFil, true)) {
-                                if (logger.isDebugEnabled() || fil.isVip() || sectionFil.isVip()) {
-                                    logger.info(
-                                            "VIP merging {} w/ sections{}",
-                                            fil,
-                                            Entities.ids(sectionFil.getMembers()));
-
-                                    if (sectionFil.isVip()) {
-                                        fil.setVip(true);
-                                    }
+
+                        // Check more closely
+                        expandTests++;
+
+                        if (canMerge(fil, sectionFil, true)) {
+                            if (logger.isDebugEnabled() || fil.isVip() || sectionFil.isVip()) {
+                                logger.info(
+                                        "VIP merging {} w/ sections{}",
+                                        fil,
+                                        Entities.ids(sectionFil.getMembers()));
+
+                                if (sectionFil.isVip()) {
+                                    fil.setVip(true);
                                 }
+                            }
 
-                                fil.stealSections(sectionFil);
-                                it.remove();
-                                expanding = true;
+                            fil.stealSections(sectionFil);
+                            it.remove();
 
-                                break;
+                            if (sectionIndex != null) {
+                                sectionIndex.remove(sectionFil);
+                            } else {
+                                sectionGlyphs.remove(sectionFil);
                             }
-                        } else if (fil.isVip() && sectionFil.isVip()) {
-                            logger.info("No intersection between {} and {}", fil, sectionFil);
+
+                            expanding = true;
+
+                            break;
                         }
                     }
                 } while (expanding);
@@ -858,6 +903,39 @@ public class FilamentFactory<F extends Filament>
         return filaments;
     }
 
+    //-------------//
+    // intersected //
+    //-------------//
+    /**
+     * Plain browsing of the provided filaments, to report the active ones whose
+     * oriented bounds intersect the provided rectangle.
+     *
+     * @param filaments the filaments to browse
+     * @param stop      the filament where browsing stops, or null
+     * @param rect      the oriented lookup rectangle
+     * @return the intersected filaments, in browsing order
+     */
+    private List<Filament> intersected (List<? extends Filament> filaments,
+                                        Filament stop,
+                                        Rectangle rect)
+    {
+        final List<Filament> found = new ArrayList<Filament>();
+
+        for (Filament fil : filaments) {
+            if (fil == stop) {
+                break;
+            }
+
+            if (fil.getPartOf() == null) {
+                if (orientation.oriented(fil.getBounds()).intersects(rect)) {
+                    found.add(fil);
+                }
+            }
+        }
+
+        return found;
+    }
+
     //-------------//
     // isProcessed //
     //-------------//
@@ -885,11 +963,24 @@ public class FilamentFactory<F extends Filament>
     //----------------//
     /**
      * Aggregate filaments into longer ones.
+     * <p>
+     * Filaments are browsed by decreasing length, each current filament being checked as a
+     * candidate for merge with the longer filaments still active (the heads).
+     * When a head absorbs the candidate, this head becomes the new candidate.
+     * <p>
+     * Heads are kept in a spatial index on their oriented bounds, updated when a head grows,
+     * so that a candidate is checked only against the heads close to it.
+     * Since the index reports heads in their insertion order, which is the filaments order, the
+     * first compatible head is the same as in a plain browsing of the longer filaments.
      */
     private void mergeFilaments (List<F> filaments)
     {
         Collections.sort(filaments, Compounds.byReverseLength(orientation));
 
+        // Active filaments already browsed, with their oriented bounds
+        final SpatialIndex<Filament> heads = params.useSpatialIndex
+                ? new SpatialIndex<Filament>(params.cellSize) : null;
+
         // Browse by decreasing filament length
         for (Filament current : filaments) {
             Filament candidate = current;
@@ -900,40 +991,44 @@ public class FilamentFactory<F extends Filament>
                 final Rectangle candidateBounds = orientation.oriented(candidate.getBounds());
                 candidateBounds.grow(params.maxCoordGap, params.maxPosGap);
 
-                // Check the candidate vs all filaments until current excluded
-                HeadsLoop:
-                for (Filament head : filaments) {
-                    if (head == current) {
-                        break CandidateLoop; // Actual end of sub-list
-                    }
+                // Check the candidate vs the nearby heads
+                final List<Filament> nearHeads = (heads != null)
+                        ? heads.intersected(candidateBounds)
+                        : intersected(filaments, current, candidateBounds);
 
-                    if ((head != candidate) && (head.getPartOf() == null)) {
-                        Rectangle headBounds = orientation.oriented(head.getBounds());
+                for (Filament head : nearHeads) {
+                    if (head != candidate) {
+                        // Check for a possible merge
+                        mergeTests++;
 
-                        if (headBounds.intersects(candidateBounds)) {
-                            // Check for a possible merge
-                            if (canMerge(head, candidate, false)) {
-                                if (logger.isDebugEnabled() || head.isVip() || candidate.isVip()) {
-                                    logger.info("VIP merged {} into {}", candidate, head);
+                        if (canMerge(head, candidate, false)) {
+                            if (logger.isDebugEnabled() || head.isVip() || candidate.isVip()) {
+                                logger.info("VIP merged {} into {}", candidate, head);
 
-                                    if (candidate.isVip()) {
-                                        head.setVip(true);
-                                    }
+                                if (candidate.isVip()) {
+                                    head.setVip(true);
                                 }
+                            }
 
-                                head.stealSections(candidate);
-                                candidate = head; // This is the new candidate
+                            head.stealSections(candidate);
 
-                                break HeadsLoop;
+                            if (heads != null) {
+                                heads.remove(candidate);
+                                heads.insert(head, orientation.oriented(head.getBounds()));
                             }
-                        } else if (head.isVip() && candidate.isVip()) {
-                            logger.info(
-                                    "VIP no fat intersection between {} and {}",
-                                    candidate,
-                                    head);
+
+                            candidate = head; // This is the new candidate
+
+                            continue CandidateLoop;
                         }
                     }
                 }
+
+                break;
+            }
+
+            if ((heads != null) && (current.getPartOf() == null)) {
+                heads.insert(current, orientation.oriented(current.getBounds()));
             }
         }
 
@@ -1045,6 +1140,10 @@ public class FilamentFactory<F extends Filament>
                 false,
                 "Should we print out the factory parameters?");
 
+        private final Constant.Boolean useSpatialIndex = new Constant.Boolean(
+                true,
+                "Should we use a spatial index to retrieve merge candidates?");
+
         private final Constant.Double maxGapSlope = new Constant.Double(
                 "tangent",
                 0.5,
@@ -1107,6 +1206,10 @@ public class FilamentFactory<F extends Filament>
         private final Scale.Fraction minLengthForDeltaSlope = new Scale.Fraction(
                 10,
                 "Minimum filament length to apply delta slope test");
+
+        private final Scale.Fraction cellSize = new Scale.Fraction(
+                4,
+                "Cell size of spatial index on filaments bounds");
     }
 
     //----------------//
@@ -1198,6 +1301,12 @@ public class FilamentFactory<F extends Filament>
 
         public double maxDeltaSlope;
 
+        /** Cell size for spatial index of filaments */
+        public int cellSize;
+
+        /** Use of spatial index for merge candidates */
+        public boolean useSpatialIndex;
+
         //~ Methods --------------------------------------------------------------------------------
         public void dump (String title)
         {
@@ -1225,6 +1334,8 @@ public class FilamentFactory<F extends Filament>
             maxDeltaSlope = constants.maxDeltaSlope.getValue();
 
             probeWidth = scale.toPixels(Filament.getProbeWidth());
+            cellSize = Math.max(1, scale.toPixels(constants.cellSize));
+            useSpatialIndex = constants.useSpatialIndex.isSet();
 
             if (logger.isDebugEnabled()) {
                 dump(null);
@@ -0,0 +1,389 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                    B a n d B i n a r i z e r                                   //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.run.Orientation;
+import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.util.OmrExecutors;
+
+import java.util.Arrays;
+
+/**
+ * Class {@code BandBinarizer} binarizes a gray image directly into a vertical
+ * {@link RunTable}, with no intermediate binary image.
+ * <p>
+ * The image is split into vertical bands of columns, processed in parallel.
+ * Each band is scanned column by column, and the foreground pixels of each column are directly
+ * encoded as the run sequence of this column in the resulting table.
+ * <p>
+ * For an {@link AdaptiveFilter}, the mean and standard deviation around a pixel are computed from
+ * band-local sums: for each row, the sum of pixel values (and of squared values) within the
+ * horizontal window is updated incrementally when moving from one column to the next, and the
+ * vertical window sum is then read from a cumulated column.
+ * Since all sums are exact integers, the resulting thresholds are strictly the same as those of
+ * {@link AdaptiveFilter#isFore(int, int)}, and so is the resulting table compared to
+ * {@link PixelFilter#filteredImage()} followed by a vertical run retrieval.
+ * <p>
+ * A {@link GlobalFilter} is handled as well, other filters are not supported.
+ *
+ * @author Hervé Bitteur
+ */
+public class BandBinarizer
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** The filter to apply. */
+    private final PixelFilter filter;
+
+    /** Source pixels, row after row. */
+    private final byte[] pixels;
+
+    /** Image width. */
+    private final int width;
+
+    /** Image height. */
+    private final int height;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code BandBinarizer} object.
+     *
+     * @param filter the filter to apply, either an AdaptiveFilter or a GlobalFilter
+     */
+    public BandBinarizer (PixelFilter filter)
+    {
+        if (!isSupported(filter)) {
+            throw new IllegalArgumentException("Unsupported filter " + filter);
+        }
+
+        this.filter = filter;
+
+        final ByteProcessor source = ((SourceWrapper) filter).source;
+        pixels = (byte[]) source.getPixels();
+        width = source.getWidth();
+        height = source.getHeight();
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------------//
+    // isSupported //
+    //-------------//
+    /**
+     * Tell whether the provided filter can be processed by a band binarizer.
+     *
+     * @param filter the filter to check
+     * @return true if supported
+     */
+    public static boolean isSupported (PixelFilter filter)
+    {
+        return (filter instanceof AdaptiveFilter) || (filter instanceof GlobalFilter);
+    }
+
+    //----------//
+    // binarize //
+    //----------//
+    /**
+     * Binarize the whole filter source into a vertical run table.
+     *
+     * @return the populated vertical table
+     */
+    public RunTable binarize ()
+    {
+        final RunTable table = new RunTable(Orientation.VERTICAL, width, height);
+        final int bandWidth = Math.max(1, constants.bandWidth.getValue());
+        final int bandCount = (width + bandWidth - 1) / bandWidth;
+
+        OmrExecutors.forEachRange(
+                0,
+                bandCount,
+                1,
+                new OmrExecutors.RangeProcessor()
+        {
+            @Override
+            public void processRange (int from,
+                                      int to)
+            {
+                for (int band = from; band < to; band++) {
+                    final int xMin = band * bandWidth;
+                    final int xMax = Math.min(width, xMin + bandWidth) - 1;
+                    processBand(table, xMin, xMax);
+                }
+            }
+        });
+
+        return table;
+    }
+
+    //-------------//
+    // processBand //
+    //-------------//
+    /**
+     * Binarize the columns of a band.
+     *
+     * @param table the table to populate
+     * @param xMin  first band column
+     * @param xMax  last band column
+     */
+    private void processBand (RunTable table,
+                              int xMin,
+                              int xMax)
+    {
+        final ColumnEncoder encoder = new ColumnEncoder(height);
+
+        if (filter instanceof AdaptiveFilter) {
+            final AdaptiveBand band = new AdaptiveBand((AdaptiveFilter) filter, xMin);
+
+            for (int x = xMin; x <= xMax; x++) {
+                band.processColumn(x, encoder);
+                table.setSequence(x, encoder.getRle());
+            }
+        } else {
+            final int threshold = ((GlobalFilter) filter).getThreshold();
+
+            for (int x = xMin; x <= xMax; x++) {
+                encoder.reset();
+
+                for (int y = 0, i = x; y < height; y++, i += width) {
+                    encoder.push((pixels[i] & 0xFF) <= threshold);
+                }
+
+                table.setSequence(x, encoder.getRle());
+            }
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //--------------//
+    // AdaptiveBand //
+    //--------------//
+    /**
+     * Band-local sums for adaptive filtering, moving from left to right.
+     */
+    private class AdaptiveBand
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        final int half;
+
+        final double meanCoeff;
+
+        final double stdDevCoeff;
+
+        /** For each row, sum of values within current horizontal window. */
+        final long[] rowSums = new long[height];
+
+        /** For each row, sum of squared values within current horizontal window. */
+        final long[] rowSqrSums = new long[height];
+
+        /** Cumulated rowSums, with a leading zero. */
+        final long[] cumSums = new long[height + 1];
+
+        /** Cumulated rowSqrSums, with a leading zero. */
+        final long[] cumSqrSums = new long[height + 1];
+
+        /** First column in current horizontal window. */
+        int lo;
+
+        /** Last column in current horizontal window. */
+        int hi;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        AdaptiveBand (AdaptiveFilter filter,
+                      int xMin)
+        {
+            half = filter.HALF_WINDOW_SIZE;
+            meanCoeff = filter.MEAN_COEFF;
+            stdDevCoeff = filter.STD_DEV_COEFF;
+
+            // Window is initially empty
+            lo = Math.max(0, xMin - half);
+            hi = lo - 1;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        /**
+         * Binarize the provided column.
+         *
+         * @param x       the column abscissa
+         * @param encoder the encoder to fill
+         */
+        void processColumn (int x,
+                            ColumnEncoder encoder)
+        {
+            // Horizontal window borders, as in Tile.getMean()
+            final int x1 = Math.max(-1, x - half - 1);
+            final int x2 = Math.min(width - 1, x + half);
+
+            while (hi < x2) {
+                addColumn(++hi, 1);
+            }
+
+            while (lo <= x1) {
+                addColumn(lo++, -1);
+            }
+
+            // Cumulate row sums
+            for (int y = 0; y < height; y++) {
+                cumSums[y + 1] = cumSums[y] + rowSums[y];
+                cumSqrSums[y + 1] = cumSqrSums[y] + rowSqrSums[y];
+            }
+
+            encoder.reset();
+
+            for (int y = 0, i = x; y < height; y++, i += width) {
+                // Vertical window borders, as in Tile.getMean()
+                final int y1 = Math.max(-1, y - half - 1);
+                final int y2 = Math.min(height - 1, y + half);
+                final int area = (y2 - y1) * (x2 - x1);
+
+                // Same computation as AdaptiveFilter.isFore()
+                final double sum = cumSums[y2 + 1] - cumSums[y1 + 1];
+                final double sqrSum = cumSqrSums[y2 + 1] - cumSqrSums[y1 + 1];
+                final double mean = sum / area;
+                final double sqrMean = sqrSum / area;
+                final double var = Math.abs(sqrMean - (mean * mean));
+                final double stdDev = Math.sqrt(var);
+                final double threshold = (meanCoeff * mean) + (stdDevCoeff * stdDev);
+
+                encoder.push((pixels[i] & 0xFF) <= threshold);
+            }
+        }
+
+        /**
+         * Add (or remove) the values of a column to the row sums.
+         *
+         * @param x    column abscissa
+         * @param sign 1 for addition, -1 for removal
+         */
+        private void addColumn (int x,
+                                int sign)
+        {
+            for (int y = 0, i = x; y < height; y++, i += width) {
+                final long pix = pixels[i] & 0xFF;
+                rowSums[y] += (sign * pix);
+                rowSqrSums[y] += (sign * pix * pix);
+            }
+        }
+    }
+
+    //---------------//
+    // ColumnEncoder //
+    //---------------//
+    /**
+     * Encodes the foreground pixels of a column, as a run table sequence.
+     */
+    private static class ColumnEncoder
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Buffer for alternate foreground / background lengths. */
+        final short[] buffer;
+
+        /** Number of lengths completed in buffer. */
+        int count;
+
+        /** Kind of current run. */
+        boolean fore;
+
+        /** Length of current run. */
+        int length;
+
+        /** Was any foreground pixel met? */
+        boolean hasFore;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        ColumnEncoder (int height)
+        {
+            buffer = new short[height + 1];
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        /**
+         * Report the sequence of the column just pushed.
+         *
+         * @return the RLE sequence (foreground first, ending with foreground) or null if empty
+         */
+        short[] getRle ()
+        {
+            if (!hasFore) {
+                return null;
+            }
+
+            // A trailing background run is not recorded
+            final int size = fore ? (count + 1) : count;
+            final short[] rle = Arrays.copyOf(buffer, size);
+
+            if (fore) {
+                rle[count] = (short) length;
+            }
+
+            return rle;
+        }
+
+        void push (boolean isFore)
+        {
+            if (isFore == fore) {
+                length++;
+            } else {
+                buffer[count++] = (short) length;
+                fore = isFore;
+                length = 1;
+            }
+
+            if (isFore) {
+                hasFore = true;
+            }
+        }
+
+        /**
+         * Prepare for a new column, which starts with an empty foreground run.
+         */
+        void reset ()
+        {
+            count = 0;
+            fore = true;
+            length = 0;
+            hasFore = false;
+        }
+    }
+
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Integer bandWidth = new Constant.Integer(
+                "Pixels",
+                256,
+                "Width of image bands binarized in parallel");
+    }
+}
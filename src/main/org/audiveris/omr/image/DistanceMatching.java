@@ -21,8 +21,12 @@
 // </editor-fold>
 package org.audiveris.omr.image;
 
+import org.audiveris.omr.util.OmrExecutors;
+
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 /**
  * Class {@code DistanceMatching} is a basic implementation of image matching based on
@@ -41,6 +45,9 @@ public class DistanceMatching
      */
     private final DistanceTable distances;
 
+    /** Template evaluator on the distance table. */
+    private final TemplateMatcher matcher;
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Creates a new DistanceMatching object from a distant transform image.
@@ -50,6 +57,7 @@ public class DistanceMatching
     public DistanceMatching (DistanceTable distances)
     {
         this.distances = distances;
+        matcher = new TemplateMatcher(distances);
     }
 
     //~ Methods ------------------------------------------------------------------------------------
@@ -59,27 +67,51 @@ public class DistanceMatching
     /**
      * Run the provided template on the whole image to evaluate all
      * possible matches.
+     * <p>
+     * Columns are scanned in parallel, the resulting locations are reported in the same order as
+     * a sequential scan would.
      *
      * @param template    the template to be used
      * @param maxDistance the maximum acceptable distance for keep a location
      * @return an (unsorted) list of locations with acceptable distance
      */
-    public List<PixelDistance> matchAll (Template template,
-                                         double maxDistance)
+    public List<PixelDistance> matchAll (final Template template,
+                                         final double maxDistance)
     {
         final int scanWidth = distances.getWidth() - template.getWidth();
         final int scanHeight = distances.getHeight() - template.getHeight();
-        final List<PixelDistance> locations = new ArrayList<PixelDistance>();
+        final Map<Integer, List<PixelDistance>> chunks = new ConcurrentSkipListMap<Integer, List<PixelDistance>>();
+
+        OmrExecutors.forEachRange(
+                0,
+                scanWidth,
+                new OmrExecutors.RangeProcessor()
+        {
+            @Override
+            public void processRange (int from,
+                                      int to)
+            {
+                final List<PixelDistance> chunk = new ArrayList<PixelDistance>();
 
-        for (int x = 0; x < scanWidth; x++) {
-            for (int y = 0; y < scanHeight; y++) {
-                // Get match value for a template located at (x,y)
-                double dist = template.evaluate(x, y, null, distances);
+                for (int x = from; x < to; x++) {
+                    for (int y = 0; y < scanHeight; y++) {
+                        // Get match value for a template located at (x,y)
+                        double dist = matcher.evaluate(template, x, y, null);
 
-                if (dist <= maxDistance) {
-                    locations.add(new PixelDistance(x, y, dist));
+                        if (dist <= maxDistance) {
+                            chunk.add(new PixelDistance(x, y, dist));
+                        }
+                    }
                 }
+
+                chunks.put(from, chunk);
             }
+        });
+
+        final List<PixelDistance> locations = new ArrayList<PixelDistance>();
+
+        for (List<PixelDistance> chunk : chunks.values()) {
+            locations.addAll(chunk);
         }
 
         return locations;
@@ -109,6 +109,19 @@ public class GlobalFilter
         return constants.defaultThreshold.getValue();
     }
 
+    //--------------//
+    // getThreshold //
+    //--------------//
+    /**
+     * Report the threshold used by this filter.
+     *
+     * @return the threshold value
+     */
+    int getThreshold ()
+    {
+        return threshold;
+    }
+
     //---------------------//
     // setDefaultThreshold //
     //---------------------//
@@ -68,7 +68,8 @@ import javax.media.jai.JAI;
  * </ul>
  * </ol>
  * This class leverages several software pieces, each with its own Loader subclass:<ul>
- * <li><b>JPod</b> for PDF files. This replaces former use of GhostScript sub-process.</li>
+ * <li><b>JPod</b> for PDF files. This replaces former use of GhostScript sub-process.
+ * Rendered pages are cached on disk, see {@link PdfCache}.</li>
  * <li><b>ImageIO</b> for all files except PDF.</li>
  * <li><b>JAI</b> if ImageIO failed. Note that JAI can find only one image per file.</li>
  * </ul>
@@ -128,6 +129,106 @@ public abstract class ImageLoading
         return loader;
     }
 
+    //--------------//
+    // releaseCache //
+    //--------------//
+    /**
+     * Release the cache of rendered pages for the provided input file, if any, when the file
+     * is no longer used (typically when the related book is closed).
+     * Pending renderings are cancelled and the cache folder is trimmed.
+     *
+     * @param imgPath the provided image path
+     */
+    public static void releaseCache (Path imgPath)
+    {
+        if (FileUtil.getExtension(imgPath).equalsIgnoreCase(".pdf")) {
+            PdfCache.release(imgPath);
+        }
+    }
+
+    //------------//
+    // renderPage //
+    //------------//
+    /**
+     * Render a PDF page into a gray image.
+     *
+     * @param doc        the PDF document
+     * @param id         page id (counted from 1)
+     * @param resolution rendering resolution, in DPI
+     * @return the rendered image
+     */
+    static BufferedImage renderPage (PDDocument doc,
+                                     int id,
+                                     int resolution)
+    {
+        // desired scale = pdfResolution / default PDF resolution
+        float scale = resolution / 72.0f;
+
+        // obtain relevant page parameters
+        PDPage page = doc.getPageTree().getPageAt(id - 1);
+        Rectangle2D rect = page.getCropBox().toNormalizedRectangle();
+        int rotation = page.getRotate();
+        logger.debug("Page #{} rotation: {}°", id, rotation);
+
+        // swap width and height according with the rotation angle
+        AffineTransform pageTransform = new AffineTransform();
+        PDFGeometryTools.adjustTransform(pageTransform, rotation, rect);
+
+        Point2D newDims = new Point2D.Double(rect.getWidth(), rect.getHeight());
+        pageTransform.deltaTransform(newDims, newDims);
+
+        double pageWidth = Math.abs(newDims.getX());
+        double pageHeight = Math.abs(newDims.getY());
+
+        BufferedImage image = new BufferedImage(
+                (int) (pageWidth * scale),
+                (int) (pageHeight * scale),
+                BufferedImage.TYPE_BYTE_GRAY);
+
+        Graphics2D g2 = (Graphics2D) image.getGraphics();
+
+        g2.setRenderingHint(
+                RenderingHints.KEY_ANTIALIASING,
+                RenderingHints.VALUE_ANTIALIAS_OFF);
+        //g2.setRenderingHint(RenderingHints.KEY_ALPHA_INTERPOLATION,
+        //                    RenderingHints.VALUE_ALPHA_INTERPOLATION_QUALITY);
+        //g2.setRenderingHint(RenderingHints.KEY_COLOR_RENDERING,
+        //   		    RenderingHints.VALUE_COLOR_RENDER_QUALITY);
+        //g2.setRenderingHint(RenderingHints.KEY_DITHERING,
+        //		    RenderingHints.VALUE_DITHER_ENABLE);
+        g2.setRenderingHint(
+                RenderingHints.KEY_INTERPOLATION,
+                RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+
+        //g2.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL,
+        //	            RenderingHints.VALUE_STROKE_PURE);
+        //g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+        //		    RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        //g2.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS,
+        //		    RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+        IGraphicsContext gctx = new CwtAwtGraphicsContext(g2);
+        AffineTransform transform = gctx.getTransform();
+        transform.scale(scale, -scale);
+        transform.translate(0.0, -pageHeight);
+        transform.concatenate(pageTransform);
+
+        gctx.setTransform(transform);
+        gctx.setBackgroundColor(Color.WHITE);
+        gctx.fill(rect);
+
+        CSContent content = page.getContentStream();
+
+        if (content != null) {
+            CSPlatformRenderer renderer = new CSPlatformRenderer(null, gctx);
+            g2.setRenderingHint(
+                    RenderingHints.KEY_ANTIALIASING,
+                    RenderingHints.VALUE_ANTIALIAS_OFF);
+            renderer.process(content, page.getResources());
+        }
+
+        return image;
+    }
+
     //------------------//
     // getImageIOLoader //
     //------------------//
@@ -208,7 +309,10 @@ public abstract class ImageLoading
 
         int imageCount = doc.getPageTree().getCount();
 
-        return new JPodLoader(doc, imageCount);
+        return new JPodLoader(
+                doc,
+                imageCount,
+                constants.pdfCache.isSet() ? PdfCache.getInstance(imgPath) : null);
     }
 
     //--------------//
@@ -286,6 +390,10 @@ public abstract class ImageLoading
                 "DPI",
                 300,
                 "DPI resolution for PDF images");
+
+        private final Constant.Boolean pdfCache = new Constant.Boolean(
+                true,
+                "Should we cache rendered PDF pages on disk and render next pages ahead?");
     }
 
     //----------------//
@@ -372,12 +480,17 @@ public abstract class ImageLoading
 
         private final PDDocument doc;
 
+        /** Cache of rendered pages, if any. */
+        private final PdfCache cache;
+
         //~ Constructors ---------------------------------------------------------------------------
         public JPodLoader (PDDocument doc,
-                           int imageCount)
+                           int imageCount,
+                           PdfCache cache)
         {
             super(imageCount);
             this.doc = doc;
+            this.cache = cache;
         }
 
         //~ Methods --------------------------------------------------------------------------------
@@ -389,6 +502,8 @@ public abstract class ImageLoading
             } catch (IOException ex) {
                 logger.warn("Could not close PDDocument", ex);
             }
+
+            // Cache is kept alive, so that pages rendered ahead survive this loader
         }
 
         @Override
@@ -397,72 +512,13 @@ public abstract class ImageLoading
         {
             checkId(id);
 
-            // desired scale = pdfResolution / default PDF resolution
-            float scale = constants.pdfResolution.getValue() / 72.0f;
-
-            // obtain relevant page parameters
-            PDPage page = doc.getPageTree().getPageAt(id - 1);
-            Rectangle2D rect = page.getCropBox().toNormalizedRectangle();
-            int rotation = page.getRotate();
-            logger.debug("Page #{} rotation: {}°", id, rotation);
-
-            // swap width and height according with the rotation angle
-            AffineTransform pageTransform = new AffineTransform();
-            PDFGeometryTools.adjustTransform(pageTransform, rotation, rect);
+            final int resolution = constants.pdfResolution.getValue();
 
-            Point2D newDims = new Point2D.Double(rect.getWidth(), rect.getHeight());
-            pageTransform.deltaTransform(newDims, newDims);
-
-            double pageWidth = Math.abs(newDims.getX());
-            double pageHeight = Math.abs(newDims.getY());
-
-            BufferedImage image = new BufferedImage(
-                    (int) (pageWidth * scale),
-                    (int) (pageHeight * scale),
-                    BufferedImage.TYPE_BYTE_GRAY);
-
-            Graphics2D g2 = (Graphics2D) image.getGraphics();
-
-            g2.setRenderingHint(
-                    RenderingHints.KEY_ANTIALIASING,
-                    RenderingHints.VALUE_ANTIALIAS_OFF);
-            //g2.setRenderingHint(RenderingHints.KEY_ALPHA_INTERPOLATION,
-            //                    RenderingHints.VALUE_ALPHA_INTERPOLATION_QUALITY);
-            //g2.setRenderingHint(RenderingHints.KEY_COLOR_RENDERING,
-            //   		    RenderingHints.VALUE_COLOR_RENDER_QUALITY);
-            //g2.setRenderingHint(RenderingHints.KEY_DITHERING,
-            //		    RenderingHints.VALUE_DITHER_ENABLE);
-            g2.setRenderingHint(
-                    RenderingHints.KEY_INTERPOLATION,
-                    RenderingHints.VALUE_INTERPOLATION_BICUBIC);
-
-            //g2.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL,
-            //	            RenderingHints.VALUE_STROKE_PURE);
-            //g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
-            //		    RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
-            //g2.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS,
-            //		    RenderingHints.VALUE_FRACTIONALMETRICS_ON);
-            IGraphicsContext gctx = new CwtAwtGraphicsContext(g2);
-            AffineTransform transform = gctx.getTransform();
-            transform.scale(scale, -scale);
-            transform.translate(0.0, -pageHeight);
-            transform.concatenate(pageTransform);
-
-            gctx.setTransform(transform);
-            gctx.setBackgroundColor(Color.WHITE);
-            gctx.fill(rect);
-
-            CSContent content = page.getContentStream();
-
-            if (content != null) {
-                CSPlatformRenderer renderer = new CSPlatformRenderer(null, gctx);
-                g2.setRenderingHint(
-                        RenderingHints.KEY_ANTIALIASING,
-                        RenderingHints.VALUE_ANTIALIAS_OFF);
-                renderer.process(content, page.getResources());
+            if (cache != null) {
+                return cache.getImage(doc, id, imageCount, resolution);
             }
 
-            return image;
+            return renderPage(doc, id, resolution);
         }
     }
 
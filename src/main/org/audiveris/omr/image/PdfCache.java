@@ -0,0 +1,590 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                         P d f C a c h e                                        //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import de.intarsys.pdf.parser.COSLoadException;
+import de.intarsys.pdf.pd.PDDocument;
+import de.intarsys.tools.locator.FileLocator;
+
+import org.audiveris.omr.WellKnowns;
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Class {@code PdfCache} handles a disk cache of rendered pages for a given PDF file.
+ * <p>
+ * Rendering a PDF page is expensive, hence each rendered page is written as a PNG file in a cache
+ * folder, keyed by PDF file content hash, page id and rendering resolution.
+ * Any further request for the same page (re-run of LOAD step, or another book on the same input
+ * file) then reads the cached image rather than rendering the page again.
+ * <p>
+ * When a page is requested, the next pages are rendered ahead on low-priority threads, each
+ * render task using its own PDF document handle since a document is not meant to be shared
+ * between threads.
+ * Thus, when sheets of a multi-sheet book are loaded one after the other, the next sheet image is
+ * generally ready in cache when needed.
+ * <p>
+ * The cache folder is bounded in size: whenever a page is stored, the least recently used page
+ * files are evicted until total size gets below the maximum size.
+ * It is also trimmed when the PDF file is released (see {@link #release(Path)}) and at application
+ * exit.
+ * <p>
+ * A cache outlives the loaders of its PDF file, since a loader is typically disposed of as soon as
+ * one sheet image has been loaded, while the following pages are still being rendered ahead.
+ *
+ * @author Hervé Bitteur
+ */
+class PdfCache
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfCache.class);
+
+    /** Cache folder. */
+    private static final Path CACHE_FOLDER = WellKnowns.TEMP_FOLDER.resolve("pdf-cache");
+
+    /** Extension of page files. */
+    private static final String PAGE_EXT = ".png";
+
+    /** Extension of page files being written. */
+    private static final String TEMP_EXT = ".tmp";
+
+    /** Caches per PDF file. */
+    private static final Map<Path, PdfCache> caches = new HashMap<Path, PdfCache>();
+
+    /** Has exit cleanup been registered?. */
+    private static boolean exitRegistered;
+
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** PDF file. */
+    private final Path pdfPath;
+
+    /** Cache folder. */
+    private final Path folder;
+
+    /** Maximum size of cache folder, in bytes. */
+    private final long maxBytes;
+
+    /** PDF file size when hash was computed. */
+    private final long size;
+
+    /** PDF file modification time when hash was computed. */
+    private final long modified;
+
+    /** Hash of PDF file content. */
+    private final String hash;
+
+    /** Page files being rendered ahead. Access is synchronized on this cache. */
+    private final Map<Path, Future<Void>> pending = new HashMap<Path, Future<Void>>();
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code PdfCache} object.
+     *
+     * @param pdfPath  PDF file
+     * @param folder   cache folder
+     * @param maxBytes maximum size of cache folder, in bytes
+     * @throws IOException if PDF file could not be hashed
+     */
+    PdfCache (Path pdfPath,
+              Path folder,
+              long maxBytes)
+            throws IOException
+    {
+        this.pdfPath = pdfPath;
+        this.folder = folder;
+        this.maxBytes = maxBytes;
+        size = Files.size(pdfPath);
+        modified = Files.getLastModifiedTime(pdfPath).toMillis();
+        hash = hashOf(pdfPath);
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------------//
+    // getInstance //
+    //-------------//
+    /**
+     * Report the cache for the provided PDF file.
+     *
+     * @param pdfPath path to PDF file
+     * @return the related cache, or null if file could not be hashed
+     */
+    static synchronized PdfCache getInstance (Path pdfPath)
+    {
+        final Path key = pdfPath.toAbsolutePath().normalize();
+        PdfCache cache = caches.get(key);
+
+        try {
+            if ((cache == null)
+                || (cache.size != Files.size(key))
+                || (cache.modified != Files.getLastModifiedTime(key).toMillis())) {
+                caches.put(key, cache = new PdfCache(key, CACHE_FOLDER, getMaxBytes()));
+            }
+
+            if (!exitRegistered) {
+                OmrExecutors.addShutdownAction(
+                        new Runnable()
+                {
+                    @Override
+                    public void run ()
+                    {
+                        cleanUp();
+                    }
+                });
+                exitRegistered = true;
+            }
+
+            return cache;
+        } catch (IOException ex) {
+            logger.warn("Cannot hash {} {}", pdfPath, ex.toString(), ex);
+
+            return null;
+        }
+    }
+
+    //-------//
+    // close //
+    //-------//
+    /**
+     * Called when the PDF file is released: cancel pending renderings and trim the cache
+     * folder.
+     */
+    void close ()
+    {
+        synchronized (this) {
+            for (Future<Void> future : pending.values()) {
+                future.cancel(false);
+            }
+
+            pending.clear();
+        }
+
+        evict();
+    }
+
+    //-------//
+    // evict //
+    //-------//
+    /**
+     * Delete the least recently used page files, until cache folder size gets below maximum.
+     */
+    void evict ()
+    {
+        synchronized (PdfCache.class) {
+            if (!Files.isDirectory(folder)) {
+                return;
+            }
+
+            final List<Path> files = new ArrayList<Path>();
+            final Map<Path, FileTime> times = new HashMap<Path, FileTime>();
+            long total = 0;
+
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder, "*" + PAGE_EXT)) {
+                for (Path file : stream) {
+                    try {
+                        times.put(file, Files.getLastModifiedTime(file));
+                        total += Files.size(file);
+                        files.add(file);
+                    } catch (IOException ex) {
+                        logger.debug("Page file {} vanished {}", file, ex.toString());
+                    }
+                }
+            } catch (IOException ex) {
+                logger.warn("Could not browse {} {}", folder, ex.toString(), ex);
+
+                return;
+            }
+
+            if (total <= maxBytes) {
+                return;
+            }
+
+            // Oldest used first
+            Collections.sort(
+                    files,
+                    new Comparator<Path>()
+            {
+                @Override
+                public int compare (Path p1,
+                                    Path p2)
+                {
+                    return times.get(p1).compareTo(times.get(p2));
+                }
+            });
+
+            for (Path file : files) {
+                if (total <= maxBytes) {
+                    break;
+                }
+
+                try {
+                    final long fileSize = Files.size(file);
+                    Files.deleteIfExists(file);
+                    total -= fileSize;
+                    logger.debug("Evicted {}", file);
+                } catch (IOException ex) {
+                    logger.debug("Could not evict {} {}", file, ex.toString());
+                }
+            }
+        }
+    }
+
+    //----------//
+    // getImage //
+    //----------//
+    /**
+     * Report the image of a page, read from cache or rendered if not yet cached.
+     * Following pages are rendered ahead.
+     *
+     * @param doc        the PDF document, to render page if needed
+     * @param id         page id (counted from 1)
+     * @param imageCount number of pages in document
+     * @param resolution rendering resolution, in DPI
+     * @return the page image
+     * @throws IOException for any IO error
+     */
+    BufferedImage getImage (PDDocument doc,
+                            int id,
+                            int imageCount,
+                            int resolution)
+            throws IOException
+    {
+        final Path file = getPageFile(id, resolution);
+        final Future<Void> future;
+
+        synchronized (this) {
+            future = pending.get(file);
+        }
+
+        if (future != null) {
+            try {
+                future.get();
+            } catch (InterruptedException ex) {
+                throw new IOException(ex);
+            } catch (ExecutionException ex) {
+                logger.debug("Render ahead failed for page #{} {}", id, ex.toString());
+            } catch (CancellationException ex) {
+                logger.debug("Render ahead cancelled for page #{}", id);
+            }
+        }
+
+        prefetch(id, imageCount, resolution);
+
+        final BufferedImage cached = read(file);
+
+        if (cached != null) {
+            logger.debug("Page #{} read from {}", id, file);
+
+            return cached;
+        }
+
+        final BufferedImage img = ImageLoading.renderPage(doc, id, resolution);
+        store(img, file);
+
+        return img;
+    }
+
+    //-------------//
+    // getPageFile //
+    //-------------//
+    /**
+     * Report the cache file for a page, keyed by PDF content hash, resolution and page id.
+     *
+     * @param id         page id (counted from 1)
+     * @param resolution rendering resolution, in DPI
+     * @return the page file in cache folder
+     */
+    Path getPageFile (int id,
+                      int resolution)
+    {
+        return folder.resolve(hash + "-" + resolution + "dpi-" + id + PAGE_EXT);
+    }
+
+    //------//
+    // read //
+    //------//
+    /**
+     * Read a page file from cache, and record its use.
+     *
+     * @param file the page file
+     * @return the image read, or null if not cached
+     */
+    BufferedImage read (Path file)
+    {
+        try {
+            if (Files.exists(file)) {
+                final BufferedImage img = ImageIO.read(file.toFile());
+
+                if (img != null) {
+                    // Most recently used
+                    final long now = System.currentTimeMillis();
+                    Files.setLastModifiedTime(file, FileTime.fromMillis(now));
+
+                    return img;
+                }
+            }
+        } catch (IOException ex) {
+            logger.debug("Could not read {} {}", file, ex.toString()); // Evicted meanwhile?
+        }
+
+        return null;
+    }
+
+    //-------//
+    // store //
+    //-------//
+    /**
+     * Write image to cache, via a temporary file so that a partial file is never visible.
+     *
+     * @param img  the page image
+     * @param file the page file
+     */
+    void store (BufferedImage img,
+                Path file)
+    {
+        try {
+            Files.createDirectories(folder);
+
+            final Path tmp = Files.createTempFile(folder, "page", TEMP_EXT);
+
+            try {
+                ImageIO.write(img, "png", tmp.toFile());
+                Files.move(
+                        tmp,
+                        file,
+                        StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException ex) {
+            logger.warn("Could not cache {} {}", file, ex.toString(), ex);
+        }
+
+        evict();
+    }
+
+    //---------//
+    // release //
+    //---------//
+    /**
+     * Forget the cache of the provided PDF file, if any, cancelling its pending renderings
+     * and trimming the cache folder.
+     *
+     * @param pdfPath path to PDF file
+     */
+    static void release (Path pdfPath)
+    {
+        final PdfCache cache;
+
+        synchronized (PdfCache.class) {
+            cache = caches.remove(pdfPath.toAbsolutePath().normalize());
+        }
+
+        if (cache != null) {
+            cache.close();
+        }
+    }
+
+    //---------//
+    // cleanUp //
+    //---------//
+    /**
+     * At application exit, forget all caches, trim the cache folder and delete any temporary
+     * file left over.
+     */
+    private static void cleanUp ()
+    {
+        final List<PdfCache> all;
+
+        synchronized (PdfCache.class) {
+            all = new ArrayList<PdfCache>(caches.values());
+            caches.clear();
+        }
+
+        for (PdfCache cache : all) {
+            cache.close();
+        }
+
+        if (Files.isDirectory(CACHE_FOLDER)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(
+                    CACHE_FOLDER,
+                    "*" + TEMP_EXT)) {
+                for (Path file : stream) {
+                    Files.deleteIfExists(file);
+                }
+            } catch (IOException ex) {
+                logger.warn("Could not clean up {} {}", CACHE_FOLDER, ex.toString());
+            }
+        }
+    }
+
+    //-------------//
+    // getMaxBytes //
+    //-------------//
+    private static long getMaxBytes ()
+    {
+        return constants.maxCacheSize.getValue() * 1024L * 1024L;
+    }
+
+    //--------//
+    // hashOf //
+    //--------//
+    private static String hashOf (Path path)
+            throws IOException
+    {
+        try (InputStream is = Files.newInputStream(path)) {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            final byte[] buffer = new byte[8192];
+            int count;
+
+            while ((count = is.read(buffer)) > 0) {
+                digest.update(buffer, 0, count);
+            }
+
+            final StringBuilder sb = new StringBuilder();
+
+            for (byte b : digest.digest()) {
+                sb.append(String.format("%02x", b & 0xFF));
+            }
+
+            return sb.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    //----------//
+    // prefetch //
+    //----------//
+    /**
+     * Launch the rendering of pages that follow the provided one, unless they are already
+     * cached or being rendered.
+     */
+    private synchronized void prefetch (int id,
+                                        int imageCount,
+                                        final int resolution)
+    {
+        final int last = Math.min(imageCount, id + constants.pagesAhead.getValue());
+
+        for (int i = id + 1; i <= last; i++) {
+            final int page = i;
+            final Path file = getPageFile(page, resolution);
+
+            if (pending.containsKey(file) || Files.exists(file)) {
+                continue;
+            }
+
+            pending.put(
+                    file,
+                    OmrExecutors.getCachedLowExecutor().submit(
+                            new Callable<Void>()
+                    {
+                        @Override
+                        public Void call ()
+                                throws Exception
+                        {
+                            try {
+                                render(page, resolution, file);
+
+                                return null;
+                            } finally {
+                                synchronized (PdfCache.this) {
+                                    pending.remove(file);
+                                }
+                            }
+                        }
+                    }));
+        }
+    }
+
+    //--------//
+    // render //
+    //--------//
+    /**
+     * Render a page, using a dedicated document handle, and store it into cache.
+     */
+    private void render (int id,
+                         int resolution,
+                         Path file)
+            throws IOException, COSLoadException
+    {
+        final PDDocument doc = PDDocument.createFromLocator(new FileLocator(pdfPath.toFile()));
+
+        try {
+            logger.debug("Rendering ahead page #{} of {}", id, pdfPath);
+            store(ImageLoading.renderPage(doc, id, resolution), file);
+        } finally {
+            doc.close();
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Integer pagesAhead = new Constant.Integer(
+                "pages",
+                2,
+                "Number of following PDF pages rendered ahead");
+
+        private final Constant.Integer maxCacheSize = new Constant.Integer(
+                "MB",
+                500,
+                "Maximum size of rendered PDF pages cache");
+    }
+}
@@ -0,0 +1,436 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                S e p a r a b l e D i s t a n c e                               //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import org.audiveris.omr.util.OmrExecutors;
+
+import java.util.Arrays;
+
+/**
+ * Class {@code SeparableDistance} computes an exact distance transform in linear time,
+ * as a first pass on columns followed by a second pass on rows (after A. Meijster et al.,
+ * "A general algorithm for computing distance transforms in linear time").
+ * <p>
+ * The first pass computes, for each pixel, the vertical distance to the nearest target pixel in
+ * the same column. The second pass computes, for each row, the lower envelope of the distance
+ * cones rooted at each column. Each pass processes columns (resp. rows) independently, hence
+ * in parallel, and works directly on the backing array of a {@link DistanceTable.Short}.
+ * <p>
+ * Two metrics are available:<ul>
+ * <li>{@link Metric#CHAMFER} gives exactly the same values as {@link ChamferDistance.Short}
+ * using the default chamfer3 mask, so that template distances and thresholds remain valid,</li>
+ * <li>{@link Metric#EUCLIDEAN} gives the Euclidean distance, rounded after multiplication by the
+ * same normalizer.</li>
+ * </ul>
+ *
+ * @author Hervé Bitteur
+ */
+public class SeparableDistance
+        implements ChamferDistance
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    /** Cost of an orthogonal step. */
+    private static final int ORTHO = chamfer3[0][2];
+
+    /** Cost of a diagonal step. */
+    private static final int DIAG = chamfer3[1][2];
+
+    /** Normalizer, as for chamfer3 mask. */
+    private static final int NORMALIZER = ORTHO;
+
+    //~ Enumerations -------------------------------------------------------------------------------
+    /**
+     * Metric to use.
+     */
+    public static enum Metric
+    {
+        //~ Enumeration constant initializers ------------------------------------------------------
+
+        /** Chamfer 3-4 metric. */
+        CHAMFER,
+        /** Euclidean metric. */
+        EUCLIDEAN;
+    }
+
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** True for Euclidean metric, false for chamfer metric. */
+    private final boolean euclidean;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code SeparableDistance} object, with chamfer metric.
+     */
+    public SeparableDistance ()
+    {
+        this(Metric.CHAMFER);
+    }
+
+    /**
+     * Creates a new {@code SeparableDistance} object, with the provided metric.
+     *
+     * @param metric the metric to use
+     */
+    public SeparableDistance (Metric metric)
+    {
+        euclidean = (metric == Metric.EUCLIDEAN);
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //---------//
+    // compute //
+    //---------//
+    @Override
+    public DistanceTable compute (boolean[][] input)
+    {
+        final int width = input.length;
+        final int height = input[0].length;
+        final DistanceTable.Short output = new DistanceTable.Short(width, height, NORMALIZER);
+        final short[] data = ((Table.Short) output.getTable()).getData();
+
+        for (int y = 0, i = 0; y < height; y++) {
+            for (int x = 0; x < width; x++, i++) {
+                data[i] = (short) (input[x][y] ? VALUE_TARGET : VALUE_UNKNOWN);
+            }
+        }
+
+        process(data, width, height);
+
+        return output;
+    }
+
+    //---------------//
+    // computeToBack //
+    //---------------//
+    @Override
+    public DistanceTable computeToBack (ByteProcessor input)
+    {
+        return compute(input, false);
+    }
+
+    //---------------//
+    // computeToFore //
+    //---------------//
+    @Override
+    public DistanceTable computeToFore (ByteProcessor input)
+    {
+        return compute(input, true);
+    }
+
+    //--------//
+    // colMin //
+    //--------//
+    /**
+     * Column pass: replace each cell by its vertical distance to nearest target cell in
+     * the same column, for the columns in [from..to[.
+     * The columns of the band are processed together, one row after the other, to browse the
+     * backing array in its natural order.
+     */
+    private static void colMin (short[] data,
+                                int width,
+                                int height,
+                                int inf,
+                                int from,
+                                int to)
+    {
+        final int[] g = new int[to - from];
+
+        // Downwards
+        Arrays.fill(g, inf);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = from, i = (y * width) + from; x < to; x++, i++) {
+                final int k = x - from;
+
+                if (data[i] == VALUE_TARGET) {
+                    g[k] = 0;
+                } else if (g[k] < inf) {
+                    g[k]++;
+                }
+
+                data[i] = (short) g[k];
+            }
+        }
+
+        // Upwards
+        Arrays.fill(g, inf);
+
+        for (int y = height - 1; y >= 0; y--) {
+            for (int x = from, i = (y * width) + from; x < to; x++, i++) {
+                final int k = x - from;
+
+                if (data[i] == 0) {
+                    g[k] = 0;
+                } else {
+                    if (g[k] < inf) {
+                        g[k]++;
+                    }
+
+                    if (g[k] < data[i]) {
+                        data[i] = (short) g[k];
+                    }
+                }
+            }
+        }
+    }
+
+    //---------//
+    // compute //
+    //---------//
+    private DistanceTable compute (ByteProcessor input,
+                                   boolean toFore)
+    {
+        final int width = input.getWidth();
+        final int height = input.getHeight();
+        final DistanceTable.Short output = new DistanceTable.Short(width, height, NORMALIZER);
+        final short[] data = ((Table.Short) output.getTable()).getData();
+        final byte[] pixels = (byte[]) input.getPixels();
+
+        for (int i = data.length - 1; i >= 0; i--) {
+            // Foreground pixels are 0 in a binary ByteProcessor
+            data[i] = (short) (((pixels[i] == 0) == toFore) ? VALUE_TARGET : VALUE_UNKNOWN);
+        }
+
+        process(data, width, height);
+
+        return output;
+    }
+
+    //----------//
+    // distance //
+    //----------//
+    /**
+     * Distance (squared distance for Euclidean metric) from a column site to a pixel.
+     *
+     * @param t horizontal (signed) distance between pixel and site column
+     * @param g vertical distance from site to pixel row
+     */
+    private long distance (int t,
+                           int g)
+    {
+        if (euclidean) {
+            return ((long) t * t) + ((long) g * g);
+        }
+
+        t = Math.abs(t);
+
+        // Chamfer 3-4: 3 per orthogonal step, 4 per diagonal step
+        return Math.max((ORTHO * t) + ((DIAG - ORTHO) * g), (ORTHO * g) + ((DIAG - ORTHO) * t));
+    }
+
+    //----------//
+    // floorDiv //
+    //----------//
+    private static long floorDiv (long a,
+                                  long b)
+    {
+        final long q = a / b;
+
+        return (((a % b) != 0) && ((a < 0) != (b < 0))) ? (q - 1) : q;
+    }
+
+    //---------//
+    // process //
+    //---------//
+    private void process (final short[] data,
+                          final int width,
+                          final int height)
+    {
+        // Greater than any actual vertical distance
+        final int inf = width + height;
+
+        OmrExecutors.forEachRange(
+                0,
+                width,
+                new OmrExecutors.RangeProcessor()
+        {
+            @Override
+            public void processRange (int from,
+                                      int to)
+            {
+                colMin(data, width, height, inf, from, to);
+            }
+        });
+
+        OmrExecutors.forEachRange(
+                0,
+                height,
+                new OmrExecutors.RangeProcessor()
+        {
+            @Override
+            public void processRange (int from,
+                                      int to)
+            {
+                final int[] g = new int[width];
+                final int[] s = new int[width];
+                final int[] t = new int[width];
+                final long[] f = new long[width];
+
+                for (int y = from; y < to; y++) {
+                    rowMin(data, y * width, width, inf, g, s, t, f);
+                }
+            }
+        });
+    }
+
+    //--------//
+    // rowMin //
+    //--------//
+    /**
+     * Row pass: compute the lower envelope of the distance cones of all columns, and
+     * write the final distances for the row.
+     *
+     * @param data   backing array, containing column distances for the row
+     * @param offset index of row start in backing array
+     * @param width  row width
+     * @param inf    value for no target in column
+     * @param g      buffer for column distances
+     * @param s      buffer for sites (columns) of envelope segments
+     * @param t      buffer for starts of envelope segments
+     * @param f      buffer for distances at starts of envelope segments
+     */
+    private void rowMin (short[] data,
+                         int offset,
+                         int width,
+                         int inf,
+                         int[] g,
+                         int[] s,
+                         int[] t,
+                         long[] f)
+    {
+        for (int x = 0; x < width; x++) {
+            g[x] = data[offset + x];
+        }
+
+        int q = 0;
+        s[0] = 0;
+        t[0] = 0;
+        f[0] = distance(0, g[0]);
+
+        for (int u = 1; u < width; u++) {
+            final int gu = g[u];
+
+            // Chamfer cone of u is dominated by cone of s[q] if gu is too large
+            if (!euclidean && (gu >= (g[s[q]] + (ORTHO * (u - s[q]))))) {
+                continue;
+            }
+
+            while ((q >= 0) && (f[q] > distance(t[q] - u, gu))) {
+                q--;
+            }
+
+            if (q < 0) {
+                q = 0;
+                s[0] = u;
+                f[0] = distance(u, gu);
+            } else {
+                final long w = 1 + sep(s[q], g[s[q]], u, gu);
+
+                if (w < width) {
+                    q++;
+                    s[q] = u;
+                    t[q] = (int) w;
+                    f[q] = distance(t[q] - u, gu);
+                }
+            }
+        }
+
+        for (int x = width - 1; x >= 0; x--) {
+            final int site = s[q];
+
+            if (g[site] >= inf) {
+                data[offset + x] = VALUE_UNKNOWN; // No target at all
+            } else if (euclidean) {
+                final double dist = Math.sqrt(distance(x - site, g[site]));
+                data[offset + x] = (short) Math.rint(NORMALIZER * dist);
+            } else {
+                data[offset + x] = (short) distance(x - site, g[site]);
+            }
+
+            if (x == t[q]) {
+                q--;
+            }
+        }
+    }
+
+    //-----//
+    // sep //
+    //-----//
+    /**
+     * Report the last abscissa where the cone of column i is not above the cone of
+     * column u (i &lt; u).
+     */
+    private long sep (int i,
+                      int gi,
+                      int u,
+                      int gu)
+    {
+        if (euclidean) {
+            return floorDiv(
+                    (((long) u * u) - ((long) i * i) + ((long) gu * gu)) - ((long) gi * gi),
+                    2L * (u - i));
+        }
+
+        // Chamfer cones are piecewise linear, with slope changing by 2 at 3 abscissae each,
+        // from -3 to -1 at (site - g), to +1 at site, to +3 at (site + g).
+        // Their difference (cone u - cone i) is thus constant before the lowest change, and it
+        // changes sign at most once, from non-negative to negative.
+        // We browse the merged slope changes of both cones, updating difference incrementally.
+        int pi = 0;
+        int pu = 0;
+        int slope = 0;
+        long prevX = Math.min(i - gi, u - gu);
+        long diff = distance((int) prevX - u, gu) - distance((int) prevX - i, gi);
+
+        if (diff < 0) {
+            return Long.MIN_VALUE / 2; // Difference is constant before lowest change
+        }
+
+        while ((pi < 3) || (pu < 3)) {
+            final long xi = (pi < 3) ? (i + ((pi - 1) * gi)) : Long.MAX_VALUE;
+            final long xu = (pu < 3) ? (u + ((pu - 1) * gu)) : Long.MAX_VALUE;
+            final long x = Math.min(xi, xu);
+            final long d = diff + (slope * (x - prevX));
+
+            if (d < 0) {
+                // Difference is linear, decreasing, between prevX and x
+                return prevX + (diff / -slope);
+            }
+
+            if (xu <= xi) {
+                slope += 2;
+                pu++;
+            } else {
+                slope -= 2;
+                pi++;
+            }
+
+            prevX = x;
+            diff = d;
+        }
+
+        return Long.MAX_VALUE / 2; // Difference is constant after highest change
+    }
+}
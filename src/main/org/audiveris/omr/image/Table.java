@@ -282,6 +282,16 @@ public interface Table
             return data[index];
         }
 
+        /**
+         * Report the underlying array, even for a view.
+         *
+         * @return the whole backing array
+         */
+        int[] getData ()
+        {
+            return data;
+        }
+
         public int[] getValues ()
         {
             if (roi != null) {
@@ -397,6 +407,16 @@ public interface Table
             return data[index];
         }
 
+        /**
+         * Report the underlying array, even for a view.
+         *
+         * @return the whole backing array
+         */
+        short[] getData ()
+        {
+            return data;
+        }
+
         public short[] getValues ()
         {
             if (roi != null) {
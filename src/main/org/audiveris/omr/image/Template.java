@@ -242,6 +242,19 @@ public class Template
         return Math.sqrt(total / weights) / distances.getNormalizer();
     }
 
+    //---------------//
+    // getBackWeight //
+    //---------------//
+    /**
+     * Report the weight assigned to template background key points.
+     *
+     * @return background weight
+     */
+    static double getBackWeight ()
+    {
+        return constants.backWeight.getValue();
+    }
+
     //-----------//
     // getBounds //
     //-----------//
@@ -271,6 +284,19 @@ public class Template
         return new Rectangle(x - offset.x, y - offset.y, width, height);
     }
 
+    //---------------//
+    // getForeWeight //
+    //---------------//
+    /**
+     * Report the weight assigned to template foreground key points.
+     *
+     * @return foreground weight
+     */
+    static double getForeWeight ()
+    {
+        return constants.foreWeight.getValue();
+    }
+
     //---------------------//
     // getForegroundPixels //
     //---------------------//
@@ -505,9 +531,17 @@ public class Template
     //-----------//
     // upperLeft //
     //-----------//
-    private Point upperLeft (int x,
-                             int y,
-                             Anchor anchor)
+    /**
+     * Report the template upper left corner, when the provided anchor is located at (x,y).
+     *
+     * @param x      anchor abscissa
+     * @param y      anchor ordinate
+     * @param anchor the anchor kind, null for upper left
+     * @return the template upper left corner
+     */
+    Point upperLeft (int x,
+                     int y,
+                     Anchor anchor)
     {
         // Offsets to apply to location?
         if (anchor != null) {
@@ -0,0 +1,329 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                 T e m p l a t e M a t c h e r                                  //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import static org.audiveris.omr.image.ChamferDistance.VALUE_UNKNOWN;
+import org.audiveris.omr.image.Anchored.Anchor;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class {@code TemplateMatcher} evaluates templates on a given distance table, with the
+ * same results as {@link Template#evaluate(int, int, Anchor, DistanceTable)} but at a lower
+ * cost.
+ * <p>
+ * Each template is compiled once, on first use, into flat arrays of key point offsets within the
+ * table backing array, expected distances and weights.
+ * For a location where the whole template lies within the table, key points are then read
+ * directly from the backing array, with no bounds check and no coordinates computation.
+ * Locations close to table border are handled point by point, as the template itself does.
+ * <p>
+ * A matcher is thread-safe, and can thus be shared by tasks that scan separate portions of the
+ * same table in parallel.
+ *
+ * @author Hervé Bitteur
+ */
+public class TemplateMatcher
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** The distance table to match against. */
+    private final DistanceTable distances;
+
+    /** Table width. */
+    private final int width;
+
+    /** Table height. */
+    private final int height;
+
+    /** Table normalizer. */
+    private final int normalizer;
+
+    /** Backing array, if table is based on short values. */
+    private final short[] shortData;
+
+    /** Backing array, if table is based on int values. */
+    private final int[] intData;
+
+    /** Distance between two consecutive rows in backing array. */
+    private final int stride;
+
+    /** Index in backing array of table origin. */
+    private final int origin;
+
+    /** Compiled templates. */
+    private final Map<Template, Compiled> compiledMap = new ConcurrentHashMap<Template, Compiled>();
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code TemplateMatcher} object on the provided distance table.
+     *
+     * @param distances the distance table to match against
+     */
+    public TemplateMatcher (DistanceTable distances)
+    {
+        this.distances = distances;
+        width = distances.getWidth();
+        height = distances.getHeight();
+        normalizer = distances.getNormalizer();
+
+        final Table table = (distances instanceof DistanceTable.Abstract)
+                ? ((DistanceTable.Abstract) distances).getTable() : null;
+
+        if (table instanceof Table.Short) {
+            shortData = ((Table.Short) table).getData();
+            intData = null;
+        } else if (table instanceof Table.Integer) {
+            shortData = null;
+            intData = ((Table.Integer) table).getData();
+        } else {
+            shortData = null;
+            intData = null;
+        }
+
+        if (table instanceof Table.Abstract) {
+            final Table.Abstract abs = (Table.Abstract) table;
+            stride = abs.width;
+            origin = (abs.roi != null) ? ((abs.roi.y * stride) + abs.roi.x) : 0;
+        } else {
+            stride = 0;
+            origin = 0;
+        }
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //----------//
+    // evaluate //
+    //----------//
+    /**
+     * Evaluate the provided template at location (x,y).
+     *
+     * @param template the template to evaluate
+     * @param x        location abscissa
+     * @param y        location ordinate
+     * @param anchor   the anchor kind to use for (x,y), null for upper left
+     * @return the quadratic average distance computed on all key positions
+     */
+    public double evaluate (Template template,
+                            int x,
+                            int y,
+                            Anchor anchor)
+    {
+        final Point ul = template.upperLeft(x, y, anchor);
+
+        return evaluate(getCompiled(template), ul.x, ul.y);
+    }
+
+    //----------//
+    // evaluate //
+    //----------//
+    /**
+     * Evaluate several templates at the same location (x,y), in a single call.
+     *
+     * @param templates the templates to evaluate, a null template being skipped
+     * @param x         location abscissa
+     * @param y         location ordinate
+     * @param anchor    the anchor kind to use for (x,y), null for upper left
+     * @param results   (output) the distance computed for each template, to be filled in the
+     *                  same order as the templates array
+     */
+    public void evaluate (Template[] templates,
+                          int x,
+                          int y,
+                          Anchor anchor,
+                          double[] results)
+    {
+        for (int i = 0; i < templates.length; i++) {
+            final Template template = templates[i];
+
+            if (template != null) {
+                final Point ul = template.upperLeft(x, y, anchor);
+                results[i] = evaluate(getCompiled(template), ul.x, ul.y);
+            }
+        }
+    }
+
+    //----------//
+    // evaluate //
+    //----------//
+    private double evaluate (Compiled c,
+                             int ulx,
+                             int uly)
+    {
+        final boolean interior = (c.offsets != null) && ((ulx + c.xMin) >= 0)
+                                 && ((ulx + c.xMax) < width) && ((uly + c.yMin) >= 0)
+                                 && ((uly + c.yMax) < height);
+        double weights = 0; // Sum of weights
+        double total = 0; // Sum of weighted squared distances
+
+        if (interior) {
+            final int base = origin + (uly * stride) + ulx;
+            final int[] offsets = c.offsets;
+
+            if (shortData != null) {
+                for (int i = 0, n = offsets.length; i < n; i++) {
+                    final int actualDist = shortData[base + offsets[i]];
+
+                    // Ignore neutralized locations in distance table
+                    if (actualDist != VALUE_UNKNOWN) {
+                        final double weight = c.weights[i];
+                        final double dist = actualDist - c.expected[i];
+                        total += (weight * (dist * dist));
+                        weights += weight;
+                    }
+                }
+            } else {
+                for (int i = 0, n = offsets.length; i < n; i++) {
+                    final int actualDist = intData[base + offsets[i]];
+
+                    // Ignore neutralized locations in distance table
+                    if (actualDist != VALUE_UNKNOWN) {
+                        final double weight = c.weights[i];
+                        final double dist = actualDist - c.expected[i];
+                        total += (weight * (dist * dist));
+                        weights += weight;
+                    }
+                }
+            }
+        } else {
+            for (int i = 0, n = c.xs.length; i < n; i++) {
+                final int nx = ulx + c.xs[i];
+                final int ny = uly + c.ys[i];
+
+                // Ignore tested point if located out of image
+                if ((nx >= 0) && (nx < width) && (ny >= 0) && (ny < height)) {
+                    final int actualDist = distances.getValue(nx, ny);
+
+                    // Ignore neutralized locations in distance table
+                    if (actualDist != VALUE_UNKNOWN) {
+                        final double weight = c.weights[i];
+                        final double dist = actualDist - c.expected[i];
+                        total += (weight * (dist * dist));
+                        weights += weight;
+                    }
+                }
+            }
+        }
+
+        return Math.sqrt(total / weights) / normalizer;
+    }
+
+    //-------------//
+    // getCompiled //
+    //-------------//
+    private Compiled getCompiled (Template template)
+    {
+        Compiled compiled = compiledMap.get(template);
+
+        if (compiled == null) {
+            final boolean direct = (shortData != null) || (intData != null);
+            compiled = new Compiled(template, direct ? stride : 0);
+            compiledMap.put(template, compiled);
+        }
+
+        return compiled;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //----------//
+    // Compiled //
+    //----------//
+    /**
+     * Flat version of a template, key points being kept in template order.
+     */
+    private static class Compiled
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Key point abscissae, relative to template upper left corner. */
+        final int[] xs;
+
+        /** Key point ordinates, relative to template upper left corner. */
+        final int[] ys;
+
+        /** Expected distance for each key point. */
+        final double[] expected;
+
+        /** Weight for each key point. */
+        final double[] weights;
+
+        /** Key point offsets in backing array, or null. */
+        final int[] offsets;
+
+        /** Key points extrema. */
+        final int xMin;
+
+        final int xMax;
+
+        final int yMin;
+
+        final int yMax;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        Compiled (Template template,
+                  int stride)
+        {
+            final List<PixelDistance> keyPoints = template.getKeyPoints();
+            final int n = keyPoints.size();
+            final double foreWeight = Template.getForeWeight();
+            final double backWeight = Template.getBackWeight();
+            xs = new int[n];
+            ys = new int[n];
+            expected = new double[n];
+            weights = new double[n];
+            offsets = (stride > 0) ? new int[n] : null;
+
+            int x1 = Integer.MAX_VALUE;
+            int x2 = Integer.MIN_VALUE;
+            int y1 = Integer.MAX_VALUE;
+            int y2 = Integer.MIN_VALUE;
+
+            for (int i = 0; i < n; i++) {
+                final PixelDistance pix = keyPoints.get(i);
+                xs[i] = pix.x;
+                ys[i] = pix.y;
+                expected[i] = pix.d;
+
+                // pix.d == 0 for expected foreground
+                // pix.d > 0 for expected background (expected distance to nearest foreground)
+                weights[i] = (pix.d > 0) ? backWeight : foreWeight;
+
+                if (offsets != null) {
+                    offsets[i] = (pix.y * stride) + pix.x;
+                }
+
+                x1 = Math.min(x1, pix.x);
+                x2 = Math.max(x2, pix.x);
+                y1 = Math.min(y1, pix.y);
+                y2 = Math.max(y2, pix.y);
+            }
+
+            xMin = x1;
+            xMax = x2;
+            yMin = y1;
+            yMax = y2;
+        }
+    }
+}
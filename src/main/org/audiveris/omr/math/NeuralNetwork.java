@@ -22,6 +22,7 @@
 package org.audiveris.omr.math;
 
 import org.audiveris.omr.classifier.TrainingMonitor;
+import org.audiveris.omr.util.JaxbRegistry;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -67,9 +68,6 @@ public class NeuralNetwork
     private static final Logger logger = LoggerFactory.getLogger(
             NeuralNetwork.class);
 
-    /** Un/marshalling context for use with JAXB */
-    private static volatile JAXBContext jaxbContext;
-
     //~ Instance fields ----------------------------------------------------------------------------
     //
     /** Size of input layer. */
@@ -220,7 +218,7 @@ public class NeuralNetwork
     public static NeuralNetwork unmarshal (InputStream in)
             throws JAXBException
     {
-        Unmarshaller um = getJaxbContext().createUnmarshaller();
+        Unmarshaller um = JaxbRegistry.getUnmarshaller(getJaxbContext());
         NeuralNetwork nn = (NeuralNetwork) um.unmarshal(in);
         logger.debug("Network unmarshalled");
 
@@ -350,8 +348,7 @@ public class NeuralNetwork
     public void marshal (OutputStream os)
             throws JAXBException
     {
-        Marshaller m = getJaxbContext().createMarshaller();
-        m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+        Marshaller m = JaxbRegistry.getMarshaller(getJaxbContext());
         m.marshal(this, os);
         logger.debug("Network marshalled");
     }
@@ -386,6 +383,38 @@ public class NeuralNetwork
         this.outputWeights = cloneMatrix(backup.outputWeights);
     }
 
+    //-----//
+    // run //
+    //-----//
+    /**
+     * Run the neural network on a batch of input vectors, and return the computed
+     * output vectors.
+     * Each layer is computed for the whole batch at once, so that every weight vector is
+     * browsed once per layer rather than once per input.
+     *
+     * @param inputs the provided input vectors, one per row
+     * @return the computed output vectors, in the same order as inputs
+     */
+    public double[][] run (double[][] inputs)
+    {
+        for (double[] row : inputs) {
+            if (row.length != inputSize) {
+                logger.error(
+                        "run method. input size {} not consistent with network input layer {}",
+                        row.length,
+                        inputSize);
+            }
+        }
+
+        final double[][] hiddens = new double[inputs.length][hiddenSize];
+        forward(inputs, hiddenWeights, hiddens);
+
+        final double[][] outputs = new double[inputs.length][outputSize];
+        forward(hiddens, outputWeights, outputs);
+
+        return outputs;
+    }
+
     //-----//
     // run //
     //-----//
@@ -730,18 +759,50 @@ public class NeuralNetwork
         }
     }
 
+    //---------//
+    // forward //
+    //---------//
+    /**
+     * Batch version of forward: compute one layer for all rows of the ins matrix.
+     *
+     * @param ins     input rows
+     * @param weights layer weights
+     * @param outs    output rows, pre-allocated
+     */
+    private void forward (double[][] ins,
+                          double[][] weights,
+                          double[][] outs)
+    {
+        double sum;
+        double[] ws;
+        double[] in;
+
+        for (int o = weights.length - 1; o >= 0; o--) {
+            ws = weights[o];
+
+            for (int r = ins.length - 1; r >= 0; r--) {
+                in = ins[r];
+                sum = 0;
+
+                for (int i = in.length - 1; i >= 0; i--) {
+                    sum += (ws[i + 1] * in[i]);
+                }
+
+                // Bias
+                sum += ws[0];
+
+                outs[r][o] = sigmoid(sum);
+            }
+        }
+    }
+
     //----------------//
     // getJaxbContext //
     //----------------//
     private static JAXBContext getJaxbContext ()
             throws JAXBException
     {
-        // Lazy creation
-        if (jaxbContext == null) {
-            jaxbContext = JAXBContext.newInstance(NeuralNetwork.class);
-        }
-
-        return jaxbContext;
+        return JaxbRegistry.getContext(NeuralNetwork.class);
     }
 
     private double relu (double val)
@@ -0,0 +1,166 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                 F a s t A R T E x t r a c t o r                                //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.moments;
+
+import static org.audiveris.omr.moments.ARTMoments.*;
+
+import java.awt.image.WritableRaster;
+
+/**
+ * Class {@code FastARTExtractor} implements extraction of ART Moments, with the same
+ * results as {@link BasicARTExtractor} (within float precision) but at a lower cost.
+ * <p>
+ * Rather than one LUT per basis function, all basis function values (real and imaginary parts)
+ * for a given LUT cell are laid out contiguously in a single float array.
+ * For each foreground point, the bilinear interpolation weights are thus computed only once,
+ * and all coefficients are accumulated in a tight loop over contiguous memory.
+ *
+ * @author Hervé Bitteur
+ */
+public class FastARTExtractor
+        extends AbstractExtractor<ARTMoments>
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    /** Basis function radius, as in BasicARTExtractor. */
+    private static final int LUT_RADIUS = 50;
+
+    /** Number of LUT cells per side. */
+    private static final int LUT_SIZE = 1 + (2 * LUT_RADIUS);
+
+    /** Number of basis functions. */
+    private static final int COUNT = ANGULAR * RADIAL;
+
+    /** Number of values per LUT cell (real and imaginary parts, interleaved). */
+    private static final int STRIDE = 2 * COUNT;
+
+    /** Values of ARTMoments basis functions, cell after cell. */
+    private static final float[] luts = initLUT();
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new FastARTExtractor object.
+     */
+    public FastARTExtractor ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Override
+    public void reconstruct (WritableRaster raster)
+    {
+    }
+
+    //----------------//
+    // extractMoments //
+    //----------------//
+    @Override
+    protected void extractMoments ()
+    {
+        final int max = LUT_SIZE - 1;
+        final double centerX = center.getX();
+        final double centerY = center.getY();
+
+        // Coefficients, real part & imaginary part interleaved
+        final double[] coeffs = new double[STRIDE];
+
+        for (int i = 0; i < mass; i++) {
+            // Map image coordinates to LUT coordinates
+            final double lx = (((xx[i] - centerX) * LUT_RADIUS) / radius) + LUT_RADIUS;
+            final double ly = (((yy[i] - centerY) * LUT_RADIUS) / radius) + LUT_RADIUS;
+
+            if ((lx < 0) || (lx >= LUT_SIZE) || (ly < 0) || (ly >= LUT_SIZE)) {
+                continue;
+            }
+
+            final int x = (int) lx;
+            final int y = (int) ly;
+
+            // Increment from truncated values, ignored on LUT border
+            final double ix = (x == max) ? 0 : (lx - x);
+            final double iy = (y == max) ? 0 : (ly - y);
+            final int x1 = (x == max) ? x : (x + 1);
+            final int y1 = (y == max) ? y : (y + 1);
+
+            // Interpolation weights and cell offsets
+            final double w00 = (1 - ix) * (1 - iy);
+            final double w10 = ix * (1 - iy);
+            final double w01 = (1 - ix) * iy;
+            final double w11 = ix * iy;
+            final int c00 = ((x * LUT_SIZE) + y) * STRIDE;
+            final int c10 = ((x1 * LUT_SIZE) + y) * STRIDE;
+            final int c01 = ((x * LUT_SIZE) + y1) * STRIDE;
+            final int c11 = ((x1 * LUT_SIZE) + y1) * STRIDE;
+
+            for (int k = 0; k < STRIDE; k++) {
+                coeffs[k] += ((w00 * luts[c00 + k]) + (w10 * luts[c10 + k]) + (w01 * luts[c01 + k])
+                              + (w11 * luts[c11 + k]));
+            }
+        }
+
+        // Save to descriptor
+        for (int p = 0; p < ANGULAR; p++) {
+            for (int r = 0; r < RADIAL; r++) {
+                final int k = 2 * ((p * RADIAL) + r);
+                double real = coeffs[k] / mass;
+                double imag = -coeffs[k + 1] / mass;
+                descriptor.setMoment(p, r, Math.hypot(imag, real));
+            }
+        }
+    }
+
+    //---------//
+    // initLUT //
+    //---------//
+    /**
+     * Compute, once for all, the lookup table values.
+     */
+    private static float[] initLUT ()
+    {
+        final float[] table = new float[LUT_SIZE * LUT_SIZE * STRIDE];
+
+        for (int x = 0; x < LUT_SIZE; x++) {
+            double tx = (x - LUT_RADIUS) / (double) LUT_RADIUS; // [-1..+1]
+
+            for (int y = 0; y < LUT_SIZE; y++) {
+                double ty = (y - LUT_RADIUS) / (double) LUT_RADIUS; // [-1..+1]
+                double rad = Math.hypot(tx, ty); // [0..sqrt(2)]
+
+                // Values on or outside unit circle are left to 0
+                if (rad < 1) {
+                    double angle = Math.atan2(ty, tx);
+                    int k = ((x * LUT_SIZE) + y) * STRIDE;
+
+                    for (int p = 0; p < ANGULAR; p++) {
+                        for (int r = 0; r < RADIAL; r++) {
+                            double temp = Math.cos(rad * Math.PI * r);
+                            table[k++] = (float) (temp * Math.cos(angle * p));
+                            table[k++] = (float) (temp * Math.sin(angle * p));
+                        }
+                    }
+                }
+            }
+        }
+
+        return table;
+    }
+}
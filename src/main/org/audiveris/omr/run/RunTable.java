@@ -23,16 +23,22 @@ package org.audiveris.omr.run;
 
 import ij.process.ByteProcessor;
 
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.image.PixelSource;
 import static org.audiveris.omr.image.PixelSource.BACKGROUND;
+import static org.audiveris.omr.image.PixelSource.FOREGROUND;
 import org.audiveris.omr.image.Table;
 import org.audiveris.omr.math.PointsCollector;
 import org.audiveris.omr.moments.ARTMoments;
 import org.audiveris.omr.moments.BasicARTExtractor;
 import org.audiveris.omr.moments.BasicARTMoments;
+import org.audiveris.omr.moments.FastARTExtractor;
 import org.audiveris.omr.moments.GeometricMoments;
+import org.audiveris.omr.moments.MomentsExtractor;
 import static org.audiveris.omr.run.Orientation.HORIZONTAL;
 import org.audiveris.omr.util.ByteUtil;
+import org.audiveris.omr.util.JaxbRegistry;
 import org.audiveris.omr.util.Predicate;
 
 import org.slf4j.Logger;
@@ -44,6 +50,7 @@ import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -54,7 +61,6 @@ import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.Marshaller;
 import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
@@ -88,6 +94,10 @@ import javax.xml.bind.annotation.XmlValue;
  * [FBFBF] (perhaps 0BFBF)
  * etc...
  * </pre>
+ * <p>
+ * To locate the run at a given position, a sequence with many runs lazily builds an index of its
+ * run starts, which allows a binary search rather than a browsing from sequence beginning.
+ * This index is discarded as soon as the sequence gets modified.
  *
  * @author Hervé Bitteur
  */
@@ -98,10 +108,13 @@ public class RunTable
 {
     //~ Static fields/initializers -----------------------------------------------------------------
 
+    private static final Constants constants = new Constants();
+
     private static final Logger logger = LoggerFactory.getLogger(
             RunTable.class);
 
-    private static JAXBContext jaxbContext;
+    /** Minimum number of runs in a sequence, to use an index of run starts. */
+    private static final int MIN_INDEXED_RUNS = 8;
 
     //~ Instance fields ----------------------------------------------------------------------------
     // Persistent data
@@ -239,17 +252,19 @@ public class RunTable
                     System.arraycopy(rle, 0, newRle, 0, c - 2);
                     newRle[c - 2] = (short) (rle[c - 2] + f + rle[c]);
                     System.arraycopy(rle, c + 1, newRle, c - 1, rle.length - c - 1);
-                    sequence.rle = newRle;
+                    sequence.setRle(newRle);
                 } else if (b1 == 0) {
                     // ...F(B)F... -> ...F(0FB2)F... -> ...F+(B2)F...
                     // .......^
                     rle[c - 2] += (short) f;
                     rle[c - 1] = (short) b2;
+                    sequence.invalidate();
                 } else if (b2 == 0) {
                     // ...F(B)F... -> ...F(B1F0)F... -> ...F(B1)F+...
                     // .......^
                     rle[c - 1] += (short) b1;
                     rle[c] += (short) f;
+                    sequence.invalidate();
                 } else {
                     short[] newRle = new short[rle.length + 2];
                     System.arraycopy(rle, 0, newRle, 0, c - 1);
@@ -257,7 +272,7 @@ public class RunTable
                     newRle[c] = (short) f;
                     newRle[c + 1] = (short) b2;
                     System.arraycopy(rle, c, newRle, c + 2, rle.length - c);
-                    sequence.rle = newRle;
+                    sequence.setRle(newRle);
                 }
 
                 return true;
@@ -273,11 +288,12 @@ public class RunTable
             if (rle != null) {
                 // ...F -> ...F+
                 rle[rle.length - 1] += (short) length;
+                sequence.invalidate();
             } else {
                 // null -> F+
                 final short[] newRle = new short[1];
                 newRle[0] = (short) length;
-                sequence.rle = newRle;
+                sequence.setRle(newRle);
             }
         } else {
             final short[] newRle;
@@ -296,12 +312,27 @@ public class RunTable
                 newRle[2] = (short) length;
             }
 
-            sequence.rle = newRle;
+            sequence.setRle(newRle);
         }
 
         return true;
     }
 
+    //-----//
+    // and //
+    //-----//
+    /**
+     * Report a new table with the pixels that are foreground in both this table and that table.
+     * This is performed run-wise, with no pixel buffer involved.
+     *
+     * @param that the other table, with same orientation and same dimension as this table
+     * @return the resulting table
+     */
+    public RunTable and (RunTable that)
+    {
+        return combine(that, SequenceAlgebra.Op.AND);
+    }
+
     //-------------------//
     // computeArtMoments //
     //-------------------//
@@ -322,7 +353,8 @@ public class RunTable
         ///ARTMoments artMoments = new QuantizedARTMoments();
         ARTMoments artMoments = new BasicARTMoments();
 
-        BasicARTExtractor extractor = new BasicARTExtractor();
+        MomentsExtractor<ARTMoments> extractor = constants.useFastArtExtractor.isSet()
+                ? new FastARTExtractor() : new BasicARTExtractor();
         extractor.setDescriptor(artMoments);
         extractor.extract(collector.getXValues(), collector.getYValues(), collector.getSize());
 
@@ -733,9 +765,10 @@ public class RunTable
      * {@inheritDoc}
      * <p>
      * <b>Beware</b>, this implementation is not efficient enough for bulk operations.
-     * For such needs, a much more efficient way is to first retrieve a full buffer, via {@link
-     * #getBuffer()} method, then use this temporary buffer as the {@link PixelSource} instead of
-     * this table.
+     * For such needs, a much more efficient way is to decode whole columns or rows, via
+     * {@link #getColumn(int, byte[])} or {@link #getRow(int, byte[])} methods, or to first
+     * retrieve a full buffer, via {@link #getBuffer()} method, then use this temporary buffer as
+     * the {@link PixelSource} instead of this table.
      *
      * @param x absolute abscissa
      * @param y absolute ordinate
@@ -745,9 +778,7 @@ public class RunTable
     public final int get (int x,
                           int y)
     {
-        Run run = getRunAt(x, y);
-
-        return (run != null) ? 0 : BACKGROUND;
+        return isFore(x, y) ? FOREGROUND : BACKGROUND;
     }
 
     //-----------//
@@ -802,6 +833,31 @@ public class RunTable
         return img;
     }
 
+    //-----------//
+    // getColumn //
+    //-----------//
+    /**
+     * Decode the pixels of a whole column of this table.
+     * <p>
+     * This is very efficient for a vertical table, since the column is a sequence, and still much
+     * cheaper than a {@link #get(int, int)} call per pixel for a horizontal table.
+     *
+     * @param x      the column abscissa, relative to table left
+     * @param column (output) array of at least table height, to be filled with pixel values
+     *               (FOREGROUND or BACKGROUND)
+     */
+    public void getColumn (int x,
+                           byte[] column)
+    {
+        if (orientation == HORIZONTAL) {
+            for (int y = 0; y < height; y++) {
+                column[y] = (byte) (isFore(x, y) ? FOREGROUND : BACKGROUND);
+            }
+        } else {
+            decodeSequence(x, column, height);
+        }
+    }
+
     //--------------//
     // getDimension //
     //--------------//
@@ -863,21 +919,40 @@ public class RunTable
             return null;
         }
 
-        final int coord = (orientation == HORIZONTAL) ? x : y;
+        final RunSequence seq = sequences[iSeq];
 
-        for (Itr it = new Itr(iSeq); it.hasNext();) {
-            Run run = it.next();
+        if (seq == null) {
+            return null;
+        }
 
-            if (run.getStart() > coord) {
-                return null;
-            }
+        final Run run = new Run(-1, -1);
+
+        return seq.lookup((orientation == HORIZONTAL) ? x : y, run) ? run : null;
+    }
 
-            if (run.getStop() >= coord) {
-                return run;
+    //--------//
+    // getRow //
+    //--------//
+    /**
+     * Decode the pixels of a whole row of this table.
+     * <p>
+     * This is very efficient for a horizontal table, since the row is a sequence, and still much
+     * cheaper than a {@link #get(int, int)} call per pixel for a vertical table.
+     *
+     * @param y   the row ordinate, relative to table top
+     * @param row (output) array of at least table width, to be filled with pixel values
+     *            (FOREGROUND or BACKGROUND)
+     */
+    public void getRow (int y,
+                        byte[] row)
+    {
+        if (orientation == HORIZONTAL) {
+            decodeSequence(y, row, width);
+        } else {
+            for (int x = 0; x < width; x++) {
+                row[x] = (byte) (isFore(x, y) ? FOREGROUND : BACKGROUND);
             }
         }
-
-        return null;
     }
 
     //---------------//
@@ -954,23 +1029,38 @@ public class RunTable
     //-----------//
     // unmarshal //
     //-----------//
+    /**
+     * Load a run table from disk, using either the binary format (see {@link RunTableCodec})
+     * or the legacy XML format.
+     *
+     * @param path path to run table file
+     * @return the loaded table, or null if failed
+     */
     public static RunTable unmarshal (Path path)
     {
         logger.debug("RunTable unmarshalling {}", path);
 
         try {
-            InputStream is = Files.newInputStream(path, StandardOpenOption.READ);
+            InputStream is = new BufferedInputStream(
+                    Files.newInputStream(path, StandardOpenOption.READ));
 
-            if (jaxbContext == null) {
-                jaxbContext = JAXBContext.newInstance(RunTable.class);
-            }
+            try {
+                final RunTable runTable;
+
+                if (RunTableCodec.isBinary(is)) {
+                    runTable = RunTableCodec.decode(is);
+                } else {
+                    Unmarshaller um = JaxbRegistry.getUnmarshaller(
+                            JaxbRegistry.getContext(RunTable.class));
+                    runTable = (RunTable) um.unmarshal(is);
+                }
 
-            Unmarshaller um = jaxbContext.createUnmarshaller();
-            RunTable runTable = (RunTable) um.unmarshal(is);
-            is.close();
-            logger.debug("Unmarshalled {}", runTable);
+                logger.debug("Unmarshalled {}", runTable);
 
-            return runTable;
+                return runTable;
+            } finally {
+                is.close();
+            }
         } catch (Exception ex) {
             logger.warn("RunTable. Error unmarshalling " + path + " " + ex, ex);
 
@@ -1150,6 +1240,36 @@ public class RunTable
         return new Itr(index);
     }
 
+    //-------//
+    // minus //
+    //-------//
+    /**
+     * Report a new table with the pixels that are foreground in this table but not in that table.
+     * This is performed run-wise, with no pixel buffer involved.
+     *
+     * @param that the other table, with same orientation and same dimension as this table
+     * @return the resulting table
+     */
+    public RunTable minus (RunTable that)
+    {
+        return combine(that, SequenceAlgebra.Op.MINUS);
+    }
+
+    //----//
+    // or //
+    //----//
+    /**
+     * Report a new table with the pixels that are foreground in this table or in that table.
+     * This is performed run-wise, with no pixel buffer involved.
+     *
+     * @param that the other table, with same orientation and same dimension as this table
+     * @return the resulting table
+     */
+    public RunTable or (RunTable that)
+    {
+        return combine(that, SequenceAlgebra.Op.OR);
+    }
+
     //--------------------//
     // persistentHashCode //
     //--------------------//
@@ -1382,6 +1502,23 @@ public class RunTable
         sequences[index] = encode(list);
     }
 
+    //-------------//
+    // setSequence //
+    //-------------//
+    /**
+     * Set the sequence at provided index, directly from its run-length encoding.
+     * The provided array, which must comply with the encoding described in this class header,
+     * is not copied.
+     *
+     * @param index position in sequences list
+     * @param rle   the run-length encoded sequence, perhaps null for an empty sequence
+     */
+    public void setSequence (int index,
+                             short[] rle)
+    {
+        sequences[index] = (rle != null) ? new RunSequence(rle) : null;
+    }
+
     //----------//
     // toString //
     //----------//
@@ -1528,6 +1665,104 @@ public class RunTable
         }
     }
 
+    //-----//
+    // xor //
+    //-----//
+    /**
+     * Report a new table with the pixels that are foreground in exactly one of the two tables.
+     * This is performed run-wise, with no pixel buffer involved.
+     *
+     * @param that the other table, with same orientation and same dimension as this table
+     * @return the resulting table
+     */
+    public RunTable xor (RunTable that)
+    {
+        return combine(that, SequenceAlgebra.Op.XOR);
+    }
+
+    //---------//
+    // combine //
+    //---------//
+    /**
+     * Combine this table with another table, sequence per sequence.
+     *
+     * @param that the other table
+     * @param op   the boolean operation
+     * @return the resulting table
+     */
+    private RunTable combine (RunTable that,
+                              SequenceAlgebra.Op op)
+    {
+        if ((that.orientation != orientation) || (that.width != width)
+            || (that.height != height)) {
+            throw new IllegalArgumentException("Incompatible tables " + this + " " + that);
+        }
+
+        final RunTable result = new RunTable(orientation, width, height);
+
+        for (int i = 0; i < sequences.length; i++) {
+            final RunSequence s1 = sequences[i];
+            final RunSequence s2 = that.sequences[i];
+            final short[] rle = SequenceAlgebra.combine(
+                    (s1 != null) ? s1.rle : null,
+                    (s2 != null) ? s2.rle : null,
+                    op);
+
+            if (rle != null) {
+                result.sequences[i] = new RunSequence(rle);
+            }
+        }
+
+        return result;
+    }
+
+    //----------------//
+    // decodeSequence //
+    //----------------//
+    /**
+     * Decode a whole sequence into an array of pixel values.
+     *
+     * @param index  sequence index
+     * @param pixels (output) the array to fill
+     * @param length the sequence length (table width or height)
+     */
+    private void decodeSequence (int index,
+                                 byte[] pixels,
+                                 int length)
+    {
+        Arrays.fill(pixels, 0, length, (byte) BACKGROUND);
+
+        for (Itr it = new Itr(index); it.hasNext();) {
+            final Run run = it.next();
+            final int start = run.getStart();
+            Arrays.fill(pixels, start, start + run.getLength(), (byte) FOREGROUND);
+        }
+    }
+
+    //--------//
+    // isFore //
+    //--------//
+    /**
+     * Tell whether the pixel at provided relative location belongs to a run.
+     *
+     * @param x abscissa, relative to runTable left
+     * @param y ordinate, relative to runTable top
+     * @return true if pixel is foreground
+     */
+    private boolean isFore (int x,
+                            int y)
+    {
+        final int iSeq = (orientation == HORIZONTAL) ? y : x;
+
+        if ((iSeq < 0) || (iSeq >= sequences.length)) {
+            return false;
+        }
+
+        final RunSequence seq = sequences[iSeq];
+
+        return (seq != null) && seq.lookup((orientation == HORIZONTAL) ? x : y, null);
+    }
+
     //--------//
     // encode //
     //--------//
@@ -1660,6 +1895,19 @@ public class RunTable
     }
 
     //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Boolean useFastArtExtractor = new Constant.Boolean(
+                true,
+                "Should we use the fast extractor for ART moments?");
+    }
+
     //-------------//
     // RunSequence //
     //-------------//
@@ -1675,6 +1923,9 @@ public class RunTable
         @XmlValue
         private short[] rle;
 
+        /** Lazily built start of each foreground run, if sequence has enough runs. */
+        private transient volatile int[] starts;
+
         //~ Constructors ---------------------------------------------------------------------------
         public RunSequence (short[] rle)
         {
@@ -1686,6 +1937,116 @@ public class RunTable
         }
 
         //~ Methods --------------------------------------------------------------------------------
+        /**
+         * Report the raw RLE array.
+         *
+         * @return the MODIFIABLE rle array, perhaps null
+         */
+        short[] getRle ()
+        {
+            return rle;
+        }
+
+        /**
+         * Discard the index of run starts, if any.
+         * This must be called whenever the rle array is modified in place.
+         */
+        void invalidate ()
+        {
+            starts = null;
+        }
+
+        /**
+         * Look up the foreground run, if any, that contains the provided coordinate.
+         *
+         * @param coord the coordinate along sequence
+         * @param run   (output) if not null, to be filled with the run found
+         * @return true if a run was found
+         */
+        boolean lookup (int coord,
+                        Run run)
+        {
+            final short[] r = rle;
+
+            if ((r == null) || (r.length == 0) || (coord < 0)) {
+                return false;
+            }
+
+            final int first = (r[0] == 0) ? 2 : 0; // Position of first foreground length
+            final int count = size();
+            int start;
+            int rank;
+
+            if (count >= MIN_INDEXED_RUNS) {
+                // Binary search of the last run starting at or before coord
+                final int[] st = getStarts();
+                int lo = 0;
+                int hi = count - 1;
+                rank = -1;
+
+                while (lo <= hi) {
+                    final int mid = (lo + hi) >>> 1;
+
+                    if (st[mid] <= coord) {
+                        rank = mid;
+                        lo = mid + 1;
+                    } else {
+                        hi = mid - 1;
+                    }
+                }
+
+                if (rank == -1) {
+                    return false;
+                }
+
+                start = st[rank];
+            } else {
+                // Plain browsing of the few runs
+                start = (first == 2) ? (r[1] & 0xFFFF) : 0;
+                rank = 0;
+
+                for (int c = first + 2; c < r.length; c += 2) {
+                    // Start of next run
+                    final int next = start + (r[c - 2] & 0xFFFF) + (r[c - 1] & 0xFFFF);
+
+                    if (next > coord) {
+                        break;
+                    }
+
+                    start = next;
+                    rank++;
+                }
+
+                if (start > coord) {
+                    return false;
+                }
+            }
+
+            final int length = r[first + (2 * rank)] & 0xFFFF;
+
+            if (coord >= (start + length)) {
+                return false;
+            }
+
+            if (run != null) {
+                run.setStart(start);
+                run.setLength(length);
+            }
+
+            return true;
+        }
+
+        /**
+         * Replace the rle array.
+         *
+         * @param rle the new rle array
+         */
+        void setRle (short[] rle)
+        {
+            this.rle = rle;
+            starts = null;
+        }
+
         @Override
         public boolean equals (Object obj)
         {
@@ -1734,6 +2095,37 @@ public class RunTable
         {
             return Arrays.toString(rle);
         }
+
+        /**
+         * Report the index of run starts, building it if needed.
+         *
+         * @return the start of each foreground run
+         */
+        private int[] getStarts ()
+        {
+            int[] st = starts;
+
+            if (st == null) {
+                final short[] r = rle;
+                final int count = size();
+                final int first = (r[0] == 0) ? 2 : 0;
+                int loc = (first == 2) ? (r[1] & 0xFFFF) : 0;
+                st = new int[count];
+
+                for (int k = 0, c = first; k < count; k++, c += 2) {
+                    st[k] = loc;
+                    loc += (r[c] & 0xFFFF);
+
+                    if ((c + 1) < r.length) {
+                        loc += (r[c + 1] & 0xFFFF);
+                    }
+                }
+
+                starts = st;
+            }
+
+            return st;
+        }
     }
 
     //-----//
@@ -1863,6 +2255,7 @@ public class RunTable
                     // (FB)F... -> 0(B')F...
                     rle[1] = (short) (rle[0] + rle[1]);
                     rle[0] = 0;
+                    sequences[index].invalidate();
                 }
             } else {
                 final short[] newRle = new short[rle.length - 2];
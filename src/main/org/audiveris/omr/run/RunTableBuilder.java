@@ -0,0 +1,229 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                  R u n T a b l e B u i l d e r                                 //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.run;
+
+import static org.audiveris.omr.image.PixelSource.FOREGROUND;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Class {@code RunTableBuilder} rasterizes runs, perhaps overlapping and coming from
+ * various tables of any orientation, into a single {@link RunTable}.
+ * <p>
+ * It is typically used to build a mask out of glyphs or lines, each with its own run table
+ * located at its own offset, with no pixel buffer of the whole mask dimension.
+ * Runs are recorded per sequence of the target table, then sorted and merged when the table is
+ * built.
+ *
+ * @author Hervé Bitteur
+ */
+public class RunTableBuilder
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Orientation of target table. */
+    private final Orientation orientation;
+
+    /** Width of target table. */
+    private final int width;
+
+    /** Height of target table. */
+    private final int height;
+
+    /** Length of each sequence. */
+    private final int seqLength;
+
+    /** Intervals recorded per sequence, each packed as (start &lt;&lt; 32 | stop). */
+    private final long[][] intervals;
+
+    /** Number of intervals per sequence. */
+    private final int[] counts;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code RunTableBuilder} object.
+     *
+     * @param orientation orientation of the table to build
+     * @param width       width of the table to build
+     * @param height      height of the table to build
+     */
+    public RunTableBuilder (Orientation orientation,
+                            int width,
+                            int height)
+    {
+        this.orientation = orientation;
+        this.width = width;
+        this.height = height;
+
+        final int seqNb = orientation.isVertical() ? width : height;
+        seqLength = orientation.isVertical() ? height : width;
+        intervals = new long[seqNb][];
+        counts = new int[seqNb];
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //--------//
+    // addRun //
+    //--------//
+    /**
+     * Record a run, clipped to the table bounds.
+     *
+     * @param index  index of the target sequence
+     * @param start  start of run in sequence
+     * @param length length of run
+     */
+    public void addRun (int index,
+                        int start,
+                        int length)
+    {
+        if ((index < 0) || (index >= intervals.length)) {
+            return;
+        }
+
+        final int first = Math.max(0, start);
+        final int stop = Math.min(seqLength, start + length); // Exclusive
+
+        if (first >= stop) {
+            return;
+        }
+
+        long[] array = intervals[index];
+        final int count = counts[index];
+
+        if (array == null) {
+            intervals[index] = array = new long[4];
+        } else if (count == array.length) {
+            intervals[index] = array = Arrays.copyOf(array, 2 * count);
+        }
+
+        array[count] = (((long) first) << 32) | stop;
+        counts[index] = count + 1;
+    }
+
+    //-------//
+    // build //
+    //-------//
+    /**
+     * Build the table out of all recorded runs.
+     *
+     * @return the populated table
+     */
+    public RunTable build ()
+    {
+        final RunTable table = new RunTable(orientation, width, height);
+        int[] bounds = new int[8];
+
+        for (int index = 0; index < intervals.length; index++) {
+            final long[] array = intervals[index];
+            final int count = counts[index];
+
+            if (count == 0) {
+                continue;
+            }
+
+            Arrays.sort(array, 0, count);
+
+            if (bounds.length < (2 * count)) {
+                bounds = new int[2 * count];
+            }
+
+            // Merge overlapping or contiguous intervals
+            int n = 0;
+
+            for (int i = 0; i < count; i++) {
+                final int start = (int) (array[i] >>> 32);
+                final int stop = (int) array[i];
+
+                if ((n > 0) && (start <= bounds[n - 1])) {
+                    bounds[n - 1] = Math.max(bounds[n - 1], stop);
+                } else {
+                    bounds[n++] = start;
+                    bounds[n++] = stop;
+                }
+            }
+
+            table.setSequence(index, SequenceAlgebra.encode(bounds, n));
+        }
+
+        return table;
+    }
+
+    //---------//
+    // include //
+    //---------//
+    /**
+     * Record all the runs of the provided table, located at the provided offset.
+     *
+     * @param table  the table to include, of any orientation
+     * @param offset location of table top left corner with respect to the built table
+     */
+    public void include (RunTable table,
+                         Point offset)
+    {
+        final boolean vertical = orientation.isVertical();
+
+        if (table.getOrientation() == orientation) {
+            // Runs can be copied as they are
+            final int dSeq = vertical ? offset.x : offset.y;
+            final int dCoord = vertical ? offset.y : offset.x;
+
+            for (int iSeq = 0, size = table.getSize(); iSeq < size; iSeq++) {
+                for (Iterator<Run> it = table.iterator(iSeq); it.hasNext();) {
+                    final Run run = it.next();
+                    addRun(iSeq + dSeq, run.getStart() + dCoord, run.getLength());
+                }
+            }
+        } else {
+            // Runs must be transposed, via decoding of table columns (or rows)
+            final int seqNb = vertical ? table.getWidth() : table.getHeight();
+            final int length = vertical ? table.getHeight() : table.getWidth();
+            final int dSeq = vertical ? offset.x : offset.y;
+            final int dCoord = vertical ? offset.y : offset.x;
+            final byte[] pixels = new byte[length];
+
+            for (int iSeq = 0; iSeq < seqNb; iSeq++) {
+                if (vertical) {
+                    table.getColumn(iSeq, pixels);
+                } else {
+                    table.getRow(iSeq, pixels);
+                }
+
+                int start = -1;
+
+                for (int c = 0; c <= length; c++) {
+                    final boolean fore = (c < length) && (pixels[c] == (byte) FOREGROUND);
+
+                    if (fore) {
+                        if (start == -1) {
+                            start = c;
+                        }
+                    } else if (start != -1) {
+                        addRun(iSeq + dSeq, start + dCoord, c - start);
+                        start = -1;
+                    }
+                }
+            }
+        }
+    }
+}
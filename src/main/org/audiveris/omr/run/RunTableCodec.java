@@ -0,0 +1,326 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                   R u n T a b l e C o d e c                                    //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.run;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.run.RunTable.RunSequence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Class {@code RunTableCodec} handles the compact binary on-disk format of a
+ * {@link RunTable}.
+ * <p>
+ * Layout (all integers are unsigned varints, except the fixed-size header):
+ * <pre>
+ * magic       4 bytes 'O' 'R' 'T' 'B'
+ * version     1 byte
+ * flags       1 byte  (bit 0: body is deflated)
+ * body        orientation, width, height,
+ *             then for each sequence: rle length (0 for an empty sequence), rle values
+ * </pre>
+ * Since RLE values are mostly small, most of them take a single byte on disk, to be compared
+ * with several characters per value in the formatted XML form.
+ * <p>
+ * Reading transparently falls back to the legacy JAXB XML form, based on the file magic, so that
+ * existing books and sample repositories remain readable.
+ *
+ * @author Hervé Bitteur
+ */
+public abstract class RunTableCodec
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(RunTableCodec.class);
+
+    /** File extension for binary run tables: {@value}. */
+    public static final String EXTENSION = ".bin";
+
+    /** File extension for legacy XML run tables: {@value}. */
+    public static final String LEGACY_EXTENSION = ".xml";
+
+    /** Magic bytes at beginning of a binary run table. */
+    private static final byte[] MAGIC = new byte[]{'O', 'R', 'T', 'B'};
+
+    /** Current format version. */
+    private static final int VERSION = 1;
+
+    /** Flag for deflated body. */
+    private static final int DEFLATED = 0x01;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //--------//
+    // decode //
+    //--------//
+    /**
+     * Read a binary run table from the provided stream.
+     *
+     * @param is the input stream, positioned at the magic bytes
+     * @return the decoded run table
+     * @throws IOException if stream content is not a valid binary run table
+     */
+    public static RunTable decode (InputStream is)
+            throws IOException
+    {
+        for (byte b : MAGIC) {
+            if (readByte(is) != b) {
+                throw new IOException("Not a binary run table");
+            }
+        }
+
+        final int version = readByte(is);
+
+        if (version > VERSION) {
+            throw new IOException("Unsupported binary run table version " + version);
+        }
+
+        final int flags = readByte(is);
+        final InputStream in = ((flags & DEFLATED) != 0)
+                ? new InflaterInputStream(is, new Inflater(), 8192) : is;
+
+        final Orientation orientation = (readVarint(in) == 0) ? Orientation.HORIZONTAL
+                : Orientation.VERTICAL;
+        final int width = readVarint(in);
+        final int height = readVarint(in);
+        final RunTable table = new RunTable(orientation, width, height);
+
+        for (int index = 0, size = table.getSize(); index < size; index++) {
+            final int length = readVarint(in);
+
+            if (length > 0) {
+                final short[] rle = new short[length];
+
+                for (int i = 0; i < length; i++) {
+                    rle[i] = (short) readVarint(in);
+                }
+
+                table.setSequence(index, new RunSequence(rle));
+            }
+        }
+
+        return table;
+    }
+
+    //--------//
+    // encode //
+    //--------//
+    /**
+     * Write the provided run table in binary form to the provided stream.
+     *
+     * @param table    the run table to encode
+     * @param os       the output stream, not closed by this method
+     * @param compress true for deflating the body
+     * @throws IOException if anything goes wrong
+     */
+    public static void encode (RunTable table,
+                               OutputStream os,
+                               boolean compress)
+            throws IOException
+    {
+        os.write(MAGIC);
+        os.write(VERSION);
+        os.write(compress ? DEFLATED : 0);
+
+        final DeflaterOutputStream dos = compress
+                ? new DeflaterOutputStream(os, new Deflater(Deflater.BEST_SPEED), 8192) : null;
+        final OutputStream out = compress ? dos : os;
+
+        writeVarint(out, table.getOrientation().isVertical() ? 1 : 0);
+        writeVarint(out, table.getWidth());
+        writeVarint(out, table.getHeight());
+
+        for (int index = 0, size = table.getSize(); index < size; index++) {
+            final RunSequence seq = table.getSequence(index);
+            final short[] rle = (seq != null) ? seq.getRle() : null;
+
+            if (rle == null) {
+                writeVarint(out, 0);
+            } else {
+                writeVarint(out, rle.length);
+
+                for (short val : rle) {
+                    writeVarint(out, val & 0xFFFF);
+                }
+            }
+        }
+
+        if (dos != null) {
+            dos.finish();
+        }
+    }
+
+    //----------//
+    // isBinary //
+    //----------//
+    /**
+     * Check whether the provided stream starts with binary run table magic.
+     * The stream must support mark/reset, its position is left unchanged.
+     *
+     * @param is the input stream to check
+     * @return true if binary format is detected
+     * @throws IOException if anything goes wrong
+     */
+    public static boolean isBinary (InputStream is)
+            throws IOException
+    {
+        is.mark(MAGIC.length);
+
+        try {
+            for (byte b : MAGIC) {
+                if (is.read() != b) {
+                    return false;
+                }
+            }
+
+            return true;
+        } finally {
+            is.reset();
+        }
+    }
+
+    //------//
+    // load //
+    //------//
+    /**
+     * Load a binary run table from the provided file.
+     *
+     * @param path path to binary file
+     * @return the loaded run table
+     * @throws IOException if anything goes wrong
+     */
+    public static RunTable load (Path path)
+            throws IOException
+    {
+        try (InputStream is = new BufferedInputStream(
+                Files.newInputStream(path, StandardOpenOption.READ))) {
+            return decode(is);
+        }
+    }
+
+    //-------//
+    // store //
+    //-------//
+    /**
+     * Store the provided run table in binary form into the provided file, which is replaced
+     * if it already exists.
+     * Body compression is driven by the 'compressTables' constant.
+     *
+     * @param table the run table to store
+     * @param path  path to target file
+     * @throws IOException if anything goes wrong
+     */
+    public static void store (RunTable table,
+                              Path path)
+            throws IOException
+    {
+        Files.deleteIfExists(path);
+
+        try (OutputStream os = new BufferedOutputStream(
+                Files.newOutputStream(path, StandardOpenOption.CREATE))) {
+            encode(table, os, constants.compressTables.isSet());
+        }
+
+        logger.debug("Stored binary {}", path);
+    }
+
+    //----------//
+    // readByte //
+    //----------//
+    private static int readByte (InputStream is)
+            throws IOException
+    {
+        final int b = is.read();
+
+        if (b < 0) {
+            throw new EOFException("Truncated binary run table");
+        }
+
+        return b;
+    }
+
+    //------------//
+    // readVarint //
+    //------------//
+    private static int readVarint (InputStream is)
+            throws IOException
+    {
+        int value = 0;
+
+        for (int shift = 0; shift < 32; shift += 7) {
+            final int b = readByte(is);
+            value |= ((b & 0x7F) << shift);
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IOException("Malformed varint in binary run table");
+    }
+
+    //-------------//
+    // writeVarint //
+    //-------------//
+    private static void writeVarint (OutputStream os,
+                                     int value)
+            throws IOException
+    {
+        while ((value & ~0x7F) != 0) {
+            os.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        os.write(value);
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Boolean compressTables = new Constant.Boolean(
+                false,
+                "Should we deflate binary run tables? (book files are already zip-compressed)");
+    }
+}
@@ -31,7 +31,6 @@ import org.slf4j.LoggerFactory;
 import java.awt.Rectangle;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Callable;
 
 /**
  * Class {@code RunsRetriever} is in charge of reading a source of pixels and
@@ -164,7 +163,7 @@ public class RunsRetriever
     /**
      * Retrieve runs row by row.
      * This method handles the pixels run either in a parallel or a serial way,
-     * according to the possibilities of the high OMR executor.
+     * according to the possibilities of the OMR fork/join pool.
      */
     private void rowBasedRetrieval (int pMin,
                                     int pMax,
@@ -177,32 +176,22 @@ public class RunsRetriever
                 processPosition(p, cMin, cMax);
             }
         } else {
-            // Parallel (TODO: should use Java 7 fork/join someday...)
+            // Parallel, using chunks of rows on fork/join pool
             try {
-                // Browse one dimension
-                List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(pMax - pMin + 1);
-
-                for (int p = pMin; p <= pMax; p++) {
-                    final int pp = p;
-                    tasks.add(
-                            new Callable<Void>()
+                OmrExecutors.forEachRange(
+                        pMin,
+                        pMax + 1,
+                        new OmrExecutors.RangeProcessor()
+                {
+                    @Override
+                    public void processRange (int from,
+                                              int to)
                     {
-                        @Override
-                        public Void call ()
-                                throws Exception
-                        {
-                            processPosition(pp, cMin, cMax);
-
-                            return null;
+                        for (int p = from; p < to; p++) {
+                            processPosition(p, cMin, cMax);
                         }
-                    });
-                }
-
-                // Launch the tasks and wait for their completion
-                OmrExecutors.getHighExecutor().invokeAll(tasks);
-            } catch (InterruptedException ex) {
-                logger.warn("ParallelRuns got interrupted");
-                throw new ProcessingCancellationException(ex);
+                    }
+                });
             } catch (ProcessingCancellationException pce) {
                 throw pce;
             } catch (Throwable ex) {
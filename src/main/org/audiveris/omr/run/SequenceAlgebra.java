@@ -0,0 +1,205 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                  S e q u e n c e A l g e b r a                                 //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.run;
+
+/**
+ * Class {@code SequenceAlgebra} gathers boolean operations on run sequences, directly
+ * performed on their run-length encoding.
+ * <p>
+ * A sequence is first expanded into the ordered list of its run boundaries: start of first run,
+ * end (exclusive) of first run, start of second run, etc.
+ * Two boundary lists are then swept together, and the resulting boundary list is encoded back.
+ * Cost is thus proportional to the number of runs, whatever the runs lengths.
+ *
+ * @author Hervé Bitteur
+ */
+abstract class SequenceAlgebra
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final int[] NO_BOUNDS = new int[0];
+
+    //~ Enumerations -------------------------------------------------------------------------------
+    /**
+     * Supported boolean operations.
+     */
+    enum Op
+    {
+        //~ Enumeration constant initializers ------------------------------------------------------
+
+        /** Pixels foreground in both sequences. */
+        AND,
+        /** Pixels foreground in at least one sequence. */
+        OR,
+        /** Pixels foreground in exactly one sequence. */
+        XOR,
+        /** Pixels foreground in first sequence but not in second. */
+        MINUS;
+
+        //~ Methods --------------------------------------------------------------------------------
+        boolean apply (boolean a,
+                       boolean b)
+        {
+            switch (this) {
+            case AND:
+                return a && b;
+
+            case OR:
+                return a || b;
+
+            case XOR:
+                return a != b;
+
+            default:
+            case MINUS:
+                return a && !b;
+            }
+        }
+    }
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Not meant to be instantiated.
+     */
+    private SequenceAlgebra ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //----------//
+    // boundsOf //
+    //----------//
+    /**
+     * Expand a run-length encoded sequence into its run boundaries.
+     *
+     * @param rle the encoded sequence, perhaps null
+     * @return the run boundaries, perhaps empty
+     */
+    static int[] boundsOf (short[] rle)
+    {
+        if ((rle == null) || (rle.length == 0)) {
+            return NO_BOUNDS;
+        }
+
+        final int runCount = (rle[0] == 0) ? ((rle.length - 1) / 2) : ((rle.length + 1) / 2);
+        final int[] bounds = new int[2 * runCount];
+        int loc = 0;
+        int k = 0;
+
+        for (int c = 0; c < rle.length; c++) {
+            final int length = rle[c] & 0xFFFF;
+
+            if (((c % 2) == 0) && (length > 0)) {
+                bounds[k++] = loc;
+                bounds[k++] = loc + length;
+            }
+
+            loc += length;
+        }
+
+        return bounds;
+    }
+
+    //---------//
+    // combine //
+    //---------//
+    /**
+     * Combine two encoded sequences.
+     *
+     * @param rle1 first sequence, perhaps null
+     * @param rle2 second sequence, perhaps null
+     * @param op   the boolean operation to apply
+     * @return the resulting encoded sequence, null if empty
+     */
+    static short[] combine (short[] rle1,
+                            short[] rle2,
+                            Op op)
+    {
+        final int[] b1 = boundsOf(rle1);
+        final int[] b2 = boundsOf(rle2);
+        final int[] bounds = new int[b1.length + b2.length];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        boolean in1 = false;
+        boolean in2 = false;
+        boolean in = false;
+
+        while ((i < b1.length) || (j < b2.length)) {
+            final int pos = Math.min(
+                    (i < b1.length) ? b1[i] : Integer.MAX_VALUE,
+                    (j < b2.length) ? b2[j] : Integer.MAX_VALUE);
+
+            if ((i < b1.length) && (b1[i] == pos)) {
+                in1 = !in1;
+                i++;
+            }
+
+            if ((j < b2.length) && (b2[j] == pos)) {
+                in2 = !in2;
+                j++;
+            }
+
+            final boolean result = op.apply(in1, in2);
+
+            if (result != in) {
+                bounds[n++] = pos;
+                in = result;
+            }
+        }
+
+        return encode(bounds, n);
+    }
+
+    //--------//
+    // encode //
+    //--------//
+    /**
+     * Encode a list of run boundaries.
+     *
+     * @param bounds the ordered run boundaries, with no empty run and no contiguous runs
+     * @param count  the number of boundaries to consider in bounds array
+     * @return the encoded sequence, null if empty
+     */
+    static short[] encode (int[] bounds,
+                           int count)
+    {
+        if (count == 0) {
+            return null;
+        }
+
+        final boolean leadingBackground = bounds[0] != 0;
+        final short[] rle = new short[(count - 1) + (leadingBackground ? 2 : 0)];
+        int c = 0;
+
+        if (leadingBackground) {
+            rle[c++] = 0;
+            rle[c++] = (short) bounds[0];
+        }
+
+        for (int k = 1; k < count; k++) {
+            rle[c++] = (short) (bounds[k] - bounds[k - 1]);
+        }
+
+        return rle;
+    }
+}
@@ -23,7 +23,6 @@ package org.audiveris.omr.score;
 
 import org.audiveris.omr.OMR;
 import org.audiveris.omr.sheet.Book;
-import org.audiveris.proxymusic.ScorePartwise;
 import org.audiveris.proxymusic.mxl.Mxl;
 import org.audiveris.proxymusic.mxl.RootFile;
 import org.audiveris.proxymusic.opus.ObjectFactory;
@@ -34,6 +33,7 @@ import org.audiveris.proxymusic.util.Marshalling;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedOutputStream;
 import java.io.FileOutputStream;
 import java.io.OutputStream;
 import java.nio.file.Path;
@@ -82,7 +82,7 @@ public class OpusExporter
                         boolean signed)
             throws Exception
     {
-        final OutputStream os = new FileOutputStream(path.toString());
+        final OutputStream os = new BufferedOutputStream(new FileOutputStream(path.toString()));
         export(os, signed, rootName);
         os.close();
         logger.info("Opus {} exported to {}", rootName, path);
@@ -136,9 +136,8 @@ public class OpusExporter
             opus.getOpusOrOpusLinkOrScore().add(oScore);
 
             // Marshal the score partwise
-            ScorePartwise scorePartwise = PartwiseBuilder.build(score);
             mof.addEntry(new RootFile(entryName, RootFile.MUSICXML_MEDIA_TYPE));
-            Marshalling.marshal(scorePartwise, zos, signed, 2);
+            ScoreExporter.marshal(score, zos, signed);
         }
 
         // Store opus as root
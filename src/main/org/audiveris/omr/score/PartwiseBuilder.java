@@ -202,6 +202,9 @@ import javax.xml.bind.JAXBException;
 /**
  * Class {@code PartwiseBuilder} builds a ProxyMusic MusicXML {@link ScorePartwise}
  * from an Audiveris {@link Score} instance.
+ * <p>
+ * If a {@link PageListener} is provided, the measures built for each page are handed over to the
+ * listener and then released, so that the whole tree of measures is never held in memory.
  *
  * @author Hervé Bitteur
  */
@@ -265,21 +268,30 @@ public class PartwiseBuilder
     /** Factory for ProxyMusic entities. */
     private final ObjectFactory factory = new ObjectFactory();
 
+    /** Listener notified of the measures of each page, if any. */
+    private final PageListener pageListener;
+
+    /** Per part, the measure kept from previous pages, with the latest clef of each staff. */
+    private final Map<ScorePartwise.Part, ScorePartwise.Part.Measure> clefMementos = new HashMap<ScorePartwise.Part, ScorePartwise.Part.Measure>();
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Create a new PartwiseBuilder object, on a related score instance.
      *
-     * @param score the underlying score
+     * @param score        the underlying score
+     * @param pageListener the listener on page measures, or null
      * @throws InterruptedException
      * @throws ExecutionException
      */
-    private PartwiseBuilder (Score score)
+    private PartwiseBuilder (Score score,
+                             PageListener pageListener)
             throws InterruptedException, ExecutionException
     {
         // Make sure the JAXB context is ready
         loading.get();
 
         this.score = score;
+        this.pageListener = pageListener;
     }
 
     //~ Methods ------------------------------------------------------------------------------------
@@ -296,10 +308,32 @@ public class PartwiseBuilder
      */
     public static ScorePartwise build (Score score)
             throws InterruptedException, ExecutionException
+    {
+        return build(score, null);
+    }
+
+    //-------//
+    // build //
+    //-------//
+    /**
+     * Visit the whole score tree and build the corresponding ScorePartwise, handing the
+     * measures over to the provided listener page after page.
+     * <p>
+     * With a non-null listener, the returned ScorePartwise contains no measure.
+     *
+     * @param score        the score to export (cannot be null)
+     * @param pageListener the listener on the measures of each page, or null
+     * @return the populated ScorePartwise
+     * @throws InterruptedException
+     * @throws ExecutionException
+     */
+    public static ScorePartwise build (Score score,
+                                       PageListener pageListener)
+            throws InterruptedException, ExecutionException
     {
         Objects.requireNonNull(score, "Trying to export a null score");
 
-        final PartwiseBuilder builder = new PartwiseBuilder(score);
+        final PartwiseBuilder builder = new PartwiseBuilder(score, pageListener);
 
         builder.processScore();
 
@@ -503,6 +537,50 @@ public class PartwiseBuilder
         return pmClef;
     }
 
+    //-------------------//
+    // createClefMemento //
+    //-------------------//
+    /**
+     * Create a measure that retains the latest clef of each staff in the provided
+     * measures, as {@link #isNewClef(Clef)} would find them.
+     *
+     * @param measures the measures to browse
+     * @return the memento measure, or null if no clef was found
+     */
+    private ScorePartwise.Part.Measure createClefMemento (List<ScorePartwise.Part.Measure> measures)
+    {
+        final Map<BigInteger, Clef> clefs = new LinkedHashMap<BigInteger, Clef>();
+
+        for (ListIterator<ScorePartwise.Part.Measure> mit = measures.listIterator(measures.size());
+                mit.hasPrevious();) {
+            List<Object> items = mit.previous().getNoteOrBackupOrForward();
+
+            for (ListIterator<Object> it = items.listIterator(items.size()); it.hasPrevious();) {
+                Object obj = it.previous();
+
+                if (obj instanceof Attributes) {
+                    for (Clef clef : ((Attributes) obj).getClef()) {
+                        if (!clefs.containsKey(clef.getNumber())) {
+                            clefs.put(clef.getNumber(), clef);
+                        }
+                    }
+                }
+            }
+        }
+
+        if (clefs.isEmpty()) {
+            return null;
+        }
+
+        Attributes attributes = factory.createAttributes();
+        attributes.getClef().addAll(clefs.values());
+
+        ScorePartwise.Part.Measure memento = factory.createScorePartwisePartMeasure();
+        memento.getNoteOrBackupOrForward().add(attributes);
+
+        return memento;
+    }
+
     //-----------------//
     // createScorePart //
     //-----------------//
@@ -554,6 +632,51 @@ public class PartwiseBuilder
         return pmPart;
     }
 
+    //-----------//
+    // flushPage //
+    //-----------//
+    /**
+     * Hand the measures built for the current page over to the page listener, and
+     * release them.
+     * <p>
+     * Since {@link #isNewClef(Clef)} looks back into previous measures, each part keeps just a
+     * memento measure with the latest clef of each staff.
+     */
+    private void flushPage ()
+    {
+        final Map<ScorePartwise.Part, ScorePartwise.Part.Measure> mementos = new HashMap<ScorePartwise.Part, ScorePartwise.Part.Measure>();
+
+        for (ScorePartwise.Part pmPart : scorePartwise.getPart()) {
+            List<ScorePartwise.Part.Measure> measures = pmPart.getMeasure();
+            ScorePartwise.Part.Measure memento = createClefMemento(measures);
+
+            if (memento != null) {
+                mementos.put(pmPart, memento);
+            }
+
+            // Remove the memento from previous pages, before handing the page measures
+            if (!measures.isEmpty() && (measures.get(0) == clefMementos.get(pmPart))) {
+                measures.remove(0);
+            }
+        }
+
+        pageListener.pageBuilt(scorePartwise);
+
+        for (ScorePartwise.Part pmPart : scorePartwise.getPart()) {
+            List<ScorePartwise.Part.Measure> measures = pmPart.getMeasure();
+            measures.clear();
+
+            ScorePartwise.Part.Measure memento = mementos.get(pmPart);
+
+            if (memento != null) {
+                measures.add(memento);
+            }
+        }
+
+        clefMementos.clear();
+        clefMementos.putAll(mementos);
+    }
+
     //------------------//
     // getArticulations //
     //------------------//
@@ -2001,11 +2124,24 @@ public class PartwiseBuilder
         for (SheetStub stub : score.getStubs()) {
             processStub(stub, partMap);
 
+            if (pageListener != null) {
+                flushPage();
+            }
+
             // Lean management of sheet instances ...
             if ((OMR.gui == null) || (StubsController.getCurrentStub() != stub)) {
                 stub.swapSheet();
             }
         }
+
+        if (pageListener != null) {
+            // Discard the clef mementos
+            for (ScorePartwise.Part pmPart : partMap.values()) {
+                pmPart.getMeasure().clear();
+            }
+
+            clefMementos.clear();
+        }
     }
 
     //--------------//
@@ -2810,6 +2946,27 @@ public class PartwiseBuilder
         return toTenths(staffTopY - point.getY());
     }
 
+    //~ Inner Interfaces ---------------------------------------------------------------------------
+    //--------------//
+    // PageListener //
+    //--------------//
+    /**
+     * Interface {@code PageListener} is notified of the measures built for each page.
+     */
+    public static interface PageListener
+    {
+        //~ Methods --------------------------------------------------------------------------------
+
+        /**
+         * Called when all parts have been populated with the measures of a page.
+         * The measures are released once this method returns.
+         *
+         * @param scorePartwise the ScorePartwise being built, whose parts contain just the
+         *                      measures of the page
+         */
+        void pageBuilt (ScorePartwise scorePartwise);
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
     //-----------//
     // Constants //
@@ -0,0 +1,563 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                   P a r t w i s e W r i t e r                                  //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.score;
+
+import org.audiveris.omr.WellKnowns;
+
+import org.audiveris.proxymusic.ScorePart;
+import org.audiveris.proxymusic.ScorePartwise;
+import org.audiveris.proxymusic.util.Marshalling;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Class {@code PartwiseWriter} writes the MusicXML data of a score page after page,
+ * rather than building and marshalling the complete {@link ScorePartwise} tree at once.
+ * <p>
+ * Since partwise data is organized part after part, the measures of each page are marshalled as
+ * soon as the page has been built, and their XML text is appended to a temporary spool file per
+ * part, before the page measures get released.
+ * Once all pages have been processed, the score skeleton (header, part list and parts without
+ * any measure) is marshalled, and the content of each part spool is inserted into the
+ * corresponding part element.
+ * <p>
+ * Part elements are located in marshalled text by a light XML scan, which skips comments,
+ * processing instructions and declarations, honors quoted attribute values and accepts
+ * empty-element tags such as the one of a part with no measure.
+ * <p>
+ * Skeleton and measures going through the same {@link Marshalling}, the resulting output is
+ * identical to the marshalling of the complete tree.
+ *
+ * @author Hervé Bitteur
+ */
+public class PartwiseWriter
+        implements PartwiseBuilder.PageListener
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Logger logger = LoggerFactory.getLogger(PartwiseWriter.class);
+
+    /** Name of part element. */
+    private static final String PART = "part";
+
+    /** Id attribute within a start tag. */
+    private static final Pattern ID_PATTERN = Pattern.compile(
+            "\\sid\\s*=\\s*(?:\"([^\"]*)\"|'([^']*)')");
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** The score to write. */
+    private final Score score;
+
+    /** Spool of measures text, per part. */
+    private final Map<ScorePartwise.Part, Spool> spools =
+            new LinkedHashMap<ScorePartwise.Part, Spool>();
+
+    /** First error met while processing pages, if any. */
+    private Exception failure;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code PartwiseWriter} object.
+     *
+     * @param score the score to write (cannot be null)
+     */
+    public PartwiseWriter (Score score)
+    {
+        if (score == null) {
+            throw new IllegalArgumentException("Trying to write a null score");
+        }
+
+        this.score = score;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-----------//
+    // pageBuilt //
+    //-----------//
+    @Override
+    public void pageBuilt (ScorePartwise scorePartwise)
+    {
+        if (failure != null) {
+            return;
+        }
+
+        try {
+            // Marshal a partwise made of just the page measures
+            final ScorePartwise pagePartwise = new ScorePartwise();
+            pagePartwise.setPartList(scorePartwise.getPartList());
+
+            for (ScorePartwise.Part pmPart : scorePartwise.getPart()) {
+                ScorePartwise.Part pagePart = new ScorePartwise.Part();
+                pagePart.setId(pmPart.getId());
+                pagePart.getMeasure().addAll(pmPart.getMeasure());
+                pagePartwise.getPart().add(pagePart);
+            }
+
+            final String xml = marshal(pagePartwise, false);
+            final List<PartSpan> spans = findParts(xml, scorePartwise.getPart());
+
+            // Append the measures text of each part to the part spool
+            for (int i = 0; i < spans.size(); i++) {
+                final PartSpan span = spans.get(i);
+
+                // Indentation before part end is kept aside
+                int end = span.contentEnd;
+
+                while ((end > span.contentStart) && Character.isWhitespace(xml.charAt(end - 1))) {
+                    end--;
+                }
+
+                if (end > span.contentStart) {
+                    final ScorePartwise.Part pmPart = scorePartwise.getPart().get(i);
+                    Spool spool = spools.get(pmPart);
+
+                    if (spool == null) {
+                        spools.put(pmPart, spool = new Spool());
+                    }
+
+                    spool.append(xml, span.contentStart, end);
+                    spool.tail = xml.substring(end, span.contentEnd);
+                }
+            }
+        } catch (Exception ex) {
+            failure = ex;
+        }
+    }
+
+    //-------//
+    // write //
+    //-------//
+    /**
+     * Build and write the score MusicXML data to the provided output stream.
+     * The output stream is flushed but not closed.
+     *
+     * @param os     the output stream where XML data is written (cannot be null)
+     * @param signed should we inject ProxyMusic signature?
+     * @throws Exception if something goes wrong
+     */
+    public void write (OutputStream os,
+                       boolean signed)
+            throws Exception
+    {
+        write(PartwiseBuilder.build(score, this), os, signed);
+    }
+
+    //-----------//
+    // findParts //
+    //-----------//
+    /**
+     * Locate the part elements, children of XML root element, and check them against the
+     * provided parts.
+     *
+     * @param xml     the marshalled XML text
+     * @param pmParts the parts expected, in order
+     * @return the part spans, in document order
+     */
+    static List<PartSpan> findParts (String xml,
+                                     List<ScorePartwise.Part> pmParts)
+    {
+        final List<PartSpan> spans = new ArrayList<PartSpan>();
+        int depth = 0;
+        int partStart = -1; // Index of current part start tag, if any
+        int contentStart = -1; // Index after current part start tag, if any
+        int i = 0;
+
+        while ((i = xml.indexOf('<', i)) != -1) {
+            if (xml.startsWith("<!--", i)) {
+                i = indexAfter(xml, "-->", i);
+            } else if (xml.startsWith("<![CDATA[", i)) {
+                i = indexAfter(xml, "]]>", i);
+            } else if (xml.startsWith("<?", i)) {
+                i = indexAfter(xml, "?>", i);
+            } else if (xml.startsWith("<!", i)) {
+                i = indexAfterDeclaration(xml, i);
+            } else if (xml.startsWith("</", i)) {
+                final int tagEnd = indexAfter(xml, ">", i);
+                depth--;
+
+                if ((depth == 1) && (partStart != -1)) {
+                    spans.add(new PartSpan(xml, partStart, contentStart, i, tagEnd));
+                    partStart = -1;
+                }
+
+                i = tagEnd;
+            } else {
+                final int tagEnd = indexAfterStartTag(xml, i);
+                final boolean emptyTag = xml.charAt(tagEnd - 2) == '/';
+
+                if ((depth == 1) && isNamed(xml, i, PART)) {
+                    if (emptyTag) {
+                        spans.add(new PartSpan(xml, i, tagEnd, tagEnd, tagEnd));
+                    } else {
+                        partStart = i;
+                        contentStart = tagEnd;
+                    }
+                }
+
+                if (!emptyTag) {
+                    depth++;
+                }
+
+                i = tagEnd;
+            }
+        }
+
+        // Check parts
+        if (spans.size() != pmParts.size()) {
+            throw new IllegalStateException(
+                    "Expected " + pmParts.size() + " parts, found " + spans.size());
+        }
+
+        for (int ip = 0; ip < spans.size(); ip++) {
+            final String id = ((ScorePart) pmParts.get(ip).getId()).getId();
+
+            if (!id.equals(spans.get(ip).id)) {
+                throw new IllegalStateException(
+                        "Expected part " + id + ", found " + spans.get(ip).id);
+            }
+        }
+
+        return spans;
+    }
+
+    //-------//
+    // write //
+    //-------//
+    /**
+     * Write the score skeleton, augmented by the spooled measures, to the provided output
+     * stream.
+     *
+     * @param skeleton the score skeleton, its parts being those handed to {@link #pageBuilt}
+     * @param os       the output stream where XML data is written
+     * @param signed   should we inject ProxyMusic signature?
+     * @throws Exception if something goes wrong
+     */
+    void write (ScorePartwise skeleton,
+                OutputStream os,
+                boolean signed)
+            throws Exception
+    {
+        try {
+            if (failure != null) {
+                throw failure;
+            }
+
+            // Measures of an aborted page, if any, are not written
+            for (ScorePartwise.Part pmPart : skeleton.getPart()) {
+                pmPart.getMeasure().clear();
+            }
+
+            final String xml = marshal(skeleton, signed);
+            final List<PartSpan> spans = findParts(xml, skeleton.getPart());
+            final Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(os, StandardCharsets.UTF_8));
+            int start = 0;
+
+            for (int i = 0; i < spans.size(); i++) {
+                final Spool spool = spools.get(skeleton.getPart().get(i));
+
+                if (spool == null) {
+                    continue; // Part written as is
+                }
+
+                final PartSpan span = spans.get(i);
+
+                if (span.contentStart == span.end) {
+                    // Empty-element tag, expanded to start tag + measures + end tag
+                    String tag = xml.substring(span.start, span.contentStart - 2);
+
+                    while (Character.isWhitespace(tag.charAt(tag.length() - 1))) {
+                        tag = tag.substring(0, tag.length() - 1);
+                    }
+
+                    writer.write(xml, start, span.start - start);
+                    writer.write(tag + ">");
+                    spool.copyTo(writer);
+                    writer.write("</" + PART + ">");
+                    start = span.end;
+                } else {
+                    // Start tag + measures, skeleton content (indentation) being replaced
+                    writer.write(xml, start, span.contentStart - start);
+                    spool.copyTo(writer);
+                    start = span.contentEnd;
+                }
+            }
+
+            writer.write(xml, start, xml.length() - start);
+            writer.flush();
+        } finally {
+            for (Spool spool : spools.values()) {
+                spool.delete();
+            }
+
+            spools.clear();
+        }
+    }
+
+    //------------//
+    // indexAfter //
+    //------------//
+    private static int indexAfter (String xml,
+                                   String str,
+                                   int start)
+    {
+        final int index = xml.indexOf(str, start);
+
+        if (index == -1) {
+            throw new IllegalStateException("No " + str + " found after index " + start);
+        }
+
+        return index + str.length();
+    }
+
+    //-----------------------//
+    // indexAfterDeclaration //
+    //-----------------------//
+    /**
+     * Report the index after a declaration such as DOCTYPE, which may contain an internal
+     * subset between brackets.
+     */
+    private static int indexAfterDeclaration (String xml,
+                                              int start)
+    {
+        int brackets = 0;
+        char quote = 0;
+
+        for (int i = start + 2; i < xml.length(); i++) {
+            final char c = xml.charAt(i);
+
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if ((c == '"') || (c == '\'')) {
+                quote = c;
+            } else if (c == '[') {
+                brackets++;
+            } else if (c == ']') {
+                brackets--;
+            } else if ((c == '>') && (brackets == 0)) {
+                return i + 1;
+            }
+        }
+
+        throw new IllegalStateException("Unterminated declaration at index " + start);
+    }
+
+    //--------------------//
+    // indexAfterStartTag //
+    //--------------------//
+    /**
+     * Report the index after a start tag (or empty-element tag), skipping quoted attribute
+     * values.
+     */
+    private static int indexAfterStartTag (String xml,
+                                           int start)
+    {
+        char quote = 0;
+
+        for (int i = start + 1; i < xml.length(); i++) {
+            final char c = xml.charAt(i);
+
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if ((c == '"') || (c == '\'')) {
+                quote = c;
+            } else if (c == '>') {
+                return i + 1;
+            }
+        }
+
+        throw new IllegalStateException("Unterminated tag at index " + start);
+    }
+
+    //---------//
+    // isNamed //
+    //---------//
+    /**
+     * Check whether the tag at provided index has the provided name.
+     */
+    private static boolean isNamed (String xml,
+                                    int start,
+                                    String name)
+    {
+        final int end = start + 1 + name.length();
+
+        if (!xml.startsWith(name, start + 1) || (end >= xml.length())) {
+            return false;
+        }
+
+        final char c = xml.charAt(end);
+
+        return Character.isWhitespace(c) || (c == '>') || (c == '/');
+    }
+
+    //---------//
+    // marshal //
+    //---------//
+    private static String marshal (ScorePartwise scorePartwise,
+                                   boolean signed)
+            throws Exception
+    {
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        Marshalling.marshal(scorePartwise, bos, signed, 2);
+
+        return new String(bos.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //----------//
+    // PartSpan //
+    //----------//
+    /**
+     * Location of a part element within XML text.
+     */
+    static class PartSpan
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Value of id attribute. */
+        final String id;
+
+        /** Index of start tag. */
+        final int start;
+
+        /** Index after start tag. */
+        final int contentStart;
+
+        /** Index of end tag (same as contentStart for an empty-element tag). */
+        final int contentEnd;
+
+        /** Index after end tag. */
+        final int end;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        PartSpan (String xml,
+                  int start,
+                  int contentStart,
+                  int contentEnd,
+                  int end)
+        {
+            this.start = start;
+            this.contentStart = contentStart;
+            this.contentEnd = contentEnd;
+            this.end = end;
+
+            final Matcher matcher = ID_PATTERN.matcher(xml.substring(start, contentStart));
+            id = !matcher.find() ? null
+                    : ((matcher.group(1) != null) ? matcher.group(1) : matcher.group(2));
+        }
+    }
+
+    //-------//
+    // Spool //
+    //-------//
+    /**
+     * Temporary file which accumulates the measures text of a part.
+     */
+    private static class Spool
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Temporary file. */
+        final Path path;
+
+        /** Writer to file, null once closed. */
+        Writer out;
+
+        /** Text to write after measures (indentation of part end). */
+        String tail = "";
+
+        //~ Constructors ---------------------------------------------------------------------------
+        Spool ()
+                throws IOException
+        {
+            Files.createDirectories(WellKnowns.TEMP_FOLDER);
+            path = Files.createTempFile(WellKnowns.TEMP_FOLDER, "part", ".xml");
+            out = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        void append (String xml,
+                     int from,
+                     int to)
+                throws IOException
+        {
+            out.write(xml, from, to - from);
+        }
+
+        void copyTo (Writer writer)
+                throws IOException
+        {
+            out.close();
+            out = null;
+
+            final Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+
+            try {
+                final char[] buffer = new char[8192];
+                int count;
+
+                while ((count = reader.read(buffer)) != -1) {
+                    writer.write(buffer, 0, count);
+                }
+            } finally {
+                reader.close();
+            }
+
+            writer.write(tail);
+        }
+
+        void delete ()
+        {
+            try {
+                if (out != null) {
+                    out.close();
+                }
+
+                Files.deleteIfExists(path);
+            } catch (IOException ex) {
+                logger.warn("Could not delete {} {}", path, ex.toString());
+            }
+        }
+    }
+}
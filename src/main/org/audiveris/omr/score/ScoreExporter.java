@@ -22,6 +22,8 @@
 package org.audiveris.omr.score;
 
 import org.audiveris.omr.OMR;
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.proxymusic.ScorePartwise;
 import org.audiveris.proxymusic.mxl.Mxl;
 import org.audiveris.proxymusic.mxl.RootFile;
@@ -32,6 +34,7 @@ import org.slf4j.LoggerFactory;
 
 import org.w3c.dom.Node;
 
+import java.io.BufferedOutputStream;
 import java.io.FileOutputStream;
 import java.io.OutputStream;
 import java.nio.file.Path;
@@ -40,6 +43,9 @@ import java.util.Objects;
 /**
  * Class {@code ScoreExporter} exports the provided score to a MusicXML file, stream or
  * DOM.
+ * <p>
+ * Export to a file or stream is by default performed page after page, via a {@link PartwiseWriter},
+ * to avoid holding the whole MusicXML tree of a large score in memory.
  *
  * @author Hervé Bitteur
  */
@@ -47,6 +53,8 @@ public class ScoreExporter
 {
     //~ Static fields/initializers -----------------------------------------------------------------
 
+    private static final Constants constants = new Constants();
+
     private static final Logger logger = LoggerFactory.getLogger(ScoreExporter.class);
 
     //~ Instance fields ----------------------------------------------------------------------------
@@ -87,7 +95,7 @@ public class ScoreExporter
                         boolean compressed)
             throws Exception
     {
-        final OutputStream os = new FileOutputStream(path.toString());
+        final OutputStream os = new BufferedOutputStream(new FileOutputStream(path.toString()));
         export(os, signed, scoreName, compressed);
         os.close();
         logger.info("Score {} exported to {}", scoreName, path);
@@ -113,10 +121,6 @@ public class ScoreExporter
     {
         Objects.requireNonNull(os, "Trying to export a score to a null output stream");
 
-        // Build the ScorePartwise proxy
-        ScorePartwise scorePartwise = PartwiseBuilder.build(score);
-
-        // Marshal the proxy
         if (compressed) {
             Mxl.Output mof = new Mxl.Output(os);
             OutputStream zos = mof.getOutputStream();
@@ -127,10 +131,10 @@ public class ScoreExporter
 
             mof.addEntry(
                     new RootFile(scoreName + OMR.SCORE_EXTENSION, RootFile.MUSICXML_MEDIA_TYPE));
-            Marshalling.marshal(scorePartwise, zos, signed, 2);
+            marshal(score, zos, signed);
             mof.close();
         } else {
-            Marshalling.marshal(scorePartwise, os, signed, 2);
+            marshal(score, os, signed);
             os.close();
         }
     }
@@ -160,4 +164,44 @@ public class ScoreExporter
         // Marshal the proxy
         Marshalling.marshal(scorePartwise, node, signed);
     }
+
+    //---------//
+    // marshal //
+    //---------//
+    /**
+     * Build and marshal the MusicXML data of a score to the provided output stream,
+     * which is not closed.
+     *
+     * @param score  the score to marshal
+     * @param os     the output stream where XML data is written
+     * @param signed should we inject ProxyMusic signature?
+     * @throws Exception if something goes wrong
+     */
+    static void marshal (Score score,
+                         OutputStream os,
+                         boolean signed)
+            throws Exception
+    {
+        if (constants.streamedExport.isSet()) {
+            new PartwiseWriter(score).write(os, signed);
+        } else {
+            // Build the ScorePartwise proxy, then marshal it
+            ScorePartwise scorePartwise = PartwiseBuilder.build(score);
+            Marshalling.marshal(scorePartwise, os, signed, 2);
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Boolean streamedExport = new Constant.Boolean(
+                true,
+                "Should score export be streamed page after page?");
+    }
 }
@@ -25,6 +25,7 @@ import org.audiveris.omr.OMR;
 import org.audiveris.omr.sheet.Book;
 import org.audiveris.omr.sheet.BookManager;
 import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.util.JaxbRegistry;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,9 +52,6 @@ public class ScriptManager
 
     private static final Logger logger = LoggerFactory.getLogger(ScriptManager.class);
 
-    /** Un/marshalling context for use with JAXB. */
-    private static volatile JAXBContext jaxbContext;
-
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Not meant to be publicly instantiated.
@@ -88,7 +86,7 @@ public class ScriptManager
     public Script load (InputStream input)
     {
         try {
-            Unmarshaller um = getJaxbContext().createUnmarshaller();
+            Unmarshaller um = JaxbRegistry.getUnmarshaller(getJaxbContext());
 
             return (Script) um.unmarshal(input);
         } catch (JAXBException ex) {
@@ -176,8 +174,7 @@ public class ScriptManager
     {
         logger.debug("Storing {}", script);
 
-        Marshaller m = getJaxbContext().createMarshaller();
-        m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+        Marshaller m = JaxbRegistry.getMarshaller(getJaxbContext());
         m.marshal(script, output);
 
         // Flag the script with this event
@@ -190,16 +187,7 @@ public class ScriptManager
     private JAXBContext getJaxbContext ()
             throws JAXBException
     {
-        // Lazy creation
-        if (jaxbContext == null) {
-            synchronized (this) {
-                if (jaxbContext == null) {
-                    jaxbContext = JAXBContext.newInstance(Script.class);
-                }
-            }
-        }
-
-        return jaxbContext;
+        return JaxbRegistry.getContext(Script.class);
     }
 
     //~ Inner Interfaces ---------------------------------------------------------------------------
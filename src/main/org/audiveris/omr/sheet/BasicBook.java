@@ -23,6 +23,7 @@ package org.audiveris.omr.sheet;
 
 import org.audiveris.omr.OMR;
 import org.audiveris.omr.ProgramId;
+import org.audiveris.omr.WellKnowns;
 import org.audiveris.omr.classifier.SampleRepository;
 import org.audiveris.omr.constant.Constant;
 import org.audiveris.omr.constant.ConstantSet;
@@ -40,6 +41,7 @@ import org.audiveris.omr.script.BookStepTask;
 import org.audiveris.omr.script.ExportTask;
 import org.audiveris.omr.script.PrintTask;
 import org.audiveris.omr.script.Script;
+import org.audiveris.omr.sheet.Picture.TableKey;
 import static org.audiveris.omr.sheet.Sheet.INTERNALS_RADIX;
 import org.audiveris.omr.sheet.rhythm.Voices;
 import org.audiveris.omr.sheet.ui.BookBrowser;
@@ -47,9 +49,11 @@ import org.audiveris.omr.sheet.ui.StubsController;
 import org.audiveris.omr.step.ProcessingCancellationException;
 import org.audiveris.omr.step.Step;
 import org.audiveris.omr.step.StepException;
+import org.audiveris.omr.step.StepMetrics;
 import org.audiveris.omr.step.ui.StepMonitoring;
 import org.audiveris.omr.text.Language;
 import org.audiveris.omr.util.FileUtil;
+import org.audiveris.omr.util.JaxbRegistry;
 import org.audiveris.omr.util.Memory;
 import org.audiveris.omr.util.OmrExecutors;
 import org.audiveris.omr.util.Param;
@@ -69,16 +73,20 @@ import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.zip.ZipOutputStream;
@@ -113,9 +121,6 @@ public class BasicBook
     private static final Logger logger = LoggerFactory.getLogger(
             Book.class);
 
-    /** Un/marshalling context for use with JAXB. */
-    private static volatile JAXBContext jaxbContext;
-
     //~ Instance fields ----------------------------------------------------------------------------
     //
     // Persistent data
@@ -336,6 +341,14 @@ public class BasicBook
         // Remove from OMR instances
         OMR.engine.removeBook(this);
 
+        // Discard step metrics not exported
+        StepMetrics.discard(this);
+
+        // Stop rendering input pages ahead
+        if (path != null) {
+            ImageLoading.releaseCache(path);
+        }
+
         // Time for some cleanup...
         Memory.gc();
 
@@ -899,7 +912,7 @@ public class BasicBook
             Path internalsPath = rootPath.resolve(Book.BOOK_INTERNALS);
             InputStream is = Files.newInputStream(internalsPath, StandardOpenOption.READ);
 
-            Unmarshaller um = getJaxbContext().createUnmarshaller();
+            Unmarshaller um = JaxbRegistry.getUnmarshaller(getJaxbContext());
             book = (BasicBook) um.unmarshal(is);
             book.getLock().lock();
             LogUtil.start(book);
@@ -1119,6 +1132,34 @@ public class BasicBook
                         logger.warn("Error in parallel reachBookStep", ex);
                         someFailure = true;
                     }
+                } else if ((OMR.gui == null)
+                           && isMultiSheet()
+                           && constants.pipelineSheets.isSet()
+                           && (OmrExecutors.defaultParallelism.getTarget() == true)) {
+                    // Process stubs through a pipeline, with a bounded number of resident sheets
+                    try {
+                        someFailure = !new BookPipeline(concernedStubs, target, force).process();
+                    } catch (InterruptedException ex) {
+                        logger.warn("Error in pipelined reachBookStep", ex);
+                        someFailure = true;
+                    } finally {
+                        // Book info, left aside by pipeline, is stored once all sheets are done
+                        if (modified) {
+                            getLock().lock();
+
+                            try {
+                                final Path root = ZipFileSystem.open(
+                                        BookManager.getDefaultBookPath(this));
+                                storeBookInfo(root); // Book info (book.xml)
+                                root.getFileSystem().close();
+                            } catch (Exception ex) {
+                                logger.warn("Error storing book info", ex);
+                                someFailure = true;
+                            } finally {
+                                getLock().unlock();
+                            }
+                        }
+                    }
                 } else {
                     // Process one stub after the other
                     for (SheetStub stub : concernedStubs) {
@@ -1373,6 +1414,45 @@ public class BasicBook
         }
     }
 
+    //------------//
+    // storeAsync //
+    //------------//
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If the target differs from current book path (store as), the saving task simply runs the
+     * synchronous {@link #store(Path, boolean)}.
+     */
+    @Override
+    public Future<Boolean> storeAsync (final Path bookPath,
+                                       final boolean withBackup)
+    {
+        return OmrExecutors.getSaveExecutor().submit(
+                new Callable<Boolean>()
+        {
+            @Override
+            public Boolean call ()
+            {
+                LogUtil.start(BasicBook.this);
+
+                try {
+                    if ((BasicBook.this.bookPath != null)
+                        && !BasicBook.this.bookPath.toAbsolutePath()
+                                .equals(bookPath.toAbsolutePath())) {
+                        store(bookPath, withBackup);
+
+                        // Book path is switched only when store succeeded
+                        return bookPath.equals(BasicBook.this.bookPath);
+                    }
+
+                    return storeInParallel(bookPath, withBackup);
+                } finally {
+                    LogUtil.stopBook();
+                }
+            }
+        });
+    }
+
     //---------------//
     // storeBookInfo //
     //---------------//
@@ -1384,8 +1464,7 @@ public class BasicBook
         Files.deleteIfExists(bookInternals);
 
         OutputStream os = Files.newOutputStream(bookInternals, StandardOpenOption.CREATE);
-        Marshaller m = getJaxbContext().createMarshaller();
-        m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+        Marshaller m = JaxbRegistry.getMarshaller(getJaxbContext());
         m.marshal(this, os);
         os.close();
 
@@ -1606,12 +1685,7 @@ public class BasicBook
     private static JAXBContext getJaxbContext ()
             throws JAXBException
     {
-        // Lazy creation
-        if (jaxbContext == null) {
-            jaxbContext = JAXBContext.newInstance(BasicBook.class, RunTable.class);
-        }
-
-        return jaxbContext;
+        return JaxbRegistry.getContext(BasicBook.class, RunTable.class);
     }
 
     //------------------//
@@ -1897,6 +1971,187 @@ public class BasicBook
         return impacted;
     }
 
+    //-----------------//
+    // storeInParallel //
+    //-----------------//
+    /**
+     * Store the book into its current book file.
+     * <p>
+     * Each modified sheet is first marshalled to its own temporary folder, all sheets in parallel,
+     * with no book lock held but with the sheet processing lock held.
+     * Then, the book lock is taken just to write book info and to copy the sheets folders into the
+     * book file.
+     * If something goes wrong, the sheets are flagged as modified again and the storage state of
+     * their picture tables is restored.
+     *
+     * @param bookPath   target path, either the current book path or the first one
+     * @param withBackup if true, rename beforehand any existing target as a backup
+     * @return true if OK
+     */
+    private boolean storeInParallel (Path bookPath,
+                                     boolean withBackup)
+    {
+        final List<SheetStub> modifiedStubs = new ArrayList<SheetStub>();
+
+        for (SheetStub stub : stubs) {
+            if (stub.isModified() && stub.hasSheet()) {
+                modifiedStubs.add(stub);
+            }
+        }
+
+        final Map<SheetStub, Picture> pictures = new ConcurrentHashMap<SheetStub, Picture>();
+        final Map<SheetStub, Map<TableKey, RunTableHolder.State>> tableStates;
+        tableStates = new ConcurrentHashMap<SheetStub, Map<TableKey, RunTableHolder.State>>();
+
+        Path tempRoot = null;
+
+        try {
+            // Backup existing book file?
+            if (withBackup && Files.exists(bookPath)) {
+                Path backup = FileUtil.backup(bookPath);
+
+                if (backup != null) {
+                    logger.info("Previous book file renamed as {}", backup);
+                }
+            }
+
+            // Snapshot of each modified sheet, marshalled in parallel to a temporary folder
+            Files.createDirectories(WellKnowns.TEMP_FOLDER);
+
+            final Path snapRoot = Files.createTempDirectory(
+                    WellKnowns.TEMP_FOLDER,
+                    radix + "-save");
+            tempRoot = snapRoot;
+
+            final int count = modifiedStubs.size();
+            final AtomicInteger done = new AtomicInteger();
+            final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+
+            for (final SheetStub stub : modifiedStubs) {
+                tasks.add(
+                        new Callable<Void>()
+                {
+                    @Override
+                    public Void call ()
+                    {
+                        LogUtil.start(stub);
+
+                        // No processing on this sheet while it is being marshalled
+                        stub.getLock().lock();
+
+                        try {
+                            if (!stub.hasSheet()) {
+                                return null; // Sheet swapped meanwhile, hence already stored
+                            }
+
+                            final Sheet sheet = stub.getSheet();
+
+                            if (sheet.hasPicture()) {
+                                final Picture picture = sheet.getPicture();
+                                pictures.put(stub, picture);
+                                tableStates.put(stub, picture.getTableStates());
+                            }
+
+                            sheet.store(snapRoot.resolve(INTERNALS_RADIX + stub.getNumber()), null);
+                            StepMonitoring.notifyMsg(
+                                    BasicBook.this + " saved sheet " + done.incrementAndGet()
+                                    + "/" + count);
+                        } finally {
+                            stub.getLock().unlock();
+                            LogUtil.stopStub();
+                        }
+
+                        return null;
+                    }
+                });
+            }
+
+            for (Future<Void> future : OmrExecutors.getCachedLowExecutor().invokeAll(tasks)) {
+                future.get();
+            }
+
+            // Commit all snapshots to book file
+            getLock().lock();
+
+            try {
+                checkRadixChange(bookPath);
+
+                final Path root = (this.bookPath == null) ? ZipFileSystem.create(bookPath)
+                        : ZipFileSystem.open(bookPath);
+
+                if (modified) {
+                    storeBookInfo(root); // Book info (book.xml)
+                }
+
+                for (SheetStub stub : modifiedStubs) {
+                    final String folderName = INTERNALS_RADIX + stub.getNumber();
+                    final Path snapFolder = snapRoot.resolve(folderName);
+
+                    if (!Files.exists(snapFolder)) {
+                        continue;
+                    }
+
+                    FileUtil.copyTree(
+                            snapFolder,
+                            root.resolve(folderName),
+                            StandardCopyOption.REPLACE_EXISTING);
+
+                    // Tables switched to a new format leave a legacy entry in book file
+                    final Picture picture = pictures.get(stub);
+
+                    if (picture != null) {
+                        picture.deleteLegacyTables(tableStates.get(stub), root.resolve(folderName));
+                    }
+                }
+
+                // Separate repository
+                if ((repository != null) && repository.isModified()) {
+                    repository.storeRepository();
+                }
+
+                root.getFileSystem().close();
+                this.bookPath = bookPath;
+
+                BookManager.getInstance().getBookHistory().add(bookPath); // Insert in history
+            } finally {
+                getLock().unlock();
+            }
+
+            logger.info("Book stored as {}", bookPath);
+
+            return true;
+        } catch (Throwable ex) {
+            logger.warn("Error storing " + this + " to " + bookPath + " ex:" + ex, ex);
+
+            // Sheets have not been actually stored
+            for (SheetStub stub : modifiedStubs) {
+                stub.getLock().lock();
+
+                try {
+                    final Picture picture = pictures.get(stub);
+
+                    if (picture != null) {
+                        picture.setTableStates(tableStates.get(stub));
+                    }
+
+                    stub.setModified(true);
+                } finally {
+                    stub.getLock().unlock();
+                }
+            }
+
+            return false;
+        } finally {
+            if (tempRoot != null) {
+                try {
+                    FileUtil.deleteDirectory(tempRoot);
+                } catch (Exception ex) {
+                    logger.warn("Could not delete {} {}", tempRoot, ex.toString());
+                }
+            }
+        }
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
     //---------//
     // Adapter //
@@ -1937,5 +2192,9 @@ public class BasicBook
         private final Constant.Boolean processAllStubsInParallel = new Constant.Boolean(
                 false,
                 "Should we process all stubs of a book in parallel? (beware of many stubs)");
+
+        private final Constant.Boolean pipelineSheets = new Constant.Boolean(
+                false,
+                "Should we pipeline sheets processing in batch (when parallelism is allowed)?");
     }
 }
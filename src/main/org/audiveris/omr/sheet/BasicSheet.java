@@ -58,6 +58,7 @@ import org.audiveris.omr.ui.util.WeakItemRenderer;
 import org.audiveris.omr.util.Dumping;
 import org.audiveris.omr.util.FileUtil;
 import org.audiveris.omr.util.Jaxb;
+import org.audiveris.omr.util.JaxbRegistry;
 import org.audiveris.omr.util.Navigable;
 
 import org.slf4j.Logger;
@@ -126,9 +127,6 @@ public class BasicSheet
         LocationEvent.class, PixelEvent.class
     };
 
-    /** Un/marshalling context for use with JAXB. */
-    private static volatile JAXBContext jaxbContext;
-
     //~ Instance fields ----------------------------------------------------------------------------
     //
     // Persistent data
@@ -899,8 +897,7 @@ public class BasicSheet
             Files.createDirectories(sheetFolder);
 
             OutputStream os = Files.newOutputStream(structurePath, StandardOpenOption.CREATE);
-            Marshaller m = getJaxbContext().createMarshaller();
-            m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+            Marshaller m = JaxbRegistry.getMarshaller(getJaxbContext());
             m.marshal(this, os);
             os.close();
             stub.setModified(false);
@@ -934,7 +931,7 @@ public class BasicSheet
     public static BasicSheet unmarshal (InputStream in)
             throws JAXBException
     {
-        Unmarshaller um = getJaxbContext().createUnmarshaller();
+        Unmarshaller um = JaxbRegistry.getUnmarshaller(getJaxbContext());
 
         ///um.setListener(new Jaxb.UnmarshalLogger());
         BasicSheet sheet = (BasicSheet) um.unmarshal(in);
@@ -1032,12 +1029,7 @@ public class BasicSheet
     private static JAXBContext getJaxbContext ()
             throws JAXBException
     {
-        // Lazy creation
-        if (jaxbContext == null) {
-            jaxbContext = JAXBContext.newInstance(BasicSheet.class);
-        }
-
-        return jaxbContext;
+        return JaxbRegistry.getContext(BasicSheet.class);
     }
 
     //-------------------------//
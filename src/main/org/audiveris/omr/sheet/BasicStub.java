@@ -37,6 +37,7 @@ import org.audiveris.omr.sheet.ui.StubsController;
 import org.audiveris.omr.step.ProcessingCancellationException;
 import org.audiveris.omr.step.Step;
 import org.audiveris.omr.step.StepException;
+import org.audiveris.omr.step.StepMetrics;
 import org.audiveris.omr.step.ui.StepMonitoring;
 import org.audiveris.omr.ui.Colors;
 import org.audiveris.omr.util.LiveParam;
@@ -683,22 +684,7 @@ public class BasicStub
     public void storeSheet ()
             throws Exception
     {
-        if (modified) {
-            book.getLock().lock();
-
-            Path bookPath = BookManager.getDefaultBookPath(book);
-
-            try {
-                Path root = ZipFileSystem.open(bookPath);
-                book.storeBookInfo(root); // Book info (book.xml)
-
-                Path sheetFolder = root.resolve(INTERNALS_RADIX + getNumber());
-                sheet.store(sheetFolder, null);
-                root.getFileSystem().close();
-            } finally {
-                book.getLock().unlock();
-            }
-        }
+        storeSheet(true);
     }
 
     //-----------//
@@ -706,11 +692,20 @@ public class BasicStub
     //-----------//
     @Override
     public void swapSheet ()
+    {
+        swapSheet(true);
+    }
+
+    //-----------//
+    // swapSheet //
+    //-----------//
+    @Override
+    public void swapSheet (boolean withBookInfo)
     {
         try {
             if (isModified()) {
                 logger.info("{} storing", this);
-                storeSheet();
+                storeSheet(withBookInfo);
             }
 
             if (sheet != null) {
@@ -806,7 +801,10 @@ public class BasicStub
                         StepMonitoring.notifyStep(BasicStub.this, step); // Start monitoring
                         setModified(true); // At beginning of processing
                         sheet.reset(step); // Reset sheet relevant data
+
+                        final StepMetrics.Probe probe = StepMetrics.start();
                         step.doit(sheet); // Standard processing on an existing sheet
+                        StepMetrics.record(probe, sheet, step, null);
                         done(step); // Full completion
                     } finally {
                         LogUtil.stopBook();
@@ -914,6 +912,39 @@ public class BasicStub
         }
     }
 
+    //------------//
+    // storeSheet //
+    //------------//
+    /**
+     * Store sheet material into book, with or without book info.
+     *
+     * @param withBookInfo true to store book info as well
+     * @throws Exception if storing fails
+     */
+    private void storeSheet (boolean withBookInfo)
+            throws Exception
+    {
+        if (modified) {
+            book.getLock().lock();
+
+            Path bookPath = BookManager.getDefaultBookPath(book);
+
+            try {
+                Path root = ZipFileSystem.open(bookPath);
+
+                if (withBookInfo) {
+                    book.storeBookInfo(root); // Book info (book.xml)
+                }
+
+                Path sheetFolder = root.resolve(INTERNALS_RADIX + getNumber());
+                sheet.store(sheetFolder, null);
+                root.getFileSystem().close();
+            } finally {
+                book.getLock().unlock();
+            }
+        }
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
     //---------//
     // Adapter //
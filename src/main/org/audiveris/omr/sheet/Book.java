@@ -34,6 +34,7 @@ import java.nio.file.Path;
 import java.util.List;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.concurrent.Future;
 import java.util.concurrent.locks.Lock;
 
 import javax.swing.JFrame;
@@ -468,6 +469,20 @@ public interface Book
      */
     void store ();
 
+    /**
+     * Store book to disk in the background.
+     * <p>
+     * Modified sheets are marshalled in parallel, each to a temporary folder, and then copied
+     * into the book file in one critical section.
+     * Saving tasks are performed one after the other, in their submission order.
+     *
+     * @param bookPath   target path for storing the book
+     * @param withBackup if true, rename beforehand any existing target as a backup
+     * @return the future result, true if book was successfully stored
+     */
+    Future<Boolean> storeAsync (Path bookPath,
+                                boolean withBackup);
+
     /**
      * Store the book information (global info + stub steps) into book file system.
      *
@@ -0,0 +1,367 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                     B o o k P i p e l i n e                                    //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sheet;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.log.LogUtil;
+import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.step.Step;
+import org.audiveris.omr.util.Memory;
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Class {@code BookPipeline} processes a sequence of sheets in batch, with overlapping
+ * stages, while bounding the number of sheets resident in memory.
+ * <p>
+ * Each sheet goes through 3 stages:<ol>
+ * <li>The front stage (LOAD and BINARY steps) is performed by the calling thread, one sheet after
+ * the other, since decoding the book input file is better done sequentially,</li>
+ * <li>The middle stage (all subsequent steps up to target) is performed on the cached low pool,
+ * so that several sheets can be processed in parallel,</li>
+ * <li>The back stage (storing the sheet into book file and disposing of it) is performed on the
+ * single-thread save pool.</li>
+ * </ol>
+ * Hence, loading of sheet N+1, processing of sheet N and saving of sheet N-1 can overlap.
+ * <p>
+ * The back stage stores only sheet material, since book info (which includes the page references
+ * of all sheets) cannot be safely marshalled while other sheets are being processed.
+ * It is up to the caller to store book info once the pipeline has drained.
+ * <p>
+ * A sheet is admitted in front stage only if the number of resident sheets is below a maximum
+ * value and if the used heap ratio is below a maximum value (unless no sheet is resident).
+ *
+ * @author Hervé Bitteur
+ */
+class BookPipeline
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(BookPipeline.class);
+
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Sheets to process, in order. */
+    private final List<SheetStub> stubs;
+
+    /** Target step for all sheets. */
+    private final Step target;
+
+    /** Should we force processing. */
+    private final boolean force;
+
+    /** Last step of front stage. */
+    private final Step front;
+
+    /** Maximum number of resident sheets. */
+    private final int maxResident;
+
+    /** Maximum used heap ratio to admit one more resident sheet. */
+    private final double maxHeapRatio;
+
+    /** Current number of resident sheets. Access is synchronized on this pipeline. */
+    private int resident;
+
+    /** Has any sheet failed?. */
+    private final AtomicBoolean failure = new AtomicBoolean();
+
+    /** Cancellation if any. */
+    private volatile ProcessingCancellationException cancellation;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code BookPipeline} object.
+     *
+     * @param stubs  the sheets to process
+     * @param target the step to reach on each sheet
+     * @param force  true to force processing
+     */
+    BookPipeline (List<SheetStub> stubs,
+                  Step target,
+                  boolean force)
+    {
+        this(
+                stubs,
+                target,
+                force,
+                constants.maxResidentSheets.getValue(),
+                constants.maxHeapRatio.getValue());
+    }
+
+    /**
+     * Creates a new {@code BookPipeline} object, with specific admission limits.
+     *
+     * @param stubs        the sheets to process
+     * @param target       the step to reach on each sheet
+     * @param force        true to force processing
+     * @param maxResident  maximum number of resident sheets
+     * @param maxHeapRatio maximum used heap ratio to admit one more resident sheet
+     */
+    BookPipeline (List<SheetStub> stubs,
+                  Step target,
+                  boolean force,
+                  int maxResident,
+                  double maxHeapRatio)
+    {
+        this.stubs = stubs;
+        this.target = target;
+        this.force = force;
+        this.maxResident = Math.max(1, maxResident);
+        this.maxHeapRatio = maxHeapRatio;
+
+        front = (target.compareTo(Step.BINARY) > 0) ? Step.BINARY : target;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //---------//
+    // process //
+    //---------//
+    /**
+     * Process all sheets through the pipeline, and wait for completion.
+     *
+     * @return true if all sheets succeeded
+     * @throws InterruptedException if interrupted while waiting
+     */
+    boolean process ()
+            throws InterruptedException
+    {
+        logger.debug("Pipeline towards {} with {} resident sheets max", target, maxResident);
+
+        final CountDownLatch latch = new CountDownLatch(stubs.size());
+
+        for (SheetStub stub : stubs) {
+            if (cancellation != null) {
+                latch.countDown();
+
+                continue;
+            }
+
+            admit();
+            processFront(stub, latch);
+        }
+
+        latch.await();
+
+        if (cancellation != null) {
+            throw cancellation;
+        }
+
+        return !failure.get();
+    }
+
+    //-------//
+    // admit //
+    //-------//
+    /**
+     * Wait until a new sheet can be made resident.
+     * <p>
+     * The garbage collection attempted when heap is too full is performed outside of the pipeline
+     * monitor, so that finishing sheets are not prevented from releasing their residence.
+     */
+    private void admit ()
+            throws InterruptedException
+    {
+        boolean collected = false;
+
+        while (true) {
+            boolean collecting = false;
+
+            synchronized (this) {
+                if (resident == 0) {
+                    resident++;
+
+                    return;
+                }
+
+                if (resident < maxResident) {
+                    final double ratio = (double) Memory.occupied() / Memory.max();
+
+                    if (ratio <= maxHeapRatio) {
+                        resident++;
+
+                        return;
+                    }
+
+                    if (collected) {
+                        logger.debug("Heap ratio {}, waiting for {} sheet(s)", ratio, resident);
+                    } else {
+                        collecting = true;
+                    }
+                }
+
+                if (!collecting) {
+                    wait(constants.heapPollDelay.getValue());
+                }
+            }
+
+            if (collecting) {
+                Memory.gc();
+                collected = true;
+            }
+        }
+    }
+
+    //-------------//
+    // processBack //
+    //-------------//
+    private void processBack (final SheetStub stub,
+                              final CountDownLatch latch)
+    {
+        try {
+            OmrExecutors.getSaveExecutor().submit(
+                    new Runnable()
+            {
+                @Override
+                public void run ()
+                {
+                    LogUtil.start(stub);
+
+                    try {
+                        stub.swapSheet(false);
+                    } catch (Throwable ex) {
+                        logger.warn("Error swapping {} {}", stub, ex.toString(), ex);
+                        failure.set(true);
+                    } finally {
+                        LogUtil.stopStub();
+                        release();
+                        latch.countDown();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            logger.warn("Could not save {} {}", stub, ex.toString());
+            failure.set(true);
+            release();
+            latch.countDown();
+        }
+    }
+
+    //--------------//
+    // processFront //
+    //--------------//
+    private void processFront (SheetStub stub,
+                               CountDownLatch latch)
+    {
+        LogUtil.start(stub);
+
+        try {
+            // Reset is decided on target step, as a sequential processing would do
+            if (stub.reachStep(front, force && stub.isDone(target))) {
+                processMiddle(stub, latch);
+
+                return;
+            }
+
+            failure.set(true);
+        } catch (ProcessingCancellationException pce) {
+            cancellation = pce;
+        } catch (Throwable ex) {
+            logger.warn("Error processing {} {}", stub, ex.toString(), ex);
+            failure.set(true);
+        } finally {
+            LogUtil.stopStub();
+        }
+
+        processBack(stub, latch);
+    }
+
+    //---------------//
+    // processMiddle //
+    //---------------//
+    private void processMiddle (final SheetStub stub,
+                                final CountDownLatch latch)
+    {
+        try {
+            OmrExecutors.getCachedLowExecutor().submit(
+                    new Runnable()
+            {
+                @Override
+                public void run ()
+                {
+                    LogUtil.start(stub);
+
+                    try {
+                        // Any forced reset has already been performed by front stage
+                        if ((cancellation == null) && !stub.reachStep(target, false)) {
+                            failure.set(true);
+                        }
+                    } catch (ProcessingCancellationException pce) {
+                        cancellation = pce;
+                    } catch (Throwable ex) {
+                        logger.warn("Error processing {} {}", stub, ex.toString(), ex);
+                        failure.set(true);
+                    } finally {
+                        LogUtil.stopStub();
+                        processBack(stub, latch);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            logger.warn("Could not process {} {}", stub, ex.toString());
+            failure.set(true);
+            processBack(stub, latch);
+        }
+    }
+
+    //---------//
+    // release //
+    //---------//
+    private synchronized void release ()
+    {
+        resident--;
+        notifyAll();
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Integer maxResidentSheets = new Constant.Integer(
+                "sheets",
+                3,
+                "Maximum number of sheets simultaneously resident in memory");
+
+        private final Constant.Ratio maxHeapRatio = new Constant.Ratio(
+                0.7,
+                "Maximum ratio of used heap to admit one more resident sheet");
+
+        private final Constant.Integer heapPollDelay = new Constant.Integer(
+                "ms",
+                500,
+                "Delay before checking heap again");
+    }
+}
@@ -36,6 +36,7 @@ import org.audiveris.omr.image.PixelFilter;
 import org.audiveris.omr.image.PixelSource;
 import static org.audiveris.omr.run.Orientation.VERTICAL;
 import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.run.RunTableBuilder;
 import org.audiveris.omr.run.RunTableFactory;
 import org.audiveris.omr.sheet.grid.LineInfo;
 import org.audiveris.omr.ui.selection.LocationEvent;
@@ -58,18 +59,15 @@ import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
 import java.awt.image.SampleModel;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.lang.ref.WeakReference;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.util.EnumMap;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentSkipListMap;
 
 import javax.media.jai.JAI;
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.Marshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -295,6 +293,33 @@ public class Picture
         }
     }
 
+    //--------------------//
+    // deleteLegacyTables //
+    //--------------------//
+    /**
+     * Delete, from the provided sheet folder, the legacy entries of tables whose path has
+     * been switched since the provided states were reported.
+     *
+     * @param states      table states reported before the tables were stored elsewhere
+     * @param sheetFolder sheet folder in book file system
+     * @throws IOException if anything goes wrong
+     */
+    public void deleteLegacyTables (Map<TableKey, RunTableHolder.State> states,
+                                    Path sheetFolder)
+            throws IOException
+    {
+        for (Entry<TableKey, RunTableHolder.State> entry : states.entrySet()) {
+            final RunTableHolder holder = tables.get(entry.getKey());
+            final String oldPathString = entry.getValue().pathString;
+
+            if ((holder != null)
+                && (oldPathString != null)
+                && !oldPathString.equals(holder.getPathString())) {
+                Files.deleteIfExists(sheetFolder.resolve(oldPathString));
+            }
+        }
+    }
+
     //---------------//
     // disposeSource //
     //---------------//
@@ -601,6 +626,26 @@ public class Picture
         return table;
     }
 
+    //----------------//
+    // getTableStates //
+    //----------------//
+    /**
+     * Report the storage state of each handled table.
+     *
+     * @return the map of table states
+     */
+    public Map<TableKey, RunTableHolder.State> getTableStates ()
+    {
+        final Map<TableKey, RunTableHolder.State> states;
+        states = new EnumMap<TableKey, RunTableHolder.State>(TableKey.class);
+
+        for (Entry<TableKey, RunTableHolder> entry : tables.entrySet()) {
+            states.put(entry.getKey(), entry.getValue().getState());
+        }
+
+        return states;
+    }
+
     //----------//
     // getWidth //
     //----------//
@@ -755,9 +800,35 @@ public class Picture
         }
     }
 
+    //----------------//
+    // setTableStates //
+    //----------------//
+    /**
+     * Restore the storage state of tables, as formerly reported by {@link #getTableStates()}.
+     *
+     * @param states the map of table states
+     */
+    public void setTableStates (Map<TableKey, RunTableHolder.State> states)
+    {
+        for (Entry<TableKey, RunTableHolder.State> entry : states.entrySet()) {
+            final RunTableHolder holder = tables.get(entry.getKey());
+
+            if (holder != null) {
+                holder.setState(entry.getValue());
+            }
+        }
+    }
+
     //-------//
     // store //
     //-------//
+    /**
+     * Store the picture tables into the provided sheet folder.
+     * Tables not loaded are copied as such from the old sheet folder, if any.
+     *
+     * @param sheetPath    target sheet folder
+     * @param oldSheetPath previous sheet folder, if any
+     */
     public void store (Path sheetPath,
                        Path oldSheetPath)
     {
@@ -765,32 +836,23 @@ public class Picture
         for (Entry<TableKey, RunTableHolder> entry : tables.entrySet()) {
             final TableKey key = entry.getKey();
             final RunTableHolder holder = entry.getValue();
-            final Path tablepath = sheetPath.resolve(key + ".xml");
 
             if (!holder.hasData()) {
                 if (oldSheetPath != null) {
                     try {
-                        // Copy from old book file to new
-                        Path oldTablePath = oldSheetPath.resolve(key + ".xml");
-                        Files.copy(oldTablePath, tablepath);
-                        logger.info("Copied {}", tablepath);
+                        // Copy from old book file to new, whatever its format
+                        final String pathString = holder.getPathString();
+                        final Path tablePath = sheetPath.resolve(pathString);
+                        Path oldTablePath = oldSheetPath.resolve(pathString);
+                        Files.copy(oldTablePath, tablePath);
+                        logger.info("Copied {}", tablePath);
                     } catch (IOException ex) {
                         logger.warn("Error in picture.store " + ex, ex);
                     }
                 }
             } else if (holder.isModified()) {
                 try {
-                    Files.deleteIfExists(tablepath);
-
-                    OutputStream os = Files.newOutputStream(tablepath, StandardOpenOption.CREATE);
-                    Marshaller m = JAXBContext.newInstance(RunTable.class).createMarshaller();
-                    m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-
-                    RunTable table = holder.getData(sheet.getStub());
-                    m.marshal(table, os);
-                    os.close();
-                    holder.setModified(false);
-                    logger.info("Stored {}", tablepath);
+                    holder.store(key, sheetPath);
                 } catch (Exception ex) {
                     logger.warn("Error in picture.store " + ex, ex);
                 }
@@ -878,14 +940,29 @@ public class Picture
     //--------------------//
     // buildNoStaffBuffer //
     //--------------------//
+    /**
+     * Build the binary source with staff lines removed.
+     * <p>
+     * Staff line glyphs are rasterized into a mask table, which is subtracted run-wise from the
+     * binary table, so that only the resulting buffer gets allocated.
+     *
+     * @return the NO_STAFF buffer, or null
+     */
     private ByteProcessor buildNoStaffBuffer ()
     {
+        final RunTable binaryTable = getTable(TableKey.BINARY);
+
+        if (binaryTable == null) {
+            logger.warn("No BINARY table to build NO_STAFF buffer");
+
+            return null;
+        }
+
         boolean linesErased = false;
-        ByteProcessor src = getSource(SourceKey.BINARY);
-        ByteProcessor buf = (ByteProcessor) src.duplicate();
-        BufferedImage img = buf.getBufferedImage();
-        Graphics2D g = img.createGraphics();
-        g.setColor(Color.WHITE);
+        final RunTableBuilder builder = new RunTableBuilder(
+                binaryTable.getOrientation(),
+                binaryTable.getWidth(),
+                binaryTable.getHeight());
 
         for (SystemInfo system : sheet.getSystems()) {
             for (Staff staff : system.getStaves()) {
@@ -900,19 +977,17 @@ public class Picture
                     }
 
                     linesErased = true;
-                    glyph.getRunTable().render(g, glyph.getTopLeft());
+                    builder.include(glyph.getRunTable(), glyph.getTopLeft());
                 }
             }
         }
 
-        g.dispose();
-
         if (!linesErased) {
             logger.warn("No system lines to build NO_STAFF buffer"); // Should not happen!
             return null;
         }
 
-        return new ByteProcessor(img);
+        return binaryTable.minus(builder.build()).getBuffer();
     }
 
     //------------//
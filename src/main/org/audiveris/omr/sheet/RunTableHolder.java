@@ -22,18 +22,16 @@
 package org.audiveris.omr.sheet;
 
 import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.run.RunTableCodec;
 import org.audiveris.omr.sheet.Picture.TableKey;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.InputStream;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -41,6 +39,9 @@ import javax.xml.bind.annotation.XmlAttribute;
 /**
  * Class {@code RunTableHolder} holds the reference to a run table, at least the path
  * to its marshalled data on disk, and (on demand) the unmarshalled run table itself.
+ * <p>
+ * Data is stored in binary format (see {@link RunTableCodec}), but legacy XML data found in
+ * older book files is still transparently loaded.
  *
  * @author Hervé Bitteur
  */
@@ -58,7 +59,7 @@ public class RunTableHolder
 
     /** Path to data on disk. */
     @XmlAttribute(name = "path")
-    private final String pathString;
+    private String pathString;
 
     /** To avoid useless marshalling to disk. */
     private boolean modified = false;
@@ -71,7 +72,7 @@ public class RunTableHolder
      */
     public RunTableHolder (TableKey key)
     {
-        pathString = key + ".xml";
+        pathString = key + RunTableCodec.EXTENSION;
     }
 
     /** No-arg constructor needed for JAXB. */
@@ -97,17 +98,12 @@ public class RunTableHolder
                 stub.getBook().getLock().lock();
 
                 if (data == null) {
-                    JAXBContext jaxbContext = JAXBContext.newInstance(RunTable.class);
-                    Unmarshaller um = jaxbContext.createUnmarshaller();
-
                     // Open book file system
                     Path dataFile = stub.getBook().openSheetFolder(stub.getNumber())
                             .resolve(pathString);
                     logger.debug("path: {}", dataFile);
 
-                    InputStream is = Files.newInputStream(dataFile, StandardOpenOption.READ);
-                    data = (RunTable) um.unmarshal(is);
-                    is.close();
+                    data = RunTable.unmarshal(dataFile);
 
                     dataFile.getFileSystem().close(); // Close book file system
                     modified = false;
@@ -123,6 +119,32 @@ public class RunTableHolder
         return data;
     }
 
+    //---------------//
+    // getPathString //
+    //---------------//
+    /**
+     * Report the path to data, relative to sheet folder.
+     *
+     * @return the relative path to data on disk
+     */
+    public String getPathString ()
+    {
+        return pathString;
+    }
+
+    //----------//
+    // getState //
+    //----------//
+    /**
+     * Report the current storage state of this holder.
+     *
+     * @return a copy of path and modified flag
+     */
+    public State getState ()
+    {
+        return new State(pathString, modified);
+    }
+
     //---------//
     // hasData //
     //---------//
@@ -156,4 +178,74 @@ public class RunTableHolder
     {
         modified = bool;
     }
+
+    //----------//
+    // setState //
+    //----------//
+    /**
+     * Restore a storage state, formerly reported by {@link #getState()}.
+     *
+     * @param state the state to restore
+     */
+    public void setState (State state)
+    {
+        pathString = state.pathString;
+        modified = state.modified;
+    }
+
+    //-------//
+    // store //
+    //-------//
+    /**
+     * Store the handled data in binary format into the provided sheet folder.
+     * A legacy XML path is switched to binary format, and the legacy entry is deleted.
+     *
+     * @param key         table key
+     * @param sheetFolder sheet folder in book file system
+     * @throws IOException if anything goes wrong
+     */
+    public void store (TableKey key,
+                       Path sheetFolder)
+            throws IOException
+    {
+        final String oldPathString = pathString;
+        pathString = key + RunTableCodec.EXTENSION;
+
+        final Path tablePath = sheetFolder.resolve(pathString);
+        RunTableCodec.store(data, tablePath);
+        modified = false;
+        logger.info("Stored {}", tablePath);
+
+        if ((oldPathString != null) && !oldPathString.equals(pathString)) {
+            // Format switch: remove legacy entry
+            Files.deleteIfExists(sheetFolder.resolve(oldPathString));
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-------//
+    // State //
+    //-------//
+    /**
+     * The storage state of a holder, meant to be restored if a store operation fails
+     * after the holder has been stored.
+     */
+    public static class State
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Path to data on disk. */
+        public final String pathString;
+
+        /** Modified flag. */
+        public final boolean modified;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public State (String pathString,
+                      boolean modified)
+        {
+            this.pathString = pathString;
+            this.modified = modified;
+        }
+    }
 }
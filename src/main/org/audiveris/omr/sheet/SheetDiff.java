@@ -26,9 +26,9 @@ import ij.process.ByteProcessor;
 import org.audiveris.omr.OMR;
 import org.audiveris.omr.constant.Constant;
 import org.audiveris.omr.constant.ConstantSet;
-import org.audiveris.omr.image.GlobalFilter;
 import org.audiveris.omr.image.ImageUtil;
 import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.run.RunTableFactory;
 import org.audiveris.omr.score.ui.PaintingParameters;
 import org.audiveris.omr.sheet.ui.ImageView;
 import org.audiveris.omr.sheet.ui.PixelBoard;
@@ -36,7 +36,6 @@ import org.audiveris.omr.sheet.ui.SheetResultPainter;
 import org.audiveris.omr.sheet.ui.SheetTab;
 import org.audiveris.omr.ui.BoardsPane;
 import org.audiveris.omr.ui.view.ScrollView;
-import org.audiveris.omr.util.ByteUtil;
 import org.audiveris.omr.util.Navigable;
 import org.audiveris.omr.util.StopWatch;
 import org.audiveris.omr.util.WeakPropertyChangeListener;
@@ -118,11 +117,7 @@ public class SheetDiff
     public double computeDiff ()
     {
         final StopWatch watch = new StopWatch("computeDiff");
-        final int width = sheet.getWidth();
-        final int height = sheet.getHeight();
-        final ByteProcessor in = new GlobalFilter(
-                sheet.getPicture().getSource(Picture.SourceKey.BINARY),
-                constants.binaryThreshold.getValue()).filteredImage();
+        final RunTable in = sheet.getPicture().getTable(Picture.TableKey.BINARY);
 
         watch.start("count input");
         inputCount = getInputCount();
@@ -132,19 +127,12 @@ public class SheetDiff
         ByteProcessor out = new ByteProcessor(getOutput());
         out.threshold(constants.binaryThreshold.getValue());
 
-        // Compute input XOR output
-        watch.start("xor");
+        final RunTable outTable = new RunTableFactory(in.getOrientation()).createTable(out);
 
-        final ByteProcessor xor = new ByteProcessor(width, height);
-        ByteUtil.raz(xor); // xor.invert();
+        // Compute input XOR output, run-wise
+        watch.start("xor");
 
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                if (in.get(x, y) != out.get(x, y)) {
-                    xor.set(x, y, 0);
-                }
-            }
-        }
+        final ByteProcessor xor = in.xor(outTable).getBuffer();
 
         // Filter the data
         watch.start("median filter");
@@ -356,8 +344,7 @@ public class SheetDiff
     private int getInputCount ()
     {
         if (inputCount == null) {
-            ByteProcessor source = sheet.getPicture().getSource(Picture.SourceKey.BINARY);
-            inputCount = getForeCount(source);
+            inputCount = sheet.getPicture().getTable(Picture.TableKey.BINARY).getWeight();
         }
 
         return inputCount;
@@ -246,4 +246,12 @@ public interface SheetStub
      * If modified and not discarded, sheet material will be stored before being disposed of.
      */
     void swapSheet ();
+
+    /**
+     * Swap sheet material, with or without the storing of book info.
+     *
+     * @param withBookInfo true to store book info as well, when sheet material gets stored
+     * @see #swapSheet()
+     */
+    void swapSheet (boolean withBookInfo);
 }
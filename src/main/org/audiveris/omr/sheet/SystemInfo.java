@@ -481,6 +481,19 @@ public class SystemInfo
         return null;
     }
 
+    //-------------------//
+    // getFreeGlyphCount //
+    //-------------------//
+    /**
+     * Report the current number of free glyphs in system.
+     *
+     * @return the count of free glyphs
+     */
+    public int getFreeGlyphCount ()
+    {
+        return freeGlyphs.size();
+    }
+
     //------------------//
     // getGroupedGlyphs //
     //------------------//
@@ -230,13 +230,13 @@ public class EndingsBuilder
         factory.setMaxOverlapSpace(constants.maxOverlapSpace);
         factory.setMaxCoordGap(constants.maxCoordGap);
 
+        // Retrieve candidates
+        List<StraightFilament> filaments = factory.retrieveFilaments(sections);
+
         if (system.getId() == 1) {
             factory.dump("EndingsBuilder factory");
         }
 
-        // Retrieve candidates
-        List<StraightFilament> filaments = factory.retrieveFilaments(sections);
-
         // Purge filaments
         for (Iterator<StraightFilament> it = filaments.iterator(); it.hasNext();) {
             StraightFilament fil = it.next();
@@ -429,8 +429,8 @@ public class LinesRetriever
                     sheet.getFilamentIndex(),
                     Orientation.HORIZONTAL,
                     StaffFilament.class);
-            factory.dump("LinesRetriever factory");
             filaments = factory.retrieveFilaments(hLag.getEntities());
+            factory.dump("LinesRetriever factory");
 
             // Purge curved filaments
             purgeCurvedFilaments();
@@ -30,6 +30,7 @@ import org.audiveris.omr.classifier.SampleSheet;
 import org.audiveris.omr.classifier.ShapeClassifier;
 import org.audiveris.omr.constant.Constant;
 import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.glyph.CompoundCache;
 import org.audiveris.omr.glyph.Glyph;
 import org.audiveris.omr.glyph.GlyphCluster;
 import org.audiveris.omr.glyph.GlyphFactory;
@@ -166,6 +167,9 @@ public abstract class TimeBuilder
     /** All glyphs submitted to classifier. */
     protected final Set<Glyph> glyphCandidates = new LinkedHashSet<Glyph>();
 
+    /** Compounds and evaluations shared by whole and half decompositions. */
+    protected final CompoundCache compoundCache = new CompoundCache();
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Creates a new {@code TimeBuilder} object.
@@ -903,6 +907,7 @@ public abstract class TimeBuilder
                 processWhole(); //   Look for whole time sigs (common, cut or combo like 6/8)
                 processHalf(NUM); // Look for top halves      (like 6/)
                 processHalf(DEN); // Look for bottom halves   (like /8)
+                logger.debug("Staff#{} {}", staff.getId(), compoundCache);
             }
         }
 
@@ -1102,7 +1107,7 @@ public abstract class TimeBuilder
             HalfAdapter adapter = new HalfAdapter(half, parts);
             adapters.put(half, adapter);
 
-            new GlyphCluster(adapter, null).decompose();
+            new GlyphCluster(adapter, null, compoundCache).decompose();
             logger.debug(
                     "Staff#{} {} {} trials:{}",
                     staff.getId(),
@@ -1149,7 +1154,7 @@ public abstract class TimeBuilder
             List<Glyph> parts = getParts(rect);
             TimeAdapter wholeAdapter = new WholeAdapter(parts);
             adapters.put(WHOLE, wholeAdapter);
-            new GlyphCluster(wholeAdapter, null).decompose();
+            new GlyphCluster(wholeAdapter, null, compoundCache).decompose();
             logger.debug(
                     "Staff#{} WHOLE {} trials:{}",
                     staff.getId(),
@@ -1679,12 +1684,7 @@ public abstract class TimeBuilder
 
             glyphCandidates.add(glyph);
 
-            Evaluation[] evals = ShapeClassifier.getInstance().evaluate(
-                    glyph,
-                    staff.getSpecificInterline(),
-                    params.maxEvalRank,
-                    Grades.timeMinGrade / Inter.intrinsicRatio,
-                    null);
+            Evaluation[] evals = evaluate(glyph, parts);
 
             for (Evaluation eval : evals) {
                 final Shape shape = eval.shape;
@@ -1758,6 +1758,32 @@ public abstract class TimeBuilder
         {
             return bounds.width > params.maxTimeWidth;
         }
+
+        /**
+         * Evaluate the provided compound, reusing the evaluations recorded for the same
+         * parts if any.
+         *
+         * @param glyph the compound glyph
+         * @param parts the parts that compose the compound
+         * @return the acceptable evaluations
+         */
+        protected Evaluation[] evaluate (Glyph glyph,
+                                         Set<Glyph> parts)
+        {
+            Evaluation[] evals = compoundCache.getEvaluations(parts);
+
+            if (evals == null) {
+                evals = ShapeClassifier.getInstance().evaluate(
+                        glyph,
+                        staff.getSpecificInterline(),
+                        params.maxEvalRank,
+                        Grades.timeMinGrade / Inter.intrinsicRatio,
+                        null);
+                compoundCache.putEvaluations(parts, evals);
+            }
+
+            return evals;
+        }
     }
 
     //--------------//
@@ -1792,12 +1818,7 @@ public abstract class TimeBuilder
 
             glyphCandidates.add(glyph);
 
-            Evaluation[] evals = ShapeClassifier.getInstance().evaluate(
-                    glyph,
-                    staff.getSpecificInterline(),
-                    params.maxEvalRank,
-                    Grades.timeMinGrade / Inter.intrinsicRatio,
-                    null);
+            Evaluation[] evals = evaluate(glyph, parts);
 
             for (Evaluation eval : evals) {
                 final Shape shape = eval.shape;
@@ -30,6 +30,7 @@ import org.audiveris.omr.glyph.Glyph;
 import org.audiveris.omr.glyph.Symbol.Group;
 import org.audiveris.omr.image.ChamferDistance;
 import org.audiveris.omr.image.DistanceTable;
+import org.audiveris.omr.image.SeparableDistance;
 import org.audiveris.omr.run.Orientation;
 import org.audiveris.omr.sheet.Picture;
 import org.audiveris.omr.sheet.Sheet;
@@ -47,6 +48,7 @@ import org.audiveris.omr.ui.selection.AnchoredTemplateEvent;
 import org.audiveris.omr.ui.selection.SelectionService;
 import static org.audiveris.omr.util.HorizontalSide.LEFT;
 import static org.audiveris.omr.util.HorizontalSide.RIGHT;
+import org.audiveris.omr.util.OmrExecutors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -97,7 +99,12 @@ public class DistancesBuilder
         // Compute the distance-to-foreground transform image
         Picture picture = sheet.getPicture();
         ByteProcessor buffer = picture.getSource(Picture.SourceKey.BINARY);
-        table = new ChamferDistance.Short().computeToFore(buffer);
+        // Separable transform gives the same values, and scales with the number of CPUs
+        final boolean separable = constants.useSeparableDistance.isSet()
+                                  && OmrExecutors.defaultParallelism.getTarget();
+        final ChamferDistance transform = separable ? new SeparableDistance()
+                : new ChamferDistance.Short();
+        table = transform.computeToFore(buffer);
 
         // "Erase" staff lines, ledgers, stems
         paintLines();
@@ -194,5 +201,9 @@ public class DistancesBuilder
         private final Constant.Boolean displayTemplates = new Constant.Boolean(
                 false,
                 "Should we display the templates tab?");
+
+        private final Constant.Boolean useSeparableDistance = new Constant.Boolean(
+                true,
+                "Should we use the parallel separable distance transform?");
     }
 }
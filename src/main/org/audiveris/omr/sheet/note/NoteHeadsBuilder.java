@@ -35,8 +35,10 @@ import static org.audiveris.omr.image.Anchored.Anchor.*;
 import org.audiveris.omr.image.DistanceTable;
 import org.audiveris.omr.image.PixelDistance;
 import org.audiveris.omr.image.ShapeDescriptor;
+import org.audiveris.omr.image.Template;
 import org.audiveris.omr.image.TemplateFactory;
 import org.audiveris.omr.image.TemplateFactory.Catalog;
+import org.audiveris.omr.image.TemplateMatcher;
 import org.audiveris.omr.math.GeoOrder;
 import org.audiveris.omr.math.GeoPath;
 import org.audiveris.omr.math.GeoUtil;
@@ -61,6 +63,7 @@ import org.audiveris.omr.sig.relation.HeadStemRelation;
 import org.audiveris.omr.util.Dumping;
 import static org.audiveris.omr.util.HorizontalSide.*;
 import org.audiveris.omr.util.Navigable;
+import org.audiveris.omr.util.OmrExecutors;
 import org.audiveris.omr.util.Predicate;
 import org.audiveris.omr.util.StopWatch;
 
@@ -79,7 +82,9 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 /**
  * Class {@code NoteHeadsBuilder} retrieves the void note heads, the black note heads,
@@ -124,6 +129,12 @@ public class NoteHeadsBuilder
     /** Specific value for no offsets. */
     private static final int[] NO_OFFSETS = new int[]{0};
 
+    /** Shapes tried by range browsing at a black spot location. */
+    private static final Shape[] SPOT_SHAPES = ShapeSet.TemplateNotes.toArray(new Shape[0]);
+
+    /** Shapes tried by range browsing elsewhere. */
+    private static final Shape[] VOID_SHAPES = ShapeSet.VoidTemplateNotes.toArray(new Shape[0]);
+
     //~ Instance fields ----------------------------------------------------------------------------
     /** The dedicated system. */
     @Navigable(false)
@@ -144,6 +155,9 @@ public class NoteHeadsBuilder
     /** The distance table to use. */
     private final DistanceTable distances;
 
+    /** Template evaluator on the distance table. */
+    private final TemplateMatcher matcher;
+
     /** The note-oriented spots for this system. */
     private final List<Glyph> systemSpots;
 
@@ -189,6 +203,8 @@ public class NoteHeadsBuilder
         this.distances = distances;
         this.systemSpots = systemSpots;
 
+        matcher = new TemplateMatcher(distances);
+
         sig = system.getSig();
         sheet = system.getSheet();
         scale = sheet.getScale();
@@ -829,6 +845,10 @@ public class NoteHeadsBuilder
                 false,
                 "Should we allow staff attachments for created areas?");
 
+        private final Constant.Boolean parallelRangeScan = new Constant.Boolean(
+                true,
+                "Should we scan the abscissa range of a line in parallel?");
+
         private final Constant.Double maxMatchingDistance = new Constant.Double(
                 "distance",
                 1.75, // 1.5,
@@ -1041,6 +1061,18 @@ public class NoteHeadsBuilder
         int abandons;
 
         //~ Methods --------------------------------------------------------------------------------
+        /**
+         * Add the counters of a partial scan.
+         *
+         * @param that the partial counters
+         */
+        public synchronized void include (Perf that)
+        {
+            overlaps += that.overlaps;
+            evals += that.evals;
+            abandons += that.abandons;
+        }
+
         @Override
         public String toString ()
         {
@@ -1199,7 +1231,8 @@ public class NoteHeadsBuilder
         private PixelDistance eval (Shape shape,
                                     int x,
                                     int y,
-                                    Anchor anchor)
+                                    Anchor anchor,
+                                    Perf perf)
         {
             final ShapeDescriptor desc = catalog.getDescriptor(shape);
             final Rectangle symBox = desc.getSymbolBoundsAt(x, y, anchor);
@@ -1207,23 +1240,14 @@ public class NoteHeadsBuilder
             // Skip if location already used by really good object (beam, etc)
             //TODO: perhaps use a slightly fattened box?
             if (overlap(symBox, competitors)) {
-                if (useSeeds) {
-                    seedsPerf.overlaps++;
-                } else {
-                    rangePerf.overlaps++;
-                }
+                perf.overlaps++;
 
                 return null;
             }
 
             // Then try (all variants for) the shape and keep the best dist
-            double dist = desc.evaluate(x, y, anchor, distances);
-
-            if (useSeeds) {
-                seedsPerf.evals++;
-            } else {
-                rangePerf.evals++;
-            }
+            double dist = matcher.evaluate(desc.getTemplate(), x, y, anchor);
+            perf.evals++;
 
             return new PixelDistance(x, y, dist);
         }
@@ -1306,6 +1330,93 @@ public class NoteHeadsBuilder
             }
         }
 
+        //----------------//
+        // lookupAbscissa //
+        //----------------//
+        /**
+         * Try all relevant shapes at the provided abscissa.
+         * <p>
+         * All shapes are first evaluated at the theoretical ordinate in one pass, and only the
+         * shapes not immediately abandoned are evaluated at the other ordinate offsets.
+         *
+         * @param x0       the abscissa to check
+         * @param y0       the theoretical ordinate at x0
+         * @param relevant true if location belongs to a black spot
+         * @param found    (output) the inters created
+         * @param perf     (output) the evaluation counters
+         */
+        private void lookupAbscissa (int x0,
+                                     int y0,
+                                     boolean relevant,
+                                     List<HeadInter> found,
+                                     Perf perf)
+        {
+            // Shapes to try depend on whether location belongs to a black spot
+            final Shape[] shapes = relevant ? SPOT_SHAPES : VOID_SHAPES;
+
+            // Evaluate all non-overlapping shapes at theoretical location
+            final Template[] templates = new Template[shapes.length];
+            final double[] dists = new double[shapes.length];
+
+            for (int i = 0; i < shapes.length; i++) {
+                final ShapeDescriptor desc = catalog.getDescriptor(shapes[i]);
+                final Rectangle symBox = desc.getSymbolBoundsAt(x0, y0, MIDDLE_LEFT);
+
+                if (overlap(symBox, competitors)) {
+                    perf.overlaps++;
+                } else {
+                    templates[i] = desc.getTemplate();
+                    perf.evals++;
+                }
+            }
+
+            matcher.evaluate(templates, x0, y0, MIDDLE_LEFT, dists);
+
+            ShapeLoop:
+            for (int i = 0; i < shapes.length; i++) {
+                final Shape shape = shapes[i];
+                PixelDistance bestDist = null;
+
+                for (int yOffset : yOffsets) {
+                    final int y = y0 + yOffset;
+                    final PixelDistance dist;
+
+                    if (y == y0) {
+                        dist = (templates[i] != null) ? new PixelDistance(x0, y0, dists[i]) : null;
+                    } else {
+                        dist = eval(shape, x0, y, MIDDLE_LEFT, perf);
+                    }
+
+                    if ((dist != null) && (dist.d <= params.maxMatchingDistance)) {
+                        if ((bestDist == null) || (bestDist.d > dist.d)) {
+                            bestDist = dist;
+                        }
+                    } else if (y == y0) {
+                        // This is the very first (best guess) location tried.
+                        // If eval is really bad, stop immediately
+                        if ((dist == null) || (dist.d >= params.reallyBadDistance)) {
+                            perf.abandons++;
+
+                            continue ShapeLoop;
+                        }
+                    }
+                }
+
+                if (bestDist != null) {
+                    HeadInter inter = createInter(
+                            bestDist,
+                            MIDDLE_LEFT,
+                            shape,
+                            line.getStaff(),
+                            pitch);
+
+                    if (inter != null) {
+                        found.add(inter);
+                    }
+                }
+            }
+        }
+
         //-------------//
         // lookupRange //
         //-------------//
@@ -1339,51 +1450,43 @@ public class NoteHeadsBuilder
 
             // Use the note spots to limit the abscissae to be checked
             // OK for blacks, not for voids
-            boolean[] relevants = getRelevantAbscissae(scanLeft, scanRight);
-
-            // Scan from left to right
-            for (int x0 = scanLeft; x0 <= scanRight; x0++) {
-                final int y0 = getTheoreticalOrdinate(x0);
-
-                // Shapes to try depend on whether location belongs to a black spot
-                EnumSet<Shape> shapeSet = relevants[x0 - scanLeft] ? ShapeSet.TemplateNotes
-                        : ShapeSet.VoidTemplateNotes;
-                ShapeLoop:
-                for (Shape shape : shapeSet) {
-                    PixelDistance bestDist = null;
-
-                    for (int yOffset : yOffsets) {
-                        final int y = y0 + yOffset;
-                        PixelDistance dist = eval(shape, x0, y, MIDDLE_LEFT);
-
-                        if ((dist != null) && (dist.d <= params.maxMatchingDistance)) {
-                            if ((bestDist == null) || (bestDist.d > dist.d)) {
-                                bestDist = dist;
-                            }
-                        } else if (y == y0) {
-                            // This is the very first (best guess) location tried.
-                            // If eval is really bad, stop immediately
-                            if ((dist == null) || (dist.d >= params.reallyBadDistance)) {
-                                rangePerf.abandons++;
+            final boolean[] relevants = getRelevantAbscissae(scanLeft, scanRight);
 
-                                continue ShapeLoop;
-                            }
-                        }
-                    }
+            // Theoretical ordinates, computed beforehand to keep line adapters single-threaded
+            final int[] ordinates = new int[relevants.length];
 
-                    if (bestDist != null) {
-                        HeadInter inter = createInter(
-                                bestDist,
-                                MIDDLE_LEFT,
-                                shape,
-                                line.getStaff(),
-                                pitch);
+            for (int i = 0; i < ordinates.length; i++) {
+                ordinates[i] = getTheoreticalOrdinate(scanLeft + i);
+            }
 
-                        if (inter != null) {
-                            inters.add(inter);
-                        }
+            // Scan from left to right, perhaps in parallel, keeping matches in abscissa order
+            final Map<Integer, List<HeadInter>> chunks = new ConcurrentSkipListMap<Integer, List<HeadInter>>();
+            final OmrExecutors.RangeProcessor processor = new OmrExecutors.RangeProcessor()
+            {
+                @Override
+                public void processRange (int from,
+                                          int to)
+                {
+                    final Perf perf = new Perf();
+                    final List<HeadInter> found = new ArrayList<HeadInter>();
+
+                    for (int i = from; i < to; i++) {
+                        lookupAbscissa(scanLeft + i, ordinates[i], relevants[i], found, perf);
                     }
+
+                    chunks.put(from, found);
+                    rangePerf.include(perf);
                 }
+            };
+
+            if (constants.parallelRangeScan.isSet()) {
+                OmrExecutors.forEachRange(0, relevants.length, processor);
+            } else {
+                processor.processRange(0, relevants.length);
+            }
+
+            for (List<HeadInter> found : chunks.values()) {
+                inters.addAll(found);
             }
 
             // Aggregate matching inters
@@ -1439,7 +1542,7 @@ public class NoteHeadsBuilder
 
                             for (int xOffset : xOffsets) {
                                 final int x = x0 + xOffset;
-                                PixelDistance loc = eval(shape, x, y, anchor);
+                                PixelDistance loc = eval(shape, x, y, anchor, seedsPerf);
 
                                 if ((loc != null) && (loc.d <= params.maxMatchingDistance)) {
                                     if ((bestLoc == null) || (bestLoc.d > loc.d)) {
@@ -21,9 +21,13 @@
 // </editor-fold>
 package org.audiveris.omr.sheet.rhythm;
 
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.log.LogUtil;
 import org.audiveris.omr.math.Histogram;
 import org.audiveris.omr.math.Rational;
 import org.audiveris.omr.score.Page;
+import org.audiveris.omr.sheet.Sheet;
 import org.audiveris.omr.sheet.SystemInfo;
 import org.audiveris.omr.sig.inter.AbstractTimeInter;
 import org.audiveris.omr.sig.inter.AugmentationDotInter;
@@ -31,13 +35,13 @@ import org.audiveris.omr.sig.inter.FlagInter;
 import org.audiveris.omr.sig.inter.Inter;
 import org.audiveris.omr.sig.inter.RestChordInter;
 import org.audiveris.omr.sig.inter.TupletInter;
+import org.audiveris.omr.util.OmrExecutors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -59,9 +63,10 @@ import java.util.List;
  * <p>
  * These FRAT symbols provide the adjustment variables used when checking the precise rhythm content
  * of each measure.
- * To do so, processing is done system per system <b>sequentially</b> because of impact of potential
- * key-sig changes on the following systems. Hence, parallelism is NOT provided for this step.
- * Consistently, within a system, processing is done measure stack after measure stack.
+ * Within a system, processing is done measure stack after measure stack, since all stacks share
+ * the system SIG.
+ * Separate systems have separate SIGs, hence systems can be processed in parallel (which is
+ * the default), since key-sig changes are not yet taken into account across systems.
  * <p>
  * Time sig can be inferred from stacks actual content, but this is a chicken & egg problem.
  * We check whether the page starts with a time-sig indication. If not, we'll need two passes, the
@@ -76,6 +81,8 @@ public class PageRhythm
 {
     //~ Static fields/initializers -----------------------------------------------------------------
 
+    private static final Constants constants = new Constants();
+
     private static final Logger logger = LoggerFactory.getLogger(PageRhythm.class);
 
     /** Adjustable rhythm classes. (FRAT: Flag, RestChord, AugmentationDot, Tuplet) */
@@ -113,48 +120,15 @@ public class PageRhythm
         retrieveDurations(); // Check typical duration for each range
 
         // For each range, adjust TS if needed, then process each contained measure
-        final Iterator<Range> it = ranges.iterator();
-        Range range = it.next(); // Current range
-
-        for (SystemInfo system : page.getSystems()) {
-            // Select relevant rhythm inters at system level
-            List<Inter> systemGoodFrats = system.getSig().inters(FRAT_CLASSES);
-
-            // Process stack after stack
-            for (MeasureStack stack : system.getMeasureStacks()) {
-                if (stack.getIdValue() == range.startId) {
-                    logger.debug("Starting {}", range);
-
-                    // Adjust time signature?
-                    if ((range.duration != null)
-                        && ((range.ts == null)
-                            || !range.ts.getTimeRational().getValue().equals(range.duration))) {
-                        logger.info(
-                                "{}{} should update to {}-based time sig?",
-                                stack.getSystem().getLogPrefix(),
-                                range,
-                                range.duration);
-                    }
-                }
-
-                try {
-                    logger.debug("\n--- Processing {} expDur: {} ---", stack, range.duration);
-                    new StackTuner(stack, false).process(systemGoodFrats, range.duration);
-                } catch (Exception ex) {
-                    logger.warn("Error on stack " + stack + " " + ex, ex);
-                }
-
-                // End of range?
-                if (stack.getIdValue() == range.stopId) {
-                    if (it.hasNext()) {
-                        range = it.next();
-                    }
-                }
+        processSystems(
+                new SystemProcessor()
+        {
+            @Override
+            public void process (SystemInfo system)
+            {
+                tuneSystem(system);
             }
-
-            // Refine voices IDs (and thus colors) across all measures of the system
-            Voices.refineSystem(system);
-        }
+        });
     }
 
     //------------------------//
@@ -204,6 +178,98 @@ public class PageRhythm
                 .getIdValue();
     }
 
+    //----------------//
+    // processSystems //
+    //----------------//
+    /**
+     * Apply the provided processing on every system of the page.
+     * <p>
+     * Since a system has its own SIG and its own measure stacks, systems can be processed in
+     * parallel, all SIG mutations of a stack tuning being confined to the containing system.
+     * Within a system, stacks are always processed sequentially.
+     *
+     * @param processor the processing to apply
+     */
+    private void processSystems (final SystemProcessor processor)
+    {
+        final List<SystemInfo> systems = page.getSystems();
+
+        if (constants.parallelSystems.isSet() && (systems.size() > 1)) {
+            final Sheet sheet = page.getSheet();
+            OmrExecutors.forEachRange(
+                    0,
+                    systems.size(),
+                    1,
+                    new OmrExecutors.RangeProcessor()
+            {
+                @Override
+                public void processRange (int from,
+                                          int to)
+                {
+                    try {
+                        LogUtil.start(sheet.getStub());
+
+                        for (int i = from; i < to; i++) {
+                            processor.process(systems.get(i));
+                        }
+                    } finally {
+                        LogUtil.stopStub();
+                    }
+                }
+            });
+        } else {
+            for (SystemInfo system : systems) {
+                processor.process(system);
+            }
+        }
+    }
+
+    //---------//
+    // rangeOf //
+    //---------//
+    /**
+     * Report the range that contains the provided stack.
+     *
+     * @param stack the provided stack
+     * @return the containing range
+     */
+    private Range rangeOf (MeasureStack stack)
+    {
+        final int id = stack.getIdValue();
+
+        for (Range range : ranges) {
+            if ((id >= range.startId) && (id <= range.stopId)) {
+                return range;
+            }
+        }
+
+        return ranges.get(ranges.size() - 1);
+    }
+
+    //---------------//
+    // rawTuneSystem //
+    //---------------//
+    /**
+     * Raw processing of all stacks in system, meant only to guess expected durations.
+     *
+     * @param system the system to process
+     */
+    private void rawTuneSystem (SystemInfo system)
+    {
+        // Select good FRAT inters at system level
+        List<Inter> systemGoodFrats = system.getSig().inters(FRAT_CLASSES);
+
+        // Process stack after stack
+        for (MeasureStack stack : system.getMeasureStacks()) {
+            try {
+                logger.debug("\n--- Raw processing {} ---", stack);
+                new StackTuner(stack, true).process(systemGoodFrats, null);
+            } catch (Exception ex) {
+                logger.warn("Error on stack " + stack + " " + ex, ex);
+            }
+        }
+    }
+
     //-------------------//
     // retrieveDurations //
     //-------------------//
@@ -214,36 +280,19 @@ public class PageRhythm
     private void retrieveDurations ()
     {
         // Launch a raw processing to determine expected measure duration
-        // on the range of first system & stacks before first time signature
-        final Iterator<Range> it = ranges.iterator();
-
-        // Current range
-        Range range = it.next();
-
-        for (SystemInfo system : page.getSystems()) {
-            // Select good FRAT inters at system level
-            List<Inter> systemGoodFrats = system.getSig().inters(FRAT_CLASSES);
-
-            // Process stack after stack
-            for (MeasureStack stack : system.getMeasureStacks()) {
-                try {
-                    logger.debug("\n--- Raw processing {} ---", stack);
-                    new StackTuner(stack, true).process(systemGoodFrats, null);
-                } catch (Exception ex) {
-                    logger.warn("Error on stack " + stack + " " + ex, ex);
-                }
-
-                // End of range?
-                if (stack.getIdValue() == range.stopId) {
-                    // Use CURRENT MATERIAL of voices to determine expected duration on this range
-                    Rational duration = retrieveExpectedDuration(range);
-                    range.duration = duration;
-
-                    if (it.hasNext()) {
-                        range = it.next();
-                    }
-                }
+        processSystems(
+                new SystemProcessor()
+        {
+            @Override
+            public void process (SystemInfo system)
+            {
+                rawTuneSystem(system);
             }
+        });
+
+        // Use CURRENT MATERIAL of voices to determine expected duration on each range
+        for (Range range : ranges) {
+            range.duration = retrieveExpectedDuration(range);
         }
     }
 
@@ -325,7 +374,77 @@ public class PageRhythm
         return avgGuess;
     }
 
+    //------------//
+    // tuneSystem //
+    //------------//
+    /**
+     * Process all stacks in system, using the expected duration of their range.
+     *
+     * @param system the system to process
+     */
+    private void tuneSystem (SystemInfo system)
+    {
+        // Select relevant rhythm inters at system level
+        List<Inter> systemGoodFrats = system.getSig().inters(FRAT_CLASSES);
+
+        // Process stack after stack
+        for (MeasureStack stack : system.getMeasureStacks()) {
+            final Range range = rangeOf(stack);
+
+            if (stack.getIdValue() == range.startId) {
+                logger.debug("Starting {}", range);
+
+                // Adjust time signature?
+                if ((range.duration != null)
+                    && ((range.ts == null)
+                        || !range.ts.getTimeRational().getValue().equals(range.duration))) {
+                    logger.info(
+                            "{}{} should update to {}-based time sig?",
+                            stack.getSystem().getLogPrefix(),
+                            range,
+                            range.duration);
+                }
+            }
+
+            try {
+                logger.debug("\n--- Processing {} expDur: {} ---", stack, range.duration);
+                new StackTuner(stack, false).process(systemGoodFrats, range.duration);
+            } catch (Exception ex) {
+                logger.warn("Error on stack " + stack + " " + ex, ex);
+            }
+        }
+
+        // Refine voices IDs (and thus colors) across all measures of the system
+        Voices.refineSystem(system);
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------------//
+    // SystemProcessor //
+    //-----------------//
+    /**
+     * Processing to apply on one system.
+     */
+    private static interface SystemProcessor
+    {
+        //~ Methods --------------------------------------------------------------------------------
+
+        void process (SystemInfo system);
+    }
+
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Boolean parallelSystems = new Constant.Boolean(
+                true,
+                "Should we tune the measure stacks of separate systems in parallel?");
+    }
+
     //-------//
     // Range //
     //-------//
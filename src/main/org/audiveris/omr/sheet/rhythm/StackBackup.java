@@ -41,6 +41,13 @@ import java.util.Set;
  * <li>It can install a specific configuration of rhythm data for testing.</li>
  * <li>It can freeze the stack when a final good configuration has been chosen.</li>
  * </ol>
+ * <p>
+ * Installing a configuration deletes from (and restores to) the sig only the seeds that differ
+ * from the currently installed ones, the seeds kept being reset to their saved relations, see
+ * {@link SigBackup#install}.
+ * Hence each trial starts from the same sig content as a full delete and restore would provide,
+ * without re-materializing the whole configuration.
+ * Only the finally chosen configuration gets committed, via {@link #freeze}.
  */
 public class StackBackup
         extends SigBackup
@@ -108,22 +115,17 @@ public class StackBackup
                             Set<RestChordInter> toRemove,
                             boolean failFast)
     {
+        final Set<Inter> configInters = config.getInters();
+
         // Clear the stack
         for (Inter inter : seeds) {
             stack.removeInter(inter);
-            inter.delete();
-
-            if (inter instanceof AbstractChordInter) {
-                for (Inter member : ((AbstractChordInter) inter).getNotes()) {
-                    member.delete();
-                }
-            }
         }
 
-        // Restore just the configuration content
-        attic.restore(sig, config.getInters());
+        // Install just the configuration content in sig
+        install(configInters);
 
-        for (Inter inter : config.getInters()) {
+        for (Inter inter : configInters) {
             stack.addInter(inter);
         }
 
@@ -138,7 +140,8 @@ public class StackBackup
         Set<TupletInter> toDelete = new TupletsBuilder(stack).linkTuplets();
 
         if (!toDelete.isEmpty()) {
-            config.getInters().removeAll(toDelete);
+            configInters.removeAll(toDelete);
+            installed.removeAll(toDelete);
             sig.deleteInters(toDelete);
         }
 
@@ -157,7 +160,7 @@ public class StackBackup
         }
 
         // Restore the initial config
-        attic.restore(sig, seeds);
+        install(seeds);
     }
 
     //----------------//
@@ -29,6 +29,7 @@ import org.audiveris.omr.sheet.SystemInfo;
 import org.audiveris.omr.sig.inter.Inter;
 import org.audiveris.omr.sig.inter.Inters;
 import org.audiveris.omr.sig.inter.RestChordInter;
+import org.audiveris.omr.step.StepMetrics;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -91,6 +92,9 @@ public class StackTuner
     /** Too close RestChordInter's to remove from current config. */
     private final Set<RestChordInter> toRemove = new LinkedHashSet<RestChordInter>();
 
+    /** Number of configurations tried. */
+    private int trials;
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Creates a new {@code StackTuner} object.
@@ -146,6 +150,9 @@ public class StackTuner
         } catch (Exception ex) {
             logger.warn("Error " + ex + " checkConfig " + orgConfig, ex);
         }
+
+        StepMetrics.count(stack.getSystem(), StepMetrics.Counter.RHYTHM_TRIALS, trials);
+        logger.debug("{} trials: {}", stack, trials);
     }
 
     //----------------//
@@ -174,6 +181,8 @@ public class StackTuner
             logger.info("Chk{} {}", newConfig.ids(), newConfig);
         }
 
+        trials++;
+
         if (!newConfig.equals(config)) {
             config = newConfig;
 
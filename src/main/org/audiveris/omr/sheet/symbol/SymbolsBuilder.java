@@ -98,6 +98,12 @@ public class SymbolsBuilder
     /** Scale-dependent global constants. */
     private final Parameters params;
 
+    /** Glyphs waiting for batch evaluation. */
+    private final List<Glyph> pendingGlyphs = new ArrayList<Glyph>();
+
+    /** Closest staff of each pending glyph. */
+    private final List<Staff> pendingStaves = new ArrayList<Staff>();
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Creates a new SymbolsBuilder object.
@@ -133,9 +139,11 @@ public class SymbolsBuilder
      *       + cluster.decompose()                      // Decompose cluster into all subsets
      *       + FOREACH subset process(subset):
      *          - build compound glyph                  // Build one compound glyph per subset
-     *          - evaluateGlyph(compound)               // Run shape classifier on compound
-     *          - FOREACH acceptable evaluation
-     *             + symbolFactory.create(eval, glyph) // Create inter(s) related to evaluation
+     *          - evaluateGlyph(compound)               // Queue compound for evaluation
+     * - evaluatePendings():                            // Per batch of queued glyphs
+     *    + run shape classifiers on the whole batch
+     *    + FOREACH glyph with acceptable evaluation
+     *       - symbolFactory.create(eval, glyph)       // Create inter(s) related to evaluation
      * </pre>
      *
      * @param optionalsMap the optional (weak) glyphs per system
@@ -172,7 +180,9 @@ public class SymbolsBuilder
     // evaluateGlyph //
     //---------------//
     /**
-     * Evaluate a provided glyph and create all acceptable inter instances.
+     * Queue a provided glyph for evaluation.
+     * <p>
+     * Glyphs are evaluated by batches, see {@link #evaluatePendings()}.
      *
      * @param glyph the glyph to evaluate
      */
@@ -195,42 +205,71 @@ public class SymbolsBuilder
             return;
         }
 
+        pendingGlyphs.add(glyph);
+        pendingStaves.add(closestStaff);
+
+        if (pendingGlyphs.size() >= constants.batchSize.getValue()) {
+            evaluatePendings();
+        }
+    }
+
+    //------------------//
+    // evaluatePendings //
+    //------------------//
+    /**
+     * Evaluate all pending glyphs as a batch, and create all acceptable inter instances.
+     */
+    private void evaluatePendings ()
+    {
+        if (pendingGlyphs.isEmpty()) {
+            return;
+        }
+
         // TODO: checks should be run only AFTER both classifiers have been run
-        Evaluation[] evals = classifier.evaluate(
-                glyph,
+        final List<Evaluation[]> allEvals = classifier.evaluate(
+                pendingGlyphs,
                 system,
                 2,
                 Grades.symbolMinGrade,
                 EnumSet.of(Classifier.Condition.CHECKED));
-        Evaluation[] evals2 = classifier2.evaluate(
-                glyph,
+        final List<Evaluation[]> allEvals2 = classifier2.evaluate(
+                pendingGlyphs,
                 system,
                 2,
                 Grades.symbolMinGrade, // Not OK for deep classifier!
                 EnumSet.of(Classifier.Condition.CHECKED));
 
-        if (evals.length > 0) {
-            //            // Create one interpretation for each acceptable evaluation
-            //            for (Evaluation eval : evals) {
-            //                try {
-            //                    factory.create(eval, glyph, closestStaff);
-            //                } catch (Exception ex) {
-            //                    logger.warn("Error in glyph evaluation " + ex, ex);
-            //                }
-            //            }
-            //
-            Evaluation eval = evals[0];
-
-            if (evals2.length > 0) {
-                if (eval.shape == evals2[0].shape) {
-                    try {
-                        factory.create(eval, glyph, closestStaff);
-                    } catch (Exception ex) {
-                        logger.warn("Error in glyph evaluation " + ex, ex);
+        for (int i = 0; i < pendingGlyphs.size(); i++) {
+            final Glyph glyph = pendingGlyphs.get(i);
+            final Evaluation[] evals = allEvals.get(i);
+            final Evaluation[] evals2 = allEvals2.get(i);
+
+            if (evals.length > 0) {
+                //            // Create one interpretation for each acceptable evaluation
+                //            for (Evaluation eval : evals) {
+                //                try {
+                //                    factory.create(eval, glyph, closestStaff);
+                //                } catch (Exception ex) {
+                //                    logger.warn("Error in glyph evaluation " + ex, ex);
+                //                }
+                //            }
+                //
+                Evaluation eval = evals[0];
+
+                if (evals2.length > 0) {
+                    if (eval.shape == evals2[0].shape) {
+                        try {
+                            factory.create(eval, glyph, pendingStaves.get(i));
+                        } catch (Exception ex) {
+                            logger.warn("Error in glyph evaluation " + ex, ex);
+                        }
                     }
                 }
             }
         }
+
+        pendingGlyphs.clear();
+        pendingStaves.clear();
     }
 
     //------------------//
@@ -353,6 +392,9 @@ public class SymbolsBuilder
                 }
             }
         }
+
+        // Evaluate the last batch
+        evaluatePendings();
     }
 
     //-------------------//
@@ -387,6 +429,11 @@ public class SymbolsBuilder
                 false,
                 "Should we print out the stop watch?");
 
+        private final Constant.Integer batchSize = new Constant.Integer(
+                "Glyphs",
+                256,
+                "Maximum number of glyphs evaluated as a single batch");
+
         private final Constant.Integer maxPartCount = new Constant.Integer(
                 "Glyphs",
                 7,
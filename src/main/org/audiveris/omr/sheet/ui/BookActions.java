@@ -81,6 +81,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.JDialog;
 import javax.swing.JFrame;
@@ -2196,9 +2197,13 @@ public class BookActions
         {
             try {
                 LogUtil.start(book);
-                book.store(bookPath, false);
-                BookActions.getInstance().setBookModified(false);
-                book.getScript().addTask(new SaveTask(bookPath, null));
+
+                if (book.storeAsync(bookPath, false).get()) {
+                    BookActions.getInstance().setBookModified(false);
+                    book.getScript().addTask(new SaveTask(bookPath, null));
+                }
+            } catch (ExecutionException ex) {
+                logger.warn("Error storing " + book, ex);
             } finally {
                 LogUtil.stopBook();
             }
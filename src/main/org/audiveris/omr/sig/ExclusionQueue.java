@@ -0,0 +1,372 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                   E x c l u s i o n Q u e u e                                  //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sig;
+
+import org.audiveris.omr.sig.relation.Relation;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Class {@code ExclusionQueue} is an indexed max-heap of relations, meant to quickly
+ * retrieve the exclusion with the highest key during {@link SIGraph#reduceExclusions}.
+ * <p>
+ * Relations with equal keys are ordered by their insertion rank, so that the relation at top of
+ * queue is always the first inserted one among those with the highest key.
+ * Since each relation knows its position within the heap, its key can be modified in place via
+ * {@link #update}, at a logarithmic cost.
+ *
+ * @author Hervé Bitteur
+ */
+class ExclusionQueue
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Heap of relations. */
+    private Relation[] rels;
+
+    /** Key of each heap item. */
+    private double[] keys;
+
+    /** Insertion rank of each heap item. */
+    private int[] ranks;
+
+    /** Current heap size. */
+    private int size;
+
+    /** Insertion rank generator. */
+    private int lastRank;
+
+    /** Position in heap of each relation. */
+    private final Map<Relation, Integer> positions = new IdentityHashMap<Relation, Integer>();
+
+    /** Number of key modifications. */
+    private int updateCount;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code ExclusionQueue} object.
+     *
+     * @param capacity initial capacity
+     */
+    ExclusionQueue (int capacity)
+    {
+        final int cap = Math.max(capacity, 1);
+        rels = new Relation[cap];
+        keys = new double[cap];
+        ranks = new int[cap];
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-----//
+    // add //
+    //-----//
+    /**
+     * Insert a relation with its key.
+     *
+     * @param rel the relation to insert, not yet present in queue
+     * @param key the relation key
+     */
+    void add (Relation rel,
+              double key)
+    {
+        if (positions.containsKey(rel)) {
+            throw new IllegalArgumentException("Relation already queued " + rel);
+        }
+
+        if (size == rels.length) {
+            final int cap = 2 * size;
+            rels = Arrays.copyOf(rels, cap);
+            keys = Arrays.copyOf(keys, cap);
+            ranks = Arrays.copyOf(ranks, cap);
+        }
+
+        final int i = size++;
+        rels[i] = rel;
+        keys[i] = key;
+        ranks[i] = lastRank++;
+        positions.put(rel, i);
+        siftUp(i);
+    }
+
+    //----------//
+    // contains //
+    //----------//
+    /**
+     * Tell whether the provided relation is present in queue.
+     *
+     * @param rel the relation to check
+     * @return true if present
+     */
+    boolean contains (Relation rel)
+    {
+        return positions.containsKey(rel);
+    }
+
+    //----------------//
+    // getUpdateCount //
+    //----------------//
+    /**
+     * Report the number of actual key modifications performed so far.
+     *
+     * @return the count of key updates
+     */
+    int getUpdateCount ()
+    {
+        return updateCount;
+    }
+
+    //---------//
+    // isEmpty //
+    //---------//
+    /**
+     * Tell whether the queue is empty.
+     *
+     * @return true if empty
+     */
+    boolean isEmpty ()
+    {
+        return size == 0;
+    }
+
+    //------//
+    // peek //
+    //------//
+    /**
+     * Report the relation with highest key, without removing it.
+     *
+     * @return the top relation, or null if queue is empty
+     */
+    Relation peek ()
+    {
+        return (size > 0) ? rels[0] : null;
+    }
+
+    //---------//
+    // peekKey //
+    //---------//
+    /**
+     * Report the key of the relation at top of queue.
+     *
+     * @return the highest key
+     */
+    double peekKey ()
+    {
+        if (size == 0) {
+            throw new IllegalStateException("Empty queue");
+        }
+
+        return keys[0];
+    }
+
+    //------//
+    // poll //
+    //------//
+    /**
+     * Remove and report the relation with highest key.
+     *
+     * @return the top relation, or null if queue is empty
+     */
+    Relation poll ()
+    {
+        if (size == 0) {
+            return null;
+        }
+
+        final Relation top = rels[0];
+        removeAt(0);
+
+        return top;
+    }
+
+    //--------//
+    // remove //
+    //--------//
+    /**
+     * Remove the provided relation from queue.
+     *
+     * @param rel the relation to remove
+     * @return true if the relation was actually present
+     */
+    boolean remove (Relation rel)
+    {
+        final Integer pos = positions.get(rel);
+
+        if (pos == null) {
+            return false;
+        }
+
+        removeAt(pos);
+
+        return true;
+    }
+
+    //------//
+    // size //
+    //------//
+    /**
+     * Report the number of queued relations.
+     *
+     * @return the queue size
+     */
+    int size ()
+    {
+        return size;
+    }
+
+    //--------//
+    // update //
+    //--------//
+    /**
+     * Modify the key of a queued relation, and relocate the relation accordingly.
+     * Nothing is done if the relation is not queued or if its key is not modified.
+     *
+     * @param rel the relation to update
+     * @param key the new key value
+     * @return true if key was actually modified
+     */
+    boolean update (Relation rel,
+                    double key)
+    {
+        final Integer pos = positions.get(rel);
+
+        if ((pos == null) || (Double.compare(keys[pos], key) == 0)) {
+            return false;
+        }
+
+        final double old = keys[pos];
+        keys[pos] = key;
+        updateCount++;
+
+        if (key > old) {
+            siftUp(pos);
+        } else {
+            siftDown(pos);
+        }
+
+        return true;
+    }
+
+    //--------//
+    // isOver //
+    //--------//
+    /**
+     * Tell whether item at position i must be located above item at position j.
+     */
+    private boolean isOver (int i,
+                            int j)
+    {
+        if (keys[i] != keys[j]) {
+            return keys[i] > keys[j];
+        }
+
+        return ranks[i] < ranks[j];
+    }
+
+    //-------//
+    // place //
+    //-------//
+    private void place (int i,
+                        Relation rel,
+                        double key,
+                        int rank)
+    {
+        rels[i] = rel;
+        keys[i] = key;
+        ranks[i] = rank;
+        positions.put(rel, i);
+    }
+
+    //----------//
+    // removeAt //
+    //----------//
+    private void removeAt (int i)
+    {
+        positions.remove(rels[i]);
+
+        final int last = --size;
+
+        if (i != last) {
+            place(i, rels[last], keys[last], ranks[last]);
+            rels[last] = null;
+            siftDown(i);
+            siftUp(i);
+        } else {
+            rels[last] = null;
+        }
+    }
+
+    //----------//
+    // siftDown //
+    //----------//
+    private void siftDown (int i)
+    {
+        while (true) {
+            final int left = (2 * i) + 1;
+
+            if (left >= size) {
+                return;
+            }
+
+            final int right = left + 1;
+            final int child = ((right < size) && isOver(right, left)) ? right : left;
+
+            if (!isOver(child, i)) {
+                return;
+            }
+
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    //--------//
+    // siftUp //
+    //--------//
+    private void siftUp (int i)
+    {
+        while (i > 0) {
+            final int parent = (i - 1) / 2;
+
+            if (!isOver(i, parent)) {
+                return;
+            }
+
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    //------//
+    // swap //
+    //------//
+    private void swap (int i,
+                       int j)
+    {
+        final Relation rel = rels[i];
+        final double key = keys[i];
+        final int rank = ranks[i];
+        place(i, rels[j], keys[j], ranks[j]);
+        place(j, rel, key, rank);
+    }
+}
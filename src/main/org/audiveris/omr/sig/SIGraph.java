@@ -26,6 +26,7 @@ import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.glyph.Shape;
 import org.audiveris.omr.math.GeoOrder;
 import static org.audiveris.omr.math.GeoOrder.*;
+import org.audiveris.omr.sheet.Scale;
 import org.audiveris.omr.sheet.Staff;
 import org.audiveris.omr.sheet.StaffManager;
 import org.audiveris.omr.sheet.SystemInfo;
@@ -38,8 +39,10 @@ import org.audiveris.omr.sig.relation.Exclusion;
 import org.audiveris.omr.sig.relation.Exclusion.Cause;
 import org.audiveris.omr.sig.relation.Relation;
 import org.audiveris.omr.sig.relation.Support;
+import org.audiveris.omr.step.StepMetrics;
 import org.audiveris.omr.util.Navigable;
 import org.audiveris.omr.util.Predicate;
+import org.audiveris.omr.util.SpatialIndex;
 
 import org.jgrapht.Graphs;
 import org.jgrapht.graph.Multigraph;
@@ -89,6 +92,18 @@ public class SIGraph
     /** Content for differed populating after unmarshalling. */
     private SigValue sigValue;
 
+    /** Spatial index of inters with stable bounds, lazily allocated. */
+    private SpatialIndex<Inter> spatialIndex;
+
+    /** Inters not handled by spatial index (ensembles, inters with no bounds yet). */
+    private final Set<Inter> unindexed = new LinkedHashSet<Inter>();
+
+    /** Rank of each inter in vertex set, to report lookup results in vertex order. */
+    private final Map<Inter, Long> vertexRanks = new HashMap<Inter, Long>();
+
+    /** Vertex rank generator. */
+    private long lastVertexRank;
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Creates a new SIGraph object at system level.
@@ -116,8 +131,9 @@ public class SIGraph
 
     /**
      * No-arg constructor meant for JAXB.
+     * It also provides a sig not linked to any system, hence with no inter index.
      */
-    private SIGraph ()
+    SIGraph ()
     {
         super(Relation.class);
         this.system = null;
@@ -143,12 +159,15 @@ public class SIGraph
         // Update sig
         boolean res = super.addVertex(inter);
         inter.setSig(this);
+        indexBounds(inter);
 
         // Update index
-        if (inter.getId() == 0) {
-            system.getSheet().getInterIndex().register(inter);
-        } else {
-            system.getSheet().getInterIndex().insert(inter);
+        if (system != null) {
+            if (inter.getId() == 0) {
+                system.getSheet().getInterIndex().register(inter);
+            } else {
+                system.getSheet().getInterIndex().insert(inter);
+            }
         }
 
         return res;
@@ -220,8 +239,10 @@ public class SIGraph
     {
         List<Inter> found = new ArrayList<Inter>();
 
-        for (Inter inter : vertexSet()) {
-            if (rect.contains(inter.getBounds())) {
+        for (Inter inter : lookupInters(rect)) {
+            Rectangle bounds = inter.getBounds();
+
+            if ((bounds != null) && rect.contains(bounds)) {
                 found.add(inter);
             }
         }
@@ -243,7 +264,7 @@ public class SIGraph
     {
         List<Inter> found = new ArrayList<Inter>();
 
-        for (Inter inter : vertexSet()) {
+        for (Inter inter : lookupInters(new Rectangle(point.x, point.y, 1, 1))) {
             Rectangle bounds = inter.getBounds();
 
             if ((bounds != null) && bounds.contains(point)) {
@@ -1109,6 +1130,12 @@ public class SIGraph
      * <li>Recompute all impacted contextual grades values,</li>
      * <li>Iterate until no more exclusion is left.</li>
      * </ol>
+     * Exclusions are kept in an {@link ExclusionQueue} keyed by their highest endpoint grade.
+     * Only the exclusions linked to an inter whose contextual grade gets recomputed have their key
+     * updated, while exclusions no longer in sig are discarded when they reach top of queue.
+     * Among exclusions of equal key, the first one in collection order is picked up.
+     * <p>
+     * Upon return, the provided collection no longer contains the exclusions removed from sig.
      *
      * @param exclusions the collection of exclusions to process
      * @return the set of vertices removed
@@ -1116,66 +1143,110 @@ public class SIGraph
     public Set<Inter> reduceExclusions (Collection<? extends Relation> exclusions)
     {
         final Set<Inter> removed = new LinkedHashSet<Inter>();
-        Relation bestRel;
+        final ExclusionQueue queue = new ExclusionQueue(exclusions.size());
+
+        // Exclusions linked to each inter
+        final Map<Inter, List<Relation>> links = new HashMap<Inter, List<Relation>>();
+        int queued = 0;
+
+        for (Relation rel : exclusions) {
+            if (containsEdge(rel) && !queue.contains(rel)) {
+                queue.add(rel, exclusionKey(rel));
+                queued++;
+                linkExclusion(links, getEdgeSource(rel), rel);
+                linkExclusion(links, getEdgeTarget(rel), rel);
+            }
+        }
 
-        do {
+        int iterations = 0;
+
+        while (!queue.isEmpty()) {
             // Choose exclusion with the highest source or target grade
-            double bestCP = 0;
-            bestRel = null;
+            final Relation bestRel = queue.peek();
 
-            for (Iterator<? extends Relation> it = exclusions.iterator(); it.hasNext();) {
-                Relation rel = it.next();
+            if (!containsEdge(bestRel)) {
+                queue.poll();
 
-                if (containsEdge(rel)) {
-                    final double cp = Math.max(
-                            getEdgeSource(rel).getBestGrade(),
-                            getEdgeTarget(rel).getBestGrade());
+                continue;
+            }
 
-                    if (bestCP < cp) {
-                        bestCP = cp;
-                        bestRel = rel;
-                    }
-                } else {
-                    it.remove();
-                }
+            final double bestCP = exclusionKey(bestRel);
+
+            if (queue.update(bestRel, bestCP)) {
+                continue; // Key was stale, bestRel has been relocated
+            }
+
+            if (bestCP <= 0) {
+                break;
             }
 
+            queue.poll();
+            iterations++;
+
             // Remove the weaker branch of the selected exclusion
-            if (bestRel != null) {
-                final Inter source = getEdgeSource(bestRel);
-                final double scp = source.getBestGrade();
-                final Inter target = getEdgeTarget(bestRel);
-                final double tcp = target.getBestGrade();
-                final Inter weaker = (scp < tcp) ? source : target;
-
-                if (weaker.isVip()) {
-                    logger.info(
-                            "VIP conflict {} deleting weaker {}",
-                            bestRel.toLongString(this),
-                            weaker);
-                }
+            final Inter source = getEdgeSource(bestRel);
+            final double scp = source.getBestGrade();
+            final Inter target = getEdgeTarget(bestRel);
+            final double tcp = target.getBestGrade();
+            final Inter weaker = (scp < tcp) ? source : target;
+
+            if (weaker.isVip()) {
+                logger.info(
+                        "VIP conflict {} deleting weaker {}",
+                        bestRel.toLongString(this),
+                        weaker);
+            }
 
-                // Which inters were involved in some support relation with this weaker inter?
-                final Set<Inter> involved = involvedInters(getSupports(weaker));
-                involved.remove(weaker);
+            // Which inters were involved in some support relation with this weaker inter?
+            final Set<Inter> involved = involvedInters(getSupports(weaker));
+            involved.remove(weaker);
 
-                // Remove the weaker inter
-                removed.add(weaker);
-                weaker.delete();
+            // Remove the weaker inter
+            removed.add(weaker);
+            weaker.delete();
 
-                // If removal of weaker has resulted in removal of its ensemble, count ensemble
-                if ((weaker.getEnsemble() != null) && weaker.getEnsemble().isDeleted()) {
-                    removed.add(weaker.getEnsemble());
-                }
+            // If removal of weaker has resulted in removal of its ensemble, count ensemble
+            if ((weaker.getEnsemble() != null) && weaker.getEnsemble().isDeleted()) {
+                removed.add(weaker.getEnsemble());
+            }
 
-                // Update contextual values for all inters that were involved with 'weaker'
-                for (Inter inter : involved) {
-                    computeContextualGrade(inter);
+            // Update contextual values for all inters that were involved with 'weaker'
+            // And update the keys of exclusions linked to these inters
+            for (Inter inter : involved) {
+                computeContextualGrade(inter);
+
+                final List<Relation> rels = links.get(inter);
+
+                if (rels != null) {
+                    for (Relation rel : rels) {
+                        if (containsEdge(rel)) {
+                            queue.update(rel, exclusionKey(rel));
+                        }
+                    }
                 }
+            }
+        }
 
-                exclusions.remove(bestRel);
+        // Purge the exclusions no longer in sig
+        for (Iterator<? extends Relation> it = exclusions.iterator(); it.hasNext();) {
+            if (!containsEdge(it.next())) {
+                it.remove();
             }
-        } while (bestRel != null);
+        }
+
+        final SystemInfo sys = getSystem();
+
+        if (sys != null) {
+            StepMetrics.count(sys, StepMetrics.Counter.REDUCTIONS, iterations);
+            StepMetrics.count(sys, StepMetrics.Counter.REDUCTION_UPDATES, queue.getUpdateCount());
+        }
+
+        logger.debug(
+                "S#{} exclusions:{} iterations:{} updates:{}",
+                (sys != null) ? sys.getId() : "-",
+                queued,
+                iterations,
+                queue.getUpdateCount());
 
         return removed;
     }
@@ -1205,7 +1276,12 @@ public class SIGraph
         }
 
         // Remove from inter index
-        system.getSheet().getInterIndex().remove(inter);
+        if (system != null) {
+            system.getSheet().getInterIndex().remove(inter);
+        }
+
+        // Remove from spatial index
+        unindexBounds(inter);
 
         return super.removeVertex(inter);
     }
@@ -1245,7 +1321,7 @@ public class SIGraph
     {
         StringBuilder sb = new StringBuilder(getClass().getSimpleName());
         sb.append("{");
-        sb.append("S#").append(system.getId());
+        sb.append("S#").append((system != null) ? system.getId() : "-");
         sb.append(" inters:").append(vertexSet().size());
         sb.append(" relations:").append(edgeSet().size());
         sb.append("}");
@@ -1253,6 +1329,22 @@ public class SIGraph
         return sb.toString();
     }
 
+    //--------------//
+    // updateBounds //
+    //--------------//
+    /**
+     * Notify that the bounds of the provided inter have been modified, so that the
+     * spatial index of this sig can be updated accordingly.
+     *
+     * @param inter the modified inter
+     */
+    public void updateBounds (Inter inter)
+    {
+        if (containsVertex(inter)) {
+            indexBounds(inter);
+        }
+    }
+
     //------------------------//
     // computeContextualGrade //
     //------------------------//
@@ -1318,6 +1410,68 @@ public class SIGraph
         return bestCg;
     }
 
+    //--------------//
+    // exclusionKey //
+    //--------------//
+    /**
+     * Report the key of an exclusion, that is the highest grade of its two inters.
+     */
+    private double exclusionKey (Relation rel)
+    {
+        return Math.max(getEdgeSource(rel).getBestGrade(), getEdgeTarget(rel).getBestGrade());
+    }
+
+    //-----------------//
+    // getSpatialIndex //
+    //-----------------//
+    /**
+     * Report the spatial index, allocated on first use with a cell size based on
+     * sheet interline.
+     *
+     * @return the spatial index
+     */
+    private SpatialIndex<Inter> getSpatialIndex ()
+    {
+        if (spatialIndex == null) {
+            final Scale scale = (system != null) ? system.getSheet().getScale() : null;
+            final int cellSize = (scale != null) ? scale.toPixels(constants.spatialCellSize)
+                    : constants.defaultSpatialCellSize.getValue();
+            spatialIndex = new SpatialIndex<Inter>(Math.max(1, cellSize));
+        }
+
+        return spatialIndex;
+    }
+
+    //-------------//
+    // indexBounds //
+    //-------------//
+    /**
+     * Insert (or re-insert) the provided inter into spatial index.
+     * An ensemble, whose bounds evolve with its members, or an inter with no bounds yet, is
+     * kept aside for a plain browsing.
+     *
+     * @param inter the inter to index
+     */
+    private synchronized void indexBounds (Inter inter)
+    {
+        if (!vertexRanks.containsKey(inter)) {
+            vertexRanks.put(inter, ++lastVertexRank);
+        }
+
+        final Rectangle bounds = (inter instanceof InterEnsemble) ? null : inter.getBounds();
+
+        if (bounds != null) {
+            unindexed.remove(inter);
+            getSpatialIndex().insert(inter, bounds);
+        } else {
+            if (spatialIndex != null) {
+                spatialIndex.remove(inter);
+            }
+
+            unindexed.add(inter);
+        }
+    }
+
     //----------------//
     // involvedInters //
     //----------------//
@@ -1333,6 +1487,58 @@ public class SIGraph
         return inters;
     }
 
+    //---------------//
+    // linkExclusion //
+    //---------------//
+    private static void linkExclusion (Map<Inter, List<Relation>> links,
+                                       Inter inter,
+                                       Relation rel)
+    {
+        List<Relation> rels = links.get(inter);
+
+        if (rels == null) {
+            links.put(inter, rels = new ArrayList<Relation>());
+        }
+
+        rels.add(rel);
+    }
+
+    //--------------//
+    // lookupInters //
+    //--------------//
+    /**
+     * Report the candidate inters for a lookup within the provided rectangle:
+     * indexed inters whose bounds intersect the rectangle, plus all non-indexed inters.
+     * Candidates are reported in vertex set order, as a plain browsing of the sig would do.
+     * Caller is responsible for checking each candidate more precisely.
+     *
+     * @param rect the lookup rectangle
+     * @return the candidates
+     */
+    private synchronized List<Inter> lookupInters (Rectangle rect)
+    {
+        final List<Inter> candidates = (spatialIndex != null) ? spatialIndex.intersected(rect)
+                : new ArrayList<Inter>();
+        candidates.addAll(unindexed);
+
+        // Spatial index order is the order of insertion in index, which may differ
+        if (candidates.size() > 1) {
+            Collections.sort(
+                    candidates,
+                    new Comparator<Inter>()
+            {
+                @Override
+                public int compare (Inter i1,
+                                    Inter i2)
+                {
+                    return Long.compare(vertexRanks.get(i1), vertexRanks.get(i2));
+                }
+            });
+        }
+
+        return candidates;
+    }
+
     //---------//
     // stemsOf //
     //---------//
@@ -1374,6 +1580,19 @@ public class SIGraph
         return sb.toString();
     }
 
+    //---------------//
+    // unindexBounds //
+    //---------------//
+    private synchronized void unindexBounds (Inter inter)
+    {
+        unindexed.remove(inter);
+        vertexRanks.remove(inter);
+
+        if (spatialIndex != null) {
+            spatialIndex.remove(inter);
+        }
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
     //-----------//
     // Constants //
@@ -1387,6 +1606,15 @@ public class SIGraph
                 "count",
                 6,
                 "Upper limit on number of supports used for contextual grade");
+
+        private final Scale.Fraction spatialCellSize = new Scale.Fraction(
+                4.0,
+                "Side length of cells in inter spatial index");
+
+        private final Constant.Integer defaultSpatialCellSize = new Constant.Integer(
+                "pixels",
+                80,
+                "Side length of cells in inter spatial index, when scale is not known");
     }
 
     //----------------//
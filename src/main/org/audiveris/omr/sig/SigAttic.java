@@ -30,6 +30,7 @@ import org.jgrapht.graph.Multigraph;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.Set;
@@ -84,7 +85,59 @@ public class SigAttic
             sig.addVertex(inter);
         }
 
-        // Restore relations from seeds
+        restoreRelations(sig, seeds);
+    }
+
+    //-------//
+    // reset //
+    //-------//
+    /**
+     * Reset in sig the provided collection of Inter instances, still present in sig, to
+     * their saved relations.
+     * <p>
+     * Any relation these inters (or the notes of chords) are currently involved in is removed,
+     * then the relations saved in this attic are restored.
+     * The result is the same as deleting and restoring these inters, but without removing them
+     * from sig and sig indexes.
+     *
+     * @param sig   the sig to partially reset
+     * @param seeds the collection of primary Inter instances to reset
+     */
+    public void reset (SIGraph sig,
+                       Collection<Inter> seeds)
+    {
+        // Include chord notes as well
+        Set<Inter> vertices = new LinkedHashSet<Inter>(seeds);
+
+        for (Inter inter : seeds) {
+            if (inter instanceof AbstractChordInter) {
+                vertices.addAll(((AbstractChordInter) inter).getNotes());
+            }
+        }
+
+        // Remove current relations, perhaps created since save
+        for (Inter inter : vertices) {
+            if (sig.containsVertex(inter)) {
+                sig.removeAllEdges(new ArrayList<Relation>(sig.edgesOf(inter)));
+            }
+        }
+
+        restoreRelations(sig, seeds);
+    }
+
+    //------------------//
+    // restoreRelations //
+    //------------------//
+    /**
+     * Restore from this attic to sig the relations the provided seeds are involved in,
+     * provided that the inters on both sides are present in sig.
+     *
+     * @param sig   the sig to partially restore
+     * @param seeds the collection of primary Inter instances
+     */
+    private void restoreRelations (SIGraph sig,
+                                   Collection<Inter> seeds)
+    {
         for (Inter inter : seeds) {
             for (Relation rel : edgesOf(inter)) {
                 Inter source = getEdgeSource(rel);
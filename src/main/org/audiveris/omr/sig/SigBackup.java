@@ -21,15 +21,21 @@
 // </editor-fold>
 package org.audiveris.omr.sig;
 
+import org.audiveris.omr.sig.inter.AbstractChordInter;
 import org.audiveris.omr.sig.inter.Inter;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Class {@code SigBackup} allows to save and restore inters (with their relations)
  * from/to a sig.
+ * <p>
+ * It also keeps track of the seeds currently installed in sig, so that successive
+ * configurations of seeds can be installed by handling just their differences.
  *
  * @author Hervé Bitteur
  */
@@ -40,6 +46,9 @@ public class SigBackup
     /** Saved data. */
     protected List<Inter> seeds;
 
+    /** The seeds currently installed in sig. */
+    protected final Set<Inter> installed = new LinkedHashSet<Inter>();
+
     /** The attic where data can be saved to and restored from. */
     protected final SigAttic attic = new SigAttic();
 
@@ -66,6 +75,60 @@ public class SigBackup
         return seeds;
     }
 
+    //---------//
+    // install //
+    //---------//
+    /**
+     * Install in sig the provided configuration of seeds.
+     * <p>
+     * The sig ends up as if all seeds had been deleted and just the configuration seeds restored
+     * from attic.
+     * But only the installed seeds not part of configuration are deleted, and only the
+     * configuration seeds not yet installed are restored.
+     * The installed seeds kept are reset to their saved relations, so that any relation created
+     * for a former configuration is discarded.
+     *
+     * @param config the seeds to install
+     * @return the seeds deleted from sig
+     */
+    public List<Inter> install (Collection<Inter> config)
+    {
+        // Delete installed seeds not part of configuration
+        final List<Inter> deleted = new ArrayList<Inter>();
+
+        for (Inter inter : installed) {
+            if (!config.contains(inter)) {
+                deleted.add(inter);
+            }
+        }
+
+        for (Inter inter : deleted) {
+            inter.delete();
+
+            if (inter instanceof AbstractChordInter) {
+                for (Inter member : ((AbstractChordInter) inter).getNotes()) {
+                    member.delete();
+                }
+            }
+        }
+
+        installed.removeAll(deleted);
+
+        // Reset the seeds kept
+        attic.reset(sig, installed);
+
+        // Restore the configuration seeds not yet installed
+        final List<Inter> missings = new ArrayList<Inter>(config);
+        missings.removeAll(installed);
+
+        if (!missings.isEmpty()) {
+            attic.restore(sig, missings);
+            installed.addAll(missings);
+        }
+
+        return deleted;
+    }
+
     //---------//
     // restore //
     //---------//
@@ -84,6 +147,10 @@ public class SigBackup
 
         // Save relevant sig inters & relations
         attic.save(sig, seeds);
+
+        // Seeds are currently installed in sig
+        installed.clear();
+        installed.addAll(seeds);
     }
 
     //----------//
@@ -31,9 +31,7 @@ import org.audiveris.omr.util.OmrExecutors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.concurrent.Callable;
+import java.util.List;
 
 /**
  * Abstract class {@code AbstractSystemStep} is a basis for any step working on the
@@ -163,67 +161,77 @@ public abstract class AbstractSystemStep<C>
     // doitPerSystem //
     //---------------//
     /**
-     * Launch the system processing (perhaps in parallel, one task per system)
+     * Launch the system processing (perhaps in parallel, on fork/join pool)
      *
-     * @param systems the systems to process
      * @param sheet   the containing sheet
+     * @param context the sheet context
      */
     private void doitPerSystem (final Sheet sheet,
                                 final C context)
     {
-        try {
-            final boolean parallel = Main.processSystemsInParallel();
-            final Collection<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
-
-            for (final SystemInfo system : sheet.getSystems()) {
-                tasks.add(
-                        new Callable<Void>()
+        final List<SystemInfo> systems = sheet.getSystems();
+
+        if (Main.processSystemsInParallel()) {
+            // In parallel, one system per chunk
+            OmrExecutors.forEachRange(
+                    0,
+                    systems.size(),
+                    1,
+                    new OmrExecutors.RangeProcessor()
+            {
+                @Override
+                public void processRange (int from,
+                                          int to)
                 {
-                    @Override
-                    public Void call ()
-                            throws Exception
-                    {
-                        // If run on a separate thread (case of parallel), we have to set/unset log
-                        // If not, let's not unset log (it may be needed in following epilog)
-                        try {
-                            if (parallel) {
-                                LogUtil.start(sheet.getStub());
-                            }
-
-                            logger.debug(
-                                    "{} doSystem #{}",
-                                    AbstractSystemStep.this,
-                                    system.getId());
-
-                            doSystem(system, context);
-                        } catch (Exception ex) {
-                            logger.warn(system.getLogPrefix() + ex, ex);
-                        } finally {
-                            if (parallel) {
-                                LogUtil.stopStub();
-                            }
-                        }
-
-                        return null;
+                    for (int i = from; i < to; i++) {
+                        processSystem(systems.get(i), context, true);
                     }
-                });
+                }
+            });
+        } else {
+            // In sequence
+            for (SystemInfo system : systems) {
+                processSystem(system, context, false);
             }
+        }
+    }
 
-            // Process all systems
+    //---------------//
+    // processSystem //
+    //---------------//
+    /**
+     * Process one system.
+     *
+     * @param system   the system to process
+     * @param context  the sheet context
+     * @param parallel true if run on a separate thread
+     */
+    private void processSystem (SystemInfo system,
+                                C context,
+                                boolean parallel)
+    {
+        // If run on a separate thread (case of parallel), we have to set/unset log
+        // If not, let's not unset log (it may be needed in following epilog)
+        try {
             if (parallel) {
-                // In parallel
-                OmrExecutors.getLowExecutor().invokeAll(tasks);
-            } else {
-                // In sequence
-                for (Callable<Void> task : tasks) {
-                    task.call();
-                }
+                LogUtil.start(system.getSheet().getStub());
+            }
+
+            logger.debug("{} doSystem #{}", this, system.getId());
+
+            final StepMetrics.Probe probe = StepMetrics.start();
+            doSystem(system, context);
+
+            if (probe != null) {
+                final Sheet sheet = system.getSheet();
+                StepMetrics.record(probe, sheet, sheet.getStub().getCurrentStep(), system);
             }
-        } catch (InterruptedException ex) {
-            logger.warn("doitPerSystem got interrupted for {}", this);
-            throw new ProcessingCancellationException(ex);
         } catch (Exception ex) {
-            throw new RuntimeException(ex);
+            logger.warn(system.getLogPrefix() + ex, ex);
+        } finally {
+            if (parallel) {
+                LogUtil.stopStub();
+            }
         }
     }
 }
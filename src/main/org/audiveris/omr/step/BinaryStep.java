@@ -25,6 +25,7 @@ import ij.process.ByteProcessor;
 
 import org.audiveris.omr.constant.Constant;
 import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.image.BandBinarizer;
 import org.audiveris.omr.image.FilterDescriptor;
 import org.audiveris.omr.image.PixelFilter;
 import org.audiveris.omr.run.Orientation;
@@ -98,14 +99,22 @@ public class BinaryStep
         sheet.getStub().getFilterParam().setActual(desc);
 
         PixelFilter filter = desc.getFilter(initial);
-        watch.start("Binarize source");
+        RunTable wholeVertTable;
 
-        ByteProcessor binary = filter.filteredImage();
+        if (constants.useBandBinarizer.isSet() && BandBinarizer.isSupported(filter)) {
+            watch.start("Binarize source into RunTable");
+            wholeVertTable = new BandBinarizer(filter).binarize();
+        } else {
+            watch.start("Binarize source");
 
-        watch.start("Create binary RunTable");
+            ByteProcessor binary = filter.filteredImage();
+
+            watch.start("Create binary RunTable");
+
+            RunTableFactory vertFactory = new RunTableFactory(Orientation.VERTICAL);
+            wholeVertTable = vertFactory.createTable(binary);
+        }
 
-        RunTableFactory vertFactory = new RunTableFactory(Orientation.VERTICAL);
-        RunTable wholeVertTable = vertFactory.createTable(binary);
         picture.setTable(Picture.TableKey.BINARY, wholeVertTable, true);
 
         // To discard image
@@ -159,5 +168,9 @@ public class BinaryStep
         private final Constant.Boolean printWatch = new Constant.Boolean(
                 false,
                 "Should we print out the stop watch?");
+
+        private final Constant.Boolean useBandBinarizer = new Constant.Boolean(
+                true,
+                "Should we binarize by parallel bands directly into the RunTable?");
     }
 }
@@ -0,0 +1,592 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                      S t e p M e t r i c s                                     //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.step;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.sheet.Book;
+import org.audiveris.omr.sheet.Sheet;
+import org.audiveris.omr.sheet.SystemInfo;
+import org.audiveris.omr.sig.InterIndex;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Class {@code StepMetrics} records performance figures of sheet steps, for later
+ * export as a CSV file per book.
+ * <p>
+ * A record is made for each step performed on a sheet, and for each system processed by a
+ * system-based step.
+ * Each record provides wall time, CPU time and allocated bytes, as measured on the thread that
+ * ran the step (or the system), together with the current count of glyphs and inters.
+ * Hence, CPU and allocation figures of a sheet record do not include the systems processed in
+ * parallel on other threads, these figures are available in the related system records.
+ * <p>
+ * Algorithm-specific figures (see {@link Counter}) can be counted per system via
+ * {@link #count}. They are reported in the system record of the current step if any, otherwise
+ * in the sheet record.
+ * <p>
+ * Recording is off by default, it is switched on by the {@code -metrics} option of the command
+ * line interface or by the {@code recordMetrics} constant.
+ *
+ * @author Hervé Bitteur
+ */
+public class StepMetrics
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(StepMetrics.class);
+
+    /** File suffix for metrics export. */
+    public static final String METRICS_SUFFIX = "-metrics.csv";
+
+    /** CSV header line. */
+    static final String HEADER = "book,sheet,step,system,wallMs,cpuMs,allocBytes,glyphs,inters"
+                                 + ",reductions,reductionUpdates,rhythmTrials";
+
+    /** Thread management, for CPU time and allocated bytes. */
+    private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+    /** Allocation measurement, if supported by the JVM. */
+    private static final com.sun.management.ThreadMXBean allocBean = getAllocBean();
+
+    /** Metrics per book. */
+    private static final ConcurrentMap<Book, StepMetrics> metricsMap
+            = new ConcurrentHashMap<Book, StepMetrics>();
+
+    /** Recording forced by CLI. */
+    private static volatile boolean forced;
+
+    //~ Enumerations -------------------------------------------------------------------------------
+    /**
+     * Algorithm-specific figures, one CSV column each, in this order.
+     */
+    public static enum Counter
+    {
+        //~ Enumeration constant initializers ------------------------------------------------------
+
+        /** Exclusions reduced by SIGraph.reduceExclusions. */
+        REDUCTIONS,
+        /** Exclusion key updates in SIGraph.reduceExclusions. */
+        REDUCTION_UPDATES,
+        /** Rhythm configurations tried by StackTuner. */
+        RHYTHM_TRIALS;
+    }
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Book radix. */
+    private final String radix;
+
+    /** Records so far, in no particular order. */
+    private final Queue<Record> records = new ConcurrentLinkedQueue<Record>();
+
+    /** Sequence generator, to keep records chronological within a sheet. */
+    private final AtomicLong lastSeq = new AtomicLong();
+
+    /** Counts not yet reported, per system. */
+    private final ConcurrentMap<SystemInfo, AtomicLongArray> pendingCounts
+            = new ConcurrentHashMap<SystemInfo, AtomicLongArray>();
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code StepMetrics} object.
+     *
+     * @param radix book radix
+     */
+    StepMetrics (String radix)
+    {
+        this.radix = radix;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------//
+    // count //
+    //-------//
+    /**
+     * Count some algorithm-specific figure for the provided system.
+     * The count will be reported in the next record made for this system, or for its sheet.
+     *
+     * @param system  the system being processed
+     * @param counter the counter to increment
+     * @param delta   the value to add
+     */
+    public static void count (SystemInfo system,
+                              Counter counter,
+                              long delta)
+    {
+        if ((delta == 0) || !isEnabled()) {
+            return;
+        }
+
+        try {
+            final StepMetrics metrics = getMetrics(system.getSheet().getStub().getBook());
+            AtomicLongArray counts = metrics.pendingCounts.get(system);
+
+            if (counts == null) {
+                metrics.pendingCounts.putIfAbsent(
+                        system,
+                        new AtomicLongArray(Counter.values().length));
+                counts = metrics.pendingCounts.get(system);
+            }
+
+            counts.addAndGet(counter.ordinal(), delta);
+        } catch (Exception ex) {
+            logger.warn("Could not count metrics {}", ex.toString(), ex);
+        }
+    }
+
+    //---------//
+    // discard //
+    //---------//
+    /**
+     * Discard the metrics recorded so far for the provided book, if any.
+     * This is meant for a book being closed without its metrics having been exported.
+     *
+     * @param book the book at hand
+     */
+    public static void discard (Book book)
+    {
+        metricsMap.remove(book);
+    }
+
+    //--------//
+    // export //
+    //--------//
+    /**
+     * Write the metrics recorded for the provided book into the provided folder, and discard
+     * them.
+     *
+     * @param book   the book at hand
+     * @param folder the target folder
+     * @return the path of written file, or null if nothing was written
+     */
+    public static Path export (Book book,
+                               Path folder)
+    {
+        final StepMetrics metrics = metricsMap.remove(book);
+
+        if ((metrics == null) || metrics.records.isEmpty()) {
+            return null;
+        }
+
+        final Path path = folder.resolve(book.getRadix() + METRICS_SUFFIX);
+
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            metrics.write(writer);
+            logger.info("Metrics exported to {}", path);
+
+            return path;
+        } catch (IOException ex) {
+            logger.warn("Could not export metrics to {} {}", path, ex.toString(), ex);
+
+            return null;
+        }
+    }
+
+    //-----------//
+    // isEnabled //
+    //-----------//
+    /**
+     * Report whether metrics are being recorded.
+     *
+     * @return true if so
+     */
+    public static boolean isEnabled ()
+    {
+        return forced || constants.recordMetrics.isSet();
+    }
+
+    //--------//
+    // record //
+    //--------//
+    /**
+     * Record the figures of a sheet step or of a system within a sheet step.
+     * This method must be called on the same thread as the {@link #start()} that created the
+     * provided probe.
+     *
+     * @param probe  the probe started before processing, if null nothing is recorded
+     * @param sheet  the processed sheet
+     * @param step   the step performed
+     * @param system the processed system, or null for the whole sheet
+     */
+    public static void record (Probe probe,
+                               Sheet sheet,
+                               Step step,
+                               SystemInfo system)
+    {
+        if (probe == null) {
+            return;
+        }
+
+        try {
+            final StepMetrics metrics = getMetrics(sheet.getStub().getBook());
+            final int glyphs;
+            final int inters;
+
+            if (system != null) {
+                glyphs = system.getFreeGlyphCount();
+                inters = system.getSig().vertexSet().size();
+            } else {
+                final InterIndex interIndex = sheet.getInterIndex();
+                glyphs = sheet.getGlyphIndex().getEntities().size();
+                inters = (interIndex != null) ? interIndex.getEntities().size() : 0;
+            }
+
+            final Record record = probe.stop(
+                    sheet.getStub().getNumber(),
+                    step,
+                    (system != null) ? system.getId() : 0,
+                    glyphs,
+                    inters);
+            metrics.drainCounts(record, sheet, system);
+            metrics.add(record);
+        } catch (Exception ex) {
+            logger.warn("Could not record metrics {}", ex.toString(), ex);
+        }
+    }
+
+    //------------//
+    // setEnabled //
+    //------------//
+    /**
+     * Force recording of metrics, regardless of the {@code recordMetrics} constant.
+     *
+     * @param bool true to force recording
+     */
+    public static void setEnabled (boolean bool)
+    {
+        forced = bool;
+    }
+
+    //-------//
+    // start //
+    //-------//
+    /**
+     * Start measurement on current thread.
+     *
+     * @return the probe to pass to {@link #record}, or null if metrics are not enabled
+     */
+    public static Probe start ()
+    {
+        return isEnabled() ? new Probe() : null;
+    }
+
+    //-----//
+    // add //
+    //-----//
+    /**
+     * Add a record.
+     *
+     * @param record the record to add
+     */
+    void add (Record record)
+    {
+        record.seq = lastSeq.incrementAndGet();
+        records.add(record);
+    }
+
+    //-------------//
+    // drainCounts //
+    //-------------//
+    /**
+     * Move the pending counts of the provided system (or of all systems of the provided
+     * sheet) into the provided record.
+     *
+     * @param record the record to complete
+     * @param sheet  the sheet at hand
+     * @param system the system at hand, or null for the whole sheet
+     */
+    void drainCounts (Record record,
+                      Sheet sheet,
+                      SystemInfo system)
+    {
+        for (Iterator<Map.Entry<SystemInfo, AtomicLongArray>> it = pendingCounts.entrySet()
+                .iterator(); it.hasNext();) {
+            final Map.Entry<SystemInfo, AtomicLongArray> entry = it.next();
+            final SystemInfo sys = entry.getKey();
+
+            if ((system != null) ? (sys == system) : (sys.getSheet() == sheet)) {
+                it.remove();
+
+                final AtomicLongArray counts = entry.getValue();
+
+                for (int i = 0; i < record.counts.length; i++) {
+                    record.counts[i] += counts.get(i);
+                }
+            }
+        }
+    }
+
+    //-------//
+    // write //
+    //-------//
+    /**
+     * Write records as CSV, sorted by sheet number then by chronological order.
+     *
+     * @param writer the output
+     */
+    void write (Writer writer)
+    {
+        final List<Record> list = new ArrayList<Record>(records);
+        Collections.sort(
+                list,
+                new Comparator<Record>()
+        {
+            @Override
+            public int compare (Record r1,
+                                Record r2)
+            {
+                if (r1.sheetNumber != r2.sheetNumber) {
+                    return Integer.compare(r1.sheetNumber, r2.sheetNumber);
+                }
+
+                return Long.compare(r1.seq, r2.seq);
+            }
+        });
+
+        final PrintWriter pw = new PrintWriter(writer);
+        pw.println(HEADER);
+
+        for (Record r : list) {
+            pw.print(radix);
+            pw.print(',');
+            pw.print(r.sheetNumber);
+            pw.print(',');
+            pw.print(r.step);
+            pw.print(',');
+            pw.print((r.systemId != 0) ? Integer.toString(r.systemId) : "");
+            pw.print(',');
+            pw.print(r.wallMs);
+            pw.print(',');
+            pw.print((r.cpuNanos >= 0) ? Long.toString(r.cpuNanos / 1000000) : "");
+            pw.print(',');
+            pw.print((r.allocBytes >= 0) ? Long.toString(r.allocBytes) : "");
+            pw.print(',');
+            pw.print(r.glyphs);
+            pw.print(',');
+            pw.print(r.inters);
+
+            for (long count : r.counts) {
+                pw.print(',');
+                pw.print(count);
+            }
+
+            pw.println();
+        }
+
+        pw.flush();
+    }
+
+    //------------//
+    // getMetrics //
+    //------------//
+    private static StepMetrics getMetrics (Book book)
+    {
+        StepMetrics metrics = metricsMap.get(book);
+
+        if (metrics == null) {
+            metricsMap.putIfAbsent(book, new StepMetrics(book.getRadix()));
+            metrics = metricsMap.get(book);
+        }
+
+        return metrics;
+    }
+
+    //--------------//
+    // getAllocBean //
+    //--------------//
+    private static com.sun.management.ThreadMXBean getAllocBean ()
+    {
+        try {
+            if (threadBean instanceof com.sun.management.ThreadMXBean) {
+                final com.sun.management.ThreadMXBean bean
+                        = (com.sun.management.ThreadMXBean) threadBean;
+
+                if (bean.isThreadAllocatedMemorySupported()) {
+                    bean.setThreadAllocatedMemoryEnabled(true);
+
+                    return bean;
+                }
+            }
+        } catch (Throwable ex) {
+            logger.debug("No thread allocation measurement {}", ex.toString());
+        }
+
+        return null;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-------//
+    // Probe //
+    //-------//
+    /**
+     * Measurement started on a given thread.
+     */
+    public static class Probe
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final long startNanos = System.nanoTime();
+
+        private final long startCpu = cpuTime();
+
+        private final long startAlloc = allocatedBytes();
+
+        //~ Constructors ---------------------------------------------------------------------------
+        Probe ()
+        {
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        Record stop (int sheetNumber,
+                     Step step,
+                     int systemId,
+                     int glyphs,
+                     int inters)
+        {
+            final long cpu = cpuTime();
+            final long alloc = allocatedBytes();
+
+            return new Record(
+                    sheetNumber,
+                    step,
+                    systemId,
+                    (System.nanoTime() - startNanos) / 1000000,
+                    ((startCpu >= 0) && (cpu >= 0)) ? (cpu - startCpu) : -1,
+                    ((startAlloc >= 0) && (alloc >= 0)) ? (alloc - startAlloc) : -1,
+                    glyphs,
+                    inters);
+        }
+
+        private static long allocatedBytes ()
+        {
+            if (allocBean == null) {
+                return -1;
+            }
+
+            return allocBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+
+        private static long cpuTime ()
+        {
+            if (!threadBean.isCurrentThreadCpuTimeSupported()) {
+                return -1;
+            }
+
+            return threadBean.getCurrentThreadCpuTime();
+        }
+    }
+
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Boolean recordMetrics = new Constant.Boolean(
+                false,
+                "Should we record step metrics for export?");
+    }
+
+    //--------//
+    // Record //
+    //--------//
+    /**
+     * Figures of one step on one sheet, or on one system.
+     */
+    static class Record
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        final int sheetNumber;
+
+        final Step step;
+
+        /** System id, 0 for whole sheet. */
+        final int systemId;
+
+        final long wallMs;
+
+        /** CPU time in nanoseconds, -1 if not available. */
+        final long cpuNanos;
+
+        /** Allocated bytes, -1 if not available. */
+        final long allocBytes;
+
+        final int glyphs;
+
+        final int inters;
+
+        /** Algorithm-specific counts, indexed by {@link Counter} ordinal. */
+        final long[] counts = new long[Counter.values().length];
+
+        /** Sequence number within book. */
+        long seq;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        Record (int sheetNumber,
+                Step step,
+                int systemId,
+                long wallMs,
+                long cpuNanos,
+                long allocBytes,
+                int glyphs,
+                int inters)
+        {
+            this.sheetNumber = sheetNumber;
+            this.step = step;
+            this.systemId = systemId;
+            this.wallMs = wallMs;
+            this.cpuNanos = cpuNanos;
+            this.allocBytes = allocBytes;
+            this.glyphs = glyphs;
+            this.inters = inters;
+        }
+    }
+}
@@ -34,9 +34,13 @@ import static org.bytedeco.javacpp.tesseract.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.awt.Graphics2D;
 import java.awt.Rectangle;
 import java.awt.geom.Line2D;
 import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.Raster;
 import java.io.ByteArrayOutputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -115,7 +119,7 @@ public class TesseractOrder
      * @param bufferedImage The image to process
      *
      * @throws UnsatisfiedLinkError When bridge to C++ could not be loaded
-     * @throws IOException          When temporary Tiff buffer failed
+     * @throws IOException          When temporary Tiff buffer failed (keepImage case)
      * @throws RuntimeException     When PIX image failed
      */
     public TesseractOrder (String label,
@@ -133,9 +137,14 @@ public class TesseractOrder
         this.segMode = segMode;
 
         // Build a PIX from the image provided
-        ByteBuffer buf = toTiffBuffer(bufferedImage);
-        buf.position(0);
-        image = pixReadMemTiff(buf, buf.capacity(), 0);
+        if (keepImage) {
+            // Go through a TIFF buffer, which can be saved on disk
+            ByteBuffer buf = toTiffBuffer(bufferedImage);
+            buf.position(0);
+            image = pixReadMemTiff(buf, buf.capacity(), 0);
+        } else {
+            image = toPix(bufferedImage);
+        }
 
         if (image == null) {
             logger.warn("Invalid image {}", label);
@@ -149,20 +158,17 @@ public class TesseractOrder
     // process //
     //---------//
     /**
-     * Actually allocate a Tesseract API and recognize the image.
+     * Actually check out a Tesseract engine and recognize the image.
      *
      * @return the sequence of lines found
      */
     public List<TextLine> process ()
     {
         try {
-            //api = new TessBaseAPI(WellKnowns.OCR_FOLDER.toString());
-            api = new TessBaseAPI();
-
-            // Init API with proper language
-            if (api.Init(WellKnowns.OCR_FOLDER.toString(), lang) != 0) {
-                logger.warn("Could not initialize Tesseract with lang {}", lang);
+            // Get an API already initialized with proper language
+            api = TesseractPool.getInstance().checkOut(lang);
 
+            if (api == null) {
                 return finish(null);
             }
 
@@ -182,6 +188,10 @@ public class TesseractOrder
 
             // Extract lines
             return finish(getLines());
+        } catch (RuntimeException ex) {
+            // Make sure engine gets back to the pool
+            finish(null);
+            throw ex;
         } catch (UnsatisfiedLinkError ex) {
             if (!userWarned) {
                 logger.warn("Could not link Tesseract engine", ex);
@@ -231,7 +241,8 @@ public class TesseractOrder
     // finish //
     //--------//
     /**
-     * Convenient way to cleanup Tesseract resources while ending the current processing
+     * Convenient way to cleanup Tesseract resources while ending the current processing.
+     * The engine, if any, is given back to the pool.
      *
      * @param lines the lines found, if any
      * @return the lines found, if nay
@@ -243,7 +254,8 @@ public class TesseractOrder
         }
 
         if (api != null) {
-            api.End();
+            TesseractPool.getInstance().checkIn(lang, api);
+            api = null;
         }
 
         return lines;
@@ -383,6 +395,96 @@ public class TesseractOrder
         }
     }
 
+    //-------//
+    // toPix //
+    //-------//
+    /**
+     * Build a gray-level PIX directly from the provided image, without any intermediate
+     * encoding.
+     * A TYPE_BYTE_GRAY image is read straight from its data buffer, any other type is first
+     * painted into a gray image.
+     *
+     * @param img the input image
+     * @return the native 8-bit PIX, or null if allocation failed
+     */
+    static PIX toPix (BufferedImage img)
+    {
+        if (img.getType() != BufferedImage.TYPE_BYTE_GRAY) {
+            BufferedImage gray = new BufferedImage(
+                    img.getWidth(),
+                    img.getHeight(),
+                    BufferedImage.TYPE_BYTE_GRAY);
+            Graphics2D g = gray.createGraphics();
+            g.drawImage(img, 0, 0, null);
+            g.dispose();
+            img = gray;
+        }
+
+        final Raster raster = img.getRaster();
+        final ComponentSampleModel model = (ComponentSampleModel) raster.getSampleModel();
+        final byte[] bytes = ((DataBufferByte) raster.getDataBuffer()).getData();
+        final int offset = model.getOffset(
+                -raster.getSampleModelTranslateX(),
+                -raster.getSampleModelTranslateY());
+
+        return toPix(bytes, offset, model.getScanlineStride(), img.getWidth(), img.getHeight());
+    }
+
+    //-------//
+    // toPix //
+    //-------//
+    /**
+     * Build a gray-level PIX directly from raw 8-bit pixel values, such as the pixels
+     * array of a ByteProcessor.
+     * <p>
+     * Leptonica stores the pixels of a row in 32-bit words, the leftmost pixel of a word being in
+     * the most significant byte. Words are built accordingly in Java and copied row by row to the
+     * native PIX data, which makes the result independent of platform endianness.
+     *
+     * @param bytes  the pixel values, row after row
+     * @param offset index of top-left pixel in bytes array
+     * @param stride distance between two rows in bytes array
+     * @param width  image width
+     * @param height image height
+     * @return the native 8-bit PIX, or null if allocation failed
+     */
+    static PIX toPix (byte[] bytes,
+                      int offset,
+                      int stride,
+                      int width,
+                      int height)
+    {
+        final PIX pix = pixCreate(width, height, 8);
+
+        if (pix == null) {
+            return null;
+        }
+
+        final IntPointer data = pixGetData(pix);
+        final int wpl = pixGetWpl(pix);
+        final int[] words = new int[wpl];
+
+        for (int y = 0; y < height; y++) {
+            final int rowStart = offset + (y * stride);
+
+            for (int w = 0; w < wpl; w++) {
+                int word = 0;
+
+                for (int k = 0; k < 4; k++) {
+                    final int x = (w << 2) + k;
+                    final int val = (x < width) ? (bytes[rowStart + x] & 0xFF) : 0;
+                    word |= (val << (24 - (k << 3)));
+                }
+
+                words[w] = word;
+            }
+
+            data.position((long) y * wpl).put(words, 0, wpl);
+        }
+
+        return pix;
+    }
+
     //--------------//
     // toTiffBuffer //
     //--------------//
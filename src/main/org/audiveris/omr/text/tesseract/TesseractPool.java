@@ -0,0 +1,299 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                   T e s s e r a c t P o o l                                    //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.text.tesseract;
+
+import org.audiveris.omr.WellKnowns;
+import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.bytedeco.javacpp.tesseract.TessBaseAPI;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Class {@code TesseractPool} handles a bounded pool of initialized Tesseract engines,
+ * per language specification.
+ * <p>
+ * Initializing a {@link TessBaseAPI} means loading the language traineddata from disk, which is
+ * much more expensive than the recognition of a typical text line.
+ * Hence, engines are kept alive once initialized, checked out by each OCR order and checked in
+ * (after being cleared) at the end of the order.
+ * <p>
+ * The number of engines per language is bounded by the number of threads likely to run OCR in
+ * parallel, that is the CPU count if parallelism is allowed, 1 otherwise.
+ * All idle engines are natively released when {@link OmrExecutors#shutdown()} is called.
+ *
+ * @author Hervé Bitteur
+ */
+class TesseractPool
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Logger logger = LoggerFactory.getLogger(TesseractPool.class);
+
+    /** Singleton. */
+    private static volatile TesseractPool INSTANCE;
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Engines per language specification. Access is synchronized on this pool. */
+    private final Map<String, LangEngines> map = new HashMap<String, LangEngines>();
+
+    /** Maximum number of engines per language. */
+    private final int maxEngines;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    private TesseractPool ()
+    {
+        maxEngines = OmrExecutors.defaultParallelism.getTarget()
+                ? OmrExecutors.getNumberOfCpus() : 1;
+
+        OmrExecutors.addShutdownAction(
+                new Runnable()
+        {
+            @Override
+            public void run ()
+            {
+                close();
+            }
+        });
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------------//
+    // getInstance //
+    //-------------//
+    /**
+     * Report the pool singleton.
+     *
+     * @return the pool
+     */
+    static TesseractPool getInstance ()
+    {
+        if (INSTANCE == null) {
+            synchronized (TesseractPool.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new TesseractPool();
+                }
+            }
+        }
+
+        return INSTANCE;
+    }
+
+    //---------//
+    // checkIn //
+    //---------//
+    /**
+     * Give back an engine, formerly checked out for the provided language.
+     * The engine is cleared of its image and recognition results.
+     *
+     * @param lang the language specification used at check out
+     * @param api  the engine to give back
+     */
+    synchronized void checkIn (String lang,
+                               TessBaseAPI api)
+    {
+        api.Clear();
+
+        final LangEngines engines = map.get(lang);
+
+        if ((engines == null) || !engines.busy.remove(api)) {
+            // Pool has been closed in the meantime
+            api.End();
+            api.deallocate();
+        } else {
+            engines.idle.push(api);
+            notifyAll();
+        }
+    }
+
+    //----------//
+    // checkOut //
+    //----------//
+    /**
+     * Get an engine initialized for the provided language, waiting if the maximum number
+     * of engines for this language are all in use.
+     * <p>
+     * A new engine slot is reserved under the pool lock, but the (slow) engine initialization is
+     * performed outside of the lock, so that other languages and other check in / check out
+     * operations are not blocked meanwhile.
+     *
+     * @param lang the language specification
+     * @return an initialized engine, or null if engine could not be initialized
+     */
+    TessBaseAPI checkOut (String lang)
+    {
+        final LangEngines engines;
+
+        synchronized (this) {
+            LangEngines langEngines = getEngines(lang);
+
+            while (true) {
+                if (!langEngines.idle.isEmpty()) {
+                    final TessBaseAPI api = langEngines.idle.pop();
+                    langEngines.busy.add(api);
+
+                    return api;
+                }
+
+                if (langEngines.created < maxEngines) {
+                    langEngines.created++; // Reserve a slot for the new engine
+                    engines = langEngines;
+
+                    break;
+                }
+
+                try {
+                    wait();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new ProcessingCancellationException(ex);
+                }
+
+                // Pool may have been closed and re-opened in the meantime
+                langEngines = getEngines(lang);
+            }
+        }
+
+        // Engine initialization, outside of pool lock
+        TessBaseAPI api = new TessBaseAPI();
+        boolean initialized = false;
+
+        try {
+            if (api.Init(WellKnowns.OCR_FOLDER.toString(), lang) == 0) {
+                initialized = true;
+            } else {
+                logger.warn("Could not initialize Tesseract with lang {}", lang);
+            }
+        } finally {
+            synchronized (this) {
+                if (initialized) {
+                    if (map.get(lang) == engines) {
+                        engines.busy.add(api);
+                    }
+
+                    // Otherwise pool was closed meanwhile, engine will be released at check in
+
+                    logger.debug("Tesseract engine #{} created for lang {}", engines.created, lang);
+                } else {
+                    // Roll back the reserved slot
+                    if (engines.created > 0) {
+                        engines.created--;
+                    }
+
+                    notifyAll();
+                }
+            }
+
+            if (!initialized) {
+                api.End();
+                api.deallocate();
+                api = null;
+            }
+        }
+
+        return api;
+    }
+
+    //-------//
+    // close //
+    //-------//
+    /**
+     * Natively release all idle engines.
+     * Engines still checked out are released when they get checked in.
+     */
+    synchronized void close ()
+    {
+        final List<TessBaseAPI> apis = new ArrayList<TessBaseAPI>();
+
+        for (LangEngines engines : map.values()) {
+            apis.addAll(engines.idle);
+            engines.idle.clear();
+            engines.busy.clear();
+            engines.created = 0;
+        }
+
+        map.clear();
+        notifyAll();
+
+        for (TessBaseAPI api : apis) {
+            api.End();
+            api.deallocate();
+        }
+
+        logger.debug("Released {} Tesseract engine(s)", apis.size());
+    }
+
+    //------------//
+    // getEngines //
+    //------------//
+    /**
+     * Report the engines structure for the provided language, creating it if needed.
+     * Must be called with pool lock held.
+     *
+     * @param lang the language specification
+     * @return the language engines
+     */
+    private LangEngines getEngines (String lang)
+    {
+        LangEngines engines = map.get(lang);
+
+        if (engines == null) {
+            map.put(lang, engines = new LangEngines());
+        }
+
+        return engines;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-------------//
+    // LangEngines //
+    //-------------//
+    /**
+     * The engines for a given language specification.
+     */
+    private static class LangEngines
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Engines ready for use. */
+        final Deque<TessBaseAPI> idle = new ArrayDeque<TessBaseAPI>();
+
+        /** Engines checked out. */
+        final Set<TessBaseAPI> busy = Collections.newSetFromMap(
+                new IdentityHashMap<TessBaseAPI, Boolean>());
+
+        /** Number of engines created (or being created), either idle or checked out. */
+        int created;
+    }
+}
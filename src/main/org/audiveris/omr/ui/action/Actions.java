@@ -21,6 +21,8 @@
 // </editor-fold>
 package org.audiveris.omr.ui.action;
 
+import org.audiveris.omr.util.JaxbRegistry;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,7 +35,6 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
@@ -55,8 +56,6 @@ public class Actions
     private static final Logger logger = LoggerFactory.getLogger(Actions.class);
 
     /** Context for JAXB unmarshalling. */
-    private static volatile JAXBContext jaxbContext;
-
     /** The collection of all actions loaded so far. */
     private static final Set<ActionDescriptor> allDescriptors = new LinkedHashSet<ActionDescriptor>();
 
@@ -186,11 +185,7 @@ public class Actions
     public static void loadActionDescriptors (InputStream in)
             throws JAXBException
     {
-        if (jaxbContext == null) {
-            jaxbContext = JAXBContext.newInstance(Actions.class);
-        }
-
-        Unmarshaller um = jaxbContext.createUnmarshaller();
+        Unmarshaller um = JaxbRegistry.getUnmarshaller(JaxbRegistry.getContext(Actions.class));
         Actions actions = (Actions) um.unmarshal(in);
 
         for (ActionDescriptor desc : actions.descriptors) {
@@ -30,6 +30,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.file.CopyOption;
 import java.nio.file.DirectoryStream;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.FileSystem;
@@ -163,8 +164,18 @@ public abstract class FileUtil
     //----------//
     // copyTree //
     //----------//
+    /**
+     * Recursively copy the content of a source directory into a target directory.
+     * Source and target may belong to different file systems (say default and zip).
+     *
+     * @param sourceDir the source directory
+     * @param targetDir the target directory
+     * @param options   options for the copy of each file, such as REPLACE_EXISTING
+     * @throws IOException if copy failed
+     */
     public static void copyTree (final Path sourceDir,
-                                 final Path targetDir)
+                                 final Path targetDir,
+                                 final CopyOption... options)
             throws IOException
     {
         Files.walkFileTree(
@@ -176,7 +187,7 @@ public abstract class FileUtil
                                                       BasicFileAttributes attrs)
                     throws IOException
             {
-                Path target = targetDir.resolve(sourceDir.relativize(dir));
+                Path target = resolve(targetDir, sourceDir.relativize(dir));
 
                 try {
                     Files.copy(dir, target);
@@ -194,7 +205,7 @@ public abstract class FileUtil
                                               BasicFileAttributes attrs)
                     throws IOException
             {
-                Files.copy(file, targetDir.resolve(sourceDir.relativize(file)));
+                Files.copy(file, resolve(targetDir, sourceDir.relativize(file)), options);
 
                 return FileVisitResult.CONTINUE;
             }
@@ -485,4 +496,23 @@ public abstract class FileUtil
 
         return pathsFound;
     }
+
+    //---------//
+    // resolve //
+    //---------//
+    /**
+     * Resolve a relative path against a base path, name by name, since they may belong to
+     * different file systems.
+     */
+    private static Path resolve (Path base,
+                                 Path relative)
+    {
+        Path path = base;
+
+        for (Path name : relative) {
+            path = path.resolve(name.toString());
+        }
+
+        return path;
+    }
 }
@@ -75,8 +75,7 @@ public abstract class Jaxb
         OutputStream os = null;
 
         try {
-            Marshaller m = jaxbContext.createMarshaller();
-            m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+            Marshaller m = JaxbRegistry.getMarshaller(jaxbContext);
             os = Files.newOutputStream(path, CREATE);
             m.marshal(object, os);
         } finally {
@@ -96,7 +95,7 @@ public abstract class Jaxb
         InputStream is = null;
 
         try {
-            Unmarshaller um = jaxbContext.createUnmarshaller();
+            Unmarshaller um = JaxbRegistry.getUnmarshaller(jaxbContext);
             is = Files.newInputStream(path, StandardOpenOption.READ);
 
             return um.unmarshal(is);
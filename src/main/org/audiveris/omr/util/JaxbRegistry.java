@@ -0,0 +1,289 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                     J a x b R e g i s t r y                                    //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.util;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+
+/**
+ * Class {@code JaxbRegistry} is the central registry of JAXB contexts.
+ * <p>
+ * Building a {@link JAXBContext} is expensive, since it implies reflection over the whole graph
+ * of bound classes, while a context is thread-safe. So each context is built only once, for a
+ * given sequence of root classes, and then shared.
+ * Contexts can also be built in background at application startup, see {@link #preload}.
+ * <p>
+ * Marshaller and Unmarshaller instances, which are not thread-safe, are handed out per thread
+ * and per context. They must not be retained beyond the current (un)marshalling, nor used in a
+ * re-entrant manner (for example, unmarshalling within an unmarshalling callback, using the same
+ * context).
+ *
+ * @author Hervé Bitteur
+ */
+public abstract class JaxbRegistry
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(JaxbRegistry.class);
+
+    /** Entries per sequence of root classes. */
+    private static final ConcurrentMap<List<Class<?>>, FutureTask<Entry>> tasks
+            = new ConcurrentHashMap<List<Class<?>>, FutureTask<Entry>>();
+
+    /** Entries per context. */
+    private static final ConcurrentMap<JAXBContext, Entry> entries
+            = new ConcurrentHashMap<JAXBContext, Entry>();
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //------------//
+    // getContext //
+    //------------//
+    /**
+     * Report the JAXB context for the provided root classes, building it if needed.
+     *
+     * @param classes the root classes of the context
+     * @return the shared context
+     * @throws JAXBException if context could not be built
+     */
+    public static JAXBContext getContext (Class<?>... classes)
+            throws JAXBException
+    {
+        return getEntry(classes).context;
+    }
+
+    //---------------//
+    // getMarshaller //
+    //---------------//
+    /**
+     * Report a marshaller on the provided context, for use by the current thread.
+     * The marshaller is set for formatted output.
+     *
+     * @param context the JAXB context, preferably one provided by this registry
+     * @return a marshaller for the current thread
+     * @throws JAXBException if marshaller could not be created
+     */
+    public static Marshaller getMarshaller (JAXBContext context)
+            throws JAXBException
+    {
+        final Entry entry = entries.get(context);
+
+        if (entry == null) {
+            return createMarshaller(context); // Context not managed here
+        }
+
+        Marshaller m = entry.marshallers.get();
+
+        if (m == null) {
+            entry.marshallers.set(m = createMarshaller(context));
+        }
+
+        return m;
+    }
+
+    //-----------------//
+    // getUnmarshaller //
+    //-----------------//
+    /**
+     * Report an unmarshaller on the provided context, for use by the current thread.
+     *
+     * @param context the JAXB context, preferably one provided by this registry
+     * @return an unmarshaller for the current thread
+     * @throws JAXBException if unmarshaller could not be created
+     */
+    public static Unmarshaller getUnmarshaller (JAXBContext context)
+            throws JAXBException
+    {
+        final Entry entry = entries.get(context);
+
+        if (entry == null) {
+            return context.createUnmarshaller(); // Context not managed here
+        }
+
+        Unmarshaller um = entry.unmarshallers.get();
+
+        if (um == null) {
+            entry.unmarshallers.set(um = context.createUnmarshaller());
+        }
+
+        return um;
+    }
+
+    //---------//
+    // preload //
+    //---------//
+    /**
+     * Build in background the JAXB context for the provided root classes, if this
+     * feature is enabled.
+     * A later call to {@link #getContext} for the same classes waits for this building to
+     * complete rather than starting another one.
+     *
+     * @param classes the root classes of the context
+     */
+    public static void preload (final Class<?>... classes)
+    {
+        if (!constants.preloadContexts.isSet()) {
+            return;
+        }
+
+        OmrExecutors.getCachedLowExecutor().submit(
+                new Callable<Void>()
+        {
+            @Override
+            public Void call ()
+                    throws Exception
+            {
+                try {
+                    getEntry(classes);
+                } catch (JAXBException ex) {
+                    logger.warn(
+                            "Could not preload JAXB context for {}",
+                            Arrays.toString(classes),
+                            ex);
+                }
+
+                return null;
+            }
+        });
+    }
+
+    //------------------//
+    // createMarshaller //
+    //------------------//
+    private static Marshaller createMarshaller (JAXBContext context)
+            throws JAXBException
+    {
+        final Marshaller m = context.createMarshaller();
+        m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+
+        return m;
+    }
+
+    //----------//
+    // getEntry //
+    //----------//
+    private static Entry getEntry (final Class<?>... classes)
+            throws JAXBException
+    {
+        final List<Class<?>> key = Arrays.<Class<?>>asList(classes.clone());
+        FutureTask<Entry> task = tasks.get(key);
+
+        if (task == null) {
+            final FutureTask<Entry> newTask = new FutureTask<Entry>(
+                    new Callable<Entry>()
+            {
+                @Override
+                public Entry call ()
+                        throws Exception
+                {
+                    final long start = System.currentTimeMillis();
+                    final Entry entry = new Entry(JAXBContext.newInstance(classes));
+                    entries.put(entry.context, entry);
+                    logger.debug(
+                            "JAXB context for {} built in {} ms",
+                            Arrays.toString(classes),
+                            System.currentTimeMillis() - start);
+
+                    return entry;
+                }
+            });
+
+            task = tasks.putIfAbsent(key, newTask);
+
+            if (task == null) {
+                task = newTask;
+                task.run();
+            }
+        }
+
+        try {
+            return task.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new JAXBException(ex);
+        } catch (ExecutionException ex) {
+            tasks.remove(key, task); // To allow a later attempt
+
+            final Throwable cause = ex.getCause();
+
+            if (cause instanceof JAXBException) {
+                throw (JAXBException) cause;
+            }
+
+            throw new JAXBException(cause);
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-------//
+    // Entry //
+    //-------//
+    /**
+     * A context, with its per-thread marshallers and unmarshallers.
+     */
+    private static class Entry
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        final JAXBContext context;
+
+        final ThreadLocal<Marshaller> marshallers = new ThreadLocal<Marshaller>();
+
+        final ThreadLocal<Unmarshaller> unmarshallers = new ThreadLocal<Unmarshaller>();
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public Entry (JAXBContext context)
+        {
+            this.context = context;
+        }
+    }
+
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Boolean preloadContexts = new Constant.Boolean(
+                true,
+                "Should we build the main JAXB contexts in background at startup?");
+    }
+}
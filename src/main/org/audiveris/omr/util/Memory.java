@@ -85,6 +85,16 @@ public abstract class Memory
     //----------//
     // occupied //
     //----------//
+    /**
+     * Get the maximum amount of memory the JVM will attempt to use.
+     *
+     * @return the maximum heap size
+     */
+    public static long max ()
+    {
+        return rt.maxMemory();
+    }
+
     /**
      * Get the size of the currently occupied memory
      *
@@ -30,8 +30,14 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -42,7 +48,15 @@ import java.util.concurrent.atomic.AtomicInteger;
  * <li>lowExecutor: a fixed nb (#cpu+1) of threads with low priority</li>
  * <li>highExecutor: a fixed nb (#cpu+1) of threads with high priority</li>
  * <li>cachedLowExecutor: a varying nb of threads with low priority</li>
+ * <li>forkJoinPool: a work-stealing pool (#cpu threads) for range-splitting tasks</li>
  * </ul>
+ * <p>
+ * Fine-grained data parallelism (rows of pixels, systems of a sheet, ...) should go through
+ * {@link #forEachRange}, which splits an index range into chunks processed by the fork/join
+ * pool. When called from within a fork/join worker (nested parallelism), the work is performed
+ * by the current worker with work-stealing, rather than blocking a thread while waiting for other
+ * pool threads, so that sheet-level and system-level parallelism can be combined without
+ * deadlock.
  *
  * @author Hervé Bitteur
  */
@@ -76,12 +90,24 @@ public class OmrExecutors
 
     private static final Pool cachedLows = new CachedLows();
 
-    /** To handle all the pools as a whole. */
-    private static final Collection<Pool> allPools = Arrays.asList(cachedLows, lows, highs);
+    private static final Pool forkJoins = new ForkJoins();
+
+    private static final Pool saves = new Saves();
+
+    /** To handle all the pools as a whole. Pending saves are closed first. */
+    private static final Collection<Pool> allPools = Arrays.asList(
+            saves,
+            cachedLows,
+            lows,
+            highs,
+            forkJoins);
 
     /** To prevent parallel creation of pools when closing. */
     private static volatile boolean creationAllowed = true;
 
+    /** Actions to run once pools are closed, typically to release native resources. */
+    private static final List<Runnable> shutdownActions = new CopyOnWriteArrayList<Runnable>();
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Not meant to be instantiated.
@@ -91,6 +117,72 @@ public class OmrExecutors
     }
 
     //~ Methods ------------------------------------------------------------------------------------
+    //-------------------//
+    // addShutdownAction //
+    //-------------------//
+    /**
+     * Register an action to be run by {@link #shutdown()}, once all pools are closed.
+     *
+     * @param action the action to run, typically to release native resources
+     */
+    public static void addShutdownAction (Runnable action)
+    {
+        shutdownActions.add(action);
+    }
+
+    //--------------//
+    // forEachRange //
+    //--------------//
+    /**
+     * Process the index range [from..to[ in parallel, using the fork/join pool.
+     * The range is recursively split in halves, down to chunks of about one quarter of
+     * (range size / pool parallelism).
+     *
+     * @param from      first index (inclusive)
+     * @param to        last index (exclusive)
+     * @param processor the processing to apply on each chunk
+     */
+    public static void forEachRange (int from,
+                                     int to,
+                                     RangeProcessor processor)
+    {
+        final int parallelism = getForkJoinPool().getParallelism();
+        final int grain = Math.max(1, (to - from) / (4 * parallelism));
+        forEachRange(from, to, grain, processor);
+    }
+
+    //--------------//
+    // forEachRange //
+    //--------------//
+    /**
+     * Process the index range [from..to[ in parallel, using the fork/join pool.
+     * The range is recursively split in halves, until chunk size gets lower or equal to grain.
+     *
+     * @param from      first index (inclusive)
+     * @param to        last index (exclusive)
+     * @param grain     maximum size of a chunk processed as a whole
+     * @param processor the processing to apply on each chunk
+     */
+    public static void forEachRange (int from,
+                                     int to,
+                                     int grain,
+                                     RangeProcessor processor)
+    {
+        if (from >= to) {
+            return;
+        }
+
+        final RangeAction action = new RangeAction(from, to, Math.max(1, grain), processor);
+        final ForkJoinPool pool = getForkJoinPool();
+
+        if (ForkJoinTask.inForkJoinPool() && (ForkJoinTask.getPool() == pool)) {
+            // Nested call: let current worker take part in the processing
+            action.invoke();
+        } else {
+            pool.invoke(action);
+        }
+    }
+
     //----------------------//
     // getCachedLowExecutor //
     //----------------------//
@@ -104,6 +196,19 @@ public class OmrExecutors
         return cachedLows.getPool();
     }
 
+    //-----------------//
+    // getForkJoinPool //
+    //-----------------//
+    /**
+     * Return the (single) work-stealing pool
+     *
+     * @return the fork/join pool, allocated if needed
+     */
+    public static ForkJoinPool getForkJoinPool ()
+    {
+        return (ForkJoinPool) forkJoins.getPool();
+    }
+
     //-----------------//
     // getHighExecutor //
     //-----------------//
@@ -143,6 +248,20 @@ public class OmrExecutors
         return cpuCount;
     }
 
+    //-----------------//
+    // getSaveExecutor //
+    //-----------------//
+    /**
+     * Return the (single) pool dedicated to background saving of books.
+     * It uses just one thread, so that saving tasks are performed in their submission order.
+     *
+     * @return the save pool, allocated if needed
+     */
+    public static ExecutorService getSaveExecutor ()
+    {
+        return saves.getPool();
+    }
+
     //---------//
     // restart //
     //---------//
@@ -181,11 +300,40 @@ public class OmrExecutors
             }
         }
 
+        for (Runnable action : shutdownActions) {
+            try {
+                action.run();
+            } catch (Throwable ex) {
+                logger.warn("Error in shutdown action " + ex, ex);
+            }
+        }
+
         logger.debug("OmrExecutors closed");
 
         return result;
     }
 
+    //~ Inner Interfaces ---------------------------------------------------------------------------
+    //----------------//
+    // RangeProcessor //
+    //----------------//
+    /**
+     * Interface {@code RangeProcessor} defines the processing of a chunk of indices.
+     */
+    public static interface RangeProcessor
+    {
+        //~ Methods --------------------------------------------------------------------------------
+
+        /**
+         * Process the indices in [from..to[.
+         *
+         * @param from first index (inclusive)
+         * @param to   last index (exclusive)
+         */
+        void processRange (int from,
+                           int to);
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
     //------//
     // Pool //
@@ -407,6 +555,47 @@ public class OmrExecutors
         }
     }
 
+    //-----------//
+    // ForkJoins //
+    //-----------//
+    /** Work-stealing pool with normal priority. */
+    private static class ForkJoins
+            extends Pool
+    {
+        //~ Methods --------------------------------------------------------------------------------
+
+        @Override
+        public String getName ()
+        {
+            return "forkJoin";
+        }
+
+        @Override
+        protected ExecutorService createPool ()
+        {
+            return new ForkJoinPool(
+                    defaultParallelism.getTarget() ? cpuCount : 1,
+                    new ForkJoinPool.ForkJoinWorkerThreadFactory()
+            {
+                private final AtomicInteger threadNumber = new AtomicInteger(0);
+
+                @Override
+                public ForkJoinWorkerThread newThread (ForkJoinPool pool)
+                {
+                    ForkJoinWorkerThread t = new ForkJoinWorkerThread(pool)
+                    {
+                    };
+
+                    t.setName(getName() + "-thread-" + threadNumber.incrementAndGet());
+
+                    return t;
+                }
+            },
+                    null,
+                    false);
+        }
+    }
+
     //-------//
     // Highs //
     //-------//
@@ -454,4 +643,73 @@ public class OmrExecutors
                     new Factory(getName(), Thread.MIN_PRIORITY, 0));
         }
     }
+
+    //-------------//
+    // RangeAction //
+    //-------------//
+    /**
+     * Fork/join action which recursively splits an index range in halves.
+     */
+    private static class RangeAction
+            extends RecursiveAction
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final int from;
+
+        private final int to;
+
+        private final int grain;
+
+        private final RangeProcessor processor;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        RangeAction (int from,
+                     int to,
+                     int grain,
+                     RangeProcessor processor)
+        {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.processor = processor;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Override
+        protected void compute ()
+        {
+            if ((to - from) <= grain) {
+                processor.processRange(from, to);
+            } else {
+                final int mid = (from + to) >>> 1;
+                invokeAll(
+                        new RangeAction(from, mid, grain, processor),
+                        new RangeAction(mid, to, grain, processor));
+            }
+        }
+    }
+
+    //-------//
+    // Saves //
+    //-------//
+    /** Single-thread pool for background saving. */
+    private static class Saves
+            extends Pool
+    {
+        //~ Methods --------------------------------------------------------------------------------
+
+        @Override
+        public String getName ()
+        {
+            return "save";
+        }
+
+        @Override
+        protected ExecutorService createPool ()
+        {
+            return Executors.newSingleThreadExecutor(
+                    new Factory(getName(), Thread.NORM_PRIORITY, 0));
+        }
+    }
 }
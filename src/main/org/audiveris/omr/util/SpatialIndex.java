@@ -0,0 +1,392 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                    S p a t i a l I n d e x                                     //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.util;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class {@code SpatialIndex} is a uniform grid of square cells, meant to quickly retrieve
+ * the items whose bounds intersect a given rectangle or contain a given point.
+ * <p>
+ * Each item is registered in every cell its bounds overlap, so that a lookup only visits the
+ * cells overlapped by the lookup rectangle rather than the whole population of items.
+ * Index is maintained incrementally via {@link #insert} and {@link #remove}.
+ * <p>
+ * Bounds are recorded at insertion time: if the bounds of an item get modified, the item must
+ * be inserted again. Items found are reported in their insertion order.
+ * <p>
+ * Items are identified via their equals() and hashCode() methods, which must remain stable
+ * while the item is indexed.
+ * All public methods are synchronized.
+ *
+ * @param <E> type of indexed items
+ *
+ * @author Hervé Bitteur
+ */
+public class SpatialIndex<E>
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Cell side length, in pixels. */
+    private final int cellSize;
+
+    /** Indexed items, with their recorded bounds and insertion rank. */
+    private final Map<E, Entry<E>> entries = new LinkedHashMap<E, Entry<E>>();
+
+    /** Non-empty cells, keyed by packed cell coordinates. */
+    private final Map<Long, List<Entry<E>>> cells = new HashMap<Long, List<Entry<E>>>();
+
+    /** Insertion rank generator. */
+    private long lastRank;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code SpatialIndex} object.
+     *
+     * @param cellSize side length of grid cells, in pixels
+     */
+    public SpatialIndex (int cellSize)
+    {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Illegal cell size " + cellSize);
+        }
+
+        this.cellSize = cellSize;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------//
+    // clear //
+    //-------//
+    /**
+     * Remove all items from the index.
+     */
+    public synchronized void clear ()
+    {
+        entries.clear();
+        cells.clear();
+    }
+
+    //----------//
+    // contains //
+    //----------//
+    /**
+     * Tell whether the provided item is indexed.
+     *
+     * @param item the item to check
+     * @return true if indexed
+     */
+    public synchronized boolean contains (E item)
+    {
+        return entries.containsKey(item);
+    }
+
+    //-------------//
+    // getCellSize //
+    //-------------//
+    /**
+     * Report the side length of grid cells.
+     *
+     * @return the cell size, in pixels
+     */
+    public int getCellSize ()
+    {
+        return cellSize;
+    }
+
+    //--------//
+    // insert //
+    //--------//
+    /**
+     * Insert (or re-insert) an item with its current bounds.
+     * If the item is already indexed, it is relocated according to the new bounds but keeps its
+     * original insertion rank.
+     *
+     * @param item   the item to index
+     * @param bounds the item bounds, not null
+     */
+    public synchronized void insert (E item,
+                                     Rectangle bounds)
+    {
+        final Entry<E> old = entries.remove(item);
+
+        if (old != null) {
+            unlink(old);
+        }
+
+        final Entry<E> entry = new Entry<E>(
+                item,
+                new Rectangle(bounds),
+                (old != null) ? old.rank : ++lastRank);
+        entries.put(item, entry);
+
+        final int xMin = cellOf(bounds.x);
+        final int xMax = cellOf((bounds.x + Math.max(bounds.width, 1)) - 1);
+        final int yMin = cellOf(bounds.y);
+        final int yMax = cellOf((bounds.y + Math.max(bounds.height, 1)) - 1);
+
+        for (int cx = xMin; cx <= xMax; cx++) {
+            for (int cy = yMin; cy <= yMax; cy++) {
+                final Long key = keyOf(cx, cy);
+                List<Entry<E>> list = cells.get(key);
+
+                if (list == null) {
+                    cells.put(key, list = new ArrayList<Entry<E>>());
+                }
+
+                list.add(entry);
+            }
+        }
+    }
+
+    //-------------//
+    // intersected //
+    //-------------//
+    /**
+     * Report the items whose recorded bounds intersect the provided rectangle.
+     *
+     * @param rect the lookup rectangle
+     * @return the intersected items, in insertion order, perhaps empty but not null
+     */
+    public synchronized List<E> intersected (Rectangle rect)
+    {
+        if (rect.isEmpty()) {
+            return new ArrayList<E>();
+        }
+
+        final List<Entry<E>> found = new ArrayList<Entry<E>>();
+        final int xMin = cellOf(rect.x);
+        final int xMax = cellOf((int) Math.min(Integer.MAX_VALUE, (rect.getMaxX() - 1)));
+        final int yMin = cellOf(rect.y);
+        final int yMax = cellOf((int) Math.min(Integer.MAX_VALUE, (rect.getMaxY() - 1)));
+        final double cellCount = ((xMax - xMin) + 1.0) * ((yMax - yMin) + 1.0);
+
+        if (cellCount > entries.size()) {
+            // Huge lookup rectangle, simply browse all entries
+            for (Entry<E> entry : entries.values()) {
+                if (entry.intersects(rect)) {
+                    found.add(entry);
+                }
+            }
+
+            return itemsOf(found);
+        }
+
+        final Map<Entry<E>, Boolean> seen = new IdentityHashMap<Entry<E>, Boolean>();
+
+        for (int cx = xMin; cx <= xMax; cx++) {
+            for (int cy = yMin; cy <= yMax; cy++) {
+                final List<Entry<E>> list = cells.get(keyOf(cx, cy));
+
+                if (list != null) {
+                    for (Entry<E> entry : list) {
+                        if ((seen.put(entry, Boolean.TRUE) == null)
+                            && entry.intersects(rect)) {
+                            found.add(entry);
+                        }
+                    }
+                }
+            }
+        }
+
+        return itemsOf(found);
+    }
+
+    //-------------//
+    // intersected //
+    //-------------//
+    /**
+     * Report the items whose recorded bounds contain the provided point.
+     *
+     * @param point the lookup point
+     * @return the containing items, in insertion order, perhaps empty but not null
+     */
+    public synchronized List<E> intersected (Point point)
+    {
+        return intersected(new Rectangle(point.x, point.y, 1, 1));
+    }
+
+    //--------//
+    // remove //
+    //--------//
+    /**
+     * Remove the provided item from the index.
+     *
+     * @param item the item to remove
+     * @return true if the item was actually indexed
+     */
+    public synchronized boolean remove (E item)
+    {
+        final Entry<E> entry = entries.remove(item);
+
+        if (entry == null) {
+            return false;
+        }
+
+        unlink(entry);
+
+        return true;
+    }
+
+    //------//
+    // size //
+    //------//
+    /**
+     * Report the number of indexed items.
+     *
+     * @return the count of items
+     */
+    public synchronized int size ()
+    {
+        return entries.size();
+    }
+
+    //----------//
+    // toString //
+    //----------//
+    @Override
+    public synchronized String toString ()
+    {
+        return "SpatialIndex{cell:" + cellSize + " items:" + entries.size() + " cells:"
+               + cells.size() + "}";
+    }
+
+    //--------//
+    // cellOf //
+    //--------//
+    private int cellOf (int coord)
+    {
+        // Floor division, since coordinates may be negative
+        final int q = coord / cellSize;
+
+        return ((coord < 0) && ((q * cellSize) != coord)) ? (q - 1) : q;
+    }
+
+    //---------//
+    // itemsOf //
+    //---------//
+    private List<E> itemsOf (List<Entry<E>> found)
+    {
+        Collections.sort(
+                found,
+                new Comparator<Entry<E>>()
+        {
+            @Override
+            public int compare (Entry<E> e1,
+                                Entry<E> e2)
+            {
+                return Long.compare(e1.rank, e2.rank);
+            }
+        });
+
+        final List<E> items = new ArrayList<E>(found.size());
+
+        for (Entry<E> entry : found) {
+            items.add(entry.item);
+        }
+
+        return items;
+    }
+
+    //-------//
+    // keyOf //
+    //-------//
+    private static Long keyOf (int cx,
+                               int cy)
+    {
+        return (((long) cx) << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+    //--------//
+    // unlink //
+    //--------//
+    private void unlink (Entry<E> entry)
+    {
+        final Rectangle b = entry.bounds;
+        final int xMin = cellOf(b.x);
+        final int xMax = cellOf((b.x + Math.max(b.width, 1)) - 1);
+        final int yMin = cellOf(b.y);
+        final int yMax = cellOf((b.y + Math.max(b.height, 1)) - 1);
+
+        for (int cx = xMin; cx <= xMax; cx++) {
+            for (int cy = yMin; cy <= yMax; cy++) {
+                final Long key = keyOf(cx, cy);
+                final List<Entry<E>> list = cells.get(key);
+
+                if (list != null) {
+                    list.remove(entry);
+
+                    if (list.isEmpty()) {
+                        cells.remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-------//
+    // Entry //
+    //-------//
+    private static class Entry<E>
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        final E item;
+
+        final Rectangle bounds;
+
+        final long rank;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        Entry (E item,
+               Rectangle bounds,
+               long rank)
+        {
+            this.item = item;
+            this.bounds = bounds;
+            this.rank = rank;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        /**
+         * Check intersection, considering an empty bounds as a single point.
+         */
+        boolean intersects (Rectangle rect)
+        {
+            final int w = Math.max(bounds.width, 1);
+            final int h = Math.max(bounds.height, 1);
+
+            return (bounds.x < rect.getMaxX()) && (rect.x < (bounds.x + w))
+                   && (bounds.y < rect.getMaxY()) && (rect.y < (bounds.y + h));
+        }
+    }
+}
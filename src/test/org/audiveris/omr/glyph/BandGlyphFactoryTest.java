@@ -0,0 +1,115 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                             B a n d G l y p h F a c t o r y T e s t                            //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.glyph;
+
+import org.audiveris.omr.glyph.Symbol.Group;
+import org.audiveris.omr.run.Orientation;
+import static org.audiveris.omr.run.Orientation.HORIZONTAL;
+import static org.audiveris.omr.run.Orientation.VERTICAL;
+import org.audiveris.omr.run.Run;
+import org.audiveris.omr.run.RunTable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Class {@code BandGlyphFactoryTest} checks that labelling by bands gives the same glyphs
+ * as the sequential {@link GlyphFactory}.
+ *
+ * @author Hervé Bitteur
+ */
+public class BandGlyphFactoryTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+    @Test
+    public void testEmptyTable ()
+    {
+        RunTable table = new RunTable(VERTICAL, 20, 10);
+        assertTrue(new BandGlyphFactory(table, null, null, 3).process().isEmpty());
+    }
+
+    @Test
+    public void testRandomTables ()
+    {
+        final Random random = new Random(321);
+
+        for (int n = 0; n < 200; n++) {
+            final Orientation orientation = random.nextBoolean() ? VERTICAL : HORIZONTAL;
+            final RunTable table = randomTable(random, orientation);
+            final Point offset = new Point(random.nextInt(100), random.nextInt(100));
+            final int bandSize = 1 + random.nextInt(8);
+
+            // Tables are small enough to be processed sequentially by GlyphFactory
+            final List<Glyph> expected = GlyphFactory.buildGlyphs(table, offset, Group.SYMBOL);
+            final List<Glyph> actual = new BandGlyphFactory(table, offset, Group.SYMBOL, bandSize)
+                    .process();
+
+            assertEquals(expected.size(), actual.size());
+
+            for (int i = 0; i < expected.size(); i++) {
+                final Glyph e = expected.get(i);
+                final Glyph a = actual.get(i);
+                assertEquals(e.getBounds(), a.getBounds());
+                assertEquals(e.getRunTable(), a.getRunTable());
+                assertTrue(a.hasGroup(Group.SYMBOL));
+            }
+        }
+    }
+
+    //-------------//
+    // randomTable //
+    //-------------//
+    /**
+     * Build a table with random runs, some of them connected across sequences.
+     */
+    private static RunTable randomTable (Random random,
+                                         Orientation orientation)
+    {
+        final int width = 1 + random.nextInt(40);
+        final int height = 1 + random.nextInt(40);
+        final RunTable table = new RunTable(orientation, width, height);
+        final int length = (orientation == VERTICAL) ? height : width;
+        final double density = 0.1 + (0.6 * random.nextDouble());
+
+        for (int iSeq = 0; iSeq < table.getSize(); iSeq++) {
+            int start = -1;
+
+            for (int c = 0; c <= length; c++) {
+                final boolean fore = (c < length) && (random.nextDouble() < density);
+
+                if (fore && (start == -1)) {
+                    start = c;
+                } else if (!fore && (start != -1)) {
+                    table.addRun(iSeq, new Run(start, c - start));
+                    start = -1;
+                }
+            }
+        }
+
+        return table;
+    }
+}
@@ -0,0 +1,118 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                C o m p o u n d C a c h e T e s t                               //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.glyph;
+
+import org.audiveris.omr.classifier.Evaluation;
+import static org.audiveris.omr.run.Orientation.VERTICAL;
+import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.run.RunTableFactory;
+
+import ij.process.ByteProcessor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Class {@code CompoundCacheTest} checks compounds and evaluations reuse.
+ *
+ * @author Hervé Bitteur
+ */
+public class CompoundCacheTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+    @Test
+    public void testCompounds ()
+    {
+        final List<Glyph> parts = buildParts();
+        assertEquals(3, parts.size());
+
+        for (int i = 0; i < parts.size(); i++) {
+            parts.get(i).setId(i + 1);
+        }
+
+        final CompoundCache cache = new CompoundCache();
+        final Glyph c1 = cache.getCompound(parts);
+        assertEquals(Glyphs.weightOf(parts), c1.getWeight());
+
+        // Same set of parts, whatever the order
+        final Set<Glyph> reversed = new LinkedHashSet<Glyph>(
+                Arrays.asList(parts.get(2), parts.get(1), parts.get(0)));
+        assertSame(c1, cache.getCompound(reversed));
+
+        // Different set
+        final Glyph c2 = cache.getCompound(parts.subList(0, 2));
+        assertNotSame(c1, c2);
+        assertEquals(Glyphs.weightOf(parts.subList(0, 2)), c2.getWeight());
+
+        // Evaluations
+        assertNull(cache.getEvaluations(parts));
+
+        final Evaluation[] evals = new Evaluation[]{new Evaluation(Shape.CLUTTER, 0.5)};
+        cache.putEvaluations(reversed, evals);
+        assertSame(evals, cache.getEvaluations(parts));
+        assertNull(cache.getEvaluations(parts.subList(1, 3)));
+    }
+
+    @Test
+    public void testUnregisteredParts ()
+    {
+        final List<Glyph> parts = buildParts();
+        final CompoundCache cache = new CompoundCache();
+        final Glyph c1 = cache.getCompound(parts);
+        assertNotSame(c1, cache.getCompound(parts));
+
+        cache.putEvaluations(parts, new Evaluation[0]);
+        assertNull(cache.getEvaluations(parts));
+    }
+
+    //------------//
+    // buildParts //
+    //------------//
+    /**
+     * Build 3 separate parts, as 3 vertical bars.
+     */
+    private static List<Glyph> buildParts ()
+    {
+        final ByteProcessor buf = new ByteProcessor(12, 6);
+        buf.invert(); // All white
+
+        for (int x : new int[]{1, 5, 9}) {
+            for (int y = 1; y < 5; y++) {
+                buf.set(x, y, 0);
+                buf.set(x + 1, y, 0);
+            }
+        }
+
+        final RunTable runTable = new RunTableFactory(VERTICAL).createTable(buf);
+
+        return GlyphFactory.buildGlyphs(runTable, new Point(0, 0));
+    }
+}
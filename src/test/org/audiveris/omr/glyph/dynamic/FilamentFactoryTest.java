@@ -0,0 +1,192 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                              F i l a m e n t F a c t o r y T e s t                             //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.glyph.dynamic;
+
+import org.audiveris.omr.lag.JunctionRatioPolicy;
+import org.audiveris.omr.lag.Section;
+import org.audiveris.omr.lag.SectionFactory;
+import org.audiveris.omr.run.Orientation;
+import org.audiveris.omr.run.Run;
+import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.sheet.Scale;
+import org.audiveris.omr.sheet.Scale.InterlineScale;
+import org.audiveris.omr.sheet.Scale.LineScale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Class {@code FilamentFactoryTest} checks that the retrieval of filaments via spatial
+ * index gives the same filaments, in the same order, as the plain browsing of all filaments.
+ *
+ * @author Hervé Bitteur
+ */
+public class FilamentFactoryTest
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final int WIDTH = 900;
+
+    private static final int HEIGHT = 320;
+
+    private static final int INTERLINE = 20;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Test
+    public void testSameFilaments ()
+    {
+        final Scale scale = new Scale(
+                new LineScale(2, 3, 4),
+                new InterlineScale(INTERLINE - 2, INTERLINE, INTERLINE + 2),
+                null,
+                null);
+
+        for (long seed = 1; seed <= 5; seed++) {
+            final RunTable table = createTable(new Random(seed));
+            final List<Section> sections = new SectionFactory(
+                    Orientation.HORIZONTAL,
+                    new JunctionRatioPolicy()).createSections(table);
+
+            final List<StraightFilament> expected = retrieve(scale, sections, false);
+            final List<StraightFilament> actual = retrieve(scale, sections, true);
+
+            assertEquals("seed " + seed, expected.size(), actual.size());
+
+            int merged = 0;
+
+            for (int i = 0; i < expected.size(); i++) {
+                final List<Section> expMembers = new ArrayList<Section>(
+                        expected.get(i).getMembers());
+                final List<Section> actMembers = new ArrayList<Section>(
+                        actual.get(i).getMembers());
+                assertEquals("seed " + seed + " filament #" + i, expMembers, actMembers);
+
+                if (expMembers.size() > 1) {
+                    merged++;
+                }
+            }
+
+            assertTrue("seed " + seed + " no merge", merged > 0);
+        }
+    }
+
+    //-------------//
+    // createTable //
+    //-------------//
+    /**
+     * Draw two staves of broken and slightly slanted lines, crossed by a few vertical
+     * strokes, with some short horizontal noise around.
+     */
+    private RunTable createTable (Random random)
+    {
+        final boolean[][] pixels = new boolean[HEIGHT][WIDTH];
+
+        // Staff lines
+        for (int staff = 0; staff < 2; staff++) {
+            for (int line = 0; line < 5; line++) {
+                final int y0 = 60 + (staff * 150) + (line * INTERLINE);
+                int x = 10 + random.nextInt(10);
+
+                while (x < (WIDTH - 10)) {
+                    final int length = 20 + random.nextInt(150);
+
+                    for (int dx = 0; (dx < length) && (x < (WIDTH - 10)); dx++, x++) {
+                        final int y = y0 + (x / 300);
+
+                        for (int t = 0; t < 3; t++) {
+                            pixels[y + t][x] = true;
+                        }
+                    }
+
+                    x += (1 + random.nextInt(8)); // Gap
+                }
+            }
+        }
+
+        // Vertical strokes
+        for (int i = 0; i < 40; i++) {
+            final int x = 20 + random.nextInt(WIDTH - 40);
+            final int y = 40 + random.nextInt(HEIGHT - 120);
+            final int length = 10 + random.nextInt(70);
+
+            for (int dy = 0; dy < length; dy++) {
+                pixels[y + dy][x] = true;
+                pixels[y + dy][x + 1] = true;
+            }
+        }
+
+        // Short horizontal noise
+        for (int i = 0; i < 150; i++) {
+            final int x = 10 + random.nextInt(WIDTH - 40);
+            final int y = 40 + random.nextInt(HEIGHT - 80);
+            final int length = 2 + random.nextInt(15);
+
+            for (int dx = 0; dx < length; dx++) {
+                pixels[y][x + dx] = true;
+            }
+        }
+
+        final RunTable table = new RunTable(Orientation.HORIZONTAL, WIDTH, HEIGHT);
+
+        for (int y = 0; y < HEIGHT; y++) {
+            int x = 0;
+
+            while (x < WIDTH) {
+                if (pixels[y][x]) {
+                    final int start = x;
+
+                    while ((x < WIDTH) && pixels[y][x]) {
+                        x++;
+                    }
+
+                    table.addRun(y, new Run(start, x - start));
+                } else {
+                    x++;
+                }
+            }
+        }
+
+        return table;
+    }
+
+    //----------//
+    // retrieve //
+    //----------//
+    private List<StraightFilament> retrieve (Scale scale,
+                                             List<Section> sections,
+                                             boolean useSpatialIndex)
+    {
+        final FilamentFactory<StraightFilament> factory = new FilamentFactory<StraightFilament>(
+                scale,
+                new FilamentIndex(null),
+                Orientation.HORIZONTAL,
+                StraightFilament.class);
+        factory.setUseSpatialIndex(useSpatialIndex);
+
+        return factory.retrieveFilaments(sections);
+    }
+}
@@ -0,0 +1,112 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                B a n d B i n a r i z e r T e s t                               //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import org.audiveris.omr.run.Orientation;
+import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.run.RunTableFactory;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Class {@code BandBinarizerTest} checks that band binarization gives the same run table
+ * as the standard binarization followed by run retrieval.
+ *
+ * @author Hervé Bitteur
+ */
+public class BandBinarizerTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+    @Test
+    public void testGlobal ()
+    {
+        final ByteProcessor source = createSource(700, 150);
+        check(new GlobalFilter(source, 140));
+    }
+
+    @Test
+    public void testRandom ()
+    {
+        final ByteProcessor source = createSource(300, 90);
+        check(new RandomFilter(source, 0.7, 0.9));
+    }
+
+    @Test
+    public void testSmall ()
+    {
+        final ByteProcessor source = createSource(20, 10);
+        check(new VerticalFilter(source, 0.7, 0.9));
+    }
+
+    @Test
+    public void testVertical ()
+    {
+        final ByteProcessor source = createSource(600, 120);
+        check(new VerticalFilter(source, 0.7, 0.9));
+        check(new VerticalFilter(source, 0.5, 1.2));
+    }
+
+    //-------//
+    // check //
+    //-------//
+    private void check (PixelFilter filter)
+    {
+        final RunTable fused = new BandBinarizer(filter).binarize();
+        final RunTableFactory factory = new RunTableFactory(Orientation.VERTICAL);
+        final RunTable expected = factory.createTable(filter.filteredImage());
+
+        assertEquals(expected.getTotalRunCount(), fused.getTotalRunCount());
+        assertEquals(expected, fused);
+    }
+
+    //--------------//
+    // createSource //
+    //--------------//
+    /**
+     * Build a gray image with a varying background, some dark lines and noise.
+     */
+    private ByteProcessor createSource (int width,
+                                        int height)
+    {
+        final Random random = new Random(width * height);
+        final ByteProcessor source = new ByteProcessor(width, height);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int val = 160 + ((60 * x) / width) + random.nextInt(30);
+
+                if (((y % 17) == 3) || ((x % 41) < 3) || (random.nextInt(20) == 0)) {
+                    val -= (90 + random.nextInt(60));
+                }
+
+                source.set(x, y, Math.max(0, Math.min(255, val)));
+            }
+        }
+
+        return source;
+    }
+}
@@ -0,0 +1,243 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                     P d f C a c h e T e s t                                    //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import org.audiveris.omr.util.FileUtil;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Class {@code PdfCacheTest} checks page keys, hits and misses, atomic publication and
+ * eviction of {@link PdfCache}, on a private cache folder.
+ * <p>
+ * Since only PDF file content is hashed, no real PDF file is needed.
+ *
+ * @author Hervé Bitteur
+ */
+public class PdfCacheTest
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    private Path root;
+
+    private Path folder;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Before
+    public void setUp ()
+            throws IOException
+    {
+        root = Files.createTempDirectory("pdf-cache-test");
+        folder = root.resolve("cache");
+    }
+
+    @After
+    public void tearDown ()
+            throws IOException
+    {
+        FileUtil.deleteDirectory(root);
+    }
+
+    @Test
+    public void testAtomicPublish ()
+            throws Exception
+    {
+        final PdfCache cache = new PdfCache(createPdf("a.pdf", "content"), folder, Long.MAX_VALUE);
+        final Path file = cache.getPageFile(1, 300);
+        final BufferedImage img = createImage(17);
+        final List<Thread> threads = new ArrayList<Thread>();
+
+        for (int i = 0; i < 4; i++) {
+            threads.add(
+                    new Thread()
+            {
+                @Override
+                public void run ()
+                {
+                    for (int j = 0; j < 10; j++) {
+                        cache.store(img, file);
+                    }
+                }
+            });
+        }
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Page file is complete, and no temporary file is left over
+        assertSameImage(img, cache.read(file));
+        assertEquals(1, countFiles("*"));
+    }
+
+    @Test
+    public void testEviction ()
+            throws Exception
+    {
+        final BufferedImage img = createImage(23);
+        final long pageSize = pngSize(img);
+
+        // Room for two pages and a half
+        final PdfCache cache = new PdfCache(
+                createPdf("a.pdf", "content"),
+                folder,
+                (2 * pageSize) + (pageSize / 2));
+        final Path file1 = cache.getPageFile(1, 300);
+        final Path file2 = cache.getPageFile(2, 300);
+        final Path file3 = cache.getPageFile(3, 300);
+        final long now = System.currentTimeMillis();
+
+        cache.store(img, file1);
+        Files.setLastModifiedTime(file1, FileTime.fromMillis(now - 20000));
+        cache.store(img, file2);
+        Files.setLastModifiedTime(file2, FileTime.fromMillis(now - 10000));
+        assertEquals(2, countFiles("*.png"));
+
+        // A hit on page #1 makes page #2 the least recently used
+        assertNotNull(cache.read(file1));
+        cache.store(img, file3);
+
+        assertTrue(Files.exists(file1));
+        assertFalse(Files.exists(file2));
+        assertTrue(Files.exists(file3));
+    }
+
+    @Test
+    public void testHitMiss ()
+            throws Exception
+    {
+        final PdfCache cache = new PdfCache(createPdf("a.pdf", "content"), folder, Long.MAX_VALUE);
+        final Path file = cache.getPageFile(2, 300);
+        final BufferedImage img = createImage(31);
+
+        assertNull(cache.read(file));
+
+        cache.store(img, file);
+        assertSameImage(img, cache.read(file));
+
+        // Other page, or same page at another resolution, are still missing
+        assertNull(cache.read(cache.getPageFile(1, 300)));
+        assertNull(cache.read(cache.getPageFile(2, 400)));
+    }
+
+    @Test
+    public void testKey ()
+            throws Exception
+    {
+        final PdfCache a = new PdfCache(createPdf("a.pdf", "content"), folder, Long.MAX_VALUE);
+        final PdfCache b = new PdfCache(createPdf("b.pdf", "content"), folder, Long.MAX_VALUE);
+        final PdfCache c = new PdfCache(createPdf("c.pdf", "other"), folder, Long.MAX_VALUE);
+
+        // Key depends on file content, not on file path
+        assertEquals(a.getPageFile(1, 300), b.getPageFile(1, 300));
+        assertFalse(a.getPageFile(1, 300).equals(c.getPageFile(1, 300)));
+
+        // Key depends on page id and resolution
+        assertFalse(a.getPageFile(1, 300).equals(a.getPageFile(2, 300)));
+        assertFalse(a.getPageFile(1, 300).equals(a.getPageFile(1, 400)));
+        assertEquals(folder, a.getPageFile(1, 300).getParent());
+    }
+
+    private void assertSameImage (BufferedImage expected,
+                                  BufferedImage actual)
+    {
+        assertNotNull(actual);
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals(
+                        "pixel " + x + "," + y,
+                        expected.getRaster().getSample(x, y, 0),
+                        actual.getRaster().getSample(x, y, 0));
+            }
+        }
+    }
+
+    private int countFiles (String glob)
+            throws IOException
+    {
+        int count = 0;
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder, glob)) {
+            for (Path file : stream) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    private BufferedImage createImage (int seed)
+    {
+        final BufferedImage img = new BufferedImage(40, 30, BufferedImage.TYPE_BYTE_GRAY);
+
+        for (int y = 0; y < img.getHeight(); y++) {
+            for (int x = 0; x < img.getWidth(); x++) {
+                img.getRaster().setSample(x, y, 0, ((x * seed) + (y * 7)) & 0xFF);
+            }
+        }
+
+        return img;
+    }
+
+    private Path createPdf (String name,
+                            String content)
+            throws IOException
+    {
+        return Files.write(root.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private long pngSize (BufferedImage img)
+            throws IOException
+    {
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ImageIO.write(img, "png", bos);
+
+        return bos.size();
+    }
+}
@@ -0,0 +1,154 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                            S e p a r a b l e D i s t a n c e T e s t                           //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import static org.audiveris.omr.image.ChamferDistance.VALUE_UNKNOWN;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+import ij.process.ByteProcessor;
+
+import java.util.Random;
+
+/**
+ * Class {@code SeparableDistanceTest} checks the separable distance transform against the
+ * chamfer transform and against a brute-force Euclidean transform.
+ *
+ * @author Hervé Bitteur
+ */
+public class SeparableDistanceTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+    @Test
+    public void testChamfer ()
+    {
+        final Random random = new Random(456);
+
+        for (int n = 0; n < 50; n++) {
+            final ByteProcessor img = randomImage(random);
+            assertSame(
+                    new ChamferDistance.Short().computeToFore(img),
+                    new SeparableDistance().computeToFore(img));
+            assertSame(
+                    new ChamferDistance.Short().computeToBack(img),
+                    new SeparableDistance().computeToBack(img));
+        }
+    }
+
+    @Test
+    public void testEmpty ()
+    {
+        final ByteProcessor img = new ByteProcessor(7, 5);
+        img.setValue(255);
+        img.fill();
+
+        // No foreground pixel at all
+        final DistanceTable table = new SeparableDistance().computeToFore(img);
+
+        for (int y = 0; y < 5; y++) {
+            for (int x = 0; x < 7; x++) {
+                assertEquals(VALUE_UNKNOWN, table.getValue(x, y));
+            }
+        }
+
+        assertSame(
+                new ChamferDistance.Short().computeToBack(img),
+                new SeparableDistance().computeToBack(img));
+    }
+
+    @Test
+    public void testEuclidean ()
+    {
+        final Random random = new Random(789);
+
+        for (int n = 0; n < 20; n++) {
+            final ByteProcessor img = randomImage(random);
+            final int width = img.getWidth();
+            final int height = img.getHeight();
+            final DistanceTable table = new SeparableDistance(SeparableDistance.Metric.EUCLIDEAN)
+                    .computeToFore(img);
+            assertEquals(3, table.getNormalizer());
+
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    long best = Long.MAX_VALUE;
+
+                    for (int yy = 0; yy < height; yy++) {
+                        for (int xx = 0; xx < width; xx++) {
+                            if (img.get(xx, yy) == 0) {
+                                final long dx = xx - x;
+                                final long dy = yy - y;
+                                best = Math.min(best, (dx * dx) + (dy * dy));
+                            }
+                        }
+                    }
+
+                    final int expected = (best == Long.MAX_VALUE) ? VALUE_UNKNOWN
+                            : (int) Math.rint(3 * Math.sqrt(best));
+                    assertEquals("x:" + x + " y:" + y, expected, table.getValue(x, y));
+                }
+            }
+        }
+    }
+
+    //------------//
+    // assertSame //
+    //------------//
+    private static void assertSame (DistanceTable expected,
+                                    DistanceTable actual)
+    {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        assertEquals(expected.getNormalizer(), actual.getNormalizer());
+
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals(
+                        "x:" + x + " y:" + y,
+                        expected.getValue(x, y),
+                        actual.getValue(x, y));
+            }
+        }
+    }
+
+    //-------------//
+    // randomImage //
+    //-------------//
+    /**
+     * Build a binary image, with a random size and a random density of foreground pixels.
+     */
+    private static ByteProcessor randomImage (Random random)
+    {
+        final int width = 1 + random.nextInt(60);
+        final int height = 1 + random.nextInt(60);
+        final double density = random.nextDouble() * random.nextDouble() * 0.2;
+        final ByteProcessor img = new ByteProcessor(width, height);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                img.set(x, y, (random.nextDouble() < density) ? 0 : 255);
+            }
+        }
+
+        return img;
+    }
+}
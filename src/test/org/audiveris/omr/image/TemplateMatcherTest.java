@@ -0,0 +1,169 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                             T e m p l a t e M a t c h e r T e s t                              //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import org.audiveris.omr.glyph.Shape;
+import org.audiveris.omr.glyph.ShapeSet;
+import org.audiveris.omr.image.Anchored.Anchor;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+import java.awt.Rectangle;
+import java.util.Random;
+
+/**
+ * Class {@code TemplateMatcherTest} checks that compiled evaluation gives the same
+ * results as plain template evaluation.
+ *
+ * @author Hervé Bitteur
+ */
+public class TemplateMatcherTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+    @Test
+    public void testIntegerTable ()
+    {
+        checkTable(createDistances(new ChamferDistance.Integer()));
+    }
+
+    @Test
+    public void testMultiTemplates ()
+    {
+        final DistanceTable distances = createDistances(new ChamferDistance.Short());
+        final TemplateMatcher matcher = new TemplateMatcher(distances);
+        final TemplateFactory.Catalog catalog = TemplateFactory.getInstance().getCatalog(14);
+        final Shape[] shapes = ShapeSet.TemplateNotes.toArray(new Shape[0]);
+        final Template[] templates = new Template[shapes.length];
+
+        for (int i = 0; i < shapes.length; i++) {
+            templates[i] = (i == 1) ? null : catalog.getTemplate(shapes[i]);
+        }
+
+        final double[] results = new double[shapes.length];
+
+        for (int x = -3; x < 63; x += 2) {
+            for (int y = -3; y < 43; y += 3) {
+                matcher.evaluate(templates, x, y, Anchor.MIDDLE_LEFT, results);
+
+                for (int i = 0; i < shapes.length; i++) {
+                    if (templates[i] != null) {
+                        assertEquals(
+                                templates[i].evaluate(x, y, Anchor.MIDDLE_LEFT, distances),
+                                results[i],
+                                0.0);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testShortTable ()
+    {
+        checkTable(createDistances(new ChamferDistance.Short()));
+    }
+
+    @Test
+    public void testView ()
+    {
+        final DistanceTable distances = createDistances(new ChamferDistance.Short());
+        checkTable((DistanceTable) distances.getView(new Rectangle(7, 5, 45, 30)));
+    }
+
+    //------------//
+    // checkTable //
+    //------------//
+    private void checkTable (DistanceTable distances)
+    {
+        final TemplateMatcher matcher = new TemplateMatcher(distances);
+        final TemplateFactory.Catalog catalog = TemplateFactory.getInstance().getCatalog(14);
+
+        for (Shape shape : ShapeSet.TemplateNotes) {
+            final Template template = catalog.getTemplate(shape);
+
+            for (Anchor anchor : new Anchor[]{null, Anchor.MIDDLE_LEFT}) {
+                for (int x = -5; x < (distances.getWidth() + 5); x++) {
+                    for (int y = -5; y < (distances.getHeight() + 5); y++) {
+                        assertEquals(
+                                shape + " at " + x + "," + y,
+                                template.evaluate(x, y, anchor, distances),
+                                matcher.evaluate(template, x, y, anchor),
+                                0.0);
+                    }
+                }
+            }
+        }
+    }
+
+    //-----------------//
+    // createDistances //
+    //-----------------//
+    /**
+     * Create a distance table, with a neutralized vertical band.
+     */
+    private DistanceTable createDistances (ChamferDistance chamfer)
+    {
+        final DistanceTable distances = chamfer.computeToFore(createImage(60, 40));
+
+        for (int y = 0; y < distances.getHeight(); y++) {
+            for (int x = 30; x < 33; x++) {
+                distances.setValue(x, y, ChamferDistance.VALUE_UNKNOWN);
+            }
+        }
+
+        return distances;
+    }
+
+    //-------------//
+    // createImage //
+    //-------------//
+    /**
+     * Create an image with random blobs.
+     */
+    private ByteProcessor createImage (int width,
+                                       int height)
+    {
+        final Random random = new Random(7);
+        final ByteProcessor img = new ByteProcessor(width, height);
+        img.setValue(255);
+        img.fill();
+
+        for (int i = 0; i < 12; i++) {
+            final int cx = random.nextInt(width);
+            final int cy = random.nextInt(height);
+            final int r = 2 + random.nextInt(6);
+
+            for (int y = Math.max(0, cy - r); y < Math.min(height, cy + r); y++) {
+                for (int x = Math.max(0, cx - r); x < Math.min(width, cx + r); x++) {
+                    if ((((x - cx) * (x - cx)) + ((y - cy) * (y - cy))) <= (r * r)) {
+                        img.set(x, y, 0);
+                    }
+                }
+            }
+        }
+
+        return img;
+    }
+}
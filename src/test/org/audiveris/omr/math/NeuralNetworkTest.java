@@ -0,0 +1,58 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                              N e u r a l N e t w o r k T e s t                                 //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.math;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Class {@code NeuralNetworkTest} checks batch run against single runs.
+ *
+ * @author Hervé Bitteur
+ */
+public class NeuralNetworkTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+    @Test
+    public void testBatchRun ()
+    {
+        final Random random = new Random(321);
+        final NeuralNetwork network = new NeuralNetwork(6, 4, 3, 1.0, null, null);
+        final double[][] inputs = new double[10][6];
+
+        for (double[] row : inputs) {
+            for (int j = 0; j < row.length; j++) {
+                row[j] = random.nextDouble();
+            }
+        }
+
+        final double[][] outputs = network.run(inputs);
+        assertEquals(inputs.length, outputs.length);
+
+        for (int i = 0; i < inputs.length; i++) {
+            assertArrayEquals(network.run(inputs[i], null, null), outputs[i], 0.0);
+        }
+    }
+}
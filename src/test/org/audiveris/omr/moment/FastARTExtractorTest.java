@@ -0,0 +1,88 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                             F a s t A R T E x t r a c t o r T e s t                            //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.moment;
+
+import org.audiveris.omr.moments.ARTMoments;
+import static org.audiveris.omr.moments.ARTMoments.ANGULAR;
+import static org.audiveris.omr.moments.ARTMoments.RADIAL;
+import org.audiveris.omr.moments.BasicARTExtractor;
+import org.audiveris.omr.moments.BasicARTMoments;
+import org.audiveris.omr.moments.FastARTExtractor;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Class {@code FastARTExtractorTest} checks the fast ART extractor against the basic one.
+ *
+ * @author Hervé Bitteur
+ */
+public class FastARTExtractorTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+    @Test
+    public void testRandomShapes ()
+    {
+        final Random random = new Random(456);
+
+        for (int n = 0; n < 50; n++) {
+            final int width = 1 + random.nextInt(80);
+            final int height = 1 + random.nextInt(80);
+            final double density = 0.1 + (0.8 * random.nextDouble());
+            final int[] xx = new int[width * height];
+            final int[] yy = new int[width * height];
+            int mass = 0;
+
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    if ((mass == 0) || (random.nextDouble() < density)) {
+                        xx[mass] = x;
+                        yy[mass] = y;
+                        mass++;
+                    }
+                }
+            }
+
+            final ARTMoments basic = new BasicARTMoments();
+            final BasicARTExtractor basicExtractor = new BasicARTExtractor();
+            basicExtractor.setDescriptor(basic);
+            basicExtractor.extract(xx, yy, mass);
+
+            final ARTMoments fast = new BasicARTMoments();
+            final FastARTExtractor fastExtractor = new FastARTExtractor();
+            fastExtractor.setDescriptor(fast);
+            fastExtractor.extract(xx, yy, mass);
+
+            for (int p = 0; p < ANGULAR; p++) {
+                for (int r = 0; r < RADIAL; r++) {
+                    assertEquals(
+                            "shape#" + n + " p:" + p + " r:" + r,
+                            basic.getMoment(p, r),
+                            fast.getMoment(p, r),
+                            1e-5);
+                }
+            }
+        }
+    }
+}
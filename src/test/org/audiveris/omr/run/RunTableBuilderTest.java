@@ -0,0 +1,92 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                              R u n T a b l e B u i l d e r T e s t                             //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.run;
+
+import ij.process.ByteProcessor;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+import java.awt.Point;
+
+/**
+ * Class {@code RunTableBuilderTest} checks rasterization of overlapping tables.
+ *
+ * @author Hervé Bitteur
+ */
+public class RunTableBuilderTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+    @Test
+    public void testInclude ()
+    {
+        final RunTable hori = new RunTable(Orientation.HORIZONTAL, 8, 3);
+        hori.addRun(0, new Run(0, 8));
+        hori.addRun(1, new Run(2, 3));
+        hori.addRun(2, new Run(5, 3));
+
+        final RunTable vert = new RunTable(Orientation.VERTICAL, 2, 6);
+        vert.addRun(0, new Run(0, 6));
+        vert.addRun(1, new Run(1, 2));
+
+        final Point[] offsets = new Point[]{
+            new Point(1, 1), new Point(4, 2), new Point(-3, 5), new Point(15, 6),
+            new Point(3, 0)
+        };
+
+        for (Orientation orientation : Orientation.values()) {
+            final RunTableBuilder builder = new RunTableBuilder(orientation, 17, 9);
+            final ByteProcessor expected = new ByteProcessor(17, 9);
+            expected.invert();
+
+            for (int i = 0; i < offsets.length; i++) {
+                final RunTable table = ((i % 2) == 0) ? hori : vert;
+                builder.include(table, offsets[i]);
+                paint(expected, table, offsets[i]);
+            }
+
+            final RunTable built = builder.build();
+            final RunTable ref = new RunTableFactory(orientation).createTable(expected);
+            assertEquals(orientation.toString(), ref, built);
+        }
+    }
+
+    //-------//
+    // paint //
+    //-------//
+    private void paint (ByteProcessor buffer,
+                        RunTable table,
+                        Point offset)
+    {
+        for (int x = 0; x < table.getWidth(); x++) {
+            for (int y = 0; y < table.getHeight(); y++) {
+                final int bx = offset.x + x;
+                final int by = offset.y + y;
+
+                if ((table.get(x, y) == 0) && (bx >= 0) && (bx < buffer.getWidth()) && (by >= 0)
+                    && (by < buffer.getHeight())) {
+                    buffer.set(bx, by, 0);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                R u n T a b l e C o d e c T e s t                               //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.run;
+
+import static org.audiveris.omr.run.Orientation.HORIZONTAL;
+import static org.audiveris.omr.run.Orientation.VERTICAL;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+
+/**
+ * Class {@code RunTableCodecTest} tests the binary format of RunTable.
+ *
+ * @author Hervé Bitteur
+ */
+public class RunTableCodecTest
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final File dir = new File("data/temp");
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @BeforeClass
+    public static void createTempFolder ()
+    {
+        dir.mkdirs();
+    }
+
+    @Test
+    public void testCompressedRoundTrip ()
+            throws IOException
+    {
+        RunTable table = createVerticalInstance();
+        RunTable newTable = roundTrip(table, true);
+        assertEquals(table, newTable);
+    }
+
+    @Test
+    public void testLegacyFallback ()
+            throws Exception
+    {
+        RunTable table = createHorizontalInstance();
+        File file = new File(dir, "legacy-runtable.xml");
+
+        Marshaller m = JAXBContext.newInstance(RunTable.class).createMarshaller();
+        FileOutputStream fos = new FileOutputStream(file);
+        m.marshal(table, fos);
+        fos.close();
+
+        RunTable newTable = RunTable.unmarshal(file.toPath());
+        assertEquals(table, newTable);
+    }
+
+    @Test
+    public void testPlainRoundTrip ()
+            throws IOException
+    {
+        RunTable table = createHorizontalInstance();
+        RunTable newTable = roundTrip(table, false);
+        assertEquals(table.dumpOf(), newTable.dumpOf());
+        assertEquals(table, newTable);
+    }
+
+    @Test
+    public void testStoreAndUnmarshal ()
+            throws IOException
+    {
+        RunTable table = createVerticalInstance();
+        File file = new File(dir, "runtable" + RunTableCodec.EXTENSION);
+        RunTableCodec.store(table, file.toPath());
+
+        InputStream is = new BufferedInputStream(new FileInputStream(file));
+        assertTrue(RunTableCodec.isBinary(is));
+        is.close();
+
+        assertEquals(table, RunTable.unmarshal(file.toPath()));
+    }
+
+    @Test
+    public void testXmlIsNotBinary ()
+            throws IOException
+    {
+        InputStream is = new BufferedInputStream(
+                new ByteArrayInputStream("<?xml version=\"1.0\"?>".getBytes("UTF-8")));
+        assertFalse(RunTableCodec.isBinary(is));
+        assertEquals('<', is.read());
+    }
+
+    //--------------------------//
+    // createHorizontalInstance //
+    //--------------------------//
+    private RunTable createHorizontalInstance ()
+    {
+        RunTable instance = new RunTable(HORIZONTAL, 10, 5);
+
+        instance.addRun(0, new Run(1, 2));
+        instance.addRun(0, new Run(5, 3));
+
+        instance.addRun(1, new Run(0, 1));
+        instance.addRun(1, new Run(4, 2));
+
+        // Leave sequence empty at index 2
+        //
+        instance.addRun(3, new Run(0, 2));
+        instance.addRun(3, new Run(4, 1));
+        instance.addRun(3, new Run(8, 2));
+
+        instance.addRun(4, new Run(2, 2));
+        instance.addRun(4, new Run(6, 4));
+
+        return instance;
+    }
+
+    //------------------------//
+    // createVerticalInstance //
+    //------------------------//
+    private RunTable createVerticalInstance ()
+    {
+        // Long runs, to exercise multi-byte values
+        RunTable instance = new RunTable(VERTICAL, 4, 30000);
+
+        instance.addRun(0, new Run(0, 20000));
+        instance.addRun(1, new Run(200, 3));
+        instance.addRun(1, new Run(25000, 4999));
+        instance.addRun(3, new Run(29999, 1));
+
+        return instance;
+    }
+
+    //-----------//
+    // roundTrip //
+    //-----------//
+    private RunTable roundTrip (RunTable table,
+                                boolean compress)
+            throws IOException
+    {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        RunTableCodec.encode(table, bos, compress);
+
+        return RunTableCodec.decode(new ByteArrayInputStream(bos.toByteArray()));
+    }
+}
@@ -36,6 +36,7 @@ import org.junit.Test;
 
 import java.awt.Dimension;
 import java.awt.Point;
+import java.util.Random;
 
 /**
  *
@@ -56,6 +57,48 @@ public class RunTableTest
     }
 
     //~ Methods ------------------------------------------------------------------------------------
+    /**
+     * Test of and, or, xor and minus methods, of class RunTable.
+     */
+    @Test
+    public void testBooleanOperations ()
+    {
+        System.out.println("\n+++ booleanOperations");
+
+        final Random random = new Random(7);
+
+        for (Orientation orientation : Orientation.values()) {
+            final RunTable t1 = createRandomInstance(orientation, random);
+            final RunTable t2 = createRandomInstance(orientation, random);
+            final ByteProcessor b1 = t1.getBuffer();
+            final ByteProcessor b2 = t2.getBuffer();
+            final RunTable and = t1.and(t2);
+            final RunTable or = t1.or(t2);
+            final RunTable xor = t1.xor(t2);
+            final RunTable minus = t1.minus(t2);
+
+            for (int x = 0; x < t1.getWidth(); x++) {
+                for (int y = 0; y < t1.getHeight(); y++) {
+                    final boolean f1 = b1.get(x, y) == 0;
+                    final boolean f2 = b2.get(x, y) == 0;
+                    final String loc = orientation + " x:" + x + " y:" + y;
+                    assertEquals(loc, f1 && f2, and.get(x, y) == 0);
+                    assertEquals(loc, f1 || f2, or.get(x, y) == 0);
+                    assertEquals(loc, f1 != f2, xor.get(x, y) == 0);
+                    assertEquals(loc, f1 && !f2, minus.get(x, y) == 0);
+                }
+            }
+
+            // Results must be canonical, as if built from their buffer
+            final RunTableFactory factory = new RunTableFactory(orientation);
+            assertEquals(factory.createTable(and.getBuffer()), and);
+            assertEquals(factory.createTable(or.getBuffer()), or);
+            assertEquals(factory.createTable(xor.getBuffer()), xor);
+            assertEquals(factory.createTable(minus.getBuffer()), minus);
+            assertEquals(0, t1.xor(t1).getWeight());
+        }
+    }
+
     /**
      * Test of copy method, of class RunTable.
      */
@@ -172,6 +215,18 @@ public class RunTableTest
         assertEquals(expResult, result.toString());
     }
 
+    /**
+     * Test of getColumn method, of class RunTable.
+     */
+    @Test
+    public void testGetColumn ()
+    {
+        System.out.println("\n+++ getColumn");
+
+        checkPixels(createHorizontalInstance());
+        checkPixels(createVerticalInstance());
+    }
+
     /**
      * Test of getDimension method, of class RunTable.
      */
@@ -300,6 +355,55 @@ public class RunTableTest
         assertEquals(expResult, result);
     }
 
+    /**
+     * Test of indexed lookup, on sequences with many runs.
+     */
+    @Test
+    public void testIndexedLookup ()
+    {
+        System.out.println("\n+++ indexedLookup");
+
+        final Random random = new Random(13);
+        final RunTable instance = new RunTable(VERTICAL, 30, 400);
+
+        for (int x = 0; x < instance.getWidth(); x++) {
+            int y = random.nextInt(3);
+
+            while (y < instance.getHeight()) {
+                final int length = 1 + random.nextInt(Math.min(6, instance.getHeight() - y));
+                instance.addRun(x, new Run(y, length));
+                y += (length + 1 + random.nextInt(4));
+            }
+        }
+
+        checkPixels(instance);
+
+        // Modify sequences, once their index has been built
+        for (int x = 0; x < instance.getWidth(); x++) {
+            Run run = instance.getRunAt(x, 200);
+
+            if (run != null) {
+                instance.removeRun(x, new Run(run));
+            } else {
+                int y = 200;
+
+                while (instance.get(x, y - 1) != 0) {
+                    y--;
+                }
+
+                int length = 1;
+
+                while (instance.get(x, y + length) != 0) {
+                    length++;
+                }
+
+                instance.addRun(x, new Run(y, length));
+            }
+        }
+
+        checkPixels(instance);
+    }
+
     /**
      * Test of include method, of class RunTable.
      */
@@ -482,6 +586,47 @@ public class RunTableTest
         assertEquals(5, trimmed.getHeight());
     }
 
+    //-------------//
+    // checkPixels //
+    //-------------//
+    /**
+     * Check pixel access methods against the table buffer.
+     */
+    private void checkPixels (RunTable table)
+    {
+        final ByteProcessor buffer = table.getBuffer();
+        final int width = table.getWidth();
+        final int height = table.getHeight();
+        final byte[] column = new byte[height];
+        final byte[] row = new byte[width];
+
+        for (int x = 0; x < width; x++) {
+            table.getColumn(x, column);
+
+            for (int y = 0; y < height; y++) {
+                final int pix = buffer.get(x, y);
+                assertEquals("x:" + x + " y:" + y, pix, table.get(x, y));
+                assertEquals("x:" + x + " y:" + y, pix, column[y] & 0xFF);
+
+                final Run run = table.getRunAt(x, y);
+                assertEquals(pix == 0, run != null);
+
+                if (run != null) {
+                    final int coord = (table.getOrientation() == VERTICAL) ? y : x;
+                    assertTrue((run.getStart() <= coord) && (run.getStop() >= coord));
+                }
+            }
+        }
+
+        for (int y = 0; y < height; y++) {
+            table.getRow(y, row);
+
+            for (int x = 0; x < width; x++) {
+                assertEquals("x:" + x + " y:" + y, buffer.get(x, y), row[x] & 0xFF);
+            }
+        }
+    }
+
     //--------------------------//
     // createHorizontalInstance //
     //--------------------------//
@@ -532,6 +677,29 @@ public class RunTableTest
         return instance;
     }
 
+    //----------------------//
+    // createRandomInstance //
+    //----------------------//
+    private RunTable createRandomInstance (Orientation orientation,
+                                           Random random)
+    {
+        final RunTable instance = new RunTable(orientation, 40, 30);
+
+        for (int iSeq = 0; iSeq < instance.getSize(); iSeq++) {
+            final int length = orientation.isVertical() ? instance.getHeight()
+                    : instance.getWidth();
+            int coord = random.nextInt(4);
+
+            while (coord < length) {
+                final int runLength = 1 + random.nextInt(Math.min(5, length - coord));
+                instance.addRun(iSeq, new Run(coord, runLength));
+                coord += (runLength + 1 + random.nextInt(5));
+            }
+        }
+
+        return instance;
+    }
+
     //------------------------//
     // createVerticalInstance //
     //------------------------//
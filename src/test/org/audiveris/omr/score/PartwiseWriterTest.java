@@ -0,0 +1,200 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                               P a r t w i s e W r i t e r T e s t                              //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.score;
+
+import org.audiveris.omr.score.PartwiseWriter.PartSpan;
+
+import org.audiveris.proxymusic.Attributes;
+import org.audiveris.proxymusic.ObjectFactory;
+import org.audiveris.proxymusic.PartList;
+import org.audiveris.proxymusic.PartName;
+import org.audiveris.proxymusic.ScorePart;
+import org.audiveris.proxymusic.ScorePartwise;
+import org.audiveris.proxymusic.util.Marshalling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Class {@code PartwiseWriterTest} checks that writing a score page after page gives the
+ * same output as marshalling the complete {@link ScorePartwise} tree.
+ * <p>
+ * The score has 3 pages and 3 parts: P1 is present in all pages, P2 is missing from page 2 and
+ * P3 never has any measure.
+ *
+ * @author Hervé Bitteur
+ */
+public class PartwiseWriterTest
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    /** Measure numbers, per page and per part. */
+    private static final int[][][] PAGES = new int[][][]{
+        {{1, 2}, {1, 2}, {}},
+        {{3, 4}, {}, {}},
+        {{5}, {5}, {}}
+    };
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    private final ObjectFactory factory = new ObjectFactory();
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //---------------//
+    // testFindParts //
+    //---------------//
+    @Test
+    public void testFindParts ()
+    {
+        final String xml = "<?xml version=\"1.0\"?>\n"
+                           + "<!DOCTYPE score-partwise [<!ENTITY arrow \">\">]>\n"
+                           + "<score-partwise>\n"
+                           + "  <!-- <part id=\"P9\"> -->\n"
+                           + "  <part-list><score-part id=\"P1\"/></part-list>\n"
+                           + "  <part id=\"P1\" note=\"a>b\">\n"
+                           + "    <measure number=\"1\"><part/></measure>\n"
+                           + "  </part>\n"
+                           + "  <part id='P2' />\n"
+                           + "</score-partwise>\n";
+        final List<PartSpan> spans = PartwiseWriter.findParts(
+                xml,
+                createPartwise(2).getPart());
+
+        assertEquals(2, spans.size());
+
+        final PartSpan p1 = spans.get(0);
+        assertEquals("P1", p1.id);
+        assertEquals(
+                "<measure number=\"1\"><part/></measure>",
+                xml.substring(p1.contentStart, p1.contentEnd).trim());
+        assertTrue(xml.startsWith("</part>", p1.contentEnd));
+        assertEquals(p1.contentEnd + "</part>".length(), p1.end);
+
+        final PartSpan p2 = spans.get(1);
+        assertEquals("P2", p2.id);
+        assertEquals("<part id='P2' />", xml.substring(p2.start, p2.end));
+        assertEquals(p2.end, p2.contentStart);
+        assertEquals(p2.end, p2.contentEnd);
+    }
+
+    //------------------//
+    // testPartMismatch //
+    //------------------//
+    @Test(expected = IllegalStateException.class)
+    public void testPartMismatch ()
+    {
+        final String xml = "<score-partwise><part id=\"P2\"/><part id=\"P1\"/></score-partwise>";
+        PartwiseWriter.findParts(xml, createPartwise(2).getPart());
+    }
+
+    //-----------//
+    // testWrite //
+    //-----------//
+    @Test
+    public void testWrite ()
+            throws Exception
+    {
+        // Reference: the complete tree
+        final ScorePartwise full = createPartwise(3);
+
+        for (int[][] page : PAGES) {
+            addMeasures(full, page);
+        }
+
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        Marshalling.marshal(full, expected, false, 2);
+
+        // Page after page, on the same tree as PartwiseBuilder does
+        final PartwiseWriter writer = new PartwiseWriter(new Score());
+        final ScorePartwise building = createPartwise(3);
+
+        for (int[][] page : PAGES) {
+            addMeasures(building, page);
+            writer.pageBuilt(building);
+
+            for (ScorePartwise.Part pmPart : building.getPart()) {
+                pmPart.getMeasure().clear();
+            }
+        }
+
+        final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        writer.write(building, actual, false);
+
+        assertEquals(
+                new String(expected.toByteArray(), StandardCharsets.UTF_8),
+                new String(actual.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    //-------------//
+    // addMeasures //
+    //-------------//
+    private void addMeasures (ScorePartwise scorePartwise,
+                              int[][] page)
+    {
+        for (int ip = 0; ip < page.length; ip++) {
+            final ScorePartwise.Part pmPart = scorePartwise.getPart().get(ip);
+
+            for (int number : page[ip]) {
+                final ScorePartwise.Part.Measure pmMeasure = factory
+                        .createScorePartwisePartMeasure();
+                pmMeasure.setNumber(Integer.toString(number));
+                pmMeasure.setWidth(new BigDecimal(100 + number));
+
+                final Attributes attributes = factory.createAttributes();
+                attributes.setDivisions(new BigDecimal(ip + 1));
+                pmMeasure.getNoteOrBackupOrForward().add(attributes);
+                pmPart.getMeasure().add(pmMeasure);
+            }
+        }
+    }
+
+    //----------------//
+    // createPartwise //
+    //----------------//
+    private ScorePartwise createPartwise (int partCount)
+    {
+        final ScorePartwise scorePartwise = factory.createScorePartwise();
+        final PartList partList = factory.createPartList();
+        scorePartwise.setPartList(partList);
+
+        for (int ip = 1; ip <= partCount; ip++) {
+            final ScorePart scorePart = factory.createScorePart();
+            scorePart.setId("P" + ip);
+
+            final PartName partName = factory.createPartName();
+            partName.setValue("Part " + ip);
+            scorePart.setPartName(partName);
+            partList.getPartGroupOrScorePart().add(scorePart);
+
+            final ScorePartwise.Part pmPart = factory.createScorePartwisePart();
+            pmPart.setId(scorePart);
+            scorePartwise.getPart().add(pmPart);
+        }
+
+        return scorePartwise;
+    }
+}
@@ -0,0 +1,309 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                 B o o k P i p e l i n e T e s t                                //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sheet;
+
+import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.step.Step;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class {@code BookPipelineTest} checks the admission, failure and cancellation policies
+ * of {@link BookPipeline}, using fake sheet stubs.
+ *
+ * @author Hervé Bitteur
+ */
+public class BookPipelineTest
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final int SHEET_COUNT = 8;
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Current number of resident sheets. */
+    private final AtomicInteger resident = new AtomicInteger();
+
+    /** Maximum number of resident sheets ever observed. */
+    private final AtomicInteger maxResident = new AtomicInteger();
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Test
+    public void testCancellation ()
+            throws Exception
+    {
+        final List<FakeStub> fakes = createFakes();
+        fakes.get(2).cancelAt = Step.BINARY;
+
+        try {
+            new BookPipeline(stubsOf(fakes), Step.GRID, false, 2, 1.0).process();
+            fail("Cancellation not propagated");
+        } catch (ProcessingCancellationException expected) {
+        }
+
+        // Sheets admitted before cancellation are all swapped, later ones are not even loaded
+        for (FakeStub fake : fakes.subList(0, 3)) {
+            assertTrue(fake + " not swapped", fake.swapped);
+        }
+
+        for (FakeStub fake : fakes.subList(3, fakes.size())) {
+            assertEquals(fake + " loaded", 0, fake.reached.size());
+        }
+
+        assertEquals(0, resident.get());
+    }
+
+    @Test
+    public void testFailure ()
+            throws Exception
+    {
+        final List<FakeStub> fakes = createFakes();
+        fakes.get(1).failAt = Step.GRID;
+        fakes.get(4).failAt = Step.BINARY;
+
+        assertFalse(new BookPipeline(stubsOf(fakes), Step.GRID, false, 2, 1.0).process());
+
+        // A failing sheet does not prevent the other sheets from being processed
+        for (FakeStub fake : fakes) {
+            assertTrue(fake + " not swapped", fake.swapped);
+
+            if (fake.failAt == null) {
+                assertTrue(fake + " not processed", fake.reached.contains(Step.GRID));
+            }
+        }
+
+        // Sheet failing in front stage does not go through middle stage
+        assertFalse(fakes.get(4).reached.contains(Step.GRID));
+        assertEquals(0, resident.get());
+    }
+
+    @Test
+    public void testHeapBackPressure ()
+            throws Exception
+    {
+        final List<FakeStub> fakes = createFakes();
+
+        // No heap ratio is acceptable, hence only the lonely sheet rule admits a sheet
+        assertTrue(new BookPipeline(stubsOf(fakes), Step.GRID, false, 4, 0.0).process());
+
+        assertEquals(1, maxResident.get());
+        checkAllProcessed(fakes);
+    }
+
+    @Test
+    public void testResidentLimit ()
+            throws Exception
+    {
+        final List<FakeStub> fakes = createFakes();
+
+        assertTrue(new BookPipeline(stubsOf(fakes), Step.GRID, false, 2, 1.0).process());
+
+        assertTrue("max resident " + maxResident.get(), maxResident.get() <= 2);
+        checkAllProcessed(fakes);
+    }
+
+    private void checkAllProcessed (List<FakeStub> fakes)
+    {
+        for (FakeStub fake : fakes) {
+            assertEquals(fake + " steps", 2, fake.reached.size());
+            assertEquals(Step.BINARY, fake.reached.get(0));
+            assertEquals(Step.GRID, fake.reached.get(1));
+            assertTrue(fake + " not swapped", fake.swapped);
+
+            // Book info is left to the caller, once pipeline has drained
+            assertFalse(fake + " stored book info", fake.bookInfoStored);
+        }
+
+        assertEquals(0, resident.get());
+    }
+
+    private List<FakeStub> createFakes ()
+    {
+        final List<FakeStub> fakes = new ArrayList<FakeStub>();
+
+        for (int i = 1; i <= SHEET_COUNT; i++) {
+            fakes.add(new FakeStub(i));
+        }
+
+        return fakes;
+    }
+
+    private List<SheetStub> stubsOf (List<FakeStub> fakes)
+    {
+        final Book book = (Book) Proxy.newProxyInstance(
+                Book.class.getClassLoader(),
+                new Class<?>[]{Book.class},
+                new InvocationHandler()
+        {
+            @Override
+            public Object invoke (Object proxy,
+                                  Method method,
+                                  Object[] args)
+            {
+                switch (method.getName()) {
+                case "getRadix":
+                case "toString":
+                    return "fake-book";
+
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+
+                case "equals":
+                    return proxy == args[0];
+
+                default:
+                    return null;
+                }
+            }
+        });
+
+        final List<SheetStub> stubs = new ArrayList<SheetStub>();
+
+        for (FakeStub fake : fakes) {
+            fake.book = book;
+            stubs.add(
+                    (SheetStub) Proxy.newProxyInstance(
+                            SheetStub.class.getClassLoader(),
+                            new Class<?>[]{SheetStub.class},
+                            fake));
+        }
+
+        return stubs;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //----------//
+    // FakeStub //
+    //----------//
+    /**
+     * Handler for a fake stub, which records the steps reached and the resident sheets.
+     */
+    private class FakeStub
+            implements InvocationHandler
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        final int number;
+
+        final List<Step> reached = new ArrayList<Step>();
+
+        Book book;
+
+        Step failAt;
+
+        Step cancelAt;
+
+        volatile boolean swapped;
+
+        volatile boolean bookInfoStored;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        FakeStub (int number)
+        {
+            this.number = number;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Override
+        public Object invoke (Object proxy,
+                              Method method,
+                              Object[] args)
+                throws Exception
+        {
+            switch (method.getName()) {
+            case "getBook":
+                return book;
+
+            case "getNum":
+            case "toString":
+                return toString();
+
+            case "hashCode":
+                return number;
+
+            case "equals":
+                return proxy == args[0];
+
+            case "isDone":
+                return reached.contains((Step) args[0]);
+
+            case "reachStep":
+                return reachStep((Step) args[0]);
+
+            case "swapSheet":
+                swapped = true;
+                bookInfoStored = (args == null) || (Boolean) args[0];
+                resident.decrementAndGet();
+
+                return null;
+
+            default:
+                return null;
+            }
+        }
+
+        @Override
+        public String toString ()
+        {
+            return "#" + number;
+        }
+
+        private synchronized boolean reachStep (Step step)
+                throws InterruptedException
+        {
+            if (reached.isEmpty()) {
+                final int count = resident.incrementAndGet();
+
+                synchronized (maxResident) {
+                    if (count > maxResident.get()) {
+                        maxResident.set(count);
+                    }
+                }
+            }
+
+            reached.add(step);
+
+            if (step == cancelAt) {
+                throw new ProcessingCancellationException();
+            }
+
+            if (step == failAt) {
+                throw new IllegalStateException("Failure on " + this);
+            }
+
+            // Let some sheets overlap
+            Thread.sleep(20);
+
+            return true;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                               E x c l u s i o n Q u e u e T e s t                              //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sig;
+
+import org.audiveris.omr.sig.relation.BasicExclusion;
+import org.audiveris.omr.sig.relation.Exclusion.Cause;
+import org.audiveris.omr.sig.relation.Relation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Class {@code ExclusionQueueTest} checks the queue order against a plain browsing.
+ *
+ * @author Hervé Bitteur
+ */
+public class ExclusionQueueTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+    @Test
+    public void testEqualKeys ()
+    {
+        final ExclusionQueue queue = new ExclusionQueue(1);
+        final List<Relation> rels = new ArrayList<Relation>();
+
+        for (int i = 0; i < 10; i++) {
+            final Relation rel = new BasicExclusion(Cause.OVERLAP);
+            rels.add(rel);
+            queue.add(rel, 0.5);
+        }
+
+        // Raising then restoring a key keeps the insertion rank
+        assertTrue(queue.update(rels.get(7), 0.9));
+        assertSame(rels.get(7), queue.peek());
+        assertTrue(queue.update(rels.get(7), 0.5));
+        assertFalse(queue.update(rels.get(7), 0.5));
+        assertEquals(2, queue.getUpdateCount());
+
+        assertTrue(queue.remove(rels.get(3)));
+        assertFalse(queue.remove(rels.get(3)));
+
+        for (int i = 0; i < 10; i++) {
+            if (i != 3) {
+                assertSame(rels.get(i), queue.poll());
+            }
+        }
+
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testRandomUpdates ()
+    {
+        final Random random = new Random(456);
+        final ExclusionQueue queue = new ExclusionQueue(8);
+        final List<Relation> rels = new ArrayList<Relation>();
+        final Map<Relation, Double> keys = new HashMap<Relation, Double>();
+
+        for (int i = 0; i < 300; i++) {
+            final Relation rel = new BasicExclusion(Cause.OVERLAP);
+            final double key = random.nextInt(20) / 20.0;
+            rels.add(rel);
+            keys.put(rel, key);
+            queue.add(rel, key);
+        }
+
+        while (!rels.isEmpty()) {
+            // Modify some keys
+            for (int n = 0; n < 5; n++) {
+                final Relation rel = rels.get(random.nextInt(rels.size()));
+                final double key = random.nextInt(20) / 20.0;
+                keys.put(rel, key);
+                queue.update(rel, key);
+            }
+
+            // Reference: first relation with highest key
+            Relation best = null;
+
+            for (Relation rel : rels) {
+                if ((best == null) || (keys.get(rel) > keys.get(best))) {
+                    best = rel;
+                }
+            }
+
+            assertEquals(keys.get(best), queue.peekKey(), 0);
+            assertSame(best, queue.poll());
+            rels.remove(best);
+            assertEquals(rels.size(), queue.size());
+        }
+    }
+}
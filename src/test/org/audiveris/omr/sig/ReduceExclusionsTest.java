@@ -0,0 +1,274 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                             R e d u c e E x c l u s i o n s T e s t                            //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sig;
+
+import org.audiveris.omr.glyph.Glyph;
+import org.audiveris.omr.glyph.Shape;
+import org.audiveris.omr.sig.inter.AbstractInter;
+import org.audiveris.omr.sig.inter.Inter;
+import org.audiveris.omr.sig.relation.AbstractSupport;
+import org.audiveris.omr.sig.relation.BasicExclusion;
+import org.audiveris.omr.sig.relation.Exclusion.Cause;
+import org.audiveris.omr.sig.relation.Relation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import org.junit.Test;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Class {@code ReduceExclusionsTest} checks {@link SIGraph#reduceExclusions} against the
+ * former algorithm, which rescanned all exclusions at each iteration.
+ *
+ * @author Hervé Bitteur
+ */
+public class ReduceExclusionsTest
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final int INTER_COUNT = 40;
+
+    private static final int SUPPORT_COUNT = 50;
+
+    private static final int EXCLUSION_COUNT = 70;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Test
+    public void testSameReduction ()
+    {
+        for (long seed = 1; seed <= 30; seed++) {
+            final List<Inter> actualInters = new ArrayList<Inter>();
+            final SIGraph actualSig = buildSig(seed, actualInters);
+            final List<Relation> actualExclusions = new ArrayList<Relation>(
+                    actualSig.exclusions());
+            final Set<Inter> actualRemoved = actualSig.reduceExclusions(actualExclusions);
+
+            final List<Inter> expectedInters = new ArrayList<Inter>();
+            final SIGraph expectedSig = buildSig(seed, expectedInters);
+            final List<Relation> expectedExclusions = new ArrayList<Relation>(
+                    expectedSig.exclusions());
+            final Set<Inter> expectedRemoved = formerReduce(expectedSig, expectedExclusions);
+
+            assertFalse("seed " + seed, expectedRemoved.isEmpty());
+
+            // Same removal order
+            assertEquals(
+                    "seed " + seed,
+                    indicesOf(expectedRemoved, expectedInters),
+                    indicesOf(actualRemoved, actualInters));
+
+            // Same survivors, with same contextual grades
+            assertEquals(
+                    "seed " + seed,
+                    indicesOf(expectedSig.vertexSet(), expectedInters),
+                    indicesOf(actualSig.vertexSet(), actualInters));
+
+            for (int i = 0; i < INTER_COUNT; i++) {
+                assertEquals(
+                        "seed " + seed,
+                        expectedInters.get(i).getBestGrade(),
+                        actualInters.get(i).getBestGrade(),
+                        0);
+            }
+
+            // Same remaining exclusions
+            assertEquals(
+                    "seed " + seed,
+                    expectedExclusions.size(),
+                    actualExclusions.size());
+        }
+    }
+
+    //----------//
+    // buildSig //
+    //----------//
+    /**
+     * Build a random sig, with some equal grades to exercise ties.
+     */
+    private SIGraph buildSig (long seed,
+                              List<Inter> inters)
+    {
+        final Random random = new Random(seed);
+        final SIGraph sig = new SIGraph();
+
+        for (int i = 0; i < INTER_COUNT; i++) {
+            final Inter inter = new TestInter((1 + random.nextInt(18)) / 20.0);
+            inters.add(inter);
+            sig.addVertex(inter);
+        }
+
+        for (int i = 0; i < SUPPORT_COUNT; i++) {
+            final int s = random.nextInt(INTER_COUNT);
+            final int t = random.nextInt(INTER_COUNT);
+
+            if (s != t) {
+                sig.addEdge(
+                        inters.get(s),
+                        inters.get(t),
+                        new TestSupport(random.nextInt(10) / 10.0));
+            }
+        }
+
+        for (int i = 0; i < EXCLUSION_COUNT; i++) {
+            final int s = random.nextInt(INTER_COUNT);
+            final int t = random.nextInt(INTER_COUNT);
+
+            if (s != t) {
+                sig.addEdge(inters.get(s), inters.get(t), new BasicExclusion(Cause.OVERLAP));
+            }
+        }
+
+        for (Inter inter : inters) {
+            sig.computeContextualGrade(inter);
+        }
+
+        return sig;
+    }
+
+    //--------------//
+    // formerReduce //
+    //--------------//
+    /**
+     * Former implementation of reduceExclusions, browsing all exclusions at each iteration.
+     */
+    private Set<Inter> formerReduce (SIGraph sig,
+                                     Collection<? extends Relation> exclusions)
+    {
+        final Set<Inter> removed = new LinkedHashSet<Inter>();
+        Relation bestRel;
+
+        do {
+            double bestCP = 0;
+            bestRel = null;
+
+            for (Iterator<? extends Relation> it = exclusions.iterator(); it.hasNext();) {
+                Relation rel = it.next();
+
+                if (sig.containsEdge(rel)) {
+                    final double cp = Math.max(
+                            sig.getEdgeSource(rel).getBestGrade(),
+                            sig.getEdgeTarget(rel).getBestGrade());
+
+                    if (bestCP < cp) {
+                        bestCP = cp;
+                        bestRel = rel;
+                    }
+                } else {
+                    it.remove();
+                }
+            }
+
+            if (bestRel != null) {
+                final Inter source = sig.getEdgeSource(bestRel);
+                final double scp = source.getBestGrade();
+                final Inter target = sig.getEdgeTarget(bestRel);
+                final double tcp = target.getBestGrade();
+                final Inter weaker = (scp < tcp) ? source : target;
+
+                final Set<Inter> involved = new LinkedHashSet<Inter>();
+
+                for (Relation rel : sig.getSupports(weaker)) {
+                    involved.add(sig.getEdgeSource(rel));
+                    involved.add(sig.getEdgeTarget(rel));
+                }
+
+                involved.remove(weaker);
+
+                removed.add(weaker);
+                weaker.delete();
+
+                for (Inter inter : involved) {
+                    sig.computeContextualGrade(inter);
+                }
+
+                exclusions.remove(bestRel);
+            }
+        } while (bestRel != null);
+
+        return removed;
+    }
+
+    //-----------//
+    // indicesOf //
+    //-----------//
+    private List<Integer> indicesOf (Collection<Inter> collection,
+                                     List<Inter> inters)
+    {
+        final List<Integer> indices = new ArrayList<Integer>();
+
+        for (Inter inter : collection) {
+            indices.add(inters.indexOf(inter));
+        }
+
+        return indices;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // TestInter //
+    //-----------//
+    private static class TestInter
+            extends AbstractInter
+    {
+        //~ Constructors ---------------------------------------------------------------------------
+
+        public TestInter (double grade)
+        {
+            super((Glyph) null, (Rectangle) null, Shape.NOTEHEAD_BLACK, grade);
+        }
+    }
+
+    //-------------//
+    // TestSupport //
+    //-------------//
+    private static class TestSupport
+            extends AbstractSupport
+    {
+        //~ Constructors ---------------------------------------------------------------------------
+
+        public TestSupport (double grade)
+        {
+            super(grade);
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Override
+        protected double getSourceCoeff ()
+        {
+            return 0.5;
+        }
+
+        @Override
+        protected double getTargetCoeff ()
+        {
+            return 1.0;
+        }
+    }
+}
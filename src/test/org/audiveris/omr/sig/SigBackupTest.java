@@ -0,0 +1,273 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                    S i g B a c k u p T e s t                                   //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sig;
+
+import org.audiveris.omr.glyph.Glyph;
+import org.audiveris.omr.glyph.Shape;
+import org.audiveris.omr.sig.inter.AbstractInter;
+import org.audiveris.omr.sig.inter.Inter;
+import org.audiveris.omr.sig.relation.AbstractSupport;
+import org.audiveris.omr.sig.relation.Relation;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Class {@code SigBackupTest} checks that installing successive configurations via
+ * {@link SigBackup#install} leaves the sig in the same state as the former approach, which
+ * deleted all seeds and restored each configuration from the attic.
+ *
+ * @author Hervé Bitteur
+ */
+public class SigBackupTest
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final int SEED_COUNT = 12;
+
+    private static final int OTHER_COUNT = 12;
+
+    private static final int SUPPORT_COUNT = 60;
+
+    private static final int CONFIG_COUNT = 8;
+
+    /** Relations created by each configuration trial. */
+    private static final int TRIAL_SUPPORT_COUNT = 6;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Test
+    public void testSameSigAsDeleteAndRestore ()
+    {
+        for (long seed = 1; seed <= 20; seed++) {
+            final List<Inter> actualInters = new ArrayList<Inter>();
+            final SIGraph actualSig = buildSig(seed, actualInters);
+            final SigBackup actualBackup = new SigBackup(actualSig);
+            actualBackup.save(actualInters.subList(0, SEED_COUNT));
+
+            final List<Inter> expectedInters = new ArrayList<Inter>();
+            final SIGraph expectedSig = buildSig(seed, expectedInters);
+            final SigBackup expectedBackup = new SigBackup(expectedSig);
+            expectedBackup.save(expectedInters.subList(0, SEED_COUNT));
+
+            final Random random = new Random(-seed);
+
+            for (int c = 0; c < CONFIG_COUNT; c++) {
+                final String msg = "seed " + seed + " config " + c;
+
+                // Random configuration, the first one containing all seeds
+                final List<Integer> config = new ArrayList<Integer>();
+
+                for (int i = 0; i < SEED_COUNT; i++) {
+                    if ((c == 0) || random.nextBoolean()) {
+                        config.add(i);
+                    }
+                }
+
+                actualBackup.install(select(config, actualInters));
+                formerInstall(expectedBackup, select(config, expectedInters));
+
+                assertEquals(
+                        msg,
+                        describe(expectedSig, expectedInters),
+                        describe(actualSig, actualInters));
+
+                for (int i = 0; i < actualInters.size(); i++) {
+                    assertEquals(
+                            msg + " inter " + i,
+                            expectedInters.get(i).isDeleted(),
+                            actualInters.get(i).isDeleted());
+                }
+
+                // Relations created while the configuration is being checked
+                final long trialSeed = random.nextLong();
+                addTrialSupports(trialSeed, config, actualSig, actualInters);
+                addTrialSupports(trialSeed, config, expectedSig, expectedInters);
+            }
+        }
+    }
+
+    //------------------//
+    // addTrialSupports //
+    //------------------//
+    /**
+     * Link configuration seeds to other present inters, as a trial would do.
+     */
+    private void addTrialSupports (long trialSeed,
+                                   List<Integer> config,
+                                   SIGraph sig,
+                                   List<Inter> inters)
+    {
+        if (config.isEmpty()) {
+            return;
+        }
+
+        final Random random = new Random(trialSeed);
+
+        for (int i = 0; i < TRIAL_SUPPORT_COUNT; i++) {
+            final Inter source = inters.get(config.get(random.nextInt(config.size())));
+            final Inter target = inters.get(random.nextInt(inters.size()));
+
+            if ((source != target) && sig.containsVertex(target)) {
+                sig.addEdge(source, target, new TestSupport((100 + i) / 100.0));
+            }
+        }
+    }
+
+    //----------//
+    // buildSig //
+    //----------//
+    /**
+     * Build a random sig, whose first inters are the seeds.
+     */
+    private SIGraph buildSig (long seed,
+                              List<Inter> inters)
+    {
+        final Random random = new Random(seed);
+        final SIGraph sig = new SIGraph();
+
+        for (int i = 0; i < (SEED_COUNT + OTHER_COUNT); i++) {
+            final Inter inter = new TestInter(0.5);
+            inters.add(inter);
+            sig.addVertex(inter);
+        }
+
+        for (int i = 0; i < SUPPORT_COUNT; i++) {
+            final int s = random.nextInt(inters.size());
+            final int t = random.nextInt(inters.size());
+
+            if (s != t) {
+                sig.addEdge(inters.get(s), inters.get(t), new TestSupport(i / 100.0));
+            }
+        }
+
+        return sig;
+    }
+
+    //----------//
+    // describe //
+    //----------//
+    /**
+     * Describe the sig content, regardless of vertex and edge order.
+     */
+    private List<String> describe (SIGraph sig,
+                                   List<Inter> inters)
+    {
+        final List<String> lines = new ArrayList<String>();
+
+        for (Inter inter : sig.vertexSet()) {
+            lines.add("inter " + inters.indexOf(inter));
+        }
+
+        for (Relation rel : sig.edgeSet()) {
+            lines.add(
+                    "rel " + inters.indexOf(sig.getEdgeSource(rel)) + "->"
+                    + inters.indexOf(sig.getEdgeTarget(rel)) + " "
+                    + ((TestSupport) rel).getGrade());
+        }
+
+        Collections.sort(lines);
+
+        return lines;
+    }
+
+    //---------------//
+    // formerInstall //
+    //---------------//
+    /**
+     * Former installation: delete all seeds, then restore the configuration from attic.
+     */
+    private void formerInstall (SigBackup backup,
+                                Collection<Inter> config)
+    {
+        for (Inter inter : backup.getSeeds()) {
+            inter.delete();
+        }
+
+        backup.restore(config);
+    }
+
+    //--------//
+    // select //
+    //--------//
+    private Set<Inter> select (List<Integer> indices,
+                               List<Inter> inters)
+    {
+        final Set<Inter> selection = new LinkedHashSet<Inter>();
+
+        for (int index : indices) {
+            selection.add(inters.get(index));
+        }
+
+        return selection;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // TestInter //
+    //-----------//
+    private static class TestInter
+            extends AbstractInter
+    {
+        //~ Constructors ---------------------------------------------------------------------------
+
+        public TestInter (double grade)
+        {
+            super((Glyph) null, (Rectangle) null, Shape.NOTEHEAD_BLACK, grade);
+        }
+    }
+
+    //-------------//
+    // TestSupport //
+    //-------------//
+    private static class TestSupport
+            extends AbstractSupport
+    {
+        //~ Constructors ---------------------------------------------------------------------------
+
+        public TestSupport (double grade)
+        {
+            super(grade);
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Override
+        protected double getSourceCoeff ()
+        {
+            return 0.5;
+        }
+
+        @Override
+        protected double getTargetCoeff ()
+        {
+            return 1.0;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                  S t e p M e t r i c s T e s t                                 //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.step;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+/**
+ * Class {@code StepMetricsTest} checks metrics recording and CSV output.
+ *
+ * @author Hervé Bitteur
+ */
+public class StepMetricsTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+    @Test
+    public void testProbe ()
+    {
+        final StepMetrics.Probe probe = new StepMetrics.Probe();
+        long sum = 0;
+
+        for (int i = 0; i < 100000; i++) {
+            sum += new int[4].length;
+        }
+
+        final StepMetrics.Record record = probe.stop(1, Step.GRID, 2, 10, 20);
+        assertEquals(400000, sum);
+        assertTrue(record.wallMs >= 0);
+        assertTrue(record.cpuNanos >= -1);
+        assertTrue(record.allocBytes >= -1);
+        assertEquals(2, record.systemId);
+    }
+
+    @Test
+    public void testWrite ()
+    {
+        final StepMetrics metrics = new StepMetrics("book");
+        metrics.add(new StepMetrics.Record(2, Step.BINARY, 0, 30, 20000000, 1024, 0, 0));
+        metrics.add(new StepMetrics.Record(1, Step.GRID, 1, 5, -1, -1, 12, 3));
+        metrics.add(new StepMetrics.Record(1, Step.GRID, 0, 7, 6000000, 2048, 15, 4));
+
+        final StringWriter writer = new StringWriter();
+        metrics.write(writer);
+
+        final String[] lines = writer.toString().split("\\r?\\n");
+        assertEquals(4, lines.length);
+        assertEquals(StepMetrics.HEADER, lines[0]);
+        assertEquals("book,1,GRID,1,5,,,12,3,0,0,0", lines[1]);
+        assertEquals("book,1,GRID,,7,6,2048,15,4,0,0,0", lines[2]);
+        assertEquals("book,2,BINARY,,30,20,1024,0,0,0,0,0", lines[3]);
+    }
+
+    @Test
+    public void testWriteCounts ()
+    {
+        final StepMetrics metrics = new StepMetrics("book");
+        final StepMetrics.Record record = new StepMetrics.Record(
+                1,
+                Step.REDUCTION,
+                2,
+                5,
+                -1,
+                -1,
+                0,
+                0);
+        record.counts[StepMetrics.Counter.REDUCTIONS.ordinal()] = 17;
+        record.counts[StepMetrics.Counter.REDUCTION_UPDATES.ordinal()] = 40;
+        record.counts[StepMetrics.Counter.RHYTHM_TRIALS.ordinal()] = 3;
+        metrics.add(record);
+
+        final StringWriter writer = new StringWriter();
+        metrics.write(writer);
+
+        final String[] lines = writer.toString().split("\\r?\\n");
+        assertEquals(2, lines.length);
+        assertEquals("book,1,REDUCTION,2,5,,,0,0,17,40,3", lines[1]);
+    }
+}
@@ -0,0 +1,87 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                     F i l e U t i l T e s t                                    //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.util;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Class {@code FileUtilTest} checks the copy of a file tree into a zip file system.
+ *
+ * @author Hervé Bitteur
+ */
+public class FileUtilTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+    @Test
+    public void testCopyTreeIntoZip ()
+            throws Exception
+    {
+        final Path source = Files.createTempDirectory("copy-source");
+        final Path zipPath = Files.createTempFile("copy-target", ".zip");
+
+        try {
+            Files.createDirectories(source.resolve("sub"));
+            write(source.resolve("a.xml"), "new a");
+            write(source.resolve("sub").resolve("b.bin"), "new b");
+
+            // Zip file with an older version of a.xml and an unrelated c.xml
+            Path root = ZipFileSystem.create(zipPath);
+            final Path folder = root.resolve("sheet#1");
+            Files.createDirectories(folder);
+            write(folder.resolve("a.xml"), "old a");
+            write(folder.resolve("c.xml"), "old c");
+            root.getFileSystem().close();
+
+            root = ZipFileSystem.open(zipPath);
+            FileUtil.copyTree(source, root.resolve("sheet#1"), StandardCopyOption.REPLACE_EXISTING);
+            root.getFileSystem().close();
+
+            root = ZipFileSystem.open(zipPath);
+            assertEquals("new a", read(root.resolve("sheet#1/a.xml")));
+            assertEquals("new b", read(root.resolve("sheet#1/sub/b.bin")));
+            assertEquals("old c", read(root.resolve("sheet#1/c.xml")));
+            root.getFileSystem().close();
+        } finally {
+            FileUtil.deleteDirectory(source);
+            Files.deleteIfExists(zipPath);
+        }
+    }
+
+    private static String read (Path path)
+            throws Exception
+    {
+        return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+    }
+
+    private static void write (Path path,
+                               String content)
+            throws Exception
+    {
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,103 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                 J a x b R e g i s t r y T e s t                                //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.util;
+
+import org.audiveris.omr.run.Orientation;
+import org.audiveris.omr.run.RunTable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+
+/**
+ * Class {@code JaxbRegistryTest} checks sharing of JAXB contexts and per-thread marshallers.
+ *
+ * @author Hervé Bitteur
+ */
+public class JaxbRegistryTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+    @Test
+    public void testContexts ()
+            throws Exception
+    {
+        final JAXBContext context = JaxbRegistry.getContext(RunTable.class);
+        assertSame(context, JaxbRegistry.getContext(RunTable.class));
+        assertNotSame(context, JaxbRegistry.getContext(RunTable.class, Orientation.class));
+    }
+
+    @Test
+    public void testMarshallers ()
+            throws Exception
+    {
+        final JAXBContext context = JaxbRegistry.getContext(RunTable.class);
+        final Marshaller m = JaxbRegistry.getMarshaller(context);
+        assertSame(m, JaxbRegistry.getMarshaller(context));
+
+        final AtomicReference<Marshaller> other = new AtomicReference<Marshaller>();
+        final Thread thread = new Thread()
+        {
+            @Override
+            public void run ()
+            {
+                try {
+                    other.set(JaxbRegistry.getMarshaller(context));
+                } catch (Exception ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
+        };
+
+        thread.start();
+        thread.join();
+        assertNotSame(m, other.get());
+
+        // Round trip
+        final RunTable table = new RunTable(Orientation.HORIZONTAL, 10, 3);
+        final StringWriter writer = new StringWriter();
+        m.marshal(table, writer);
+
+        final Unmarshaller um = JaxbRegistry.getUnmarshaller(context);
+        assertSame(um, JaxbRegistry.getUnmarshaller(context));
+
+        final RunTable copy = (RunTable) um.unmarshal(new StringReader(writer.toString()));
+        assertEquals(table.getWidth(), copy.getWidth());
+        assertEquals(table.getHeight(), copy.getHeight());
+    }
+
+    @Test
+    public void testUnmanagedContext ()
+            throws Exception
+    {
+        final JAXBContext context = JAXBContext.newInstance(RunTable.class);
+        assertNotSame(JaxbRegistry.getMarshaller(context), JaxbRegistry.getMarshaller(context));
+    }
+}
@@ -0,0 +1,104 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                               O m r E x e c u t o r s T e s t                                  //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.util;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Class {@code OmrExecutorsTest} checks range processing on fork/join pool.
+ *
+ * @author Hervé Bitteur
+ */
+public class OmrExecutorsTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+    @Test
+    public void testForEachRange ()
+    {
+        final AtomicIntegerArray hits = new AtomicIntegerArray(1000);
+
+        OmrExecutors.forEachRange(
+                0,
+                hits.length(),
+                7,
+                new OmrExecutors.RangeProcessor()
+        {
+            @Override
+            public void processRange (int from,
+                                      int to)
+            {
+                for (int i = from; i < to; i++) {
+                    hits.incrementAndGet(i);
+                }
+            }
+        });
+
+        for (int i = 0; i < hits.length(); i++) {
+            assertEquals("index " + i, 1, hits.get(i));
+        }
+    }
+
+    @Test
+    public void testNestedRanges ()
+    {
+        final int rows = 50;
+        final int cols = 40;
+        final AtomicIntegerArray hits = new AtomicIntegerArray(rows * cols);
+
+        OmrExecutors.forEachRange(
+                0,
+                rows,
+                new OmrExecutors.RangeProcessor()
+        {
+            @Override
+            public void processRange (int from,
+                                      int to)
+            {
+                for (int r = from; r < to; r++) {
+                    final int row = r;
+                    OmrExecutors.forEachRange(
+                            0,
+                            cols,
+                            1,
+                            new OmrExecutors.RangeProcessor()
+                    {
+                        @Override
+                        public void processRange (int from,
+                                                  int to)
+                        {
+                            for (int c = from; c < to; c++) {
+                                hits.incrementAndGet((row * cols) + c);
+                            }
+                        }
+                    });
+                }
+            }
+        });
+
+        for (int i = 0; i < hits.length(); i++) {
+            assertEquals("index " + i, 1, hits.get(i));
+        }
+    }
+}
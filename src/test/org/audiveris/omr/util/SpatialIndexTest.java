@@ -0,0 +1,135 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                S p a t i a l I n d e x T e s t                                 //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Class {@code SpatialIndexTest} checks grid lookups against a plain browsing.
+ *
+ * @author Hervé Bitteur
+ */
+public class SpatialIndexTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+    @Test
+    public void testHugeRectangle ()
+    {
+        SpatialIndex<String> index = new SpatialIndex<String>(10);
+        index.insert("a", new Rectangle(5, 5, 3, 3));
+        index.insert("b", new Rectangle(-500, 300, 20, 1));
+
+        List<String> found = index.intersected(
+                new Rectangle(-100000, -100000, Integer.MAX_VALUE, Integer.MAX_VALUE));
+        assertEquals(Arrays.asList("a", "b"), found);
+    }
+
+    @Test
+    public void testInsertionOrder ()
+    {
+        SpatialIndex<String> index = new SpatialIndex<String>(4);
+        index.insert("c", new Rectangle(20, 0, 2, 2));
+        index.insert("a", new Rectangle(0, 0, 30, 2));
+        index.insert("b", new Rectangle(10, 0, 2, 2));
+
+        // Relocation keeps insertion rank
+        index.insert("c", new Rectangle(12, 1, 2, 2));
+
+        assertEquals(Arrays.asList("c", "a", "b"), index.intersected(new Rectangle(0, 0, 40, 4)));
+        assertEquals(Arrays.asList("a"), index.intersected(new Point(25, 1)));
+    }
+
+    @Test
+    public void testRandomLookups ()
+    {
+        final Random random = new Random(123);
+        final SpatialIndex<Integer> index = new SpatialIndex<Integer>(16);
+        final List<Rectangle> boxes = new ArrayList<Rectangle>();
+
+        for (int i = 0; i < 500; i++) {
+            Rectangle box = new Rectangle(
+                    random.nextInt(1000) - 100,
+                    random.nextInt(1000) - 100,
+                    random.nextInt(60),
+                    random.nextInt(60));
+            boxes.add(box);
+            index.insert(i, box);
+        }
+
+        // Remove every third item
+        for (int i = 0; i < boxes.size(); i += 3) {
+            assertTrue(index.remove(i));
+        }
+
+        assertFalse(index.remove(0));
+        assertEquals(boxes.size() - ((boxes.size() + 2) / 3), index.size());
+
+        for (int n = 0; n < 200; n++) {
+            Rectangle rect = new Rectangle(
+                    random.nextInt(1200) - 200,
+                    random.nextInt(1200) - 200,
+                    1 + random.nextInt(150),
+                    1 + random.nextInt(150));
+            List<Integer> expected = new ArrayList<Integer>();
+
+            for (int i = 0; i < boxes.size(); i++) {
+                if (((i % 3) != 0) && intersects(boxes.get(i), rect)) {
+                    expected.add(i);
+                }
+            }
+
+            assertEquals(rect.toString(), expected, index.intersected(rect));
+        }
+
+        index.clear();
+        assertEquals(0, index.size());
+        assertTrue(index.intersected(new Rectangle(0, 0, 1000, 1000)).isEmpty());
+    }
+
+    //------------//
+    // intersects //
+    //------------//
+    /**
+     * Reference intersection, an empty box being considered as a single point.
+     */
+    private static boolean intersects (Rectangle box,
+                                       Rectangle rect)
+    {
+        Rectangle b = new Rectangle(
+                box.x,
+                box.y,
+                Math.max(box.width, 1),
+                Math.max(box.height, 1));
+
+        return b.intersects(rect);
+    }
+}